@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 public class ChatMessageResponseDTO {
     private Long messageId;
     private Long sessionId;
+    private Long seq;
+    private String clientMessageId;
     private Long senderUserId;
     private String senderFullName;
     private MessageType messageType;
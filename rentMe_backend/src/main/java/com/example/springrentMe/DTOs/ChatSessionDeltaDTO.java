@@ -0,0 +1,37 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What changed in one session since the client's last sequence number.
+ * Messages are oldest first; when hasMore is set, ask again after the last
+ * one's seq. Read positions are sequence numbers: the caller's own, and the
+ * other participant's (the caller's messages up to it have been read).
+ * Messages not yet written to the database (write-behind) are included;
+ * their messageId is null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionDeltaDTO {
+
+    private Long sessionId;
+    private Long lastSeq;
+    private List<ChatMessageResponseDTO> messages;
+    private boolean hasMore;
+
+    // Sequence numbers of messages deleted since the client's deletedSince
+    private List<Long> deletedSeqs;
+
+    private Long readSeq;
+    private Long otherReadSeq;
+    private long unreadCount;
+
+    // When the delta was taken: the client's deletedSince for the next one
+    private LocalDateTime syncedAt;
+}
@@ -25,6 +25,7 @@ public class ChatSessionResponseDTO {
     // Summary
     private String lastMessagePreview; // first 60 chars of last message content
     private LocalDateTime lastMessageAt;
+    private Long lastSeq;              // last sequence number handed out: the session's sync cursor
     private long unreadCount;          // unread messages for the calling user
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,43 @@
+package com.example.springrentMe.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client state for a multi-session sync: what it has of each session it
+ * knows, and the syncedAt of its previous sync (null on the first).
+ * Sessions missing from the list are sent in full, up to the per-session
+ * limit, if they changed since deletedSince (any session on a first sync).
+ * afterSessionId is the previous response's, when it asked for another page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSyncRequestDTO {
+
+    @Valid
+    private List<SessionCursor> sessions = new ArrayList<>();
+
+    private LocalDateTime deletedSince;
+
+    private Long afterSessionId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SessionCursor {
+        @NotNull(message = "Session ID is required")
+        private Long sessionId;
+
+        private Long afterSeq;      // last message seq the client has (0 for none)
+        private Long readSeq;       // read positions as of the client's last sync
+        private Long otherReadSeq;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Changed sessions only. Pass syncedAt back as deletedSince next time (the
+ * first page's, when the sync took several). afterSessionId is set when more
+ * sessions remain: ask again with it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSyncResponseDTO {
+
+    private LocalDateTime syncedAt;
+    private List<ChatSessionDeltaDTO> sessions;
+    private Long afterSessionId;
+}
@@ -0,0 +1,86 @@
+package com.example.springrentMe.DTOs;
+
+import com.example.springrentMe.utils.KeysetCursor;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+/**
+ * Cursor-paginated response envelope — the keyset counterpart of {@link PageResponse}.
+ *
+ * Returned by listing endpoints when the client passes {@code ?cursor=} (empty
+ * for the first page). There is no page number or total: pass
+ * {@code meta.nextCursor} back to fetch the following page.
+ *
+ * <pre>
+ * {
+ *   "data": [ … ],
+ *   "meta": {
+ *     "size": 20,
+ *     "hasNext": true,
+ *     "nextCursor": "MjAyNi0wMS0wMVQxMDowMDozMHw0Mg"
+ *   }
+ * }
+ * </pre>
+ */
+public class CursorPageResponse<T> {
+
+    private List<T> data;
+    private Meta    meta;
+
+    // ─── Constructors ──────────────────────────────────────────────────────────
+
+    public CursorPageResponse() {}
+
+    private CursorPageResponse(List<T> data, Meta meta) {
+        this.data = data;
+        this.meta = meta;
+    }
+
+    // ─── Factory ───────────────────────────────────────────────────────────────
+
+    /**
+     * Build a {@code CursorPageResponse} from a Spring Data keyset {@link Window}.
+     *
+     * @param window the window returned by a repository/service
+     * @param <T>    the DTO type contained in the window
+     * @return       wrapped response
+     */
+    public static <T> CursorPageResponse<T> of(Window<T> window) {
+        Meta meta = new Meta(window.size(), window.hasNext(), KeysetCursor.nextCursor(window));
+        return new CursorPageResponse<>(window.getContent(), meta);
+    }
+
+    // ─── Getters / Setters ─────────────────────────────────────────────────────
+
+    public List<T> getData()       { return data; }
+    public void    setData(List<T> data) { this.data = data; }
+
+    public Meta getMeta()          { return meta; }
+    public void setMeta(Meta meta) { this.meta = meta; }
+
+    // ─── Inner class ───────────────────────────────────────────────────────────
+
+    public static class Meta {
+        private int     size;
+        private boolean hasNext;
+        private String  nextCursor;
+
+        public Meta() {}
+
+        public Meta(int size, boolean hasNext, String nextCursor) {
+            this.size       = size;
+            this.hasNext    = hasNext;
+            this.nextCursor = nextCursor;
+        }
+
+        public int     getSize()          { return size; }
+        public void    setSize(int size)  { this.size = size; }
+
+        public boolean isHasNext()                 { return hasNext; }
+        public void    setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+        public String  getNextCursor()                  { return nextCursor; }
+        public void    setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One facet value and the number of matching vehicles, e.g. {"value": "4+", "count": 12}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucketDTO {
+
+    private String value;
+    private long count;
+}
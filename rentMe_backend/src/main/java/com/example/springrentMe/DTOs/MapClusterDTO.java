@@ -0,0 +1,21 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One map marker in clustering mode: the vehicles of a grid cell, drawn at their centroid.
+ * vehicleId is only set when the cell holds a single vehicle.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClusterDTO {
+
+    private Long cell;
+    private Long count;
+    private Double latitude;
+    private Double longitude;
+    private Long vehicleId;
+}
@@ -0,0 +1,21 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clustered map view of a bounding box. level is the grid depth in bits per
+ * axis (cells are 360 / 2^level degrees of longitude by 180 / 2^level of latitude).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClustersDTO {
+
+    private Integer level;
+    private Long totalVehicles;
+    private List<MapClusterDTO> clusters;
+}
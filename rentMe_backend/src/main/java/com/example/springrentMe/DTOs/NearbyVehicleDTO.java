@@ -0,0 +1,18 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A vehicle returned by the nearby search, with its great-circle distance
+ * (in km) from the requested point.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyVehicleDTO {
+
+    private Double distanceKm;
+    private VehicleResponseDTO vehicle;
+}
@@ -1,5 +1,6 @@
 package com.example.springrentMe.DTOs;
 
+import com.example.springrentMe.utils.SearchPage;
 import org.springframework.data.domain.Page;
 
 import java.util.List;
@@ -19,11 +20,15 @@ import java.util.List;
  *     "totalElements": 523,
  *     "totalPages": 27,
  *     "first": true,
- *     "last": false
+ *     "last": false,
+ *     "truncated": false
  *   }
  * }
  * </pre>
  *
+ * {@code truncated} is true when not every match was counted and
+ * {@code totalElements} is an estimate (text searches, see {@link SearchPage}).
+ *
  * Usage:
  * <pre>
  *   Page&lt;MyDTO&gt; page = service.listItems(pageable);
@@ -60,7 +65,8 @@ public class PageResponse<T> {
                 page.getTotalElements(),
                 page.getTotalPages(),
                 page.isFirst(),
-                page.isLast()
+                page.isLast(),
+                page instanceof SearchPage<?> search && search.isTruncated()
         );
         return new PageResponse<>(page.getContent(), meta);
     }
@@ -82,17 +88,19 @@ public class PageResponse<T> {
         private int  totalPages;
         private boolean first;
         private boolean last;
+        private boolean truncated;
 
         public Meta() {}
 
         public Meta(int page, int size, long totalElements,
-                    int totalPages, boolean first, boolean last) {
+                    int totalPages, boolean first, boolean last, boolean truncated) {
             this.page          = page;
             this.size          = size;
             this.totalElements = totalElements;
             this.totalPages    = totalPages;
             this.first         = first;
             this.last          = last;
+            this.truncated     = truncated;
         }
 
         public int     getPage()          { return page; }
@@ -112,5 +120,8 @@ public class PageResponse<T> {
 
         public boolean isLast()             { return last; }
         public void    setLast(boolean last) { this.last = last; }
+
+        public boolean isTruncated()                  { return truncated; }
+        public void    setTruncated(boolean truncated) { this.truncated = truncated; }
     }
 }
@@ -0,0 +1,20 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One bar of the daily-price histogram: vehicles with from <= dailyPrice < to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDTO {
+
+    private BigDecimal from;
+    private BigDecimal to;
+    private long count;
+}
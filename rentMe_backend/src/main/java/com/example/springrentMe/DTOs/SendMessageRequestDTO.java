@@ -2,6 +2,7 @@ package com.example.springrentMe.DTOs;
 
 import com.example.springrentMe.models.MessageType;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,8 @@ public class SendMessageRequestDTO {
     private String fileUrl;     // required if IMAGE
     private Double latitude;    // required if LOCATION
     private Double longitude;   // required if LOCATION
+
+    // Optional idempotency key (e.g. a UUID); resending with the same key returns the stored message
+    @Size(max = 64, message = "Client message ID must be at most 64 characters")
+    private String clientMessageId;
 }
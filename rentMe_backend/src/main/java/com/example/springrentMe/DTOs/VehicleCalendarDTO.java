@@ -0,0 +1,23 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Booked / free days of a vehicle between {@code from} and {@code to} (inclusive).
+ * {@code days} has one character per day starting at {@code from}:
+ * '1' = booked (active booking), '0' = free.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleCalendarDTO {
+
+    private Long vehicleId;
+    private LocalDate from;
+    private LocalDate to;
+    private String days;
+}
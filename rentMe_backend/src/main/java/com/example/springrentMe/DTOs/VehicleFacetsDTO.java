@@ -0,0 +1,31 @@
+package com.example.springrentMe.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Facet counts for the current search filters.
+ *
+ * types      – one bucket per VehicleType (zero counts included)
+ * capacities – cumulative "at least N seats" buckets, matching the minCapacity filter
+ * ratings    – cumulative "N stars and up" buckets, matching the minRating filter
+ * prices     – non-empty daily-price histogram bars of width priceBucketWidth
+ * truncated  – a text query (q) matched more vehicles than were counted; the
+ *              counts cover only the most relevant app.search.text.max-scanned
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleFacetsDTO {
+
+    private long total;
+    private List<FacetBucketDTO> types;
+    private List<FacetBucketDTO> capacities;
+    private List<FacetBucketDTO> ratings;
+    private int priceBucketWidth;
+    private List<PriceBucketDTO> prices;
+    private boolean truncated;
+}
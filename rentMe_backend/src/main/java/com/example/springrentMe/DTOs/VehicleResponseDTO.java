@@ -25,6 +25,7 @@ public class VehicleResponseDTO {
     private BigDecimal dailyPrice;
     private String description;
     private List<String> pictures;
+    private String primaryPicture;
     private String pickupLocation;
     private Double latitude;
     private Double longitude;
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,4 +15,10 @@ public class VehicleReviewSummaryDTO {
     private Long vehicleId;
     private Double averageRating;
     private Long totalReviews;
+
+    // Number of reviews per star rating, 5 down to 1 (every key present)
+    private Map<Integer, Long> ratingDistribution;
+
+    // Latest reviews, newest first
+    private List<ReviewResponseDTO> recentReviews;
 }
@@ -0,0 +1,42 @@
+package com.example.springrentMe.DTOs;
+
+import com.example.springrentMe.models.VehicleType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Filters and sort order for the public vehicle search. Every field is
+ * optional; null means "no restriction".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleSearchCriteria {
+
+    // Free-text query over make, model, type and description
+    private String q;
+
+    private VehicleType type;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+    private Double minRating;
+    private String make;
+
+    // Date-range availability (both or neither)
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // Bounding box (all four or none)
+    private Double minLat;
+    private Double maxLat;
+    private Double minLng;
+    private Double maxLng;
+
+    // relevance (default with q) | newest (default otherwise) | price_asc | price_desc | rating
+    private String sort;
+}
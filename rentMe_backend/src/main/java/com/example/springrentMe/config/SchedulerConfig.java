@@ -5,7 +5,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Enables Spring's @Scheduled annotation processing.
- * Required for BookingService's automatic APPROVED → ONGOING → COMPLETED transitions.
+ * Required for BookingTransitionJob's automatic APPROVED → ONGOING → COMPLETED transitions.
  */
 @Configuration
 @EnableScheduling
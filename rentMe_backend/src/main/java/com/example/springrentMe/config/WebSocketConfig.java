@@ -1,5 +1,6 @@
 package com.example.springrentMe.config;
 
+import com.example.springrentMe.security.JwtHandshakeInterceptor;
 import com.example.springrentMe.security.WebSocketAuthChannelInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,16 +22,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private WebSocketAuthChannelInterceptor authChannelInterceptor;
 
+    @Autowired
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register STOMP endpoint: /ws (with SockJS fallback)
+        // The handshake's jwt_token cookie authenticates the STOMP CONNECT (browser logins)
         registry.addEndpoint("/ws")
                 .setAllowedOrigins(frontendUrl)
+                .addInterceptors(jwtHandshakeInterceptor)
                 .withSockJS();
         
         // Also support standard WebSocket without SockJS
         registry.addEndpoint("/ws")
-                .setAllowedOrigins(frontendUrl);
+                .setAllowedOrigins(frontendUrl)
+                .addInterceptors(jwtHandshakeInterceptor);
     }
 
     @Override
@@ -4,13 +4,26 @@ import com.example.springrentMe.DTOs.AuthResponse;
 import com.example.springrentMe.DTOs.GoogleLoginRequest;
 import com.example.springrentMe.DTOs.LoginRequest;
 import com.example.springrentMe.DTOs.RegisterRequest;
+import com.example.springrentMe.exceptions.InvalidRefreshTokenException;
+import com.example.springrentMe.exceptions.RefreshTokenAlreadyUsedException;
 import com.example.springrentMe.models.User;
 import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.security.CustomUserDetailsService;
+import com.example.springrentMe.security.UserDetailsImpl;
 import com.example.springrentMe.services.AuthService;
+import com.example.springrentMe.services.auth.RefreshTokenService;
+import com.example.springrentMe.services.auth.TokenRevocationService;
 import com.example.springrentMe.utils.CookieUtils;
+import com.example.springrentMe.utils.JwtAuthenticationFilter;
+import com.example.springrentMe.utils.JwtTokenProvider;
+import com.example.springrentMe.utils.VerifiedToken;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -23,10 +36,20 @@ public class AuthController {
 
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationService revocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final CustomUserDetailsService userDetailsService;
 
-    public AuthController(AuthService authService, UserRepository userRepository) {
+    public AuthController(AuthService authService, UserRepository userRepository,
+            JwtTokenProvider tokenProvider, TokenRevocationService revocationService,
+            RefreshTokenService refreshTokenService, CustomUserDetailsService userDetailsService) {
         this.authService = authService;
         this.userRepository = userRepository;
+        this.tokenProvider = tokenProvider;
+        this.revocationService = revocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -68,6 +91,8 @@ public class AuthController {
 
             // Set JWT token in HTTP-only cookie using centralized utility
             CookieUtils.setAuthCookies(response, authResponse.getToken(), user);
+            CookieUtils.setRefreshCookie(response, refreshTokenService.issue(user.getUserId()),
+                    refreshTokenService.ttlSeconds());
 
             // Return user info (without token in body)
             Map<String, Object> responseBody = new HashMap<>();
@@ -99,6 +124,8 @@ public class AuthController {
 
             // Set JWT token in HTTP-only cookie using centralized utility
             CookieUtils.setAuthCookies(response, authResponse.getToken(), user);
+            CookieUtils.setRefreshCookie(response, refreshTokenService.issue(user.getUserId()),
+                    refreshTokenService.ttlSeconds());
 
             // Return user info (without token in body)
             Map<String, Object> responseBody = new HashMap<>();
@@ -115,6 +142,50 @@ public class AuthController {
         }
     }
 
+    /**
+     * Exchange the refresh token cookie for a new access token
+     * POST /api/v1/auth/refresh
+     * Rotates the refresh token; no password check involved.
+     * Cookies are cleared only when the token is dead (reused, revoked,
+     * expired), not when a concurrent refresh got there first.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = CookieUtils.getRefreshToken(request);
+        if (refreshToken == null) {
+            return ResponseEntity.status(401).body("No refresh token");
+        }
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+
+            UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserById(rotation.userId());
+            if (!Boolean.TRUE.equals(userDetails.getIsActive())) {
+                refreshTokenService.revoke(rotation.token());
+                throw new InvalidRefreshTokenException("Account is deactivated");
+            }
+            User user = userRepository.findById(rotation.userId())
+                    .orElseThrow(() -> new InvalidRefreshTokenException("User not found"));
+
+            CookieUtils.setAuthCookies(response, tokenProvider.generateToken(userDetails), user);
+            CookieUtils.setRefreshCookie(response, rotation.token(), refreshTokenService.ttlSeconds());
+
+            Map<String, Object> responseBody = new HashMap<>();
+            responseBody.put("success", true);
+            responseBody.put("message", "Token refreshed");
+            responseBody.put("userId", user.getUserId());
+            responseBody.put("email", user.getEmail());
+            responseBody.put("role", user.getRole().name());
+
+            return ResponseEntity.ok(responseBody);
+        } catch (RefreshTokenAlreadyUsedException e) {
+            // A concurrent refresh won and is setting fresh cookies; clearing them here would log the user out
+            return ResponseEntity.status(401).body("Refresh already in progress");
+        } catch (InvalidRefreshTokenException | UsernameNotFoundException e) {
+            CookieUtils.clearAuthCookies(response);
+            return ResponseEntity.status(401).body("Invalid refresh token");
+        }
+    }
+
     /**
      * Test endpoint to verify authentication is working
      * GET /api/v1/auth/test
@@ -181,11 +252,22 @@ public class AuthController {
     }
 
     /**
-     * Logout endpoint - clears authentication cookies
+     * Logout endpoint - revokes the presented tokens and clears authentication cookies
      * POST /api/v1/auth/logout
      */
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletResponse response) {
+    public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
+        // Revoke the token itself, not just the cookie holding it
+        String jwt = JwtAuthenticationFilter.resolveToken(request);
+        VerifiedToken token = jwt != null ? tokenProvider.verify(jwt) : null;
+        if (token != null) {
+            revocationService.revoke(token, token.user().getId());
+        }
+        String refreshToken = CookieUtils.getRefreshToken(request);
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+
         // Clear authentication cookies using centralized utility
         CookieUtils.clearAuthCookies(response);
 
@@ -195,4 +277,24 @@ public class AuthController {
 
         return ResponseEntity.ok(responseBody);
     }
+
+    /**
+     * Logout everywhere - revokes every token issued to the current user so far
+     * POST /api/v1/auth/logout-all
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(HttpServletResponse response) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserDetailsImpl userDetails)) {
+            return ResponseEntity.status(401).body("Not authenticated");
+        }
+        revocationService.revokeAllForUser(userDetails.getId());
+        CookieUtils.clearAuthCookies(response);
+
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("success", true);
+        responseBody.put("message", "Logged out of all sessions");
+
+        return ResponseEntity.ok(responseBody);
+    }
 }
@@ -3,9 +3,11 @@ package com.example.springrentMe.controllers;
 import com.example.springrentMe.DTOs.BookingRequestDTO;
 import com.example.springrentMe.DTOs.BookingResponseDTO;
 import com.example.springrentMe.DTOs.BookingStatusUpdateDTO;
+import com.example.springrentMe.DTOs.CursorPageResponse;
 import com.example.springrentMe.DTOs.PageResponse;
 import com.example.springrentMe.models.BookingStatus;
 import com.example.springrentMe.services.BookingService;
+import com.example.springrentMe.utils.PageSizes;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -34,6 +36,9 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private PageSizes pageSizes;
+
     // ─────────────────────────────────────────────────────────────────────────
     // RENTER ENDPOINTS
     // ─────────────────────────────────────────────────────────────────────────
@@ -56,13 +61,18 @@ public class BookingController {
     /**
      * GET /api/v1/bookings/my
      * Renter retrieves all their own bookings.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('RENTER')")
     @GetMapping("/bookings/my")
-    public ResponseEntity<PageResponse<BookingResponseDTO>> getMyBookingsAsRenter(
+    public ResponseEntity<?> getMyBookingsAsRenter(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(bookingService.getMyBookingsAsRenter(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(bookingService.getMyBookingsAsRenter(pageable)));
     }
 
@@ -112,26 +122,36 @@ public class BookingController {
     /**
      * GET /api/v1/owner/bookings
      * Owner retrieves all bookings across their vehicles.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('VEHICLE_OWNER')")
     @GetMapping("/owner/bookings")
-    public ResponseEntity<PageResponse<BookingResponseDTO>> getOwnerBookings(
+    public ResponseEntity<?> getOwnerBookings(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(bookingService.getMyBookingsAsOwner(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(bookingService.getMyBookingsAsOwner(pageable)));
     }
 
     /**
      * GET /api/v1/owner/bookings/pending
      * Owner retrieves only PENDING booking requests awaiting their decision.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('VEHICLE_OWNER')")
     @GetMapping("/owner/bookings/pending")
-    public ResponseEntity<PageResponse<BookingResponseDTO>> getPendingRequests(
+    public ResponseEntity<?> getPendingRequests(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").ascending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(bookingService.getPendingRequestsForOwner(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").ascending());
         return ResponseEntity.ok(PageResponse.of(bookingService.getPendingRequestsForOwner(pageable)));
     }
 
@@ -185,13 +205,18 @@ public class BookingController {
     /**
      * GET /api/v1/admin/bookings
      * Admin retrieves all bookings in the system.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin/bookings")
-    public ResponseEntity<PageResponse<BookingResponseDTO>> getAllBookings(
+    public ResponseEntity<?> getAllBookings(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(bookingService.getAllBookings(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(bookingService.getAllBookings(pageable)));
     }
 
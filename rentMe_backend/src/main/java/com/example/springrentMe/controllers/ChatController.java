@@ -2,6 +2,7 @@ package com.example.springrentMe.controllers;
 
 import com.example.springrentMe.DTOs.*;
 import com.example.springrentMe.services.ChatService;
+import com.example.springrentMe.utils.PageSizes;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,11 +10,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +27,9 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private PageSizes pageSizes;
+
     @Value("${app.chat.sessions-per-page:20}")
     private int defaultSessionsPerPage;
 
@@ -50,7 +56,7 @@ public class ChatController {
     public ResponseEntity<PageResponse<ChatSessionResponseDTO>> getMySessions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer size) {
-        int pageSize = size != null ? size : defaultSessionsPerPage;
+        int pageSize = pageSizes.clamp(size != null ? size : defaultSessionsPerPage);
         Pageable pageable = PageRequest.of(page, pageSize, Sort.by("lastMessageAt").descending());
         return ResponseEntity.ok(PageResponse.of(chatService.getMySessions(pageable)));
     }
@@ -68,18 +74,41 @@ public class ChatController {
     /**
      * GET /api/v1/chat/sessions/{sessionId}/messages
      * Get messages in session (paginated, oldest first).
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
+     * Delta mode: pass ?afterSeq= (last seq the client has) and, to learn about
+     * deletions, ?deletedSince= (the previous delta's syncedAt) — see ChatSessionDeltaDTO.
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/chat/sessions/{sessionId}/messages")
-    public ResponseEntity<PageResponse<ChatMessageResponseDTO>> getMessages(
+    public ResponseEntity<?> getMessages(
             @PathVariable Long sessionId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(required = false) Integer size) {
-        int pageSize = size != null ? size : defaultMessagesPerPage;
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deletedSince) {
+        int pageSize = pageSizes.clamp(size != null ? size : defaultMessagesPerPage);
+        if (afterSeq != null) {
+            return ResponseEntity.ok(chatService.getMessagesAfter(sessionId, afterSeq, pageSize, deletedSince));
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(chatService.getMessages(sessionId, cursor, pageSize)));
+        }
         Pageable pageable = PageRequest.of(page, pageSize, Sort.by("createdAt").ascending());
         return ResponseEntity.ok(PageResponse.of(chatService.getMessages(sessionId, pageable)));
     }
 
+    /**
+     * POST /api/v1/chat/sync
+     * Changes across all of the caller's sessions since the client's last sync,
+     * a page of sessions at a time — see ChatSyncResponseDTO.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/chat/sync")
+    public ResponseEntity<ChatSyncResponseDTO> sync(@Valid @RequestBody ChatSyncRequestDTO request) {
+        return ResponseEntity.ok(chatService.sync(request));
+    }
+
     /**
      * POST /api/v1/chat/sessions/{sessionId}/messages
      * REST fallback endpoint to send a message.
@@ -148,7 +177,7 @@ public class ChatController {
     public ResponseEntity<PageResponse<ChatSessionResponseDTO>> getAllSessions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer size) {
-        int pageSize = size != null ? size : defaultSessionsPerPage;
+        int pageSize = pageSizes.clamp(size != null ? size : defaultSessionsPerPage);
         Pageable pageable = PageRequest.of(page, pageSize, Sort.by("lastMessageAt").descending());
         return ResponseEntity.ok(PageResponse.of(chatService.getAllSessionsSystemWide(pageable)));
     }
@@ -156,14 +185,19 @@ public class ChatController {
     /**
      * GET /api/v1/admin/chat/sessions/{sessionId}/messages
      * Admin view of messages in any session system-wide.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin/chat/sessions/{sessionId}/messages")
-    public ResponseEntity<PageResponse<ChatMessageResponseDTO>> getAnySessionMessages(
+    public ResponseEntity<?> getAnySessionMessages(
             @PathVariable Long sessionId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(required = false) Integer size) {
-        int pageSize = size != null ? size : defaultMessagesPerPage;
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        int pageSize = pageSizes.clamp(size != null ? size : defaultMessagesPerPage);
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(chatService.getAnySessionMessages(sessionId, cursor, pageSize)));
+        }
         Pageable pageable = PageRequest.of(page, pageSize, Sort.by("createdAt").ascending());
         return ResponseEntity.ok(PageResponse.of(chatService.getAnySessionMessages(sessionId, pageable)));
     }
@@ -2,17 +2,24 @@ package com.example.springrentMe.controllers;
 
 import com.example.springrentMe.DTOs.ChatMessageResponseDTO;
 import com.example.springrentMe.DTOs.SendMessageRequestDTO;
+import com.example.springrentMe.exceptions.ChatBusyException;
 import com.example.springrentMe.services.ChatService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
 
 @Controller
 public class ChatWebSocketController {
@@ -24,7 +31,7 @@ public class ChatWebSocketController {
     @SendToUser("/queue/messages")
     public ChatMessageResponseDTO handleMessage(
             @DestinationVariable Long sessionId,
-            @Payload SendMessageRequestDTO req,
+            @Valid @Payload SendMessageRequestDTO req,
             Principal principal) {
         
         if (principal instanceof UsernamePasswordAuthenticationToken auth) {
@@ -41,4 +48,21 @@ public class ChatWebSocketController {
             SecurityContextHolder.clearContext();
         }
     }
+
+    /**
+     * A failed send is reported to the sender, keyed by the client message ID
+     * the client sends as the {@code client-message-id} header. Retryable
+     * failures (server busy) stay in the client's outbox; the rest are dropped.
+     */
+    @MessageExceptionHandler
+    @SendToUser("/queue/errors")
+    public Map<String, Object> handleSendError(
+            Exception ex,
+            @Header(name = "client-message-id", required = false) String clientMessageId) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("clientMessageId", clientMessageId);
+        error.put("message", ex instanceof MethodArgumentNotValidException ? "Validation failed" : ex.getMessage());
+        error.put("retryable", ex instanceof ChatBusyException);
+        return error;
+    }
 }
@@ -1,10 +1,15 @@
 package com.example.springrentMe.controllers;
 
 import com.example.springrentMe.DTOs.CreateReviewRequestDTO;
+import com.example.springrentMe.DTOs.CursorPageResponse;
 import com.example.springrentMe.DTOs.PageResponse;
 import com.example.springrentMe.DTOs.ReviewResponseDTO;
 import com.example.springrentMe.DTOs.VehicleReviewSummaryDTO;
+import com.example.springrentMe.repositories.VehicleVersion;
 import com.example.springrentMe.services.ReviewService;
+import com.example.springrentMe.utils.HttpCaching;
+import com.example.springrentMe.utils.PageSizes;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -15,9 +20,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 public class ReviewController {
@@ -25,6 +32,9 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private PageSizes pageSizes;
+
     /**
      * POST /api/v1/reviews
      * Create a review for a completed booking.
@@ -55,24 +65,56 @@ public class ReviewController {
     /**
      * GET /api/v1/public/reviews/vehicle/{vehicleId}
      * Retrieve all reviews for a vehicle (Public).
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
+     * Weak ETag from the vehicle's review version, checked before the reviews are loaded.
      */
     @GetMapping("/api/v1/public/reviews/vehicle/{vehicleId}")
-    public ResponseEntity<PageResponse<ReviewResponseDTO>> getReviewsByVehicle(
+    public ResponseEntity<?> getReviewsByVehicle(
             @PathVariable Long vehicleId,
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return ResponseEntity.ok(PageResponse.of(reviewService.getReviewsByVehicle(vehicleId, pageable)));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request) {
+        Optional<VehicleVersion> version = reviewService.getVehicleReviewVersion(vehicleId);
+        String etag = version.map(v -> HttpCaching.weakETag(
+                "reviews", vehicleId, HttpCaching.versionOf(v.updatedAt()), v.totalReviews())).orElse(null);
+        if (etag != null && HttpCaching.isNotModified(request, etag, null)) {
+            return HttpCaching.notModified(etag, null, HttpCaching.PUBLIC_COLLECTION);
+        }
+
+        Object body;
+        if (cursor != null) {
+            body = CursorPageResponse.of(reviewService.getReviewsByVehicle(vehicleId, cursor, pageSizes.clamp(size)));
+        } else {
+            Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
+            body = PageResponse.of(reviewService.getReviewsByVehicle(vehicleId, pageable));
+        }
+        return etag == null
+                ? ResponseEntity.ok(body)
+                : HttpCaching.respond(request, body, etag, null, HttpCaching.PUBLIC_COLLECTION);
     }
 
     /**
      * GET /api/v1/public/reviews/vehicle/{vehicleId}/summary
      * Retrieve aggregate summary for a vehicle (Public).
+     * Strong ETag from the vehicle's review version (updatedAt, bumped by every
+     * review change, plus the aggregates): a matching revalidation is answered
+     * 304 without computing the summary, its distribution or recent reviews.
      */
     @GetMapping("/api/v1/public/reviews/vehicle/{vehicleId}/summary")
-    public ResponseEntity<VehicleReviewSummaryDTO> getVehicleReviewSummary(@PathVariable Long vehicleId) {
+    public ResponseEntity<VehicleReviewSummaryDTO> getVehicleReviewSummary(
+            @PathVariable Long vehicleId, HttpServletRequest request) {
+        Optional<VehicleVersion> version = reviewService.getVehicleReviewVersion(vehicleId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(reviewService.getVehicleReviewSummary(vehicleId));
+        }
+        String etag = summaryETag(vehicleId, version.get());
+        Instant lastModified = HttpCaching.toInstant(version.get().updatedAt());
+        if (HttpCaching.isNotModified(request, etag, lastModified)) {
+            return HttpCaching.notModified(etag, lastModified, HttpCaching.PUBLIC_RESOURCE);
+        }
         VehicleReviewSummaryDTO summary = reviewService.getVehicleReviewSummary(vehicleId);
-        return ResponseEntity.ok(summary);
+        return HttpCaching.respond(request, summary, etag, lastModified, HttpCaching.PUBLIC_RESOURCE);
     }
 
     /**
@@ -89,13 +131,23 @@ public class ReviewController {
      * GET /api/v1/admin/reviews
      * Retrieve all reviews for admin moderation.
      * Role required: ADMIN only.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/api/v1/admin/reviews")
-    public ResponseEntity<PageResponse<ReviewResponseDTO>> getAllReviewsAdmin(
+    public ResponseEntity<?> getAllReviewsAdmin(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(reviewService.getAllReviews(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(reviewService.getAllReviews(pageable)));
     }
+
+    private static String summaryETag(Long vehicleId, VehicleVersion version) {
+        return HttpCaching.strongETag("review-summary", vehicleId, HttpCaching.versionOf(version.updatedAt()),
+                version.totalReviews(), version.averageRating());
+    }
 }
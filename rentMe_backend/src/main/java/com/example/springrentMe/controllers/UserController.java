@@ -4,8 +4,16 @@ import com.example.springrentMe.DTOs.ChangePasswordRequest;
 import com.example.springrentMe.DTOs.PageResponse;
 import com.example.springrentMe.DTOs.UpdateUserRequest;
 import com.example.springrentMe.DTOs.UserDTO;
+import com.example.springrentMe.models.User;
+import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.security.CustomUserDetailsService;
 import com.example.springrentMe.security.UserDetailsImpl;
 import com.example.springrentMe.services.UserService;
+import com.example.springrentMe.services.auth.RefreshTokenService;
+import com.example.springrentMe.utils.CookieUtils;
+import com.example.springrentMe.utils.JwtTokenProvider;
+import com.example.springrentMe.utils.PageSizes;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -34,6 +42,21 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PageSizes pageSizes;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * Get current authenticated user's profile
      * Accessible by: Any authenticated user
@@ -57,7 +80,7 @@ public class UserController {
     public ResponseEntity<PageResponse<UserDTO>> getAllUsers(
             @RequestParam(defaultValue = "0")    int page,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(userService.getAllUsers(pageable)));
     }
 
@@ -102,14 +125,23 @@ public class UserController {
      * Change password
      * Accessible by: The user themselves only (not admin)
      * Note: Only for local auth users, not OAuth users
+     * Every other session is signed out; this one gets fresh tokens.
      */
     @PreAuthorize("@userSecurity.isOwner(#userId)")
     @PostMapping("/{userId}/change-password")
     public ResponseEntity<Map<String, String>> changePassword(
             @PathVariable Long userId,
-            @Valid @RequestBody ChangePasswordRequest request) {
+            @Valid @RequestBody ChangePasswordRequest request,
+            HttpServletResponse httpResponse) {
         userService.changePassword(userId, request);
 
+        // Issued after the revocation watermark, so they survive it
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        CookieUtils.setAuthCookies(httpResponse, tokenProvider.generateToken(userDetails), user);
+        CookieUtils.setRefreshCookie(httpResponse, refreshTokenService.issue(userId), refreshTokenService.ttlSeconds());
+
         Map<String, String> response = new HashMap<>();
         response.put("message", "Password changed successfully");
         return ResponseEntity.ok(response);
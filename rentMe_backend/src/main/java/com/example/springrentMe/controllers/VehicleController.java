@@ -1,25 +1,40 @@
 package com.example.springrentMe.controllers;
 
+import com.example.springrentMe.DTOs.CursorPageResponse;
+import com.example.springrentMe.DTOs.MapClustersDTO;
 import com.example.springrentMe.DTOs.PageResponse;
 import com.example.springrentMe.DTOs.VehicleAvailabilityUpdateDTO;
 import com.example.springrentMe.DTOs.VehicleRequestDTO;
 import com.example.springrentMe.DTOs.VehicleResponseDTO;
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
 import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleVersion;
 import com.example.springrentMe.services.VehicleService;
+import com.example.springrentMe.utils.HttpCaching;
+import com.example.springrentMe.utils.PageSizes;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Vehicle CRUD endpoints.
@@ -33,28 +48,109 @@ public class VehicleController {
     @Autowired
     private VehicleService vehicleService;
 
+    @Autowired
+    private PageSizes pageSizes;
+
     // ─────────────────────────────────────────────────────────────────────────
     // PUBLIC ENDPOINTS  (no authentication required)
     // ─────────────────────────────────────────────────────────────────────────
 
     /**
      * GET /api/v1/public/vehicles
-     * List all available + listed vehicles.
-     * Optional query params: type, maxPrice
+     * Search available + listed vehicles. All filters are optional and combine freely:
+     *   q (text search over make / model / type / description; last word matches as a prefix),
+     *   type, minPrice, maxPrice, minCapacity, minRating, make,
+     *   startDate + endDate (yyyy-MM-dd; no active booking overlapping those dates),
+     *   minLat + maxLat + minLng + maxLng (bounding box).
+     * sort: relevance (default with q) | newest (default otherwise) | price_asc | price_desc | rating
+     *
+     * With q, meta.truncated = true means totalElements is an estimate; with an
+     * explicit sort only the most relevant app.search.text.chunk-size matches are sorted.
+     *
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
+     * Only available with sort=newest.
+     *
+     * Weak ETag over the listed vehicles' versions; If-None-Match → 304 without a body.
      */
     @GetMapping("/api/v1/public/vehicles")
-    public ResponseEntity<PageResponse<VehicleResponseDTO>> getAvailableVehicles(
+    public ResponseEntity<?> getAvailableVehicles(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) VehicleType type,
+            @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String make,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double minLng,
+            @RequestParam(required = false) Double maxLng,
+            @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return ResponseEntity.ok(PageResponse.of(vehicleService.searchVehicles(type, maxPrice, pageable)));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request) {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria(q, type, minPrice, maxPrice, minCapacity, minRating,
+                make, startDate, endDate, minLat, maxLat, minLng, maxLng, sort);
+        try {
+            if (cursor != null) {
+                Window<VehicleVersion> versions = vehicleService.searchVehicleVersions(criteria, cursor, pageSizes.clamp(size));
+                String etag = listingETag(versions.getContent(), versions.hasNext());
+                if (HttpCaching.isNotModified(request, etag, null)) {
+                    return HttpCaching.notModified(etag, null, HttpCaching.PUBLIC_COLLECTION);
+                }
+                return HttpCaching.respond(request, CursorPageResponse.of(vehicleService.getVehicleResponses(versions)),
+                        etag, null, HttpCaching.PUBLIC_COLLECTION);
+            }
+            Page<VehicleVersion> versions = vehicleService.searchVehicleVersions(criteria, page, pageSizes.clamp(size));
+            String etag = listingETag(versions.getContent(), versions.getTotalElements());
+            if (HttpCaching.isNotModified(request, etag, null)) {
+                return HttpCaching.notModified(etag, null, HttpCaching.PUBLIC_COLLECTION);
+            }
+            return HttpCaching.respond(request, PageResponse.of(vehicleService.getVehicleResponses(versions)),
+                    etag, null, HttpCaching.PUBLIC_COLLECTION);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/facets
+     * Facet counts (type, capacity, rating) and a daily-price histogram for the
+     * same filters as GET /api/v1/public/vehicles, including the text query q,
+     * computed in one query (one per chunk of text matches when q is set).
+     * priceBucketWidth sets the histogram bar width (default 25).
+     */
+    @GetMapping("/api/v1/public/vehicles/facets")
+    public ResponseEntity<?> getSearchFacets(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) VehicleType type,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String make,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double minLng,
+            @RequestParam(required = false) Double maxLng,
+            @RequestParam(defaultValue = "25") int priceBucketWidth) {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria(q, type, minPrice, maxPrice, minCapacity,
+                minRating, make, startDate, endDate, minLat, maxLat, minLng, maxLng, null);
+        try {
+            return ResponseEntity.ok(vehicleService.getSearchFacets(criteria, priceBucketWidth));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
     }
 
     /**
      * GET /api/v1/public/vehicles/map
-     * Get vehicles within a lat/lng bounding box for the map view.
+     * Get vehicles within a lat/lng bounding box for the map view (newest first).
      */
     @GetMapping("/api/v1/public/vehicles/map")
     public ResponseEntity<PageResponse<VehicleResponseDTO>> getVehiclesForMap(
@@ -63,20 +159,124 @@ public class VehicleController {
             @RequestParam Double minLng,
             @RequestParam Double maxLng,
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.unsorted());
-        return ResponseEntity.ok(PageResponse.of(
-                vehicleService.getVehiclesInBounds(minLat, maxLat, minLng, maxLng, pageable)));
+            @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.unsorted());
+        Page<VehicleVersion> versions = vehicleService.getVehicleVersionsInBounds(minLat, maxLat, minLng, maxLng, pageable);
+        String etag = listingETag(versions.getContent(), versions.getTotalElements());
+        if (HttpCaching.isNotModified(request, etag, null)) {
+            return HttpCaching.notModified(etag, null, HttpCaching.PUBLIC_COLLECTION);
+        }
+        return HttpCaching.respond(request, PageResponse.of(vehicleService.getVehicleResponses(versions)),
+                etag, null, HttpCaching.PUBLIC_COLLECTION);
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/nearby?lat=&lng=&radiusKm=&k=
+     * The k closest available vehicles to a point (default 20 within 10 km),
+     * sorted by great-circle distance. Optional filters: type, maxPrice.
+     */
+    @GetMapping("/api/v1/public/vehicles/nearby")
+    public ResponseEntity<?> getNearbyVehicles(
+            @RequestParam Double lat,
+            @RequestParam Double lng,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(defaultValue = "20") int k,
+            @RequestParam(required = false) VehicleType type,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        try {
+            return ResponseEntity.ok(vehicleService.findNearbyVehicles(lat, lng, radiusKm, k, type, maxPrice));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/map/clusters
+     * Clustered map view for low zoom levels: one marker per grid cell with the
+     * vehicle count and centroid. At most 17 x 17 cells are returned for any box.
+     */
+    @GetMapping("/api/v1/public/vehicles/map/clusters")
+    public ResponseEntity<MapClustersDTO> getVehicleClustersForMap(
+            @RequestParam Double minLat,
+            @RequestParam Double maxLat,
+            @RequestParam Double minLng,
+            @RequestParam Double maxLng) {
+        return ResponseEntity.ok(vehicleService.getMapClusters(minLat, maxLat, minLng, maxLng));
     }
 
     /**
      * GET /api/v1/public/vehicles/{vehicleId}
      * Get a single vehicle's details.
+     * Strong ETag + Last-Modified from the vehicle's version: a revalidation that
+     * still matches is answered 304 from one version lookup, without the DTO.
      */
     @GetMapping("/api/v1/public/vehicles/{vehicleId}")
-    public ResponseEntity<VehicleResponseDTO> getVehicleById(@PathVariable Long vehicleId) {
+    public ResponseEntity<VehicleResponseDTO> getVehicleById(@PathVariable Long vehicleId, HttpServletRequest request) {
+        Optional<VehicleVersion> version = vehicleService.getVehicleVersion(vehicleId);
+        if (version.isPresent()) {
+            String etag = vehicleETag(vehicleId, version.get().updatedAt(), version.get().totalReviews());
+            Instant lastModified = HttpCaching.toInstant(version.get().updatedAt());
+            if (HttpCaching.isNotModified(request, etag, lastModified)) {
+                return HttpCaching.notModified(etag, lastModified, HttpCaching.PUBLIC_RESOURCE);
+            }
+        }
+        // Validators from the DTO itself: it may come from the response cache
         VehicleResponseDTO vehicle = vehicleService.getVehicleById(vehicleId);
-        return ResponseEntity.ok(vehicle);
+        return HttpCaching.respond(request, vehicle,
+                vehicleETag(vehicleId, vehicle.getUpdatedAt(), vehicle.getTotalReviews()),
+                HttpCaching.toInstant(vehicle.getUpdatedAt()), HttpCaching.PUBLIC_RESOURCE);
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/{vehicleId}/next-available?from=yyyy-MM-dd
+     * First date (on or after {@code from}, default today) with no active booking.
+     */
+    @GetMapping("/api/v1/public/vehicles/{vehicleId}/next-available")
+    public ResponseEntity<?> getNextAvailableDate(
+            @PathVariable Long vehicleId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("vehicleId", vehicleId);
+            response.put("nextAvailableDate", vehicleService.getNextAvailableDate(vehicleId, from));
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/{vehicleId}/calendar?from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Booked / free days of a vehicle (default: one month starting today).
+     * The range must lie in the rolling 18-month window starting on the 1st of this month.
+     */
+    @GetMapping("/api/v1/public/vehicles/{vehicleId}/calendar")
+    public ResponseEntity<?> getAvailabilityCalendar(
+            @PathVariable Long vehicleId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(vehicleService.getAvailabilityCalendar(vehicleId, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/v1/public/vehicles/calendar?vehicleIds=1,2,3&from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Bulk variant for search-results pages: calendars of up to 100 vehicles in one call.
+     */
+    @GetMapping("/api/v1/public/vehicles/calendar")
+    public ResponseEntity<?> getAvailabilityCalendars(
+            @RequestParam List<Long> vehicleIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(vehicleService.getAvailabilityCalendars(vehicleIds, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(buildError(e.getMessage()));
+        }
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -103,13 +303,18 @@ public class VehicleController {
     /**
      * GET /api/v1/owner/vehicles
      * Get all vehicles belonging to the authenticated owner.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('VEHICLE_OWNER')")
     @GetMapping("/api/v1/owner/vehicles")
-    public ResponseEntity<PageResponse<VehicleResponseDTO>> getMyVehicles(
+    public ResponseEntity<?> getMyVehicles(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(vehicleService.getMyVehicles(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(vehicleService.getMyVehicles(pageable)));
     }
 
@@ -175,13 +380,18 @@ public class VehicleController {
     /**
      * GET /api/v1/admin/vehicles
      * Admin view of all vehicles regardless of status.
+     * Cursor mode: pass ?cursor= (empty for the first page) — see CursorPageResponse.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/api/v1/admin/vehicles")
-    public ResponseEntity<PageResponse<VehicleResponseDTO>> getAllVehiclesAdmin(
+    public ResponseEntity<?> getAllVehiclesAdmin(
             @RequestParam(defaultValue = "0")    int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(CursorPageResponse.of(vehicleService.getAllVehiclesAdmin(cursor, pageSizes.clamp(size))));
+        }
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("createdAt").descending());
         return ResponseEntity.ok(PageResponse.of(vehicleService.getAllVehiclesAdmin(pageable)));
     }
 
@@ -230,4 +440,21 @@ public class VehicleController {
         error.put("message", message);
         return error;
     }
+
+    private static String vehicleETag(Long vehicleId, LocalDateTime updatedAt, Long totalReviews) {
+        return HttpCaching.strongETag("vehicle", vehicleId, HttpCaching.versionOf(updatedAt), totalReviews);
+    }
+
+    // The listed vehicles' versions plus what else the page shows (total / hasNext);
+    // known before the page's DTOs are built, so a matching revalidation skips them
+    private static String listingETag(List<VehicleVersion> vehicles, Object meta) {
+        List<Object> parts = new ArrayList<>();
+        parts.add(meta);
+        for (VehicleVersion vehicle : vehicles) {
+            parts.add(vehicle.vehicleId());
+            parts.add(HttpCaching.versionOf(vehicle.updatedAt()));
+            parts.add(vehicle.totalReviews());
+        }
+        return HttpCaching.weakETag(parts.toArray());
+    }
 }
\ No newline at end of file
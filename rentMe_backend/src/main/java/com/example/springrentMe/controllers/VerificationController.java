@@ -5,6 +5,7 @@ import com.example.springrentMe.DTOs.PageResponse;
 import com.example.springrentMe.DTOs.VerificationRequestResponseDTO;
 import com.example.springrentMe.models.DocumentType;
 import com.example.springrentMe.services.VerificationService;
+import com.example.springrentMe.utils.PageSizes;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -37,9 +38,11 @@ import java.util.Map;
 public class VerificationController {
 
     private final VerificationService verificationService;
+    private final PageSizes pageSizes;
 
-    public VerificationController(VerificationService verificationService) {
+    public VerificationController(VerificationService verificationService, PageSizes pageSizes) {
         this.verificationService = verificationService;
+        this.pageSizes = pageSizes;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -91,7 +94,7 @@ public class VerificationController {
     public ResponseEntity<PageResponse<VerificationRequestResponseDTO>> getMyHistory(
             @RequestParam(defaultValue = "0")    int page,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("submittedAt").descending());
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("submittedAt").descending());
         return ResponseEntity.ok(PageResponse.of(verificationService.getMyVerificationHistory(pageable)));
     }
 
@@ -152,7 +155,7 @@ public class VerificationController {
     public ResponseEntity<PageResponse<VerificationRequestResponseDTO>> getPendingRequests(
             @RequestParam(defaultValue = "0")    int page,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("submittedAt").ascending());
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("submittedAt").ascending());
         return ResponseEntity.ok(PageResponse.of(verificationService.getAllPendingRequests(pageable)));
     }
 
@@ -162,7 +165,7 @@ public class VerificationController {
     public ResponseEntity<PageResponse<VerificationRequestResponseDTO>> getAllRequests(
             @RequestParam(defaultValue = "0")    int page,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("submittedAt").descending());
+        Pageable pageable = PageRequest.of(page, pageSizes.clamp(size), Sort.by("submittedAt").descending());
         return ResponseEntity.ok(PageResponse.of(verificationService.getAllRequests(pageable)));
     }
 
@@ -0,0 +1,11 @@
+package com.example.springrentMe.exceptions;
+
+/**
+ * A send the server can't take right now (write-behind queue full); the
+ * client should resend the same message later.
+ */
+public class ChatBusyException extends RuntimeException {
+    public ChatBusyException(String message) {
+        super(message);
+    }
+}
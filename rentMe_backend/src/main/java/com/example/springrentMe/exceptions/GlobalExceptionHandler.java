@@ -74,6 +74,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * Handle ChatBusyException (503): the client resends the same message later
+     */
+    @ExceptionHandler(ChatBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleChatBusyException(ChatBusyException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(response);
+    }
+
     /**
      * Handle BookingNotCompletedException (422)
      */
@@ -0,0 +1,12 @@
+package com.example.springrentMe.exceptions;
+
+/**
+ * The refresh token was exchanged moments ago, most likely by a concurrent
+ * refresh from the same client. Not a sign of theft: the session stays
+ * logged in with whatever the other exchange issued.
+ */
+public class RefreshTokenAlreadyUsedException extends InvalidRefreshTokenException {
+    public RefreshTokenAlreadyUsedException(String message) {
+        super(message);
+    }
+}
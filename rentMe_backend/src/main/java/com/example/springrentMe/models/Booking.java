@@ -3,6 +3,7 @@ package com.example.springrentMe.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,12 +13,30 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(
+    // Everything BookingService.convertToResponseDTO reads from the to-one side,
+    // fetched with the page query instead of one lazy load per row
+    name = "Booking.listing",
+    attributeNodes = {
+        @NamedAttributeNode(value = "vehicle", subgraph = "vehicle"),
+        @NamedAttributeNode(value = "renter",  subgraph = "renter")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "vehicle", attributeNodes = @NamedAttributeNode(value = "vehicleOwner", subgraph = "owner")),
+        @NamedSubgraph(name = "owner",   attributeNodes = @NamedAttributeNode("user")),
+        @NamedSubgraph(name = "renter",  attributeNodes = @NamedAttributeNode("user"))
+    }
+)
 @Table(
     name = "bookings",
     indexes = {
         @Index(name = "idx_booking_vehicle", columnList = "vehicle_id"),
         @Index(name = "idx_booking_renter",  columnList = "renter_id"),
-        @Index(name = "idx_booking_status",  columnList = "status")
+        @Index(name = "idx_booking_status",  columnList = "status"),
+        @Index(name = "idx_booking_vehicle_dates", columnList = "vehicle_id, status, start_date, end_date"),
+        // Keyset pagination seeks on (created_at, booking_id)
+        @Index(name = "idx_booking_renter_created", columnList = "renter_id, created_at"),
+        @Index(name = "idx_booking_created", columnList = "created_at")
     }
 )
 @Getter
@@ -71,6 +90,8 @@ public class Booking {
     @Column(name = "actual_pick_up_time")
     private LocalDateTime actualPickUpTime;
 
+    // Batch-loaded: a listing page initializes all its bookings' images in one query
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Document> conditionImages;
 
@@ -0,0 +1,64 @@
+package com.example.springrentMe.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress and timing record for one run of a nightly booking status job
+ * (APPROVED → ONGOING or ONGOING → COMPLETED).
+ *
+ * One row per (job, runDate). Progress is written in the same transaction as
+ * every committed chunk, so after a crash the row shows how far the job got
+ * and the job picks up the remaining bookings on the next start-up.
+ */
+@Entity
+@Table(
+    name = "booking_transition_runs",
+    uniqueConstraints = @UniqueConstraint(name = "uk_btr_job_date", columnNames = {"job_name", "run_date"})
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingTransitionRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "job_name", nullable = false, length = 50)
+    private String jobName;
+
+    // The "today" the job evaluates start/end dates against
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobRunStatus status = JobRunStatus.RUNNING;
+
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    @Column(name = "chunk_count", nullable = false)
+    private Integer chunkCount = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "last_progress_at")
+    private LocalDateTime lastProgressAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+}
@@ -24,6 +24,7 @@ import java.time.LocalDateTime;
     indexes = {
         @Index(name = "idx_doc_vehicle", columnList = "vehicle_id"),
         @Index(name = "idx_doc_vr",      columnList = "verification_request_id"),
+        @Index(name = "idx_doc_booking", columnList = "booking_id"),
         @Index(name = "idx_doc_type",    columnList = "document_type")
     }
 )
@@ -0,0 +1,11 @@
+package com.example.springrentMe.models;
+
+/**
+ * Status of a recorded scheduled-job run.
+ * Workflow: RUNNING -> COMPLETED | FAILED (a RUNNING row left behind means the app crashed mid-run)
+ */
+public enum JobRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -15,6 +15,11 @@ import java.time.LocalDateTime;
     name = "reviews",
     uniqueConstraints = {
         @UniqueConstraint(name = "uc_review_booking", columnNames = {"booking_id"})
+    },
+    indexes = {
+        // Keyset pagination seeks on (created_at, review_id)
+        @Index(name = "idx_review_vehicle_created", columnList = "vehicle_id, created_at"),
+        @Index(name = "idx_review_created", columnList = "created_at")
     }
 )
 @Getter
@@ -0,0 +1,30 @@
+package com.example.springrentMe.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores a list of URLs as one newline-separated column.
+ * URLs never contain raw newlines, so no escaping is needed; null stays null.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final String SEPARATOR = "\n";
+
+    @Override
+    public String convertToDatabaseColumn(List<String> values) {
+        return values == null ? null : String.join(SEPARATOR, values);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        return column.isEmpty() ? List.of() : Arrays.asList(column.split(SEPARATOR));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.springrentMe.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user revocation watermark: every token of the user issued before
+ * revokedBefore is revoked (deactivation, password change, "log out
+ * everywhere"). Purged once no token issued before it can still be valid.
+ */
+@Entity
+@Table(name = "token_watermarks", indexes = @Index(name = "idx_token_watermarks_revoked_before", columnList = "revoked_before"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenWatermark {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Whole seconds, like the tokens' iat claim
+    @Column(name = "revoked_before", nullable = false)
+    private LocalDateTime revokedBefore;
+}
@@ -3,6 +3,7 @@ package com.example.springrentMe.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,7 +12,20 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "vehicles")
+@Table(
+    name = "vehicles",
+    indexes = {
+        // Keyset pagination seeks on (created_at, vehicle_id)
+        @Index(name = "idx_vehicle_owner_created", columnList = "vehicle_owner_id, created_at"),
+        @Index(name = "idx_vehicle_created", columnList = "created_at"),
+        // Map / text index sync reads the vehicles written since its previous run
+        @Index(name = "idx_vehicle_updated", columnList = "updated_at"),
+        // Public search (VehicleSpecifications): equality columns first, then the range/sort column
+        @Index(name = "idx_vehicle_search_type_price", columnList = "is_listed, is_available, type, daily_price"),
+        @Index(name = "idx_vehicle_search_price", columnList = "is_listed, is_available, daily_price"),
+        @Index(name = "idx_vehicle_search_rating", columnList = "is_listed, is_available, average_rating")
+    }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -58,9 +72,18 @@ public class Vehicle {
     @Column(length = 1000)
     private String description;
 
+    // Batch-loaded: a listing page initializes all its vehicles' documents in one query
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Document> documents;
 
+    // Denormalized serve URLs of the VEHICLE_PICTURE documents in upload order
+    // (first = primary picture), maintained by DocumentService so listings never
+    // load the documents. Null = not backfilled yet (VehiclePictureBackfillJob).
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "picture_urls", length = 10000)
+    private List<String> pictureUrls = List.of();
+
     // Pickup location details
     @NotBlank(message = "Pickup location address is required")
     @Size(max = 255)
@@ -101,6 +124,28 @@ public class Vehicle {
     @Column(name = "total_reviews")
     private Long totalReviews = 0L;
 
+    // Running sum of review ratings, maintained with totalReviews by atomic UPDATEs
+    // (ReviewService). Null = not initialised yet; the next review write recomputes it.
+    @Column(name = "rating_sum")
+    private Long ratingSum = 0L;
+
+    // Number of 1..5-star reviews, maintained by the same UPDATE as ratingSum.
+    // Added together, so all five are null on rows that predate them.
+    @Column(name = "rating_count_1")
+    private Long ratingCount1 = 0L;
+
+    @Column(name = "rating_count_2")
+    private Long ratingCount2 = 0L;
+
+    @Column(name = "rating_count_3")
+    private Long ratingCount3 = 0L;
+
+    @Column(name = "rating_count_4")
+    private Long ratingCount4 = 0L;
+
+    @Column(name = "rating_count_5")
+    private Long ratingCount5 = 0L;
+
     public Double getAverageRating() {
         return averageRating == null ? 0.0 : averageRating;
     }
@@ -38,6 +38,11 @@ public class VehicleOwner {
     @Column(name = "total_reviews")
     private Long totalReviews = 0L;
 
+    // Running sum of review ratings, maintained with totalReviews by atomic UPDATEs
+    // (ReviewService). Null = not initialised yet; the next review write recomputes it.
+    @Column(name = "rating_sum")
+    private Long ratingSum = 0L;
+
     public Double getAverageRating() {
         return averageRating == null ? 0.0 : averageRating;
     }
@@ -12,8 +12,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages", indexes = {
-    @Index(name = "idx_chat_messages_session_created", columnList = "session_id, created_at DESC")
+@Table(name = "chat_messages", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_chat_messages_session_seq", columnNames = {"session_id", "seq"}),
+    @UniqueConstraint(name = "uk_chat_messages_client_id", columnNames = {"sender_user_id", "client_message_id"})
+}, indexes = {
+    @Index(name = "idx_chat_messages_session_created", columnList = "session_id, created_at DESC"),
+    @Index(name = "idx_chat_messages_deleted_at", columnList = "deleted_at")
 })
 @Getter
 @Setter
@@ -56,6 +60,18 @@ public class ChatMessage {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
 
+    // Set by soft delete; lets clients that synced earlier find out (see ChatService.sync)
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // Position in the session (1, 2, ...; gaps possible). NULL on rows that predate sequencing.
+    @Column(name = "seq")
+    private Long seq;
+
+    // Sender-chosen idempotency key: a resend with the same key is not stored twice
+    @Column(name = "client_message_id", length = 64)
+    private String clientMessageId;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
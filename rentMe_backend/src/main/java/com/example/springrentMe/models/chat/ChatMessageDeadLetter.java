@@ -0,0 +1,65 @@
+package com.example.springrentMe.models.chat;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A write-behind chat message that could not be stored (e.g. its sender or
+ * session was deleted while it was queued), kept for inspection instead of
+ * blocking the queue. No foreign keys on purpose: the rows it refers to may
+ * be gone.
+ */
+@Entity
+@Table(name = "chat_message_dead_letters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "dead_letter_id")
+    private Long deadLetterId;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "sender_user_id", nullable = false)
+    private Long senderUserId;
+
+    @Column(name = "seq", nullable = false)
+    private Long seq;
+
+    @Column(name = "client_message_id", columnDefinition = "TEXT")
+    private String clientMessageId;
+
+    @Column(name = "message_type", nullable = false, length = 20)
+    private String messageType;
+
+    @Column(name = "text_content", columnDefinition = "TEXT")
+    private String textContent;
+
+    @Column(name = "file_url", columnDefinition = "TEXT")
+    private String fileUrl;
+
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+}
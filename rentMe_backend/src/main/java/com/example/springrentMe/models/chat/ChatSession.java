@@ -9,13 +9,30 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
+/**
+ * A conversation between two users.
+ *
+ * Besides the participants, a session carries its inbox row: preview of the
+ * last message and each participant's unread count. These are maintained by
+ * ChatService with single-row UPDATEs (see ChatSessionRepository), so the
+ * inbox is one query; @DynamicUpdate keeps entity saves from writing the
+ * counters back with stale values.
+ */
 @Entity
 @Table(name = "chat_sessions", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"participant_one_user_id", "participant_two_user_id"})
+}, indexes = {
+    @Index(name = "idx_chat_sessions_p1_last_message", columnList = "participant_one_user_id, last_message_at"),
+    @Index(name = "idx_chat_sessions_p2_last_message", columnList = "participant_two_user_id, last_message_at"),
+    @Index(name = "idx_chat_sessions_p1_updated", columnList = "participant_one_user_id, updated_at"),
+    @Index(name = "idx_chat_sessions_p2_updated", columnList = "participant_two_user_id, updated_at")
 })
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -50,7 +67,57 @@ public class ChatSession {
     @Column(name = "last_message_at")
     private LocalDateTime lastMessageAt;
 
+    // ── Inbox (denormalized from chat_messages) ──────────────────────────────
+
+    // Last sequence number handed out in this session (see ChatMessage.seq).
+    // Null on rows that predate sequencing; the first allocation starts after
+    // the existing messages.
+    @Column(name = "last_message_seq")
+    private Long lastMessageSeq = 0L;
+
+    // Highest sequence number the write-behind pipeline may have handed out
+    // (it reserves them in blocks ahead of its flushes, see
+    // ChatWriteBehindQueue). Allocation continues above it, so a number
+    // broadcast before a crash is never handed out again. Null when nothing
+    // is reserved.
+    @Column(name = "reserved_message_seq")
+    private Long reservedMessageSeq;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_sender_user_id")
+    private Long lastSenderUserId;
+
+    // First 60 characters of the last (non-deleted) message, "[Image]" / "[Location]"
+    @Column(name = "last_message_preview", length = 64)
+    private String lastMessagePreview;
+
+    // Unread, non-deleted messages sent to each participant.
+    // Null on rows that predate the columns until ChatInboxBackfillJob runs.
+    @Column(name = "participant_one_unread")
+    private Integer participantOneUnread = 0;
+
+    @Column(name = "participant_two_unread")
+    private Integer participantTwoUnread = 0;
+
+    // Sequence number each participant has read up to (set by mark-as-read).
+    // Null until the participant first reads the session.
+    @Column(name = "participant_one_read_seq")
+    private Long participantOneReadSeq;
+
+    @Column(name = "participant_two_read_seq")
+    private Long participantTwoReadSeq;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // Last change a sync delta reports: a new message, a read position or a
+    // deletion. Set by the bulk UPDATEs as well as by entity saves, so
+    // ChatService.sync only reads sessions changed since the client's last
+    // sync. Null on rows not changed since the column was added.
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
 }
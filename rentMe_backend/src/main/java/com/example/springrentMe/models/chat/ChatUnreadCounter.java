@@ -0,0 +1,28 @@
+package com.example.springrentMe.models.chat;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Unread chat messages addressed to one user, across all of their sessions
+ * (the navbar badge). Maintained by UnreadCountService alongside the
+ * per-session counters on ChatSession.
+ */
+@Entity
+@Table(name = "chat_unread_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatUnreadCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private Long unreadCount;
+}
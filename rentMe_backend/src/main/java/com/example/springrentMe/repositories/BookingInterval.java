@@ -0,0 +1,10 @@
+package com.example.springrentMe.repositories;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of a booking's date range, used to warm the
+ * in-memory availability index without loading full Booking entities.
+ */
+public record BookingInterval(Long bookingId, Long vehicleId, LocalDate startDate, LocalDate endDate) {
+}
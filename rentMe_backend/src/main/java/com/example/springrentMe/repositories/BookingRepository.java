@@ -2,21 +2,35 @@ package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.Booking;
 import com.example.springrentMe.models.BookingStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    // Admin listing – vehicle, owner, renter and their users are fetched with the page
+    @Override
+    @EntityGraph("Booking.listing")
+    Page<Booking> findAll(Pageable pageable);
+
     // All bookings for a specific renter
     List<Booking> findByRenter_RenterIdOrderByCreatedAtDesc(Long renterId);
+    @EntityGraph("Booking.listing")
     Page<Booking> findByRenter_RenterIdOrderByCreatedAtDesc(Long renterId, Pageable pageable);
 
     // All bookings for vehicles owned by a specific owner
@@ -32,6 +46,7 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
         WHERE b.vehicle.vehicleOwner.vehicleOwnerId = :ownerId
         ORDER BY b.createdAt DESC
         """)
+    @EntityGraph("Booking.listing")
     Page<Booking> findByVehicleOwnerIdOrderByCreatedAtDesc(@Param("ownerId") Long ownerId, Pageable pageable);
 
     // All bookings for a specific vehicle
@@ -78,26 +93,61 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("excludeBookingId") Long excludeBookingId);
 
     /**
-     * Find all APPROVED bookings whose start_date is today
-     * (used by scheduler to transition APPROVED → ONGOING)
+     * Date ranges of all ACTIVE (PENDING / APPROVED / ONGOING) bookings of the given
+     * vehicles (used to warm the in-memory BookingAvailabilityIndex)
      */
     @Query("""
-        SELECT b FROM Booking b
+        SELECT new com.example.springrentMe.repositories.BookingInterval(
+                   b.bookingId, b.vehicle.vehicleId, b.startDate, b.endDate)
+        FROM Booking b
+        WHERE b.vehicle.vehicleId IN :vehicleIds
+          AND b.status IN ('PENDING', 'APPROVED', 'ONGOING')
+        """)
+    List<BookingInterval> findActiveIntervalsByVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    /**
+     * Next chunk of APPROVED bookings whose start_date has arrived
+     * (used by BookingTransitionJob to transition APPROVED → ONGOING)
+     */
+    @Query("""
+        SELECT b.bookingId FROM Booking b
         WHERE b.status = 'APPROVED'
           AND b.startDate <= :today
+        ORDER BY b.bookingId
         """)
-    List<Booking> findApprovedBookingsToStart(@Param("today") LocalDate today);
+    List<Long> findApprovedBookingIdsToStart(@Param("today") LocalDate today, Pageable pageable);
 
     /**
-     * Find all ONGOING bookings whose end_date has passed
-     * (used by scheduler to transition ONGOING → COMPLETED)
+     * Next chunk of ONGOING bookings whose end_date has passed
+     * (used by BookingTransitionJob to transition ONGOING → COMPLETED)
      */
     @Query("""
-        SELECT b FROM Booking b
+        SELECT b.bookingId FROM Booking b
         WHERE b.status = 'ONGOING'
           AND b.endDate < :today
+        ORDER BY b.bookingId
+        """)
+    List<Long> findOngoingBookingIdsToComplete(@Param("today") LocalDate today, Pageable pageable);
+
+    @Query("SELECT DISTINCT b.vehicle.vehicleId FROM Booking b WHERE b.bookingId IN :bookingIds")
+    List<Long> findVehicleIdsByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    /**
+     * Set-based status transition. Only rows still in {@code fromStatus} are
+     * touched, so re-running a chunk is harmless.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Booking b
+        SET b.status = :toStatus, b.updatedAt = :now
+        WHERE b.bookingId IN :bookingIds
+          AND b.status = :fromStatus
         """)
-    List<Booking> findOngoingBookingsToComplete(@Param("today") LocalDate today);
+    int bulkTransitionStatus(
+            @Param("bookingIds") Collection<Long> bookingIds,
+            @Param("fromStatus") BookingStatus fromStatus,
+            @Param("toStatus")   BookingStatus toStatus,
+            @Param("now")        LocalDateTime now);
 
     // Count active bookings for owner's dashboard
     @Query("""
@@ -122,5 +172,22 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
           AND b.status = 'PENDING'
         ORDER BY b.createdAt ASC
         """)
+    @EntityGraph("Booking.listing")
     Page<Booking> findPendingRequestsByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    // ─── Keyset (cursor) listings: seek on (createdAt, bookingId), no COUNT query ───
+
+    @EntityGraph("Booking.listing")
+    Window<Booking> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph("Booking.listing")
+    Window<Booking> findByRenter_RenterId(Long renterId, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph("Booking.listing")
+    Window<Booking> findByVehicle_VehicleOwner_VehicleOwnerId(
+            Long ownerId, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph("Booking.listing")
+    Window<Booking> findByVehicle_VehicleOwner_VehicleOwnerIdAndStatus(
+            Long ownerId, BookingStatus status, ScrollPosition position, Sort sort, Limit limit);
 }
\ No newline at end of file
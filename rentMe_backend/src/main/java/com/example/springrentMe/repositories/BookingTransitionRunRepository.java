@@ -0,0 +1,41 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.BookingTransitionRun;
+import com.example.springrentMe.models.JobRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BookingTransitionRunRepository extends JpaRepository<BookingTransitionRun, Long> {
+
+    Optional<BookingTransitionRun> findByJobNameAndRunDate(String jobName, LocalDate runDate);
+
+    /**
+     * Claim an existing run row: succeeds only if nobody is running it, or
+     * whoever was has made no progress since staleBefore (crashed instance).
+     * The row lock taken by the UPDATE makes competing claims take turns, and
+     * the loser sees the winner's fresh RUNNING status.
+     *
+     * @return 1 if claimed, 0 if another instance holds it
+     */
+    @Modifying
+    @Query("""
+        UPDATE BookingTransitionRun r
+        SET r.status = :running, r.startedAt = :now, r.lastProgressAt = :now,
+            r.finishedAt = NULL, r.durationMs = NULL, r.errorMessage = NULL
+        WHERE r.jobName = :jobName AND r.runDate = :runDate
+          AND (r.status <> :running OR COALESCE(r.lastProgressAt, r.startedAt) < :staleBefore)
+        """)
+    int claim(@Param("jobName") String jobName,
+              @Param("runDate") LocalDate runDate,
+              @Param("running") JobRunStatus running,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+}
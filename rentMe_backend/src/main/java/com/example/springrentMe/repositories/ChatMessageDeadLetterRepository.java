@@ -0,0 +1,9 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.chat.ChatMessageDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatMessageDeadLetterRepository extends JpaRepository<ChatMessageDeadLetter, Long> {
+}
@@ -1,33 +1,63 @@
 package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.chat.ChatMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>, ChatMessageSyncRepository {
 
     List<ChatMessage> findBySession_SessionIdAndIsDeletedFalseOrderByCreatedAtAsc(Long sessionId);
 
     Page<ChatMessage> findBySession_SessionIdAndIsDeletedFalse(Long sessionId, Pageable pageable);
 
-    long countBySession_SessionIdAndSenderUserIdNotAndIsReadFalse(Long sessionId, Long currentUserId);
+    // Keyset (cursor) variant: seek on (createdAt, messageId), no COUNT query
+    Window<ChatMessage> findBySession_SessionIdAndIsDeletedFalse(
+            Long sessionId, ScrollPosition position, Sort sort, Limit limit);
 
-    java.util.Optional<ChatMessage> findFirstBySession_SessionIdAndIsDeletedFalseOrderByCreatedAtDesc(Long sessionId);
+    // Latest visible message, for the session's inbox preview
+    java.util.Optional<ChatMessage> findFirstBySession_SessionIdAndIsDeletedFalseOrderByMessageIdDesc(Long sessionId);
+
+    // Unread messages addressed to the user, as counted by the session's inbox columns
+    long countBySession_SessionIdAndSenderUserIdNotAndIsReadFalseAndIsDeletedFalse(Long sessionId, Long userId);
+
+    boolean existsByMessageIdAndIsReadFalseAndIsDeletedFalse(Long messageId);
+
+    // Delta since a sequence number (reconnect), seeking on the (session_id, seq) index
+    @EntityGraph(attributePaths = {"sender"})
+    List<ChatMessage> findBySession_SessionIdAndSeqGreaterThanAndIsDeletedFalseOrderBySeqAsc(
+            Long sessionId, Long afterSeq, Limit limit);
+
+    // Sync: messages of these sessions deleted since the given time
+    List<ChatMessage> findBySession_SessionIdInAndDeletedAtGreaterThanEqual(Collection<Long> sessionIds, LocalDateTime since);
+
+    // Backfill: messages that predate sequencing, in the order they were sent
+    List<ChatMessage> findBySession_SessionIdAndSeqIsNullOrderByMessageIdAsc(Long sessionId);
+
+    // Idempotent send: the message a sender already stored under this client message ID
+    java.util.Optional<ChatMessage> findBySender_UserIdAndClientMessageId(Long senderUserId, String clientMessageId);
 
     @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.session.sessionId IN " +
            "(SELECT s.sessionId FROM ChatSession s WHERE s.participantOne.userId = :userId OR s.participantTwo.userId = :userId) " +
            "AND m.sender.userId <> :userId AND m.isRead = false AND m.isDeleted = false")
     long countTotalUnreadMessagesForUser(@Param("userId") Long userId);
 
+    // Returns the number of messages that became read (deleted ones stay out of every unread count)
     @Modifying
-    @Query("UPDATE ChatMessage m SET m.isRead = true WHERE m.session.sessionId = :sessionId AND m.sender.userId <> :recipientUserId AND m.isRead = false")
-    void markAllReadInSession(@Param("sessionId") Long sessionId, @Param("recipientUserId") Long recipientUserId);
+    @Query("UPDATE ChatMessage m SET m.isRead = true WHERE m.session.sessionId = :sessionId AND m.sender.userId <> :recipientUserId AND m.isRead = false AND m.isDeleted = false")
+    int markAllReadInSession(@Param("sessionId") Long sessionId, @Param("recipientUserId") Long recipientUserId);
 }
@@ -0,0 +1,21 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.chat.ChatMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom fragment of {@link ChatMessageRepository} for the multi-session
+ * sync, whose per-session cursors a derived query can't express.
+ */
+public interface ChatMessageSyncRepository {
+
+    /**
+     * Visible messages after each session's cursor (sessionId -> afterSeq),
+     * at most {@code perSession} of each, by session and then seq — in one
+     * query, each cursor seeking on the (session_id, seq) index. Senders
+     * stay proxies.
+     */
+    List<ChatMessage> findAfterSeqs(Map<Long, Long> afterSeqBySession, int perSession);
+}
@@ -0,0 +1,42 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.chat.ChatMessage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ChatMessageSyncRepositoryImpl implements ChatMessageSyncRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ChatMessage> findAfterSeqs(Map<Long, Long> afterSeqBySession, int perSession) {
+        if (afterSeqBySession.isEmpty()) {
+            return List.of();
+        }
+        // One range per session; ROW_NUMBER caps each session rather than the whole result
+        List<String> ranges = new ArrayList<>();
+        for (int i = 0; i < afterSeqBySession.size(); i++) {
+            ranges.add("(c.session_id = :session" + i + " AND c.seq > :after" + i + ")");
+        }
+        Query query = entityManager.createNativeQuery("SELECT m.* FROM chat_messages m JOIN ("
+                + "SELECT c.message_id, ROW_NUMBER() OVER (PARTITION BY c.session_id ORDER BY c.seq) AS rn "
+                + "FROM chat_messages c WHERE c.is_deleted = FALSE AND (" + String.join(" OR ", ranges) + ")"
+                + ") r ON r.message_id = m.message_id "
+                + "WHERE r.rn <= :perSession ORDER BY m.session_id, m.seq", ChatMessage.class);
+        int i = 0;
+        for (Map.Entry<Long, Long> cursor : afterSeqBySession.entrySet()) {
+            query.setParameter("session" + i, cursor.getKey());
+            query.setParameter("after" + i, cursor.getValue());
+            i++;
+        }
+        query.setParameter("perSession", perSession);
+        return query.getResultList();
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.chat.ChatSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,8 +23,112 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, Long>
 
     Optional<ChatSession> findByParticipantOneUserIdAndParticipantTwoUserId(Long p1, Long p2);
 
+    // Inbox: the session row carries preview and unread counts, participants and vehicle come in the same query
+    @EntityGraph(attributePaths = {"participantOne", "participantTwo", "vehicle"})
     Page<ChatSession> findAllByParticipantOneUserIdOrParticipantTwoUserId(Long userId1, Long userId2, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"participantOne", "participantTwo", "vehicle"})
+    Page<ChatSession> findAllBy(Pageable pageable);
+
+    // Everything a permission descriptor (ChatSessionAccess) needs, in one query
+    @EntityGraph(attributePaths = {"participantOne", "participantTwo", "vehicle.vehicleOwner"})
+    Optional<ChatSession> findWithParticipantsBySessionId(Long sessionId);
+
+    // Row lock: serializes inbox changes that need to read before they write (delete, backfill)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChatSession s WHERE s.sessionId = :sessionId")
+    Optional<ChatSession> findByIdForUpdate(@Param("sessionId") Long sessionId);
+
+    /**
+     * New message: advance the preview (unless a later message got there
+     * first) and bump the recipient's unread count, in one statement.
+     */
+    @Modifying
+    @Query("UPDATE ChatSession s SET "
+            + "s.lastMessageAt = CASE WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :sentAt ELSE s.lastMessageAt END, "
+            + "s.lastMessagePreview = CASE WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :preview ELSE s.lastMessagePreview END, "
+            + "s.lastSenderUserId = CASE WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :senderId ELSE s.lastSenderUserId END, "
+            + "s.lastMessageId = CASE WHEN s.lastMessageId IS NULL OR s.lastMessageId < :messageId THEN :messageId ELSE s.lastMessageId END, "
+            + "s.participantOneUnread = CASE WHEN s.participantOne.userId = :senderId THEN s.participantOneUnread ELSE s.participantOneUnread + 1 END, "
+            + "s.participantTwoUnread = CASE WHEN s.participantTwo.userId = :senderId THEN s.participantTwoUnread ELSE s.participantTwoUnread + 1 END, "
+            + "s.updatedAt = :sentAt "
+            + "WHERE s.sessionId = :sessionId")
+    int recordMessage(@Param("sessionId") Long sessionId,
+                      @Param("messageId") Long messageId,
+                      @Param("senderId") Long senderId,
+                      @Param("preview") String preview,
+                      @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Hand out the session's next sequence number (read it back with
+     * findLastMessageSeq). The row lock taken here orders concurrent sends
+     * until commit. A session that predates sequencing continues after its
+     * existing messages; numbers reserved by the write-behind pipeline are
+     * skipped.
+     */
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.lastMessageSeq = CASE "
+            + "WHEN s.reservedMessageSeq > COALESCE(s.lastMessageSeq, "
+            + "(SELECT COUNT(m) FROM ChatMessage m WHERE m.session.sessionId = :sessionId)) THEN s.reservedMessageSeq "
+            + "ELSE COALESCE(s.lastMessageSeq, "
+            + "(SELECT COUNT(m) FROM ChatMessage m WHERE m.session.sessionId = :sessionId)) END + 1 "
+            + "WHERE s.sessionId = :sessionId")
+    int allocateSequence(@Param("sessionId") Long sessionId);
+
+    /** Highest sequence number handed out in the session, stored or reserved. */
+    @Query("SELECT CASE "
+            + "WHEN s.reservedMessageSeq > COALESCE(s.lastMessageSeq, "
+            + "(SELECT COUNT(m) FROM ChatMessage m WHERE m.session.sessionId = :sessionId)) THEN s.reservedMessageSeq "
+            + "ELSE COALESCE(s.lastMessageSeq, "
+            + "(SELECT COUNT(m) FROM ChatMessage m WHERE m.session.sessionId = :sessionId)) END "
+            + "FROM ChatSession s WHERE s.sessionId = :sessionId")
+    Optional<Long> findLastMessageSeq(@Param("sessionId") Long sessionId);
+
+    /**
+     * Everything in the session is now read by the user: unread count to 0,
+     * read position to the last sequence number.
+     */
+    @Modifying
+    @Query("UPDATE ChatSession s SET "
+            + "s.participantOneUnread = CASE WHEN s.participantOne.userId = :userId THEN 0 ELSE s.participantOneUnread END, "
+            + "s.participantTwoUnread = CASE WHEN s.participantTwo.userId = :userId THEN 0 ELSE s.participantTwoUnread END, "
+            + "s.participantOneReadSeq = CASE WHEN s.participantOne.userId = :userId THEN s.lastMessageSeq ELSE s.participantOneReadSeq END, "
+            + "s.participantTwoReadSeq = CASE WHEN s.participantTwo.userId = :userId THEN s.lastMessageSeq ELSE s.participantTwoReadSeq END, "
+            + "s.updatedAt = :now "
+            + "WHERE s.sessionId = :sessionId")
+    int clearUnread(@Param("sessionId") Long sessionId, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Sessions whose inbox columns were never populated (rows older than the columns)
+    @Query("SELECT s.sessionId FROM ChatSession s "
+            + "WHERE s.participantOneUnread IS NULL OR s.participantTwoUnread IS NULL ORDER BY s.sessionId")
+    List<Long> findIdsWithoutInbox(Pageable pageable);
+
+    // Sessions with messages that predate sequencing (probes the (session_id, seq) index per session)
+    @Query("SELECT s.sessionId FROM ChatSession s WHERE s.lastMessageSeq IS NULL "
+            + "OR EXISTS (SELECT m.messageId FROM ChatMessage m WHERE m.session = s AND m.seq IS NULL) "
+            + "ORDER BY s.sessionId")
+    List<Long> findIdsWithUnsequencedMessages(Pageable pageable);
+
+    // Sync, first round: the user's sessions past the page cursor, with the participants (sender names)
+    @Query("SELECT s FROM ChatSession s JOIN FETCH s.participantOne p1 JOIN FETCH s.participantTwo p2 "
+            + "WHERE (p1.userId = :userId OR p2.userId = :userId) "
+            + "AND s.sessionId > :afterSessionId ORDER BY s.sessionId")
+    List<ChatSession> findForSync(@Param("userId") Long userId,
+                                  @Param("afterSessionId") Long afterSessionId,
+                                  Limit limit);
+
+    // Sync: only the user's sessions changed since the watermark (or with queued messages),
+    // probing the (participant, updated_at) indexes
+    @Query("SELECT s FROM ChatSession s JOIN FETCH s.participantOne p1 JOIN FETCH s.participantTwo p2 "
+            + "WHERE (p1.userId = :userId OR p2.userId = :userId) "
+            + "AND (s.updatedAt >= :since OR s.sessionId IN :pendingSessionIds) "
+            + "AND s.sessionId > :afterSessionId ORDER BY s.sessionId")
+    List<ChatSession> findChangedForSync(@Param("userId") Long userId,
+                                         @Param("since") LocalDateTime since,
+                                         @Param("pendingSessionIds") Collection<Long> pendingSessionIds,
+                                         @Param("afterSessionId") Long afterSessionId,
+                                         Limit limit);
+
     @Query("SELECT s FROM ChatSession s WHERE s.sessionId = :sessionId AND (s.participantOne.userId = :userId OR s.participantTwo.userId = :userId)")
     Optional<ChatSession> findBySessionIdAndParticipantOneUserIdOrParticipantTwoUserId(
             @Param("sessionId") Long sessionId,
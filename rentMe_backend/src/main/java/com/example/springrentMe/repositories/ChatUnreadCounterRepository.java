@@ -0,0 +1,40 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.chat.ChatUnreadCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChatUnreadCounterRepository extends JpaRepository<ChatUnreadCounter, Long> {
+
+    // Atomic increment / decrement (never below zero); 0 if the user has no counter yet
+    @Modifying
+    @Query("UPDATE ChatUnreadCounter c SET c.unreadCount = "
+            + "CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END "
+            + "WHERE c.userId = :userId")
+    int addUnread(@Param("userId") Long userId, @Param("delta") long delta);
+
+    // An empty counter for the user, unless one exists (a concurrent insert fails on the key)
+    @Modifying
+    @Query("INSERT INTO ChatUnreadCounter (userId, unreadCount) "
+            + "SELECT u.userId, 0L FROM User u WHERE u.userId = :userId "
+            + "AND NOT EXISTS (SELECT c.userId FROM ChatUnreadCounter c WHERE c.userId = :userId)")
+    int insertIfMissing(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ChatUnreadCounter c WHERE c.userId = :userId")
+    Optional<ChatUnreadCounter> findByIdForUpdate(@Param("userId") Long userId);
+
+    // Keyset walk over all counters (reconciliation)
+    @Query("SELECT c.userId FROM ChatUnreadCounter c WHERE c.userId > :afterUserId ORDER BY c.userId")
+    List<Long> findUserIdsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+}
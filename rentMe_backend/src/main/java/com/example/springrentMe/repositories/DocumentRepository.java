@@ -19,6 +19,9 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     // Documents by type for a vehicle (e.g. only VEHICLE_REGISTRATION)
     List<Document> findByVehicle_VehicleIdAndDocumentType(Long vehicleId, DocumentType documentType);
 
+    // Same, in upload order (vehicle pictures: the first one is the primary picture)
+    List<Document> findByVehicle_VehicleIdAndDocumentTypeOrderByDocumentIdAsc(Long vehicleId, DocumentType documentType);
+
     // Find document by file URL path
     java.util.Optional<Document> findByFileUrl(String fileUrl);
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.springrentMe.repositories;
+
+/**
+ * Number of reviews with one star rating.
+ */
+public record RatingCount(Integer rating, Long count) {
+}
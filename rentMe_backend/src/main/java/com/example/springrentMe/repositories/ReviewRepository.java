@@ -1,8 +1,13 @@
 package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -24,6 +29,19 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findAllByOrderByCreatedAtDesc();
     Page<Review> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    // Keyset (cursor) listings: seek on (createdAt, reviewId), no COUNT query
+    Window<Review> findByVehicle_VehicleId(Long vehicleId, ScrollPosition position, Sort sort, Limit limit);
+    Window<Review> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Latest reviews of a vehicle with their reviewers (review summary)
+    @EntityGraph(attributePaths = "reviewer")
+    List<Review> findByVehicle_VehicleIdOrderByCreatedAtDescReviewIdDesc(Long vehicleId, Limit limit);
+
+    // Star distribution from the reviews themselves (vehicles whose counters aren't initialised)
+    @Query("SELECT new com.example.springrentMe.repositories.RatingCount(r.rating, COUNT(r)) FROM Review r "
+            + "WHERE r.vehicle.vehicleId = :vehicleId GROUP BY r.rating")
+    List<RatingCount> countByVehicleGroupByRating(@Param("vehicleId") Long vehicleId);
+
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId")
     Double getAverageRatingByVehicle(@Param("vehicleId") Long vehicleId);
 
@@ -0,0 +1,23 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.TokenWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenWatermarkRepository extends JpaRepository<TokenWatermark, Long> {
+
+    @Query("SELECT w FROM TokenWatermark w WHERE w.revokedBefore > :cutoff")
+    List<TokenWatermark> findRevokedAfter(@Param("cutoff") LocalDateTime cutoff);
+
+    // Watermarks older than the token lifetime no longer revoke anything
+    @Modifying
+    @Query("DELETE FROM TokenWatermark w WHERE w.revokedBefore <= :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
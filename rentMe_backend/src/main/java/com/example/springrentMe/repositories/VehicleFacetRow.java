@@ -0,0 +1,10 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.VehicleType;
+
+/**
+ * One group of the facet aggregation: the number of matching vehicles with a
+ * given type, capacity, whole-star rating band and price bucket.
+ */
+public record VehicleFacetRow(VehicleType type, int capacity, int ratingBand, long priceBucket, long count) {
+}
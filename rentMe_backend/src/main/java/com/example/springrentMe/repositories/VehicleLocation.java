@@ -0,0 +1,14 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.VehicleType;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight projection of a vehicle's pickup coordinates (plus the fields the
+ * map / nearby filters need), used to warm the in-memory geo index without
+ * loading full Vehicle entities.
+ */
+public record VehicleLocation(Long vehicleId, Double latitude, Double longitude,
+                              VehicleType type, BigDecimal dailyPrice) {
+}
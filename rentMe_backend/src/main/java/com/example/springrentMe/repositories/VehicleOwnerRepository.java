@@ -2,7 +2,14 @@ package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.VehicleOwner;
 import com.example.springrentMe.models.VerificationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,9 +18,45 @@ import java.util.List;
 @Repository
 public interface VehicleOwnerRepository extends JpaRepository<VehicleOwner, Long> {
 
+    // Join the (eager) user in the same statement instead of a second select
+    @EntityGraph(attributePaths = "user")
     Optional<VehicleOwner> findByUser_UserId(Long userId);
 
     boolean existsByUser_UserId(Long userId);
 
     List<VehicleOwner> findByVerificationStatus(VerificationStatus status);
+
+    // Load and row-lock an owner (SELECT ... FOR UPDATE), e.g. before recomputing its rating
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM VehicleOwner o WHERE o.vehicleOwnerId = :ownerId")
+    Optional<VehicleOwner> findByIdForUpdate(@Param("ownerId") Long ownerId);
+
+    // Incremental rating aggregates, see VehicleRepository.addRating
+    @Modifying
+    @Query("UPDATE VehicleOwner o SET o.ratingSum = o.ratingSum + :ratingDelta, "
+            + "o.totalReviews = o.totalReviews + :countDelta, "
+            + "o.averageRating = CASE WHEN o.totalReviews + :countDelta > 0 "
+            + "THEN CAST(o.ratingSum + :ratingDelta AS Double) / (o.totalReviews + :countDelta) ELSE 0.0 END "
+            + "WHERE o.vehicleOwnerId = :ownerId AND o.ratingSum IS NOT NULL AND o.totalReviews IS NOT NULL")
+    int addRating(
+            @Param("ownerId")     Long ownerId,
+            @Param("ratingDelta") long ratingDelta,
+            @Param("countDelta")  long countDelta);
+
+    // Full recompute from the reviews, see VehicleRepository.recomputeRating
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VehicleOwner o SET "
+            + "o.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.vehicleOwner.vehicleOwnerId = :ownerId), "
+            + "o.totalReviews = (SELECT COUNT(r) FROM Review r WHERE r.vehicleOwner.vehicleOwnerId = :ownerId), "
+            + "o.averageRating = (SELECT COALESCE(AVG(r.rating), 0.0) FROM Review r WHERE r.vehicleOwner.vehicleOwnerId = :ownerId) "
+            + "WHERE o.vehicleOwnerId = :ownerId")
+    int recomputeRating(@Param("ownerId") Long ownerId);
+
+    // Reconciliation, see VehicleRepository.findRatingDrift
+    @Query("SELECT o.vehicleOwnerId FROM VehicleOwner o WHERE o.vehicleOwnerId > :afterId AND ("
+            + "o.ratingSum IS NULL OR o.totalReviews IS NULL "
+            + "OR o.ratingSum <> (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.vehicleOwner = o) "
+            + "OR o.totalReviews <> (SELECT COUNT(r) FROM Review r WHERE r.vehicleOwner = o)) "
+            + "ORDER BY o.vehicleOwnerId")
+    List<Long> findRatingDrift(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.example.springrentMe.repositories;
+
+/**
+ * A vehicle's maintained rating aggregates: average, count and the number of
+ * 1..5-star reviews (the counts are null on rows not initialised yet).
+ */
+public record VehicleRatingStats(Long vehicleId, Double averageRating, Long totalReviews,
+                                 Long ratingCount1, Long ratingCount2, Long ratingCount3,
+                                 Long ratingCount4, Long ratingCount5) {
+
+    public boolean initialised() {
+        return ratingCount1 != null;
+    }
+}
@@ -1,42 +1,127 @@
 package com.example.springrentMe.repositories;
 
 import com.example.springrentMe.models.Vehicle;
-import com.example.springrentMe.models.VehicleType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+public interface VehicleRepository
+        extends JpaRepository<Vehicle, Long>, JpaSpecificationExecutor<Vehicle>, VehicleSearchRepository {
 
     // All vehicles belonging to a specific owner
     List<Vehicle> findByVehicleOwner_VehicleOwnerId(Long vehicleOwnerId);
     Page<Vehicle> findByVehicleOwner_VehicleOwnerId(Long vehicleOwnerId, Pageable pageable);
+    Window<Vehicle> findByVehicleOwner_VehicleOwnerId(
+            Long vehicleOwnerId, ScrollPosition position, Sort sort, Limit limit);
 
-    // All listed + available vehicles (public search)
+    // All vehicles (admin), keyset variant
+    Window<Vehicle> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // All listed + available vehicles. Filtered public search goes through
+    // VehicleSpecifications (JpaSpecificationExecutor) instead of one derived
+    // query per filter combination.
     List<Vehicle> findByIsListedTrueAndIsAvailableTrue();
     Page<Vehicle> findByIsListedTrueAndIsAvailableTrue(Pageable pageable);
+    Window<Vehicle> findByIsListedTrueAndIsAvailableTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    // Load and row-lock a vehicle (SELECT ... FOR UPDATE) to serialize booking admission
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vehicle v WHERE v.vehicleId = :vehicleId")
+    Optional<Vehicle> findByIdForUpdate(@Param("vehicleId") Long vehicleId);
+
+    // Version columns only, for conditional GETs (no DTO, no joins)
+    @Query("SELECT new com.example.springrentMe.repositories.VehicleVersion(v.vehicleId, v.updatedAt, v.totalReviews, v.averageRating) "
+            + "FROM Vehicle v WHERE v.vehicleId = :vehicleId")
+    Optional<VehicleVersion> findVersionById(@Param("vehicleId") Long vehicleId);
+
+    // Version columns of a page of vehicles, for listing ETags (any order)
+    @Query("SELECT new com.example.springrentMe.repositories.VehicleVersion(v.vehicleId, v.updatedAt, v.totalReviews, v.averageRating) "
+            + "FROM Vehicle v WHERE v.vehicleId IN :vehicleIds")
+    List<VehicleVersion> findVersionsByIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // Bulk availability update (used by the nightly booking transition job)
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.isAvailable = :available, v.updatedAt = :now WHERE v.vehicleId IN :vehicleIds")
+    int bulkSetAvailability(
+            @Param("vehicleIds") Collection<Long> vehicleIds,
+            @Param("available")  boolean available,
+            @Param("now")        LocalDateTime now);
+
+    // Vehicles whose denormalized picture URLs were never populated (VehiclePictureBackfillJob)
+    @Query("SELECT v.vehicleId FROM Vehicle v WHERE v.pictureUrls IS NULL ORDER BY v.vehicleId")
+    List<Long> findIdsWithoutPictureUrls(Pageable pageable);
+
+    // Incremental rating aggregates: one atomic UPDATE per review write (ReviewService),
+    // countDelta = +1 when a review with this rating is added, -1 when it is removed.
+    // Skips rows whose aggregates aren't initialised yet — the caller recomputes those.
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.ratingSum = v.ratingSum + :rating * :countDelta, "
+            + "v.totalReviews = v.totalReviews + :countDelta, "
+            + "v.ratingCount1 = v.ratingCount1 + CASE WHEN :rating = 1 THEN :countDelta ELSE 0 END, "
+            + "v.ratingCount2 = v.ratingCount2 + CASE WHEN :rating = 2 THEN :countDelta ELSE 0 END, "
+            + "v.ratingCount3 = v.ratingCount3 + CASE WHEN :rating = 3 THEN :countDelta ELSE 0 END, "
+            + "v.ratingCount4 = v.ratingCount4 + CASE WHEN :rating = 4 THEN :countDelta ELSE 0 END, "
+            + "v.ratingCount5 = v.ratingCount5 + CASE WHEN :rating = 5 THEN :countDelta ELSE 0 END, "
+            + "v.averageRating = CASE WHEN v.totalReviews + :countDelta > 0 "
+            + "THEN CAST(v.ratingSum + :rating * :countDelta AS Double) / (v.totalReviews + :countDelta) ELSE 0.0 END, "
+            + "v.updatedAt = :now "
+            + "WHERE v.vehicleId = :vehicleId AND v.ratingSum IS NOT NULL AND v.totalReviews IS NOT NULL "
+            + "AND v.ratingCount1 IS NOT NULL")
+    int addRating(
+            @Param("vehicleId")  Long vehicleId,
+            @Param("rating")     long rating,
+            @Param("countDelta") long countDelta,
+            @Param("now")        LocalDateTime now);
 
-    // Filter by type, available & listed
-    List<Vehicle> findByIsListedTrueAndIsAvailableTrueAndType(VehicleType type);
-    Page<Vehicle> findByIsListedTrueAndIsAvailableTrueAndType(VehicleType type, Pageable pageable);
+    // Full recompute of the rating aggregates from the reviews (first write after upgrade, drift repair)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Vehicle v SET "
+            + "v.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId), "
+            + "v.totalReviews = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId), "
+            + "v.ratingCount1 = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId AND r.rating = 1), "
+            + "v.ratingCount2 = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId AND r.rating = 2), "
+            + "v.ratingCount3 = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId AND r.rating = 3), "
+            + "v.ratingCount4 = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId AND r.rating = 4), "
+            + "v.ratingCount5 = (SELECT COUNT(r) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId AND r.rating = 5), "
+            + "v.averageRating = (SELECT COALESCE(AVG(r.rating), 0.0) FROM Review r WHERE r.vehicle.vehicleId = :vehicleId), "
+            + "v.updatedAt = :now "
+            + "WHERE v.vehicleId = :vehicleId")
+    int recomputeRating(@Param("vehicleId") Long vehicleId, @Param("now") LocalDateTime now);
 
-    // Filter by max daily price
-    List<Vehicle> findByIsListedTrueAndIsAvailableTrueAndDailyPriceLessThanEqual(BigDecimal maxPrice);
-    Page<Vehicle> findByIsListedTrueAndIsAvailableTrueAndDailyPriceLessThanEqual(BigDecimal maxPrice, Pageable pageable);
+    // Reconciliation: the next vehicles (by ID) whose aggregates are uninitialised, disagree
+    // with each other (histogram vs sum / count) or with their reviews
+    @Query("SELECT v.vehicleId FROM Vehicle v WHERE v.vehicleId > :afterId AND ("
+            + "v.ratingSum IS NULL OR v.totalReviews IS NULL OR v.ratingCount1 IS NULL "
+            + "OR v.ratingCount1 + v.ratingCount2 + v.ratingCount3 + v.ratingCount4 + v.ratingCount5 <> v.totalReviews "
+            + "OR v.ratingCount1 + 2 * v.ratingCount2 + 3 * v.ratingCount3 + 4 * v.ratingCount4 + 5 * v.ratingCount5 "
+            + "<> v.ratingSum "
+            + "OR v.ratingSum <> (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.vehicle = v) "
+            + "OR v.totalReviews <> (SELECT COUNT(r) FROM Review r WHERE r.vehicle = v)) "
+            + "ORDER BY v.vehicleId")
+    List<Long> findRatingDrift(@Param("afterId") Long afterId, Pageable pageable);
 
-    // Filter by type AND max price
-    List<Vehicle> findByIsListedTrueAndIsAvailableTrueAndTypeAndDailyPriceLessThanEqual(
-            VehicleType type, BigDecimal maxPrice);
-    Page<Vehicle> findByIsListedTrueAndIsAvailableTrueAndTypeAndDailyPriceLessThanEqual(
-            VehicleType type, BigDecimal maxPrice, Pageable pageable);
+    // Rating aggregates of one vehicle (review summary)
+    @Query("SELECT new com.example.springrentMe.repositories.VehicleRatingStats(v.vehicleId, v.averageRating, "
+            + "v.totalReviews, v.ratingCount1, v.ratingCount2, v.ratingCount3, v.ratingCount4, v.ratingCount5) "
+            + "FROM Vehicle v WHERE v.vehicleId = :vehicleId")
+    Optional<VehicleRatingStats> findRatingStatsById(@Param("vehicleId") Long vehicleId);
 
     // Find vehicle only if it belongs to the given owner (ownership check)
     Optional<Vehicle> findByVehicleIdAndVehicleOwner_VehicleOwnerId(Long vehicleId, Long vehicleOwnerId);
@@ -69,6 +154,54 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
             @Param("maxLng") Double maxLng,
             Pageable pageable);
 
+    // Coordinates of all listed + available vehicles (warms the in-memory map index)
+    @Query("""
+        SELECT new com.example.springrentMe.repositories.VehicleLocation(
+                   v.vehicleId, v.latitude, v.longitude, v.type, v.dailyPrice)
+        FROM Vehicle v
+        WHERE v.isListed = true
+          AND v.isAvailable = true
+        """)
+    List<VehicleLocation> findMapLocations();
+
+    // Same, restricted to the given vehicles (refreshes the map index after bulk updates)
+    @Query("""
+        SELECT new com.example.springrentMe.repositories.VehicleLocation(
+                   v.vehicleId, v.latitude, v.longitude, v.type, v.dailyPrice)
+        FROM Vehicle v
+        WHERE v.vehicleId IN :vehicleIds
+          AND v.isListed = true
+          AND v.isAvailable = true
+        """)
+    List<VehicleLocation> findMapLocationsByIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // Searchable text of all listed vehicles (warms the in-memory full-text index)
+    @Query("""
+        SELECT new com.example.springrentMe.repositories.VehicleText(
+                   v.vehicleId, v.make, v.model, v.type, v.description)
+        FROM Vehicle v
+        WHERE v.isListed = true
+        """)
+    List<VehicleText> findListedVehicleTexts();
+
+    // Same, restricted to the given vehicles (syncs the text index with other instances)
+    @Query("""
+        SELECT new com.example.springrentMe.repositories.VehicleText(
+                   v.vehicleId, v.make, v.model, v.type, v.description)
+        FROM Vehicle v
+        WHERE v.vehicleId IN :vehicleIds
+          AND v.isListed = true
+        """)
+    List<VehicleText> findListedVehicleTextsByIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    // Vehicles written since a point in time, by any instance (map / text index sync)
+    @Query("SELECT v.vehicleId FROM Vehicle v WHERE v.updatedAt >= :since")
+    List<Long> findIdsUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Which of the given IDs exist (bulk calendar lookups)
+    @Query("SELECT v.vehicleId FROM Vehicle v WHERE v.vehicleId IN :vehicleIds")
+    List<Long> findExistingVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
+
     // Count vehicles per owner (for dashboard stats)
     long countByVehicleOwner_VehicleOwnerId(Long vehicleOwnerId);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.Vehicle;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Custom fragment of {@link VehicleRepository} for aggregate queries that the
+ * specification executor can't express.
+ */
+public interface VehicleSearchRepository {
+
+    /**
+     * Counts of the vehicles matching {@code spec}, grouped by type, capacity,
+     * floor(averageRating) and floor(dailyPrice / priceBucketWidth) — every
+     * facet of the search can be rolled up from these rows, in one query.
+     */
+    List<VehicleFacetRow> countFacets(Specification<Vehicle> spec, int priceBucketWidth);
+
+    /**
+     * IDs of the vehicles matching {@code spec}, without loading the entities.
+     */
+    List<Long> findIds(Specification<Vehicle> spec);
+}
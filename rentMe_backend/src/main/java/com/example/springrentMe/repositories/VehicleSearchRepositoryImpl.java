@@ -0,0 +1,56 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class VehicleSearchRepositoryImpl implements VehicleSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<VehicleFacetRow> countFacets(Specification<Vehicle> spec, int priceBucketWidth) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Vehicle> root = query.from(Vehicle.class);
+
+        // Literals rather than bind parameters, so SELECT and GROUP BY render identically
+        Expression<VehicleType> type = root.get("type");
+        Expression<Integer> capacity = root.get("capacity");
+        Expression<Double> ratingBand = cb.floor(cb.coalesce(root.<Double>get("averageRating"), cb.literal(0.0)));
+        Expression<Number> priceBucket = cb.floor(cb.quot(root.get("dailyPrice"), cb.literal(priceBucketWidth)));
+        Expression<Long> count = cb.count(root);
+
+        query.multiselect(type, capacity, ratingBand, priceBucket, count)
+                .where(spec.toPredicate(root, query, cb))
+                .groupBy(type, capacity, ratingBand, priceBucket);
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new VehicleFacetRow(
+                        row.get(type),
+                        row.get(capacity),
+                        row.get(ratingBand).intValue(),
+                        row.get(priceBucket).longValue(),
+                        row.get(count)))
+                .toList();
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Vehicle> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Vehicle> root = query.from(Vehicle.class);
+        query.select(root.get("vehicleId")).where(spec.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
+import com.example.springrentMe.models.Booking;
+import com.example.springrentMe.models.BookingStatus;
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Composable predicates for the public vehicle search.
+ *
+ * {@link #matching(VehicleSearchCriteria)} ANDs together one predicate per
+ * filter that is present, so a new filter is one method here instead of a
+ * new derived query for every combination. The leading equality columns
+ * (is_listed, is_available, type) and the range column (daily_price) line up
+ * with the composite indexes declared on {@link Vehicle}.
+ */
+public class VehicleSpecifications {
+
+    private static final List<BookingStatus> ACTIVE_BOOKING_STATUSES =
+            List.of(BookingStatus.PENDING, BookingStatus.APPROVED, BookingStatus.ONGOING);
+
+    private VehicleSpecifications() {
+        // Utility class — no instantiation
+    }
+
+    /**
+     * Listed + available vehicles matching every non-null field of the criteria.
+     * The text query is not a predicate — VehicleService resolves it through
+     * VehicleTextIndex and combines the result with {@link #idIn}.
+     */
+    public static Specification<Vehicle> matching(VehicleSearchCriteria criteria) {
+        List<Specification<Vehicle>> specs = new ArrayList<>();
+        specs.add(publiclyVisible());
+        if (criteria.getType() != null) {
+            specs.add(hasType(criteria.getType()));
+        }
+        if (criteria.getMinPrice() != null) {
+            specs.add(priceAtLeast(criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            specs.add(priceAtMost(criteria.getMaxPrice()));
+        }
+        if (criteria.getMinCapacity() != null) {
+            specs.add(capacityAtLeast(criteria.getMinCapacity()));
+        }
+        if (criteria.getMinRating() != null) {
+            specs.add(ratingAtLeast(criteria.getMinRating()));
+        }
+        if (criteria.getMake() != null && !criteria.getMake().isBlank()) {
+            specs.add(hasMake(criteria.getMake()));
+        }
+        if (criteria.getMinLat() != null) {
+            specs.add(withinBounds(criteria.getMinLat(), criteria.getMaxLat(),
+                    criteria.getMinLng(), criteria.getMaxLng()));
+        }
+        if (criteria.getStartDate() != null) {
+            specs.add(freeBetween(criteria.getStartDate(), criteria.getEndDate()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<Vehicle> publiclyVisible() {
+        return (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("isListed")),
+                cb.isTrue(root.get("isAvailable")));
+    }
+
+    public static Specification<Vehicle> idIn(Collection<Long> vehicleIds) {
+        return (root, query, cb) -> root.get("vehicleId").in(vehicleIds);
+    }
+
+    public static Specification<Vehicle> hasType(VehicleType type) {
+        return (root, query, cb) -> cb.equal(root.get("type"), type);
+    }
+
+    public static Specification<Vehicle> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dailyPrice"), minPrice);
+    }
+
+    public static Specification<Vehicle> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("dailyPrice"), maxPrice);
+    }
+
+    public static Specification<Vehicle> capacityAtLeast(int minCapacity) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("capacity"), minCapacity);
+    }
+
+    public static Specification<Vehicle> ratingAtLeast(double minRating) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("averageRating"), minRating);
+    }
+
+    // Case-insensitive exact match on the manufacturer
+    public static Specification<Vehicle> hasMake(String make) {
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("make")), make.trim().toLowerCase());
+    }
+
+    public static Specification<Vehicle> withinBounds(Double minLat, Double maxLat, Double minLng, Double maxLng) {
+        return (root, query, cb) -> cb.and(
+                cb.between(root.get("latitude"), minLat, maxLat),
+                cb.between(root.get("longitude"), minLng, maxLng));
+    }
+
+    /**
+     * No active (PENDING / APPROVED / ONGOING) booking overlapping
+     * [startDate, endDate]. The NOT EXISTS anti-join is served by
+     * idx_booking_vehicle_dates.
+     */
+    public static Specification<Vehicle> freeBetween(LocalDate startDate, LocalDate endDate) {
+        return (root, query, cb) -> {
+            Subquery<Long> overlapping = query.subquery(Long.class);
+            Root<Booking> booking = overlapping.from(Booking.class);
+            overlapping.select(booking.get("bookingId")).where(
+                    cb.equal(booking.get("vehicle"), root),
+                    booking.get("status").in(ACTIVE_BOOKING_STATUSES),
+                    cb.lessThanOrEqualTo(booking.get("startDate"), endDate),
+                    cb.greaterThanOrEqualTo(booking.get("endDate"), startDate));
+            return cb.not(cb.exists(overlapping));
+        };
+    }
+}
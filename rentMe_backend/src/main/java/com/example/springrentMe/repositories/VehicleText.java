@@ -0,0 +1,9 @@
+package com.example.springrentMe.repositories;
+
+import com.example.springrentMe.models.VehicleType;
+
+/**
+ * The searchable text fields of a vehicle (loaded into the full-text index).
+ */
+public record VehicleText(Long vehicleId, String make, String model, VehicleType type, String description) {
+}
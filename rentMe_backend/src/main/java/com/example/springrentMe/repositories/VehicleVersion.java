@@ -0,0 +1,10 @@
+package com.example.springrentMe.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns that version a vehicle's public responses (ETags / Last-Modified):
+ * updatedAt moves on every vehicle write, including picture and rating updates.
+ */
+public record VehicleVersion(Long vehicleId, LocalDateTime updatedAt, Long totalReviews, Double averageRating) {
+}
@@ -0,0 +1,22 @@
+package com.example.springrentMe.security;
+
+/**
+ * The parts of an account that can change while a token is still valid:
+ * email, active flag and roles. Cached per user (AccountStateCache) and laid
+ * over the identity a token carries, so a request needs no user lookup.
+ */
+public record AccountState(String email, boolean active, String role,
+                           boolean renter, boolean vehicleOwner, boolean admin) {
+
+    /** State of a user that no longer exists — never authenticated. */
+    public static final AccountState MISSING = new AccountState(null, false, null, false, false, false);
+
+    /**
+     * Principal for the token's user with the current account state applied
+     * (roles granted or revoked since the token was issued take effect here).
+     */
+    public UserDetailsImpl applyTo(UserDetailsImpl fromToken) {
+        return new UserDetailsImpl(fromToken.getId(), email, null, role, active,
+                renter, vehicleOwner, admin, null);
+    }
+}
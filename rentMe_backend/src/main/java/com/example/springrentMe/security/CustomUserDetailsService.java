@@ -5,6 +5,7 @@ import com.example.springrentMe.repositories.AdminRepository;
 import com.example.springrentMe.repositories.RenterRepository;
 import com.example.springrentMe.repositories.UserRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.services.cache.AccountStateCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,15 +23,18 @@ public class CustomUserDetailsService implements UserDetailsService {
     private final RenterRepository renterRepository;
     private final VehicleOwnerRepository vehicleOwnerRepository;
     private final AdminRepository adminRepository;
+    private final AccountStateCache accountStateCache;
 
     public CustomUserDetailsService(UserRepository userRepository,
             RenterRepository renterRepository,
             VehicleOwnerRepository vehicleOwnerRepository,
-            AdminRepository adminRepository) {
+            AdminRepository adminRepository,
+            AccountStateCache accountStateCache) {
         this.userRepository = userRepository;
         this.renterRepository = renterRepository;
         this.vehicleOwnerRepository = vehicleOwnerRepository;
         this.adminRepository = adminRepository;
+        this.accountStateCache = accountStateCache;
     }
 
     @Override
@@ -53,6 +57,39 @@ public class CustomUserDetailsService implements UserDetailsService {
         return buildUserDetails(user);
     }
 
+    /**
+     * Principal for a verified token (see JwtTokenProvider.getUserDetailsFromToken),
+     * or null if the account is gone or deactivated. The token supplies the
+     * user ID; email, roles and active flag come from AccountStateCache, so a
+     * cache hit needs no query at all. Tokens issued without a user ID claim
+     * fall back to a full load by email.
+     */
+    public UserDetailsImpl loadUserFromToken(UserDetailsImpl fromToken) {
+        if (fromToken.getId() == null) {
+            try {
+                UserDetailsImpl loaded = (UserDetailsImpl) loadUserByUsername(fromToken.getEmail());
+                return Boolean.TRUE.equals(loaded.getIsActive()) ? loaded : null;
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        Long userId = fromToken.getId();
+        AccountState state = accountStateCache.get(userId, () -> loadAccountState(userId));
+        return state.active() ? state.applyTo(fromToken) : null;
+    }
+
+    private AccountState loadAccountState(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> new AccountState(
+                        user.getEmail(),
+                        Boolean.TRUE.equals(user.getIsActive()),
+                        user.getRole().name(),
+                        renterRepository.existsByUser_UserId(userId),
+                        vehicleOwnerRepository.existsByUser_UserId(userId),
+                        adminRepository.existsByUser_UserId(userId)))
+                .orElse(AccountState.MISSING);
+    }
+
     /**
      * Build UserDetailsImpl with all applicable roles
      */
@@ -0,0 +1,40 @@
+package com.example.springrentMe.security;
+
+import com.example.springrentMe.utils.JwtAuthenticationFilter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Carries the handshake's access token (the HTTP-only jwt_token cookie a
+ * browser login sets, or a bearer header) into the WebSocket session, so
+ * WebSocketAuthChannelInterceptor can authenticate the STOMP CONNECT of
+ * clients that can't read the cookie themselves.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String TOKEN_ATTRIBUTE = "jwt_token";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            String token = JwtAuthenticationFilter.resolveToken(servletRequest.getServletRequest());
+            if (token != null) {
+                attributes.put(TOKEN_ATTRIBUTE, token);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.springrentMe.security;
 
+import com.example.springrentMe.services.auth.TokenRevocationService;
 import com.example.springrentMe.utils.JwtTokenProvider;
+import com.example.springrentMe.utils.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -11,12 +13,11 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
@@ -25,7 +26,10 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
     private JwtTokenProvider tokenProvider;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -34,9 +38,10 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
         if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
             String jwt = extractJwt(accessor);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            VerifiedToken token = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
+            UserDetailsImpl userDetails = token != null ? userDetailsService.loadUserFromToken(token.user()) : null;
+
+            if (userDetails != null && !revocationService.isRevoked(token, userDetails.getId())) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 
@@ -76,6 +81,12 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                 }
             }
         }
+
+        // Else the token the handshake carried (HTTP-only cookie, see JwtHandshakeInterceptor)
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && attributes.get(JwtHandshakeInterceptor.TOKEN_ATTRIBUTE) instanceof String token) {
+            return token;
+        }
         return null;
     }
 }
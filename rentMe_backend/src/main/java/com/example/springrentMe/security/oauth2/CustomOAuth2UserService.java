@@ -7,6 +7,7 @@ import com.example.springrentMe.models.UserRole;
 import com.example.springrentMe.repositories.RenterRepository;
 import com.example.springrentMe.repositories.UserRepository;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -30,9 +32,13 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private final RenterRepository renterRepository;
 
-    public CustomOAuth2UserService(UserRepository userRepository, RenterRepository renterRepository) {
+    private final ChatSessionAccessCache chatSessionAccessCache;
+
+    public CustomOAuth2UserService(UserRepository userRepository, RenterRepository renterRepository,
+            ChatSessionAccessCache chatSessionAccessCache) {
         this.userRepository = userRepository;
         this.renterRepository = renterRepository;
+        this.chatSessionAccessCache = chatSessionAccessCache;
     }
 
     @Override
@@ -120,9 +126,14 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
         // Update name and profile picture if changed
+        boolean renamed = !Objects.equals(existingUser.getFullName(), oAuth2UserInfo.getName());
         existingUser.setFullName(oAuth2UserInfo.getName());
         existingUser.setProfilePicture(oAuth2UserInfo.getImageUrl());
 
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        if (renamed) {
+            chatSessionAccessCache.onUserChanged(saved.getUserId()); // name shown on chat messages
+        }
+        return saved;
     }
 }
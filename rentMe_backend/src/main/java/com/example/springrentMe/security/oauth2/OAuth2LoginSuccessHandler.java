@@ -2,6 +2,9 @@ package com.example.springrentMe.security.oauth2;
 
 import com.example.springrentMe.models.User;
 import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.security.CustomUserDetailsService;
+import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.auth.RefreshTokenService;
 import com.example.springrentMe.utils.CookieUtils;
 import com.example.springrentMe.utils.JwtTokenProvider;
 import jakarta.servlet.ServletException;
@@ -20,7 +23,7 @@ import java.io.IOException;
  * After Google authenticates the user, this handler:
  * 1. Extracts user info from OAuth2User
  * 2. Generates a JWT token
- * 3. Sets token in HTTP-only cookie (SECURE) using CookieUtils
+ * 3. Sets token and a fresh refresh token in HTTP-only cookies (SECURE) using CookieUtils
  * 4. Redirects to frontend
  */
 @Component
@@ -28,11 +31,17 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
 
         private final JwtTokenProvider jwtTokenProvider;
         private final UserRepository userRepository;
+        private final CustomUserDetailsService userDetailsService;
+        private final RefreshTokenService refreshTokenService;
 
         public OAuth2LoginSuccessHandler(JwtTokenProvider jwtTokenProvider,
-                        UserRepository userRepository) {
+                        UserRepository userRepository,
+                        CustomUserDetailsService userDetailsService,
+                        RefreshTokenService refreshTokenService) {
                 this.jwtTokenProvider = jwtTokenProvider;
                 this.userRepository = userRepository;
+                this.userDetailsService = userDetailsService;
+                this.refreshTokenService = refreshTokenService;
         }
 
         @Value("${FRONTEND_URL:http://localhost:3000}")
@@ -54,10 +63,13 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
                                 .orElseThrow(() -> new RuntimeException("User not found after OAuth2 login"));
 
                 // Generate JWT token
-                String token = jwtTokenProvider.generateTokenFromUsername(email);
+                String token = jwtTokenProvider.generateToken(
+                                (UserDetailsImpl) userDetailsService.loadUserById(user.getUserId()));
 
                 // Set authentication cookies using centralized utility
                 CookieUtils.setAuthCookies(response, token, user);
+                CookieUtils.setRefreshCookie(response, refreshTokenService.issue(user.getUserId()),
+                                refreshTokenService.ttlSeconds());
 
                 // Redirect to frontend WITHOUT token in URL (SECURE)
                 // Include isNewUser flag so frontend knows whether to show role selection
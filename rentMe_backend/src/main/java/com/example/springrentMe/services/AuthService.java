@@ -14,7 +14,10 @@ import com.example.springrentMe.repositories.AdminRepository;
 import com.example.springrentMe.repositories.RenterRepository;
 import com.example.springrentMe.repositories.UserRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.security.CustomUserDetailsService;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.AccountStateCache;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
 import com.example.springrentMe.utils.JwtTokenProvider;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
@@ -50,6 +53,12 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
 
+    private final CustomUserDetailsService userDetailsService;
+
+    private final AccountStateCache accountStateCache;
+
+    private final ChatSessionAccessCache chatSessionAccessCache;
+
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String googleClientId;
 
@@ -59,7 +68,10 @@ public class AuthService {
             AdminRepository adminRepository,
             PasswordEncoder passwordEncoder,
             JwtTokenProvider jwtTokenProvider,
-            AuthenticationManager authenticationManager) {
+            AuthenticationManager authenticationManager,
+            CustomUserDetailsService userDetailsService,
+            AccountStateCache accountStateCache,
+            ChatSessionAccessCache chatSessionAccessCache) {
         this.userRepository = userRepository;
         this.renterRepository = renterRepository;
         this.vehicleOwnerRepository = vehicleOwnerRepository;
@@ -67,6 +79,9 @@ public class AuthService {
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
         this.authenticationManager = authenticationManager;
+        this.userDetailsService = userDetailsService;
+        this.accountStateCache = accountStateCache;
+        this.chatSessionAccessCache = chatSessionAccessCache;
     }
 
     /**
@@ -228,7 +243,8 @@ public class AuthService {
             }
 
             // 4. Generate JWT token for the user
-            String jwtToken = jwtTokenProvider.generateTokenFromUsername(user.getEmail());
+            String jwtToken = jwtTokenProvider.generateToken(
+                    (UserDetailsImpl) userDetailsService.loadUserById(user.getUserId()));
 
             // 5. Return response with isNewUser flag
             return new AuthResponse(
@@ -249,7 +265,7 @@ public class AuthService {
      * Used when refreshing cookies after role changes.
      */
     public String generateTokenForUser(String email) {
-        return jwtTokenProvider.generateTokenFromUsername(email);
+        return jwtTokenProvider.generateToken((UserDetailsImpl) userDetailsService.loadUserByUsername(email));
     }
 
     /**
@@ -277,6 +293,7 @@ public class AuthService {
         // Update user's role
         user.setRole(role);
         userRepository.save(user);
+        accountStateCache.onAccountChanged(userId);
 
         // Create role-specific record if not already present
         if (role == UserRole.VEHICLE_OWNER) {
@@ -289,6 +306,7 @@ public class AuthService {
                 vehicleOwner.setUser(user);
                 vehicleOwner.setVerificationStatus(VerificationStatus.NOT_SUBMITTED);
                 vehicleOwnerRepository.save(vehicleOwner);
+                chatSessionAccessCache.onUserChanged(userId); // new owner profile
             }
         } else {
             // RENTER
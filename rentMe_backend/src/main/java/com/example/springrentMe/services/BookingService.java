@@ -9,14 +9,20 @@ import com.example.springrentMe.repositories.RenterRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
 import com.example.springrentMe.repositories.VehicleRepository;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.availability.BookingAvailabilityIndex;
+import com.example.springrentMe.services.availability.VehicleLockStripes;
+import com.example.springrentMe.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -27,6 +33,9 @@ import java.util.stream.Collectors;
 @Service
 public class BookingService {
 
+    // Tie-breaker of the (createdAt, bookingId) keyset used by cursor listings
+    private static final String BOOKING_ID = "bookingId";
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -45,6 +54,15 @@ public class BookingService {
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private VehicleLockStripes vehicleLocks;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // ─────────────────────────────────────────────────────────────────────────
     // CREATE BOOKING (Renter action)
     // ─────────────────────────────────────────────────────────────────────────
@@ -59,17 +77,33 @@ public class BookingService {
      * 4. Vehicle must be listed and available (isAvailable = true).
      * 5. Dates must be valid (end after start).
      * 6. No overlapping active bookings for the same vehicle.
+     *
+     * Admission is serialized per vehicle: the vehicle's lock stripe is held
+     * for the whole transaction (taken before it begins, released after it
+     * commits), and the vehicle row is locked with SELECT ... FOR UPDATE so
+     * that concurrent requests on other app instances are serialized as well.
+     * The overlap check queries the bookings table under that row lock; the
+     * in-memory BookingAvailabilityIndex is per instance and can miss a
+     * booking another instance just admitted, so it only serves searches.
+     * Requests for different vehicles proceed in parallel.
      */
-    @Transactional
     public BookingResponseDTO createBooking(BookingRequestDTO request) {
+        if (request.getVehicleId() == null) {
+            throw new RuntimeException("Vehicle ID is required.");
+        }
+        return vehicleLocks.withVehicleLock(request.getVehicleId(),
+                () -> transactionTemplate.execute(status -> admitBooking(request)));
+    }
+
+    private BookingResponseDTO admitBooking(BookingRequestDTO request) {
         // 1. Resolve renter
         Renter renter = getRenterForCurrentUser();
 
         // 2. Validate dates
         validateDates(request.getStartDate(), request.getEndDate());
 
-        // 3. Resolve and validate vehicle
-        Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
+        // 3. Resolve and validate vehicle (row-locked until commit)
+        Vehicle vehicle = vehicleRepository.findByIdForUpdate(request.getVehicleId())
                 .orElseThrow(() -> new RuntimeException(
                         "Vehicle not found with id: " + request.getVehicleId()));
 
@@ -96,7 +130,8 @@ public class BookingService {
             throw new RuntimeException("You cannot book your own vehicle.");
         }
 
-        // 8. Overlap check – prevent double-booking for the date range
+        // 8. Overlap check – prevent double-booking for the date range.
+        //    Against the database, under the row lock: authoritative across instances
         boolean hasOverlap = bookingRepository.existsOverlappingBooking(
                 vehicle.getVehicleId(),
                 request.getStartDate(),
@@ -126,6 +161,7 @@ public class BookingService {
         booking.setNotes(request.getNotes());
 
         Booking saved = bookingRepository.save(booking);
+        availabilityIndex.onBookingChanged(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -173,6 +209,7 @@ public class BookingService {
         }
 
         Booking saved = bookingRepository.save(booking);
+        availabilityIndex.onBookingChanged(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -230,46 +267,10 @@ public class BookingService {
                         : "Cancelled by renter");
 
         Booking saved = bookingRepository.save(booking);
+        availabilityIndex.onBookingChanged(saved);
         return convertToResponseDTO(saved);
     }
 
-    // ─────────────────────────────────────────────────────────────────────────
-    // SCHEDULED STATUS TRANSITIONS
-    // ─────────────────────────────────────────────────────────────────────────
-
-    /**
-     * Runs every day at midnight.
-     * Transitions APPROVED → ONGOING when start_date arrives.
-     */
-    @Scheduled(cron = "0 0 0 * * *") // every day at 00:00
-    @Transactional
-    public void transitionApprovedToOngoing() {
-        LocalDate today = LocalDate.now();
-        List<Booking> toStart = bookingRepository.findApprovedBookingsToStart(today);
-        for (Booking booking : toStart) {
-            booking.setStatus(BookingStatus.ONGOING);
-            bookingRepository.save(booking);
-        }
-    }
-
-    /**
-     * Runs every day at midnight.
-     * Transitions ONGOING → COMPLETED when end_date passes, then restores vehicle
-     * availability.
-     */
-    @Scheduled(cron = "0 1 0 * * *") // every day at 00:01 (slightly after above)
-    @Transactional
-    public void transitionOngoingToCompleted() {
-        LocalDate today = LocalDate.now();
-        List<Booking> toComplete = bookingRepository.findOngoingBookingsToComplete(today);
-        for (Booking booking : toComplete) {
-            booking.setStatus(BookingStatus.COMPLETED);
-            // Restore vehicle availability once rental is done
-            vehicleService.setAvailability(booking.getVehicle().getVehicleId(), true);
-            bookingRepository.save(booking);
-        }
-    }
-
     // ─────────────────────────────────────────────────────────────────────────
     // READ OPERATIONS
     // ─────────────────────────────────────────────────────────────────────────
@@ -285,6 +286,18 @@ public class BookingService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getMyBookingsAsRenter (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<BookingResponseDTO> getMyBookingsAsRenter(String cursor, int size) {
+        Renter renter = getRenterForCurrentUser();
+        return bookingRepository
+                .findByRenter_RenterId(renter.getRenterId(), KeysetCursor.decode(cursor, BOOKING_ID),
+                        KeysetCursor.sort(Sort.Direction.DESC, BOOKING_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     /**
      * Get all bookings for vehicles owned by the authenticated owner.
      */
@@ -296,6 +309,19 @@ public class BookingService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getMyBookingsAsOwner (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<BookingResponseDTO> getMyBookingsAsOwner(String cursor, int size) {
+        VehicleOwner owner = getOwnerForCurrentUser();
+        return bookingRepository
+                .findByVehicle_VehicleOwner_VehicleOwnerId(owner.getVehicleOwnerId(),
+                        KeysetCursor.decode(cursor, BOOKING_ID),
+                        KeysetCursor.sort(Sort.Direction.DESC, BOOKING_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     /**
      * Get all PENDING booking requests for the authenticated owner (decision
      * queue).
@@ -308,6 +334,19 @@ public class BookingService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getPendingRequestsForOwner (oldest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<BookingResponseDTO> getPendingRequestsForOwner(String cursor, int size) {
+        VehicleOwner owner = getOwnerForCurrentUser();
+        return bookingRepository
+                .findByVehicle_VehicleOwner_VehicleOwnerIdAndStatus(owner.getVehicleOwnerId(),
+                        BookingStatus.PENDING, KeysetCursor.decode(cursor, BOOKING_ID),
+                        KeysetCursor.sort(Sort.Direction.ASC, BOOKING_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     /**
      * Get a single booking by ID.
      * Accessible by the renter involved, the vehicle owner, or admin.
@@ -328,6 +367,16 @@ public class BookingService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getAllBookings (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<BookingResponseDTO> getAllBookings(String cursor, int size) {
+        return bookingRepository.findAllBy(KeysetCursor.decode(cursor, BOOKING_ID),
+                        KeysetCursor.sort(Sort.Direction.DESC, BOOKING_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // PRIVATE HELPERS
     // ─────────────────────────────────────────────────────────────────────────
@@ -415,6 +464,7 @@ public class BookingService {
         }
 
         Booking saved = bookingRepository.save(booking);
+        availabilityIndex.onBookingChanged(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -455,12 +505,7 @@ public class BookingService {
             dto.setVehicleType(vehicle.getType() != null ? vehicle.getType().name() : null);
             dto.setVehiclePickupLocation(vehicle.getPickupLocation());
             
-            List<String> picUrls = vehicle.getDocuments() != null
-                ? vehicle.getDocuments().stream()
-                    .filter(d -> d.getDocumentType() == com.example.springrentMe.models.DocumentType.VEHICLE_PICTURE)
-                    .map(d -> documentService.convertToDTO(d).getFileUrl())
-                    .collect(Collectors.toList())
-                : new java.util.ArrayList<>();
+            List<String> picUrls = documentService.pictureUrls(vehicle);
             dto.setVehiclePictures(picUrls);
             
             dto.setDailyPrice(vehicle.getDailyPrice());
@@ -0,0 +1,238 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.models.BookingStatus;
+import com.example.springrentMe.models.BookingTransitionRun;
+import com.example.springrentMe.models.JobRunStatus;
+import com.example.springrentMe.repositories.BookingRepository;
+import com.example.springrentMe.repositories.BookingTransitionRunRepository;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.services.availability.BookingAvailabilityIndex;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
+import com.example.springrentMe.services.geo.VehicleGeoIndex;
+import com.example.springrentMe.services.search.VehicleFacetCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Nightly booking status transitions, run as a chunked, set-based pipeline.
+ *
+ *   00:00  APPROVED → ONGOING    when start_date has arrived
+ *   00:01  ONGOING  → COMPLETED  when end_date has passed (vehicle made available again)
+ *
+ * Each chunk selects up to {@code app.booking.transition-chunk-size} booking
+ * IDs, transitions them with one bulk UPDATE (plus one bulk vehicle UPDATE for
+ * completions) and commits together with the progress counters of the
+ * BookingTransitionRun row. Because the bulk UPDATE only touches rows still in
+ * the source status, a crashed or repeated run simply continues with whatever
+ * is left. Shortly after start-up, and periodically after that, any job that
+ * hasn't COMPLETED for today is run again on the scheduler thread, so a long
+ * catch-up never holds up start-up.
+ *
+ * Several instances may run the job: each run is claimed with a conditional
+ * UPDATE of its (job, date) row, and an instance that can't claim it skips
+ * the run. A RUNNING row without progress for
+ * {@code app.booking.transition-stale-ms} is taken to belong to a crashed
+ * instance and may be claimed again.
+ *
+ * Not lazy: @Scheduled methods are only registered for instantiated beans,
+ * and the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class BookingTransitionJob {
+
+    static final String START_JOB = "APPROVED_TO_ONGOING";
+    static final String COMPLETE_JOB = "ONGOING_TO_COMPLETED";
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingTransitionRunRepository runRepository;
+
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private VehicleGeoIndex geoIndex;
+
+    @Autowired
+    private VehicleFacetCache facetCache;
+
+    @Autowired
+    private VehicleResponseCache responseCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.booking.transition-chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.booking.transition-stale-ms:600000}")
+    private long staleMs;
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SCHEDULED ENTRY POINTS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Scheduled(cron = "0 0 0 * * *") // every day at 00:00
+    public void transitionApprovedToOngoing() {
+        runJob(START_JOB, LocalDate.now());
+    }
+
+    @Scheduled(cron = "0 1 0 * * *") // every day at 00:01 (slightly after above)
+    public void transitionOngoingToCompleted() {
+        runJob(COMPLETE_JOB, LocalDate.now());
+    }
+
+    /**
+     * Resume after a crash (stale RUNNING or FAILED row) or catch up after
+     * downtime over midnight (no row yet) – both jobs are idempotent, so just
+     * run them again.
+     */
+    @Scheduled(initialDelayString = "${app.booking.transition-resume-delay-ms:30000}",
+            fixedDelayString = "${app.booking.transition-resume-interval-ms:600000}")
+    public void resumeUnfinishedRuns() {
+        LocalDate today = LocalDate.now();
+        for (String jobName : List.of(START_JOB, COMPLETE_JOB)) {
+            boolean completed = runRepository.findByJobNameAndRunDate(jobName, today)
+                    .map(r -> r.getStatus() == JobRunStatus.COMPLETED)
+                    .orElse(false);
+            if (!completed) {
+                runJob(jobName, today);
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PIPELINE
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Run a job to completion, committing every chunk separately.
+     *
+     * @return the run record (null if another instance is already running it)
+     */
+    BookingTransitionRun runJob(String jobName, LocalDate runDate) {
+        Long runId = startRun(jobName, runDate);
+        if (runId == null) {
+            return null;
+        }
+        long startedNanos = System.nanoTime();
+        try {
+            int processed;
+            do {
+                processed = transactionTemplate.execute(status -> processChunk(jobName, runDate, runId));
+            } while (processed > 0);
+            return finishRun(runId, JobRunStatus.COMPLETED, startedNanos, null);
+        } catch (RuntimeException e) {
+            System.err.println("[BookingTransitionJob] " + jobName + " failed: " + e.getMessage());
+            return finishRun(runId, JobRunStatus.FAILED, startedNanos, e.getMessage());
+        }
+    }
+
+    /**
+     * Transition one chunk and record progress, in the caller's transaction.
+     *
+     * @return number of bookings selected for this chunk (0 = nothing left)
+     */
+    private int processChunk(String jobName, LocalDate runDate, Long runId) {
+        PageRequest firstChunk = PageRequest.of(0, chunkSize);
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> bookingIds;
+        int updated;
+
+        if (START_JOB.equals(jobName)) {
+            bookingIds = bookingRepository.findApprovedBookingIdsToStart(runDate, firstChunk);
+            if (bookingIds.isEmpty()) {
+                return 0;
+            }
+            updated = bookingRepository.bulkTransitionStatus(
+                    bookingIds, BookingStatus.APPROVED, BookingStatus.ONGOING, now);
+            // Still active – the availability index is unaffected
+        } else {
+            bookingIds = bookingRepository.findOngoingBookingIdsToComplete(runDate, firstChunk);
+            if (bookingIds.isEmpty()) {
+                return 0;
+            }
+            List<Long> vehicleIds = bookingRepository.findVehicleIdsByBookingIds(bookingIds);
+            updated = bookingRepository.bulkTransitionStatus(
+                    bookingIds, BookingStatus.ONGOING, BookingStatus.COMPLETED, now);
+            // Restore vehicle availability once rental is done
+            vehicleRepository.bulkSetAvailability(vehicleIds, true, now);
+            availabilityIndex.evictAll(vehicleIds);
+            geoIndex.refresh(vehicleIds);
+            facetCache.invalidate();
+            responseCache.onVehiclesChanged(vehicleIds);
+        }
+
+        BookingTransitionRun run = runRepository.findById(runId).orElseThrow();
+        run.setProcessedCount(run.getProcessedCount() + updated);
+        run.setChunkCount(run.getChunkCount() + 1);
+        run.setLastProgressAt(now);
+        runRepository.save(run);
+        return bookingIds.size();
+    }
+
+    /**
+     * Create or claim the run row for (job, date).
+     *
+     * @return the run ID, or null if another instance holds the run
+     */
+    private Long startRun(String jobName, LocalDate runDate) {
+        try {
+            Long created = transactionTemplate.execute(status -> {
+                if (runRepository.findByJobNameAndRunDate(jobName, runDate).isPresent()) {
+                    return null;
+                }
+                BookingTransitionRun run = new BookingTransitionRun();
+                run.setJobName(jobName);
+                run.setRunDate(runDate);
+                run.setStatus(JobRunStatus.RUNNING);
+                run.setStartedAt(LocalDateTime.now());
+                run.setLastProgressAt(run.getStartedAt());
+                return runRepository.saveAndFlush(run).getRunId();
+            });
+            if (created != null) {
+                return created;
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first; its RUNNING status makes the claim below fail
+        }
+        // A re-run keeps the previous counters so progress is cumulative
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int claimed = runRepository.claim(jobName, runDate, JobRunStatus.RUNNING, now, now.minus(staleMs, ChronoUnit.MILLIS));
+            return claimed == 1
+                    ? runRepository.findByJobNameAndRunDate(jobName, runDate).map(BookingTransitionRun::getRunId).orElse(null)
+                    : null;
+        });
+    }
+
+    private BookingTransitionRun finishRun(Long runId, JobRunStatus status, long startedNanos, String error) {
+        return transactionTemplate.execute(tx -> {
+            BookingTransitionRun run = runRepository.findById(runId).orElseThrow();
+            run.setStatus(status);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs((System.nanoTime() - startedNanos) / 1_000_000);
+            if (error != null) {
+                run.setErrorMessage(error.length() > 500 ? error.substring(0, 500) : error);
+            }
+            return runRepository.save(run);
+        });
+    }
+}
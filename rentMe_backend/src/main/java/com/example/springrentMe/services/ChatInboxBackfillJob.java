@@ -0,0 +1,101 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.repositories.ChatSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Populates the inbox columns of ChatSession (last message preview, unread
+ * counts) for sessions created before they existed.
+ *
+ * Runs once on start-up in chunks of {@code app.chat.inbox-backfill-chunk-size}
+ * sessions, one transaction per chunk. Each session is rebuilt under its row
+ * lock by ChatService, so messages sent meanwhile are counted exactly once,
+ * and a crashed run simply continues with the sessions that are still NULL.
+ * Until then the inbox counts unread messages of those sessions directly.
+ *
+ * The same way, it then numbers the messages that predate per-session
+ * sequence numbers, so delta sync (afterSeq) covers the whole history.
+ *
+ * Not lazy: the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class ChatInboxBackfillJob {
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.chat.inbox-backfill-chunk-size:200}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int backfilled = backfill();
+            if (backfilled > 0) {
+                System.err.println("[ChatInboxBackfillJob] Populated inbox columns for " + backfilled + " chat sessions");
+            }
+            int sequenced = sequence();
+            if (sequenced > 0) {
+                System.err.println("[ChatInboxBackfillJob] Numbered the messages of " + sequenced + " chat sessions");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[ChatInboxBackfillJob] Backfill failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Backfill every session without inbox columns.
+     *
+     * @return number of sessions populated
+     */
+    int backfill() {
+        int total = 0;
+        while (true) {
+            Integer done = transactionTemplate.execute(status -> {
+                List<Long> sessionIds = chatSessionRepository.findIdsWithoutInbox(PageRequest.of(0, chunkSize));
+                sessionIds.forEach(chatService::rebuildInbox);
+                return sessionIds.size();
+            });
+            if (done == null || done == 0) {
+                return total;
+            }
+            total += done;
+        }
+    }
+
+    /**
+     * Number the messages of every session that has unsequenced ones.
+     *
+     * @return number of sessions sequenced
+     */
+    int sequence() {
+        int total = 0;
+        while (true) {
+            Integer done = transactionTemplate.execute(status -> {
+                List<Long> sessionIds = chatSessionRepository.findIdsWithUnsequencedMessages(PageRequest.of(0, chunkSize));
+                sessionIds.forEach(chatService::sequenceLegacyMessages);
+                return sessionIds.size();
+            });
+            if (done == null || done == 0) {
+                return total;
+            }
+            total += done;
+        }
+    }
+}
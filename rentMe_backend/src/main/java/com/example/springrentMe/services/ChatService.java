@@ -6,22 +6,52 @@ import com.example.springrentMe.models.chat.*;
 import com.example.springrentMe.repositories.*;
 import com.example.springrentMe.exceptions.*;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
+import com.example.springrentMe.services.chat.ChatSessionAccess;
+import com.example.springrentMe.services.chat.ChatWriteBehindQueue;
+import com.example.springrentMe.services.chat.ChatWriteBehindQueue.PendingMessage;
+import com.example.springrentMe.services.chat.UnreadCountService;
+import com.example.springrentMe.utils.KeysetCursor;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class ChatService {
 
+    // Tie-breaker of the (createdAt, messageId) keyset used by cursor listings
+    private static final String MESSAGE_ID = "messageId";
+
+    private static final int PREVIEW_LENGTH = 60;
+
+    // Width of chat_messages.client_message_id
+    private static final int CLIENT_MESSAGE_ID_LENGTH = 64;
+
     @Autowired
     private ChatSessionRepository chatSessionRepository;
 
@@ -43,6 +73,38 @@ public class ChatService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private ChatSessionAccessCache chatSessionAccessCache;
+
+    @Autowired
+    private ChatWriteBehindQueue chatWriteBehindQueue;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.chat.sync.max-messages-per-session:200}")
+    private int syncMessagesPerSession;
+
+    @Value("${app.chat.sync.max-sessions:50}")
+    private int syncMaxSessions;
+
+    @Value("${app.chat.sync.deletion-overlap-seconds:30}")
+    private long syncDeletionOverlapSeconds;
+
+    @PostConstruct
+    void listenForStoredMessages() {
+        // The stored copy (now with its message ID) confirms a write-behind send to the sender's outbox
+        chatWriteBehindQueue.onStored(stored -> stored.forEach(s -> {
+            ChatMessageResponseDTO dto = convertToMessageDTO(s.message(),
+                    sessionAccess(s.message().sessionId()).nameOf(s.message().senderId()));
+            dto.setMessageId(s.messageId());
+            publish(dto);
+        }));
+    }
+
     /**
      * Create or retrieve a chat session between two users
      */
@@ -117,6 +179,7 @@ public class ChatService {
                     throw new ChatSessionException("Vehicle does not belong to the vehicle owner participant");
                 }
                 existing.setVehicle(vehicle);
+                chatSessionAccessCache.onSessionChanged(existing.getSessionId()); // owner may change
             }
             existing = chatSessionRepository.save(existing);
             return convertToSessionDTO(existing, callerId);
@@ -145,7 +208,8 @@ public class ChatService {
     }
 
     /**
-     * Get all sessions for the current user (paginated)
+     * Get all sessions for the current user (paginated). One query: preview
+     * and unread counts live on the session row.
      */
     @Transactional(readOnly = true)
     public Page<ChatSessionResponseDTO> getMySessions(Pageable pageable) {
@@ -179,90 +243,215 @@ public class ChatService {
      */
     @Transactional(readOnly = true)
     public Page<ChatMessageResponseDTO> getMessages(Long sessionId, Pageable pageable) {
-        Long callerId = getCurrentUserId();
+        ensureCanViewMessages(sessionId);
+
+        Page<ChatMessage> messages = chatMessageRepository.findBySession_SessionIdAndIsDeletedFalse(sessionId, pageable);
+        return messages.map(this::convertToMessageDTO);
+    }
+
+    /**
+     * Cursor variant of getMessages (oldest first, no COUNT query)
+     */
+    @Transactional(readOnly = true)
+    public Window<ChatMessageResponseDTO> getMessages(Long sessionId, String cursor, int size) {
+        ensureCanViewMessages(sessionId);
+        return findMessagesAfter(sessionId, cursor, size);
+    }
+
+    /**
+     * Messages after the given sequence number, oldest first, with the
+     * session's read positions and the messages deleted since deletedSince
+     * (if given): a reconnecting client fetches only what it missed. Queued
+     * write-behind messages are included. No COUNT query; one row more than
+     * asked tells whether there is more.
+     */
+    @Transactional(readOnly = true)
+    public ChatSessionDeltaDTO getMessagesAfter(Long sessionId, long afterSeq, int size, LocalDateTime deletedSince) {
+        ensureCanViewMessages(sessionId);
+        LocalDateTime syncedAt = LocalDateTime.now();
+        // Before the database reads: a message leaves the queue only once stored
+        List<PendingMessage> pending = chatWriteBehindQueue.findPending(List.of(sessionId))
+                .getOrDefault(sessionId, List.of());
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
+        List<Long> deletedSeqs = findDeletedSeqs(List.of(sessionId), deletedSince).getOrDefault(sessionId, List.of());
+        List<ChatMessageResponseDTO> stored = new ArrayList<>();
+        if (session.getLastMessageSeq() == null || session.getLastMessageSeq() > afterSeq) {
+            chatMessageRepository.findBySession_SessionIdAndSeqGreaterThanAndIsDeletedFalseOrderBySeqAsc(
+                    sessionId, afterSeq, Limit.of(size + 1))
+                    .forEach(message -> stored.add(convertToMessageDTO(message)));
+        }
+        return toDelta(session, getCurrentUserId(), afterSeq, size, stored, pending, deletedSeqs, syncedAt);
+    }
 
-        boolean isParticipant = session.getParticipantOne().getUserId().equals(callerId) ||
-                                session.getParticipantTwo().getUserId().equals(callerId);
-        boolean isAdmin = hasRole("ROLE_ADMIN");
+    /**
+     * Everything that changed in the caller's sessions since the client's
+     * last sync, in one round trip: new messages past each session's cursor,
+     * messages deleted since deletedSince, and moved read positions. Only
+     * sessions whose row changed since deletedSince (less the overlap) or
+     * that have queued write-behind messages are read, at most
+     * app.chat.sync.max-sessions of them per response, by session ID: with
+     * afterSessionId set in the response, ask again with it (same cursors
+     * and deletedSince) for the rest. Without deletedSince every session is
+     * read, in the same pages. Sessions without changes are left out. Three
+     * queries: the session rows, the deletions, and the new messages of all
+     * of them.
+     */
+    @Transactional(readOnly = true)
+    public ChatSyncResponseDTO sync(ChatSyncRequestDTO req) {
+        Long callerId = getCurrentUserId();
+        LocalDateTime syncedAt = LocalDateTime.now();
 
-        if (!isParticipant && !isAdmin) {
-            throw new AccessDeniedException("You do not have permission to view messages in this session");
+        Map<Long, ChatSyncRequestDTO.SessionCursor> cursors = new HashMap<>();
+        for (ChatSyncRequestDTO.SessionCursor cursor : req.getSessions()) {
+            cursors.put(cursor.getSessionId(), cursor);
+        }
+        long afterSessionId = req.getAfterSessionId() != null ? req.getAfterSessionId() : 0;
+        Limit limit = Limit.of(syncMaxSessions + 1);
+        // Before the session reads: a message leaves the queue only once its row update commits
+        Set<Long> pendingSessionIds = chatWriteBehindQueue.findPendingSessionIds(callerId);
+        List<ChatSession> sessions = req.getDeletedSince() == null
+                ? chatSessionRepository.findForSync(callerId, afterSessionId, limit)
+                : chatSessionRepository.findChangedForSync(callerId,
+                        req.getDeletedSince().minusSeconds(syncDeletionOverlapSeconds),
+                        pendingSessionIds, afterSessionId, limit);
+        Long nextSessionId = null;
+        if (sessions.size() > syncMaxSessions) {
+            sessions = sessions.subList(0, syncMaxSessions);
+            nextSessionId = sessions.get(sessions.size() - 1).getSessionId();
+        }
+        List<Long> sessionIds = sessions.stream().map(ChatSession::getSessionId).toList();
+        Map<Long, List<PendingMessage>> pending = pendingSessionIds.isEmpty()
+                ? Map.of() : chatWriteBehindQueue.findPending(sessionIds);
+
+        // Deletions, for the sessions the client already has
+        List<Long> known = sessionIds.stream().filter(cursors::containsKey).toList();
+        Map<Long, List<Long>> deletedSeqs = findDeletedSeqs(known, req.getDeletedSince());
+
+        // New messages of every session behind its cursor, in one query
+        Map<Long, Long> afterSeqs = new HashMap<>();
+        for (ChatSession session : sessions) {
+            long afterSeq = afterSeq(cursors.get(session.getSessionId()));
+            if (session.getLastMessageSeq() == null || session.getLastMessageSeq() > afterSeq) {
+                afterSeqs.put(session.getSessionId(), afterSeq);
+            }
+        }
+        Map<Long, ChatSession> byId = new HashMap<>();
+        sessions.forEach(session -> byId.put(session.getSessionId(), session));
+        Map<Long, List<ChatMessageResponseDTO>> stored = new HashMap<>();
+        for (ChatMessage message : chatMessageRepository.findAfterSeqs(afterSeqs, syncMessagesPerSession + 1)) {
+            ChatSession session = byId.get(message.getSession().getSessionId());
+            stored.computeIfAbsent(session.getSessionId(), id -> new ArrayList<>())
+                    .add(convertToMessageDTO(message, participantName(session, message.getSender().getUserId())));
         }
 
-        Page<ChatMessage> messages = chatMessageRepository.findBySession_SessionIdAndIsDeletedFalse(sessionId, pageable);
-        return messages.map(this::convertToMessageDTO);
+        List<ChatSessionDeltaDTO> changed = new ArrayList<>();
+        for (ChatSession session : sessions) {
+            ChatSyncRequestDTO.SessionCursor cursor = cursors.get(session.getSessionId());
+            ChatSessionDeltaDTO delta = toDelta(session, callerId, afterSeq(cursor), syncMessagesPerSession,
+                    stored.getOrDefault(session.getSessionId(), new ArrayList<>()),
+                    pending.getOrDefault(session.getSessionId(), List.of()),
+                    deletedSeqs.getOrDefault(session.getSessionId(), List.of()), syncedAt);
+            if (cursor == null
+                    || !delta.getMessages().isEmpty()
+                    || !delta.getDeletedSeqs().isEmpty()
+                    || !Objects.equals(cursor.getReadSeq(), delta.getReadSeq())
+                    || !Objects.equals(cursor.getOtherReadSeq(), delta.getOtherReadSeq())) {
+                changed.add(delta);
+            }
+        }
+        return new ChatSyncResponseDTO(syncedAt, changed, nextSessionId);
+    }
+
+    private static long afterSeq(ChatSyncRequestDTO.SessionCursor cursor) {
+        return cursor != null && cursor.getAfterSeq() != null ? cursor.getAfterSeq() : 0;
+    }
+
+    // The sender's name from the session's fetched participants
+    private static String participantName(ChatSession session, Long userId) {
+        return session.getParticipantOne().getUserId().equals(userId)
+                ? session.getParticipantOne().getFullName()
+                : session.getParticipantTwo().getFullName();
     }
 
     /**
-     * Send a message in a session (called by WebSocket or REST)
+     * Send a message in a session (called by WebSocket or REST). Permissions
+     * come from the cached session descriptor, so the send itself is the
+     * sequence allocation, the message insert and the session's inbox update,
+     * in one transaction. With the write-behind pipeline on (see
+     * ChatWriteBehindQueue) the send runs outside any transaction: a sender
+     * waiting for room in the queue must not hold a database connection, and
+     * the only statement left is the lookup of a resend's client message ID
+     * once it isn't queued any more. A resend with a client message ID the
+     * sender already used returns the original message.
+     *
+     * Not @Transactional: the transaction is opened only on the synchronous path.
      */
-    @Transactional
     public ChatMessageResponseDTO sendMessage(Long sessionId, SendMessageRequestDTO req) {
         Long callerId = getCurrentUserId();
-        ChatSession session = chatSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
+        ChatSessionAccess access = sessionAccess(sessionId);
 
         // Access check: caller must be a participant
-        boolean isParticipant = session.getParticipantOne().getUserId().equals(callerId) ||
-                                session.getParticipantTwo().getUserId().equals(callerId);
-        if (!isParticipant) {
+        if (!access.isParticipant(callerId)) {
             throw new AccessDeniedException("You are not a participant in this chat session");
         }
 
         // VEHICLE_OWNER constraint: if sessionType=RENTER_OWNER, owner may only write if session was initiated by renter
-        if (session.getSessionType() == SessionType.RENTER_OWNER) {
-            Long ownerUserId = null;
-            if (session.getVehicle() != null) {
-                ownerUserId = session.getVehicle().getVehicleOwner().getUser().getUserId();
-            } else {
-                // Fallback owner check
-                if (vehicleOwnerRepository.existsByUser_UserId(session.getParticipantOne().getUserId())) {
-                    ownerUserId = session.getParticipantOne().getUserId();
-                } else if (vehicleOwnerRepository.existsByUser_UserId(session.getParticipantTwo().getUserId())) {
-                    ownerUserId = session.getParticipantTwo().getUserId();
-                }
-            }
-
-            if (ownerUserId != null && callerId.equals(ownerUserId)) {
-                // Caller is the owner. Verify owner is not the initiator
-                if (session.getInitiator().getUserId().equals(callerId)) {
-                    throw new AccessDeniedException("Vehicle owner is not allowed to initiate or write in this session");
-                }
-            }
+        if (access.sessionType() == SessionType.RENTER_OWNER
+                && callerId.equals(access.ownerUserId())
+                && callerId.equals(access.initiatorUserId())) {
+            throw new AccessDeniedException("Vehicle owner is not allowed to initiate or write in this session");
         }
 
         // Verified owner gate: check if the owner participant is approved
-        Long ownerUserIdToCheck = null;
-        if (session.getVehicle() != null) {
-            ownerUserIdToCheck = session.getVehicle().getVehicleOwner().getUser().getUserId();
-        } else {
-            if (vehicleOwnerRepository.existsByUser_UserId(session.getParticipantOne().getUserId())) {
-                ownerUserIdToCheck = session.getParticipantOne().getUserId();
-            } else if (vehicleOwnerRepository.existsByUser_UserId(session.getParticipantTwo().getUserId())) {
-                ownerUserIdToCheck = session.getParticipantTwo().getUserId();
-            }
+        if (access.ownerUserId() != null && access.ownerStatus() != VerificationStatus.APPROVED) {
+            throw new ChatSessionException("Vehicle owner verification status is " + access.ownerStatus() + ". Communication disabled.");
         }
 
-        if (ownerUserIdToCheck != null) {
-            VehicleOwner owner = vehicleOwnerRepository.findByUser_UserId(ownerUserIdToCheck)
-                    .orElseThrow(() -> new ChatSessionException("Vehicle owner profile not found"));
-            if (owner.getVerificationStatus() != VerificationStatus.APPROVED) {
-                throw new ChatSessionException("Vehicle owner verification status is " + owner.getVerificationStatus() + ". Communication disabled.");
+        // Validate payload completeness per MessageType
+        validateMessagePayload(req);
+
+        if (req.getClientMessageId() != null) {
+            Optional<ChatMessageResponseDTO> sent = findSentMessage(callerId, req.getClientMessageId(), access);
+            if (sent.isPresent()) {
+                return sent.get();
             }
         }
+        if (chatWriteBehindQueue.isEnabled()) {
+            return sendWriteBehind(sessionId, callerId, access, req);
+        }
 
-        // Validate payload completeness per MessageType
-        validateMessagePayload(req);
+        ChatMessageResponseDTO responseDTO;
+        try {
+            responseDTO = transactionTemplate.execute(status -> store(sessionId, callerId, access, req));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent resend with the same client message ID stored first
+            if (req.getClientMessageId() == null) {
+                throw e;
+            }
+            return chatMessageRepository.findBySender_UserIdAndClientMessageId(callerId, req.getClientMessageId())
+                    .map(message -> convertToMessageDTO(message, access.nameOf(callerId)))
+                    .orElseThrow(() -> e);
+        }
+        publish(responseDTO);
+        return responseDTO;
+    }
 
-        User sender = userRepository.findById(callerId)
-                .orElseThrow(() -> new ChatSessionException("Sender not found"));
+    /**
+     * Synchronous send: sequence, insert and inbox update; the caller's
+     * transaction commits them together.
+     */
+    private ChatMessageResponseDTO store(Long sessionId, Long callerId, ChatSessionAccess access,
+                                         SendMessageRequestDTO req) {
+        // Next sequence number; the session row stays locked until commit, keeping sends in order
+        chatSessionRepository.allocateSequence(sessionId);
+        Long seq = chatSessionRepository.findLastMessageSeq(sessionId)
+                .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
 
-        // Persist ChatMessage
+        // Persist ChatMessage (session and sender by reference, no loads)
         ChatMessage message = new ChatMessage();
-        message.setSession(session);
-        message.setSender(sender);
+        message.setSession(chatSessionRepository.getReferenceById(sessionId));
+        message.setSender(userRepository.getReferenceById(callerId));
         message.setMessageType(req.getMessageType());
         message.setTextContent(req.getTextContent());
         message.setFileUrl(req.getFileUrl());
@@ -270,20 +459,18 @@ public class ChatService {
         message.setLongitude(req.getLongitude());
         message.setIsRead(false);
         message.setIsDeleted(false);
+        message.setSeq(seq);
+        message.setClientMessageId(req.getClientMessageId());
 
         ChatMessage savedMessage = chatMessageRepository.save(message);
 
-        // Update session lastMessageAt
-        session.setLastMessageAt(savedMessage.getCreatedAt() != null ? savedMessage.getCreatedAt() : LocalDateTime.now());
-        chatSessionRepository.save(session);
-
-        ChatMessageResponseDTO responseDTO = convertToMessageDTO(savedMessage);
-
-        // Publish to STOMP topic `/topic/session.{sessionId}`
-        WebSocketMessageDTO wsMessage = new WebSocketMessageDTO(sessionId, responseDTO);
-        messagingTemplate.convertAndSend("/topic/session." + sessionId, wsMessage);
+        // Update the session's inbox row (preview, recipient's unread count) atomically
+        chatSessionRepository.recordMessage(sessionId, savedMessage.getMessageId(), callerId, preview(savedMessage),
+                savedMessage.getCreatedAt() != null ? savedMessage.getCreatedAt() : LocalDateTime.now());
+        Long recipientId = access.otherParticipantId(callerId);
+        unreadCountService.adjust(recipientId, access.emailOf(recipientId), 1);
 
-        return responseDTO;
+        return convertToMessageDTO(savedMessage, access.nameOf(callerId));
     }
 
     /**
@@ -292,16 +479,16 @@ public class ChatService {
     @Transactional
     public void markAsRead(Long sessionId) {
         Long callerId = getCurrentUserId();
-        ChatSession session = chatSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
-
-        boolean isParticipant = session.getParticipantOne().getUserId().equals(callerId) ||
-                                session.getParticipantTwo().getUserId().equals(callerId);
-        if (!isParticipant) {
+        ChatSessionAccess access = sessionAccess(sessionId);
+        if (!access.isParticipant(callerId)) {
             throw new AccessDeniedException("You are not a participant in this chat session");
         }
 
-        chatMessageRepository.markAllReadInSession(sessionId, callerId);
+        // Counter first: its row lock waits out in-flight sends, so the
+        // messages update below sees every message the counter included
+        chatSessionRepository.clearUnread(sessionId, callerId, LocalDateTime.now());
+        int read = chatMessageRepository.markAllReadInSession(sessionId, callerId);
+        unreadCountService.adjust(callerId, access.emailOf(callerId), -read);
     }
 
     /**
@@ -320,17 +507,83 @@ public class ChatService {
             throw new AccessDeniedException("You do not have permission to delete this message");
         }
 
+        if (Boolean.TRUE.equals(message.getIsDeleted())) {
+            return;
+        }
+
+        // Lock the session so the read state checked here can't change before the counter does
+        ChatSession session = chatSessionRepository.findByIdForUpdate(message.getSession().getSessionId())
+                .orElseThrow(() -> new ChatSessionException("Chat session not found"));
+        boolean wasUnread = chatMessageRepository.existsByMessageIdAndIsReadFalseAndIsDeletedFalse(messageId);
+
         message.setIsDeleted(true);
+        message.setDeletedAt(LocalDateTime.now());
         chatMessageRepository.save(message);
+        session.setUpdatedAt(message.getDeletedAt()); // a sync reports the deletion
+
+        if (wasUnread) {
+            Long senderId = message.getSender().getUserId();
+            ChatSessionAccess access = sessionAccess(session.getSessionId());
+            Long recipientId = access.otherParticipantId(senderId);
+            unreadCountService.adjust(recipientId, access.emailOf(recipientId), -1);
+            if (!session.getParticipantOne().getUserId().equals(senderId) && session.getParticipantOneUnread() != null) {
+                session.setParticipantOneUnread(Math.max(0, session.getParticipantOneUnread() - 1));
+            }
+            if (!session.getParticipantTwo().getUserId().equals(senderId) && session.getParticipantTwoUnread() != null) {
+                session.setParticipantTwoUnread(Math.max(0, session.getParticipantTwoUnread() - 1));
+            }
+        }
+        if (messageId.equals(session.getLastMessageId())) {
+            applyLastMessage(session);
+        }
     }
 
     /**
-     * Total unread count across all sessions for current user
+     * Recompute a session's inbox columns from its messages (backfill of
+     * sessions older than the columns).
+     */
+    @Transactional
+    public void rebuildInbox(Long sessionId) {
+        ChatSession session = chatSessionRepository.findByIdForUpdate(sessionId).orElse(null);
+        if (session == null) {
+            return;
+        }
+        applyLastMessage(session);
+        session.setParticipantOneUnread((int) chatMessageRepository
+                .countBySession_SessionIdAndSenderUserIdNotAndIsReadFalseAndIsDeletedFalse(
+                        sessionId, session.getParticipantOne().getUserId()));
+        session.setParticipantTwoUnread((int) chatMessageRepository
+                .countBySession_SessionIdAndSenderUserIdNotAndIsReadFalseAndIsDeletedFalse(
+                        sessionId, session.getParticipantTwo().getUserId()));
+    }
+
+    /**
+     * Number the session's messages that predate sequencing 1..n in the order
+     * they were sent (backfill). Sequence numbers handed out since then
+     * started after them (see ChatSessionRepository.allocateSequence).
+     */
+    @Transactional
+    public void sequenceLegacyMessages(Long sessionId) {
+        ChatSession session = chatSessionRepository.findByIdForUpdate(sessionId).orElse(null);
+        if (session == null) {
+            return;
+        }
+        long seq = 0;
+        for (ChatMessage message : chatMessageRepository.findBySession_SessionIdAndSeqIsNullOrderByMessageIdAsc(sessionId)) {
+            message.setSeq(++seq);
+        }
+        if (session.getLastMessageSeq() == null) {
+            session.setLastMessageSeq(seq);
+        }
+    }
+
+    /**
+     * Total unread count across all sessions for current user (served from
+     * the per-user counter, see UnreadCountService)
      */
-    @Transactional(readOnly = true)
     public long getTotalUnreadCount() {
         Long callerId = getCurrentUserId();
-        return chatMessageRepository.countTotalUnreadMessagesForUser(callerId);
+        return unreadCountService.getUnreadCount(callerId);
     }
 
     /**
@@ -339,7 +592,7 @@ public class ChatService {
     @Transactional(readOnly = true)
     public Page<ChatSessionResponseDTO> getAllSessionsSystemWide(Pageable pageable) {
         Long callerId = getCurrentUserId();
-        Page<ChatSession> sessions = chatSessionRepository.findAll(pageable);
+        Page<ChatSession> sessions = chatSessionRepository.findAllBy(pageable);
         return sessions.map(session -> convertToSessionDTO(session, callerId));
     }
 
@@ -352,10 +605,147 @@ public class ChatService {
         return messages.map(this::convertToMessageDTO);
     }
 
+    /**
+     * Cursor variant of getAnySessionMessages (Admin only)
+     */
+    @Transactional(readOnly = true)
+    public Window<ChatMessageResponseDTO> getAnySessionMessages(Long sessionId, String cursor, int size) {
+        return findMessagesAfter(sessionId, cursor, size);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // PRIVATE HELPERS
     // ─────────────────────────────────────────────────────────────────────────
 
+    private void ensureCanViewMessages(Long sessionId) {
+        Long callerId = getCurrentUserId();
+        boolean isParticipant = sessionAccess(sessionId).isParticipant(callerId);
+        boolean isAdmin = hasRole("ROLE_ADMIN");
+
+        if (!isParticipant && !isAdmin) {
+            throw new AccessDeniedException("You do not have permission to view messages in this session");
+        }
+    }
+
+    /**
+     * Write-behind send: sequenced, broadcast and queued under the session's
+     * lock; stored by the next flush.
+     */
+    private ChatMessageResponseDTO sendWriteBehind(Long sessionId, Long callerId, ChatSessionAccess access,
+                                                   SendMessageRequestDTO req) {
+        Long recipientId = access.otherParticipantId(callerId);
+        // Every queued message needs a key, so a retried batch can't store it twice
+        String clientMessageId = req.getClientMessageId() != null ? req.getClientMessageId() : UUID.randomUUID().toString();
+        PendingMessage message = chatWriteBehindQueue.submit(sessionId,
+                seq -> new PendingMessage(sessionId, seq, clientMessageId, callerId,
+                        recipientId, access.emailOf(recipientId), recipientId.equals(access.participantOneId()),
+                        req.getMessageType(), req.getTextContent(), req.getFileUrl(),
+                        req.getLatitude(), req.getLongitude(), LocalDateTime.now(),
+                        preview(req.getMessageType(), req.getTextContent())),
+                queued -> publish(convertToMessageDTO(queued, access.nameOf(callerId))));
+        return convertToMessageDTO(message, access.nameOf(callerId));
+    }
+
+    private Optional<ChatMessageResponseDTO> findSentMessage(Long senderId, String clientMessageId, ChatSessionAccess access) {
+        if (chatWriteBehindQueue.isEnabled()) {
+            // Memory first: a message leaves the queue only once it is stored or dead-lettered
+            Optional<PendingMessage> pending = chatWriteBehindQueue.findPending(senderId, clientMessageId);
+            if (pending.isPresent()) {
+                return Optional.of(convertToMessageDTO(pending.get(), access.nameOf(senderId)));
+            }
+            if (chatWriteBehindQueue.isDeadLettered(senderId, clientMessageId)) {
+                throw new MessageValidationException("This message could not be stored; it will not be retried");
+            }
+        }
+        return chatMessageRepository.findBySender_UserIdAndClientMessageId(senderId, clientMessageId)
+                .map(message -> convertToMessageDTO(message, access.nameOf(senderId)));
+    }
+
+    // Publish to STOMP topic `/topic/session.{sessionId}`
+    private void publish(ChatMessageResponseDTO message) {
+        WebSocketMessageDTO wsMessage = new WebSocketMessageDTO(message.getSessionId(), message);
+        messagingTemplate.convertAndSend("/topic/session." + message.getSessionId(), wsMessage);
+    }
+
+    private ChatSessionAccess sessionAccess(Long sessionId) {
+        // Own transaction when the caller has none (sendMessage): the loader walks lazy associations
+        return chatSessionAccessCache.get(sessionId, () -> transactionTemplate.execute(status -> loadSessionAccess(sessionId)));
+    }
+
+    private ChatSessionAccess loadSessionAccess(Long sessionId) {
+        ChatSession session = chatSessionRepository.findWithParticipantsBySessionId(sessionId)
+                .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
+        User one = session.getParticipantOne();
+        User two = session.getParticipantTwo();
+
+        // Owner participant: the session vehicle's owner, else whichever participant has an owner profile
+        Optional<VehicleOwner> owner = session.getVehicle() != null
+                ? Optional.of(session.getVehicle().getVehicleOwner())
+                : vehicleOwnerRepository.findByUser_UserId(one.getUserId())
+                        .or(() -> vehicleOwnerRepository.findByUser_UserId(two.getUserId()));
+
+        return new ChatSessionAccess(sessionId, session.getSessionType(),
+                one.getUserId(), one.getFullName(), one.getEmail(),
+                two.getUserId(), two.getFullName(), two.getEmail(),
+                session.getInitiator().getUserId(),
+                owner.map(o -> o.getUser().getUserId()).orElse(null),
+                owner.map(VehicleOwner::getVerificationStatus).orElse(null));
+    }
+
+    // Sequence numbers of messages deleted since the given time (less the overlap), by session
+    private Map<Long, List<Long>> findDeletedSeqs(List<Long> sessionIds, LocalDateTime deletedSince) {
+        Map<Long, List<Long>> deletedSeqs = new HashMap<>();
+        if (deletedSince == null || sessionIds.isEmpty()) {
+            return deletedSeqs;
+        }
+        // Overlap: a delete committing after the previous sync can carry an earlier timestamp
+        LocalDateTime since = deletedSince.minusSeconds(syncDeletionOverlapSeconds);
+        for (ChatMessage deleted : chatMessageRepository.findBySession_SessionIdInAndDeletedAtGreaterThanEqual(sessionIds, since)) {
+            if (deleted.getSeq() != null) {
+                deletedSeqs.computeIfAbsent(deleted.getSession().getSessionId(), id -> new ArrayList<>())
+                        .add(deleted.getSeq());
+            }
+        }
+        return deletedSeqs;
+    }
+
+    // messages: the stored ones after afterSeq (up to limit + 1, oldest first), topped up from the queue
+    private ChatSessionDeltaDTO toDelta(ChatSession session, Long callerId, long afterSeq, int limit,
+                                        List<ChatMessageResponseDTO> messages, List<PendingMessage> pending,
+                                        List<Long> deletedSeqs, LocalDateTime syncedAt) {
+        // Queued messages the database doesn't have yet; they follow the stored ones
+        Long lastSeq = session.getLastMessageSeq();
+        if (!pending.isEmpty()) {
+            Set<Long> stored = new HashSet<>();
+            messages.forEach(message -> stored.add(message.getSeq()));
+            ChatSessionAccess access = sessionAccess(session.getSessionId());
+            for (PendingMessage message : pending) {
+                if (message.seq() > afterSeq && !stored.contains(message.seq())) {
+                    messages.add(convertToMessageDTO(message, access.nameOf(message.senderId())));
+                }
+            }
+            messages.sort(Comparator.comparing(ChatMessageResponseDTO::getSeq));
+            lastSeq = Math.max(lastSeq != null ? lastSeq : 0, pending.get(pending.size() - 1).seq());
+        }
+        boolean hasMore = messages.size() > limit;
+        List<ChatMessageResponseDTO> page = hasMore ? messages.subList(0, limit) : messages;
+
+        // Non-participant admins see participant one as themselves, like in convertToSessionDTO
+        boolean callerIsTwo = session.getParticipantTwo().getUserId().equals(callerId);
+        Long readSeq = callerIsTwo ? session.getParticipantTwoReadSeq() : session.getParticipantOneReadSeq();
+        Long otherReadSeq = callerIsTwo ? session.getParticipantOneReadSeq() : session.getParticipantTwoReadSeq();
+
+        return new ChatSessionDeltaDTO(session.getSessionId(), lastSeq, page, hasMore,
+                deletedSeqs, readSeq, otherReadSeq, unreadCount(session, callerId), syncedAt);
+    }
+
+    private Window<ChatMessageResponseDTO> findMessagesAfter(Long sessionId, String cursor, int size) {
+        return chatMessageRepository.findBySession_SessionIdAndIsDeletedFalse(sessionId,
+                        KeysetCursor.decode(cursor, MESSAGE_ID),
+                        KeysetCursor.sort(Sort.Direction.ASC, MESSAGE_ID), Limit.of(size))
+                .map(this::convertToMessageDTO);
+    }
+
     private Long getCurrentUserId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !(auth.getPrincipal() instanceof UserDetailsImpl userDetails)) {
@@ -375,6 +765,9 @@ public class ChatService {
         if (req.getMessageType() == null) {
             throw new MessageValidationException("Message type is required");
         }
+        if (req.getClientMessageId() != null && req.getClientMessageId().length() > CLIENT_MESSAGE_ID_LENGTH) {
+            throw new MessageValidationException("Client message ID must be at most " + CLIENT_MESSAGE_ID_LENGTH + " characters");
+        }
         switch (req.getMessageType()) {
             case TEXT -> {
                 if (req.getTextContent() == null || req.getTextContent().trim().isEmpty()) {
@@ -394,6 +787,41 @@ public class ChatService {
         }
     }
 
+    /**
+     * Point the session's preview at its latest visible message (caller holds
+     * the row lock). Without messages, lastMessageAt is left as is.
+     */
+    private void applyLastMessage(ChatSession session) {
+        Optional<ChatMessage> last = chatMessageRepository
+                .findFirstBySession_SessionIdAndIsDeletedFalseOrderByMessageIdDesc(session.getSessionId());
+        if (last.isPresent()) {
+            session.setLastMessageId(last.get().getMessageId());
+            session.setLastSenderUserId(last.get().getSender().getUserId());
+            session.setLastMessagePreview(preview(last.get()));
+            session.setLastMessageAt(last.get().getCreatedAt());
+        } else {
+            session.setLastMessageId(null);
+            session.setLastSenderUserId(null);
+            session.setLastMessagePreview(null);
+        }
+    }
+
+    private static String preview(ChatMessage message) {
+        return preview(message.getMessageType(), message.getTextContent());
+    }
+
+    private static String preview(MessageType messageType, String textContent) {
+        String preview = switch (messageType) {
+            case TEXT -> textContent != null ? textContent : "";
+            case IMAGE -> "[Image]";
+            case LOCATION -> "[Location]";
+        };
+        if (preview.length() > PREVIEW_LENGTH) {
+            preview = preview.substring(0, PREVIEW_LENGTH) + "...";
+        }
+        return preview;
+    }
+
     private ChatSessionResponseDTO convertToSessionDTO(ChatSession session, Long currentUserId) {
         ChatSessionResponseDTO dto = new ChatSessionResponseDTO();
         dto.setSessionId(session.getSessionId());
@@ -422,39 +850,48 @@ public class ChatService {
         dto.setOtherUserFullName(otherUser.getFullName());
         dto.setOtherUserEmail(otherUser.getEmail());
 
-        // Get unread count
-        dto.setUnreadCount(chatMessageRepository.countBySession_SessionIdAndSenderUserIdNotAndIsReadFalse(session.getSessionId(), currentUserId));
-
-        // Get preview of last message
-        Optional<ChatMessage> lastMsgOpt = chatMessageRepository.findFirstBySession_SessionIdAndIsDeletedFalseOrderByCreatedAtDesc(session.getSessionId());
-        if (lastMsgOpt.isPresent()) {
-            ChatMessage lastMsg = lastMsgOpt.get();
-            dto.setLastMessageAt(lastMsg.getCreatedAt());
-            String preview = "";
-            switch (lastMsg.getMessageType()) {
-                case TEXT -> preview = lastMsg.getTextContent() != null ? lastMsg.getTextContent() : "";
-                case IMAGE -> preview = "[Image]";
-                case LOCATION -> preview = "[Location]";
-            }
-            if (preview.length() > 60) {
-                preview = preview.substring(0, 60) + "...";
-            }
-            dto.setLastMessagePreview(preview);
-        } else {
-            dto.setLastMessageAt(session.getLastMessageAt() != null ? session.getLastMessageAt() : session.getCreatedAt());
-            dto.setLastMessagePreview(null);
-        }
+        // Unread count and preview come from the session row
+        dto.setUnreadCount(unreadCount(session, currentUserId));
+        dto.setLastMessagePreview(session.getLastMessagePreview());
+        dto.setLastMessageAt(session.getLastMessageAt() != null ? session.getLastMessageAt() : session.getCreatedAt());
+        dto.setLastSeq(session.getLastMessageSeq());
 
         dto.setCreatedAt(session.getCreatedAt());
         return dto;
     }
 
+    private long unreadCount(ChatSession session, Long currentUserId) {
+        Integer unread;
+        if (session.getParticipantOne().getUserId().equals(currentUserId)) {
+            unread = session.getParticipantOneUnread();
+        } else if (session.getParticipantTwo().getUserId().equals(currentUserId)) {
+            unread = session.getParticipantTwoUnread();
+        } else {
+            // Non-participant admin: everything unread in the session
+            unread = session.getParticipantOneUnread() != null && session.getParticipantTwoUnread() != null
+                    ? session.getParticipantOneUnread() + session.getParticipantTwoUnread()
+                    : null;
+        }
+        if (unread == null) {
+            // Not backfilled yet (see ChatInboxBackfillJob)
+            return chatMessageRepository.countBySession_SessionIdAndSenderUserIdNotAndIsReadFalseAndIsDeletedFalse(
+                    session.getSessionId(), currentUserId);
+        }
+        return unread;
+    }
+
     private ChatMessageResponseDTO convertToMessageDTO(ChatMessage msg) {
+        return convertToMessageDTO(msg, msg.getSender().getFullName());
+    }
+
+    private ChatMessageResponseDTO convertToMessageDTO(ChatMessage msg, String senderFullName) {
         ChatMessageResponseDTO dto = new ChatMessageResponseDTO();
         dto.setMessageId(msg.getMessageId());
         dto.setSessionId(msg.getSession().getSessionId());
+        dto.setSeq(msg.getSeq());
+        dto.setClientMessageId(msg.getClientMessageId());
         dto.setSenderUserId(msg.getSender().getUserId());
-        dto.setSenderFullName(msg.getSender().getFullName());
+        dto.setSenderFullName(senderFullName);
         dto.setMessageType(msg.getMessageType());
         dto.setTextContent(msg.getTextContent());
         dto.setFileUrl(msg.getFileUrl());
@@ -465,4 +902,23 @@ public class ChatService {
         dto.setCreatedAt(msg.getCreatedAt());
         return dto;
     }
+
+    // Not stored yet: no message ID until the flush
+    private ChatMessageResponseDTO convertToMessageDTO(PendingMessage msg, String senderFullName) {
+        ChatMessageResponseDTO dto = new ChatMessageResponseDTO();
+        dto.setSessionId(msg.sessionId());
+        dto.setSeq(msg.seq());
+        dto.setClientMessageId(msg.clientMessageId());
+        dto.setSenderUserId(msg.senderId());
+        dto.setSenderFullName(senderFullName);
+        dto.setMessageType(msg.messageType());
+        dto.setTextContent(msg.textContent());
+        dto.setFileUrl(msg.fileUrl());
+        dto.setLatitude(msg.latitude());
+        dto.setLongitude(msg.longitude());
+        dto.setRead(false);
+        dto.setDeleted(false);
+        dto.setCreatedAt(msg.createdAt());
+        return dto;
+    }
 }
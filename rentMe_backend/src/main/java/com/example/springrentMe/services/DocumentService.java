@@ -8,6 +8,7 @@ import com.example.springrentMe.repositories.VehicleOwnerRepository;
 import com.example.springrentMe.repositories.VehicleRepository;
 import com.example.springrentMe.repositories.VerificationRequestRepository;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
 import com.example.springrentMe.services.storage.FileStorageService;
 import com.example.springrentMe.services.storage.FileValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,6 +40,7 @@ public class DocumentService {
     @Autowired private BookingRepository        bookingRepository;
     @Autowired private FileStorageService       fileStorageService;
     @Autowired private FileValidationService    fileValidationService;
+    @Autowired private VehicleResponseCache     vehicleResponseCache;
 
     /** Base URL used to build serve-URLs for local-storage files. */
     @Value("${app.server.base-url:http://localhost:8080}")
@@ -76,8 +79,14 @@ public class DocumentService {
                         "Vehicle not found or you do not have permission to upload documents for it."));
 
         String folder = "vehicles/" + vehicleId + "/docs";
+        boolean pictures = documentType == DocumentType.VEHICLE_PICTURE;
+        if (pictures) {
+            // Lock before inserting: the new rows' FK would otherwise share-lock the vehicle first
+            lockVehicle(vehicleId);
+            vehicleResponseCache.onPicturesChanged(vehicleId);
+        }
 
-        return Arrays.stream(files)
+        List<DocumentResponseDTO> uploaded = Arrays.stream(files)
                 .map(file -> {
                     String ref = fileStorageService.store(file, folder);
                     Document doc = Document.builder()
@@ -93,6 +102,11 @@ public class DocumentService {
                     return convertToDTO(documentRepository.save(doc));
                 })
                 .collect(Collectors.toList());
+
+        if (pictures) {
+            storePictureUrls(vehicle);
+        }
+        return uploaded;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -273,8 +287,46 @@ public class DocumentService {
             }
         }
 
+        boolean picture = doc.getVehicle() != null && doc.getDocumentType() == DocumentType.VEHICLE_PICTURE;
+        Vehicle vehicle = picture ? lockVehicle(doc.getVehicle().getVehicleId()) : null;
+
         fileStorageService.delete(doc.getFileUrl());
         documentRepository.delete(doc);
+        if (picture) {
+            storePictureUrls(vehicle);
+            vehicleResponseCache.onPicturesChanged(vehicle.getVehicleId());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Denormalized vehicle pictures
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Recompute a vehicle's picture URL list from its VEHICLE_PICTURE documents.
+     * Used by VehiclePictureBackfillJob; uploads and deletes do the same inline.
+     */
+    @Transactional
+    public void refreshPictureUrls(Long vehicleId) {
+        storePictureUrls(lockVehicle(vehicleId));
+    }
+
+    /**
+     * Picture URLs for a response DTO. Reads the denormalized list; only a
+     * vehicle that hasn't been backfilled yet falls back to its documents.
+     */
+    public List<String> pictureUrls(Vehicle vehicle) {
+        if (vehicle.getPictureUrls() != null) {
+            return vehicle.getPictureUrls();
+        }
+        if (vehicle.getDocuments() == null) {
+            return List.of();
+        }
+        return vehicle.getDocuments().stream()
+                .filter(d -> d.getDocumentType() == DocumentType.VEHICLE_PICTURE)
+                .sorted(Comparator.comparing(Document::getDocumentId))
+                .map(this::buildServeUrl)
+                .collect(Collectors.toList());
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -286,6 +338,26 @@ public class DocumentService {
         return ((UserDetailsImpl) auth.getPrincipal()).getId();
     }
 
+    /**
+     * Row-lock the vehicle so concurrent picture uploads / deletes are applied
+     * one after the other and the last writer sees every committed picture.
+     */
+    private Vehicle lockVehicle(Long vehicleId) {
+        return vehicleRepository.findByIdForUpdate(vehicleId)
+                .orElseThrow(() -> new RuntimeException("Vehicle not found: " + vehicleId));
+    }
+
+    // Stores resolved serve URLs: after changing app.server.base-url, set
+    // vehicles.picture_urls to NULL and VehiclePictureBackfillJob rebuilds them
+    private void storePictureUrls(Vehicle vehicle) {
+        vehicle.setPictureUrls(documentRepository
+                .findByVehicle_VehicleIdAndDocumentTypeOrderByDocumentIdAsc(
+                        vehicle.getVehicleId(), DocumentType.VEHICLE_PICTURE)
+                .stream()
+                .map(this::buildServeUrl)
+                .collect(Collectors.toList()));
+    }
+
     private boolean isCurrentUserAdmin() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         return auth.getAuthorities().stream()
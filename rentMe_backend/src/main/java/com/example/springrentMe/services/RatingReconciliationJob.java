@@ -0,0 +1,109 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.repositories.VehicleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Nightly check of the running rating aggregates (Vehicle / VehicleOwner
+ * ratingSum + totalReviews) against the reviews table.
+ *
+ * ReviewService keeps the aggregates up to date with atomic increments; this
+ * job catches whatever slips past that (manual SQL, restored backups, rows
+ * never initialised). It walks the vehicles and owners in ID order, chunk by
+ * chunk, selecting only the rows whose sum or count disagrees with their
+ * reviews, and recomputes each under its row lock (ReviewService).
+ *
+ * Metrics: review.aggregates.repaired{entity=vehicle|owner}.
+ *
+ * Not lazy: @Scheduled methods are only registered for instantiated beans,
+ * and the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class RatingReconciliationJob {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.reviews.reconciliation-chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${app.reviews.reconciliation-cron:0 30 3 * * *}") // every day at 03:30
+    public void reconcileNightly() {
+        try {
+            int vehicles = reconcileVehicles();
+            int owners = reconcileOwners();
+            if (vehicles + owners > 0) {
+                System.err.println("[RatingReconciliationJob] Repaired rating aggregates of "
+                        + vehicles + " vehicles and " + owners + " owners");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[RatingReconciliationJob] Reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    int reconcileVehicles() {
+        return reconcile("vehicle", vehicleRepository::findRatingDrift, reviewService::recomputeVehicleRating);
+    }
+
+    int reconcileOwners() {
+        return reconcile("owner", vehicleOwnerRepository::findRatingDrift, reviewService::recomputeOwnerRating);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Repair every drifted row, one transaction per chunk. The ID cursor only
+     * moves forward, so a row that drifts again meanwhile waits for the next run.
+     */
+    private int reconcile(String entity, BiFunction<Long, PageRequest, List<Long>> findDrift,
+                          Consumer<Long> recompute) {
+        Counter repaired = Counter.builder("review.aggregates.repaired")
+                .description("Rating aggregates recomputed by the reconciliation job")
+                .tag("entity", entity)
+                .register(meterRegistry);
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> drifted = findDrift.apply(cursor, PageRequest.of(0, chunkSize));
+                drifted.forEach(recompute);
+                return drifted;
+            });
+            if (ids == null || ids.isEmpty()) {
+                return total;
+            }
+            repaired.increment(ids.size());
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+}
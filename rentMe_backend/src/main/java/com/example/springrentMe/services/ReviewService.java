@@ -9,24 +9,42 @@ import com.example.springrentMe.exceptions.ReviewValidationException;
 import com.example.springrentMe.exceptions.UnauthorizedReviewException;
 import com.example.springrentMe.models.*;
 import com.example.springrentMe.repositories.BookingRepository;
+import com.example.springrentMe.repositories.RatingCount;
 import com.example.springrentMe.repositories.ReviewRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.repositories.VehicleRatingStats;
 import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.repositories.VehicleVersion;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.ReviewSummaryCache;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
+import com.example.springrentMe.services.search.VehicleFacetCache;
+import com.example.springrentMe.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ReviewService {
 
+    // Tie-breaker of the (createdAt, reviewId) keyset used by cursor listings
+    private static final String REVIEW_ID = "reviewId";
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -39,6 +57,19 @@ public class ReviewService {
     @Autowired
     private VehicleOwnerRepository vehicleOwnerRepository;
 
+    @Autowired
+    private VehicleFacetCache facetCache;
+
+    @Autowired
+    private VehicleResponseCache responseCache;
+
+    @Autowired
+    private ReviewSummaryCache summaryCache;
+
+    // Latest reviews included in a vehicle's review summary
+    @Value("${app.reviews.summary-recent-count:5}")
+    private int summaryRecentCount;
+
     /**
      * Create a new review for a booking.
      * Enforces rules:
@@ -86,8 +117,8 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(review);
 
         // Update aggregations
-        updateVehicleAggregates(booking.getVehicle().getVehicleId());
-        updateVehicleOwnerAggregates(booking.getVehicle().getVehicleOwner().getVehicleOwnerId());
+        applyRating(booking.getVehicle().getVehicleId(), booking.getVehicle().getVehicleOwner().getVehicleOwnerId(),
+                request.getRating(), 1);
 
         return convertToResponseDTO(savedReview);
     }
@@ -113,9 +144,8 @@ public class ReviewService {
 
         reviewRepository.delete(review);
 
-        // Recompute aggregates
-        updateVehicleAggregates(vehicleId);
-        updateVehicleOwnerAggregates(ownerId);
+        // Update aggregates
+        applyRating(vehicleId, ownerId, review.getRating(), -1);
     }
 
     /**
@@ -127,6 +157,16 @@ public class ReviewService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getReviewsByVehicle (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<ReviewResponseDTO> getReviewsByVehicle(Long vehicleId, String cursor, int size) {
+        return reviewRepository.findByVehicle_VehicleId(vehicleId, KeysetCursor.decode(cursor, REVIEW_ID),
+                        KeysetCursor.sort(Sort.Direction.DESC, REVIEW_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     /**
      * Get vehicle average rating
      */
@@ -146,13 +186,24 @@ public class ReviewService {
     }
 
     /**
-     * Get vehicle review summary DTO
+     * Review summary of a vehicle: average, count, star distribution and the
+     * latest reviews. Served from ReviewSummaryCache; on a miss it reads the
+     * aggregates maintained on the vehicle row plus the top-N reviews — no
+     * aggregate query over the reviews table.
      */
     @Transactional(readOnly = true)
     public VehicleReviewSummaryDTO getVehicleReviewSummary(Long vehicleId) {
-        Double avg = getVehicleAverageRating(vehicleId);
-        Long count = reviewRepository.countByVehicle(vehicleId);
-        return new VehicleReviewSummaryDTO(vehicleId, avg, count != null ? count : 0L);
+        return summaryCache.summary(vehicleId, () -> loadReviewSummary(vehicleId));
+    }
+
+    /**
+     * Review aggregates and last update of a vehicle (conditional GETs on its
+     * reviews). Every review write updates the vehicle's aggregates, so this
+     * moves whenever the vehicle's reviews do.
+     */
+    @Transactional(readOnly = true)
+    public Optional<VehicleVersion> getVehicleReviewVersion(Long vehicleId) {
+        return vehicleRepository.findVersionById(vehicleId);
     }
 
     /**
@@ -164,32 +215,116 @@ public class ReviewService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getAllReviews (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<ReviewResponseDTO> getAllReviews(String cursor, int size) {
+        return reviewRepository.findAllBy(KeysetCursor.decode(cursor, REVIEW_ID),
+                        KeysetCursor.sort(Sort.Direction.DESC, REVIEW_ID), Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
-    // PRIVATE HELPERS
+    // RATING AGGREGATES
     // ─────────────────────────────────────────────────────────────────────────
 
-    private void updateVehicleAggregates(Long vehicleId) {
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+    /**
+     * Recompute a vehicle's rating sum, count, average and star distribution
+     * from its reviews.
+     * The row is locked first, so the recompute (a new statement, hence a new
+     * snapshot) includes every review whose increment has already committed.
+     * Used for uninitialised rows and by RatingReconciliationJob.
+     */
+    @Transactional
+    public void recomputeVehicleRating(Long vehicleId) {
+        vehicleRepository.findByIdForUpdate(vehicleId)
                 .orElseThrow(() -> new ReviewValidationException("Vehicle not found with ID: " + vehicleId));
+        vehicleRepository.recomputeRating(vehicleId, LocalDateTime.now());
+        facetCache.invalidate(); // rating facet
+        responseCache.onRatingChanged(vehicleId);
+        summaryCache.onReviewsChanged(vehicleId);
+    }
 
-        Double avg = reviewRepository.getAverageRatingByVehicle(vehicleId);
-        Long count = reviewRepository.countByVehicle(vehicleId);
+    /**
+     * Owner counterpart of recomputeVehicleRating.
+     */
+    @Transactional
+    public void recomputeOwnerRating(Long ownerId) {
+        vehicleOwnerRepository.findByIdForUpdate(ownerId)
+                .orElseThrow(() -> new ReviewValidationException("Vehicle owner not found with ID: " + ownerId));
+        vehicleOwnerRepository.recomputeRating(ownerId);
+    }
 
-        vehicle.setAverageRating(avg != null ? avg : 0.0);
-        vehicle.setTotalReviews(count != null ? count : 0L);
-        vehicleRepository.save(vehicle);
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Apply one review's rating to the running aggregates of its vehicle
+     * (sum, count, star distribution) and owner (sum, count): one atomic
+     * UPDATE each, no aggregate query over the reviews. countDelta is +1 for
+     * a new review, -1 for a deleted one. Rows whose aggregates aren't
+     * initialised yet (pre-existing data) are recomputed.
+     */
+    private void applyRating(Long vehicleId, Long ownerId, int rating, long countDelta) {
+        if (vehicleRepository.addRating(vehicleId, rating, countDelta, LocalDateTime.now()) == 0) {
+            recomputeVehicleRating(vehicleId);
+        } else {
+            facetCache.invalidate(); // rating facet
+            responseCache.onRatingChanged(vehicleId);
+            summaryCache.onReviewsChanged(vehicleId);
+        }
+        if (vehicleOwnerRepository.addRating(ownerId, rating * countDelta, countDelta) == 0) {
+            recomputeOwnerRating(ownerId);
+        }
     }
 
-    private void updateVehicleOwnerAggregates(Long ownerId) {
-        VehicleOwner owner = vehicleOwnerRepository.findById(ownerId)
-                .orElseThrow(() -> new ReviewValidationException("Vehicle owner not found with ID: " + ownerId));
+    private VehicleReviewSummaryDTO loadReviewSummary(Long vehicleId) {
+        Optional<VehicleRatingStats> stats = vehicleRepository.findRatingStatsById(vehicleId);
+        if (stats.isEmpty()) {
+            return new VehicleReviewSummaryDTO(vehicleId, 0.0, 0L, ratingDistribution(new long[5]), List.of());
+        }
+        VehicleRatingStats s = stats.get();
+        long[] counts = new long[5];
+        if (s.initialised()) {
+            counts = new long[]{s.ratingCount1(), s.ratingCount2(), s.ratingCount3(), s.ratingCount4(), s.ratingCount5()};
+        } else {
+            // Counters not initialised yet (until the next review write or reconciliation)
+            for (RatingCount count : reviewRepository.countByVehicleGroupByRating(vehicleId)) {
+                counts[count.rating() - 1] = count.count();
+            }
+        }
+        Double average;
+        long total;
+        if (s.initialised()) {
+            average = s.averageRating() != null ? s.averageRating() : 0.0;
+            total = s.totalReviews() != null ? s.totalReviews() : 0L;
+        } else {
+            long sum = 0;
+            total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                sum += (i + 1) * counts[i];
+            }
+            average = total > 0 ? (double) sum / total : 0.0;
+        }
 
-        Double avg = reviewRepository.getAverageRatingByOwner(ownerId);
-        Long count = reviewRepository.countByOwner(ownerId);
+        List<ReviewResponseDTO> recent = reviewRepository
+                .findByVehicle_VehicleIdOrderByCreatedAtDescReviewIdDesc(vehicleId, Limit.of(summaryRecentCount))
+                .stream()
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toList());
+        return new VehicleReviewSummaryDTO(vehicleId, average, total, ratingDistribution(counts), recent);
+    }
 
-        owner.setAverageRating(avg != null ? avg : 0.0);
-        owner.setTotalReviews(count != null ? count : 0L);
-        vehicleOwnerRepository.save(owner);
+    // Star rating → count, 5 down to 1
+    private static Map<Integer, Long> ratingDistribution(long[] counts) {
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        for (int rating = 5; rating >= 1; rating--) {
+            distribution.put(rating, counts[rating - 1]);
+        }
+        return distribution;
     }
 
     private Long getCurrentUserId() {
@@ -7,6 +7,9 @@ import com.example.springrentMe.DTOs.UpdateUserRequest;
 import com.example.springrentMe.DTOs.UserDTO;
 import com.example.springrentMe.models.*;
 import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.services.auth.TokenRevocationService;
+import com.example.springrentMe.services.cache.AccountStateCache;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
 import com.example.springrentMe.services.storage.FileStorageService;
 import com.example.springrentMe.services.storage.FileValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +50,15 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AccountStateCache accountStateCache;
+
+    @Autowired
+    private ChatSessionAccessCache chatSessionAccessCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private FileStorageService fileStorageService;
 
@@ -96,6 +108,7 @@ public class UserService {
         // Update only non-null fields
         if (request.getFullName() != null) {
             user.setFullName(request.getFullName());
+            chatSessionAccessCache.onUserChanged(userId); // name shown on chat messages
         }
         if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
             // Check if new email is already taken
@@ -103,6 +116,8 @@ public class UserService {
                 throw new RuntimeException("Email already in use: " + request.getEmail());
             }
             user.setEmail(request.getEmail());
+            accountStateCache.onAccountChanged(userId);
+            chatSessionAccessCache.onUserChanged(userId);
         }
         if (request.getContactNumber() != null) {
             user.setContactNumber(request.getContactNumber());
@@ -143,6 +158,8 @@ public class UserService {
         // Update password (password confirmation is handled on frontend)
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        accountStateCache.onAccountChanged(userId);
+        tokenRevocationService.revokeAllForUser(userId); // sign out every existing session
     }
 
     /**
@@ -156,6 +173,8 @@ public class UserService {
         // Soft delete - deactivate account
         user.setIsActive(false);
         userRepository.save(user);
+        accountStateCache.onAccountChanged(userId);
+        tokenRevocationService.revokeAllForUser(userId);
     }
 
     /**
@@ -173,6 +192,7 @@ public class UserService {
 
         // Then delete user
         userRepository.delete(user);
+        accountStateCache.onAccountChanged(userId);
     }
 
     /**
@@ -184,6 +204,7 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         user.setIsActive(true);
         userRepository.save(user);
+        accountStateCache.onAccountChanged(userId);
     }
 
     /**
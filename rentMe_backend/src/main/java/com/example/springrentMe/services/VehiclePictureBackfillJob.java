@@ -0,0 +1,74 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.repositories.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Populates Vehicle.pictureUrls for vehicles created before the column existed
+ * (or whose column was reset to NULL, e.g. after changing app.server.base-url).
+ *
+ * Runs once on start-up in chunks of {@code app.vehicle.picture-backfill-chunk-size}
+ * vehicles, one transaction per chunk. Each vehicle is recomputed under its row
+ * lock by DocumentService, so the job can safely run next to live uploads, and
+ * a crashed run simply continues with the vehicles that are still NULL.
+ *
+ * Not lazy: the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class VehiclePictureBackfillJob {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.vehicle.picture-backfill-chunk-size:200}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int backfilled = backfill();
+            if (backfilled > 0) {
+                System.err.println("[VehiclePictureBackfillJob] Populated picture URLs for " + backfilled + " vehicles");
+            }
+        } catch (RuntimeException e) {
+            // Responses fall back to the documents until the next start-up
+            System.err.println("[VehiclePictureBackfillJob] Backfill failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Backfill every vehicle without picture URLs.
+     *
+     * @return number of vehicles populated
+     */
+    int backfill() {
+        int total = 0;
+        while (true) {
+            Integer done = transactionTemplate.execute(status -> {
+                List<Long> vehicleIds = vehicleRepository.findIdsWithoutPictureUrls(PageRequest.of(0, chunkSize));
+                vehicleIds.forEach(documentService::refreshPictureUrls);
+                return vehicleIds.size();
+            });
+            if (done == null || done == 0) {
+                return total;
+            }
+            total += done;
+        }
+    }
+}
@@ -1,15 +1,38 @@
 package com.example.springrentMe.services;
 
 import com.example.springrentMe.DTOs.VehicleAvailabilityUpdateDTO;
+import com.example.springrentMe.DTOs.MapClusterDTO;
+import com.example.springrentMe.DTOs.MapClustersDTO;
+import com.example.springrentMe.DTOs.NearbyVehicleDTO;
+import com.example.springrentMe.DTOs.VehicleCalendarDTO;
+import com.example.springrentMe.DTOs.VehicleFacetsDTO;
 import com.example.springrentMe.DTOs.VehicleRequestDTO;
 import com.example.springrentMe.DTOs.VehicleResponseDTO;
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
 import com.example.springrentMe.models.*;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
 import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.repositories.VehicleSpecifications;
+import com.example.springrentMe.repositories.VehicleVersion;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.availability.BookingAvailabilityIndex;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
+import com.example.springrentMe.services.geo.VehicleGeoIndex;
+import com.example.springrentMe.services.search.VehicleFacetCache;
+import com.example.springrentMe.services.search.VehicleTextIndex;
+import com.example.springrentMe.utils.KeysetCursor;
+import com.example.springrentMe.utils.SearchPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -18,7 +41,13 @@ import com.example.springrentMe.repositories.BookingRepository;
 import java.util.ArrayList;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,6 +65,50 @@ public class VehicleService {
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private VehicleGeoIndex geoIndex;
+
+    @Autowired
+    private VehicleFacetCache facetCache;
+
+    @Autowired
+    private VehicleTextIndex textIndex;
+
+    @Autowired
+    private VehicleResponseCache responseCache;
+
+    public static final int MAX_CALENDAR_VEHICLES = 100;
+    public static final int MAX_NEARBY_RESULTS = 100;
+    public static final int MAX_PRICE_BUCKET_WIDTH = 10_000;
+    public static final double MAX_NEARBY_RADIUS_KM = 500;
+
+    // Text search: ranked candidates checked against the filters per query (one IN list),
+    // also the most matches an explicit sort orders in the database
+    @Value("${app.search.text.chunk-size:1000}")
+    private int textChunkSize;
+
+    // Text search: most ranked candidates checked against the filters per search
+    @Value("${app.search.text.max-scanned:20000}")
+    private int textMaxScanned;
+
+    // Tie-breaker of the (createdAt, vehicleId) keyset used by cursor listings
+    private static final String VEHICLE_ID = "vehicleId";
+    private static final Sort NEWEST_FIRST = KeysetCursor.sort(Sort.Direction.DESC, VEHICLE_ID);
+
+    // Text-search order: resolved by VehicleTextIndex rather than the database
+    private static final Sort RELEVANCE = Sort.unsorted();
+
+    // Public search sort options; each ends with the ID so pages are stable
+    private static final Map<String, Sort> SEARCH_SORTS = Map.of(
+            "relevance",  RELEVANCE,
+            "newest",     NEWEST_FIRST,
+            "price_asc",  Sort.by(Sort.Direction.ASC, "dailyPrice", VEHICLE_ID),
+            "price_desc", Sort.by(Sort.Direction.DESC, "dailyPrice", VEHICLE_ID),
+            "rating",     Sort.by(Sort.Direction.DESC, "averageRating", "totalReviews", VEHICLE_ID));
+
     // ─────────────────────────────────────────────────────────────────────────
     // CREATE
     // ─────────────────────────────────────────────────────────────────────────
@@ -57,6 +130,7 @@ public class VehicleService {
         vehicle.setIsListed(true);
 
         Vehicle saved = vehicleRepository.save(vehicle);
+        onVehicleSaved(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -83,44 +157,372 @@ public class VehicleService {
     }
 
     /**
-     * Search with optional filters (public).
+     * Cursor variant of getAllVehiclesAdmin (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<VehicleResponseDTO> getAllVehiclesAdmin(String cursor, int size) {
+        return vehicleRepository.findAllBy(KeysetCursor.decode(cursor, VEHICLE_ID), NEWEST_FIRST, Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
+    /**
+     * Search with optional filters and sort order (public). Every filter in
+     * the criteria is optional and they compose freely — see VehicleSpecifications.
+     *
+     * With a text query the in-memory text index ranks the candidates and the
+     * filters are checked against them one chunk at a time, most relevant
+     * first, until the page is filled. The total is then an estimate and the
+     * page a SearchPage with truncated set. An explicit sort orders the first
+     * app.search.text.chunk-size matches in the database.
+     */
+    @Transactional(readOnly = true)
+    public Page<VehicleResponseDTO> searchVehicles(VehicleSearchCriteria criteria, int page, int size) {
+        return getVehicleResponses(searchVehicleVersions(criteria, page, size));
+    }
+
+    /**
+     * The versions of one page of searchVehicles, without building any DTO
+     * (listing ETags). Served from VehicleResponseCache when warm.
+     */
+    @Transactional(readOnly = true)
+    public Page<VehicleVersion> searchVehicleVersions(VehicleSearchCriteria criteria, int page, int size) {
+        String sortKey = resolveSearchSortKey(criteria);
+        validateSearchCriteria(criteria);
+        return responseCache.searchPage(criteria, sortKey, page, size,
+                () -> loadSearchPage(criteria, SEARCH_SORTS.get(sortKey), page, size));
+    }
+
+    private Page<VehicleVersion> loadSearchPage(VehicleSearchCriteria criteria, Sort sort, int page, int size) {
+        Specification<Vehicle> spec = VehicleSpecifications.matching(criteria);
+
+        if (hasTextQuery(criteria)) {
+            if (sort == RELEVANCE) {
+                int wanted = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+                TextMatches matches = filterTextMatches(criteria.getQ(), spec, wanted);
+                return pageOfIds(matches.ids(), PageRequest.of(page, size), matches.total(), matches.truncated());
+            }
+            TextMatches matches = filterTextMatches(criteria.getQ(), spec, textChunkSize);
+            if (matches.ids().isEmpty()) {
+                return new SearchPage<>(List.of(), PageRequest.of(page, size), 0, matches.truncated());
+            }
+            Page<VehicleVersion> sorted = vehicleRepository.findAll(spec.and(VehicleSpecifications.idIn(matches.ids())),
+                    PageRequest.of(page, size, sort)).map(VehicleService::versionOf);
+            return new SearchPage<>(sorted.getContent(), sorted.getPageable(), sorted.getTotalElements(),
+                    matches.truncated());
+        }
+
+        return vehicleRepository.findAll(spec, PageRequest.of(page, size, sort))
+                .map(VehicleService::versionOf);
+    }
+
+    /**
+     * The ranked text matches that pass the filters, most relevant first.
+     * Candidates are checked one chunk (one IN query) at a time until
+     * {@code wanted} pass or app.search.text.max-scanned were checked. When
+     * some candidates were left unchecked, the total is extrapolated from the
+     * share of checked ones that passed, and {@code truncated} is set.
+     */
+    private TextMatches filterTextMatches(String q, Specification<Vehicle> spec, int wanted) {
+        VehicleTextIndex.Matches candidates = textIndex.match(q, textMaxScanned);
+        List<Long> ranked = candidates.ranked();
+        List<Long> passing = new ArrayList<>();
+        int checked = 0;
+        while (checked < ranked.size() && passing.size() < wanted) {
+            List<Long> chunk = ranked.subList(checked, Math.min(checked + textChunkSize, ranked.size()));
+            Set<Long> matching = new HashSet<>(vehicleRepository.findIds(spec.and(VehicleSpecifications.idIn(chunk))));
+            chunk.stream().filter(matching::contains).forEach(passing::add);
+            checked += chunk.size();
+        }
+
+        boolean truncated = checked < candidates.total();
+        long total = truncated && checked > 0
+                ? Math.max(passing.size(), Math.round((double) passing.size() / checked * candidates.total()))
+                : passing.size();
+        return new TextMatches(passing.size() > wanted ? passing.subList(0, wanted) : passing, total, truncated);
+    }
+
+    private record TextMatches(List<Long> ids, long total, boolean truncated) {
+    }
+
+    /**
+     * Cursor variant of searchVehicles (no COUNT query). The cursor keyset is
+     * (createdAt, vehicleId), so only the default newest-first order is supported.
+     */
+    @Transactional(readOnly = true)
+    public Window<VehicleResponseDTO> searchVehicles(VehicleSearchCriteria criteria, String cursor, int size) {
+        return getVehicleResponses(searchVehicleVersions(criteria, cursor, size));
+    }
+
+    /**
+     * The versions of one window of searchVehicles, without building any DTO.
+     */
+    @Transactional(readOnly = true)
+    public Window<VehicleVersion> searchVehicleVersions(VehicleSearchCriteria criteria, String cursor, int size) {
+        if (resolveSearchSort(criteria) != NEWEST_FIRST) {
+            throw new RuntimeException("Cursor mode only supports sort=newest.");
+        }
+        validateSearchCriteria(criteria);
+        ScrollPosition position = KeysetCursor.decode(cursor, VEHICLE_ID);
+        Specification<Vehicle> spec = VehicleSpecifications.matching(criteria);
+        if (hasTextQuery(criteria)) {
+            // Like an explicit sort: the first chunk-size matches, newest first
+            List<Long> matching = filterTextMatches(criteria.getQ(), spec, textChunkSize).ids();
+            if (matching.isEmpty()) {
+                return Window.from(List.of(), i -> position);
+            }
+            spec = spec.and(VehicleSpecifications.idIn(matching));
+        }
+
+        Window<Vehicle> results = vehicleRepository.findBy(spec,
+                query -> query.sortBy(NEWEST_FIRST).limit(size).scroll(position));
+        return results.map(VehicleService::versionOf);
+    }
+
+    /**
+     * Facet counts and price histogram for a search's filters (public).
+     * The sort order of the criteria is ignored.
      */
     @Transactional(readOnly = true)
-    public Page<VehicleResponseDTO> searchVehicles(VehicleType type, BigDecimal maxPrice, Pageable pageable) {
-        Page<Vehicle> results;
+    public VehicleFacetsDTO getSearchFacets(VehicleSearchCriteria criteria, int priceBucketWidth) {
+        validateSearchCriteria(criteria);
+        if (priceBucketWidth < 1 || priceBucketWidth > MAX_PRICE_BUCKET_WIDTH) {
+            throw new RuntimeException("priceBucketWidth must be between 1 and " + MAX_PRICE_BUCKET_WIDTH + ".");
+        }
+        return facetCache.facets(criteria, priceBucketWidth);
+    }
+
+    private Sort resolveSearchSort(VehicleSearchCriteria criteria) {
+        return SEARCH_SORTS.get(resolveSearchSortKey(criteria));
+    }
 
-        if (type != null && maxPrice != null) {
-            results = vehicleRepository
-                    .findByIsListedTrueAndIsAvailableTrueAndTypeAndDailyPriceLessThanEqual(type, maxPrice, pageable);
-        } else if (type != null) {
-            results = vehicleRepository.findByIsListedTrueAndIsAvailableTrueAndType(type, pageable);
-        } else if (maxPrice != null) {
-            results = vehicleRepository
-                    .findByIsListedTrueAndIsAvailableTrueAndDailyPriceLessThanEqual(maxPrice, pageable);
-        } else {
-            results = vehicleRepository.findByIsListedTrueAndIsAvailableTrue(pageable);
+    private String resolveSearchSortKey(VehicleSearchCriteria criteria) {
+        String key = criteria.getSort() == null || criteria.getSort().isBlank()
+                ? (hasTextQuery(criteria) ? "relevance" : "newest")
+                : criteria.getSort().trim().toLowerCase();
+        Sort sort = SEARCH_SORTS.get(key);
+        if (sort == null) {
+            throw new RuntimeException("Unknown sort '" + criteria.getSort() + "'. Use one of " + SEARCH_SORTS.keySet() + ".");
         }
+        if (sort == RELEVANCE && !hasTextQuery(criteria)) {
+            throw new RuntimeException("sort=relevance requires a text query (q).");
+        }
+        return key;
+    }
 
-        return results.map(this::convertToResponseDTO);
+    private static boolean hasTextQuery(VehicleSearchCriteria criteria) {
+        return criteria.getQ() != null && !criteria.getQ().isBlank();
+    }
+
+    private void validateSearchCriteria(VehicleSearchCriteria criteria) {
+        if ((criteria.getStartDate() == null) != (criteria.getEndDate() == null)) {
+            throw new RuntimeException("Both startDate and endDate are required for a date-range search.");
+        }
+        if (criteria.getStartDate() != null && criteria.getEndDate().isBefore(criteria.getStartDate())) {
+            throw new RuntimeException("endDate must be on or after startDate.");
+        }
+        boolean anyBound = criteria.getMinLat() != null || criteria.getMaxLat() != null
+                || criteria.getMinLng() != null || criteria.getMaxLng() != null;
+        boolean allBounds = criteria.getMinLat() != null && criteria.getMaxLat() != null
+                && criteria.getMinLng() != null && criteria.getMaxLng() != null;
+        if (anyBound && !allBounds) {
+            throw new RuntimeException("Bounding box requires minLat, maxLat, minLng and maxLng.");
+        }
+        if (criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+                && criteria.getMinPrice().compareTo(criteria.getMaxPrice()) > 0) {
+            throw new RuntimeException("minPrice must not exceed maxPrice.");
+        }
     }
 
     /**
-     * Get vehicles within a geographic bounding box (for map view).
+     * Get vehicles within a geographic bounding box (for map view), newest first.
+     * The box is resolved by the in-memory geo index; only the requested page is loaded.
      */
     @Transactional(readOnly = true)
     public Page<VehicleResponseDTO> getVehiclesInBounds(
             Double minLat, Double maxLat, Double minLng, Double maxLng, Pageable pageable) {
-        return vehicleRepository.findAvailableVehiclesInBounds(minLat, maxLat, minLng, maxLng, pageable)
-                .map(this::convertToResponseDTO);
+        return getVehicleResponses(getVehicleVersionsInBounds(minLat, maxLat, minLng, maxLng, pageable));
+    }
+
+    /**
+     * The versions of one page of getVehiclesInBounds, without building any DTO.
+     */
+    @Transactional(readOnly = true)
+    public Page<VehicleVersion> getVehicleVersionsInBounds(
+            Double minLat, Double maxLat, Double minLng, Double maxLng, Pageable pageable) {
+        List<Long> ids = geoIndex.findInBounds(minLat, maxLat, minLng, maxLng);
+        return pageOfIds(ids, pageable);
     }
 
     /**
-     * Get a single vehicle by ID (public).
+     * The DTOs of a page of versions, in page order. Details come from
+     * VehicleResponseCache; the missing ones are built in one batch.
+     */
+    @Transactional(readOnly = true)
+    public Page<VehicleResponseDTO> getVehicleResponses(Page<VehicleVersion> versions) {
+        Map<Long, VehicleResponseDTO> byId = loadResponses(versions.getContent());
+        List<VehicleResponseDTO> content = versions.getContent().stream()
+                .map(v -> byId.get(v.vehicleId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (versions instanceof SearchPage<VehicleVersion> search) {
+            return new SearchPage<>(content, versions.getPageable(), versions.getTotalElements(), search.isTruncated());
+        }
+        return new PageImpl<>(content, versions.getPageable(), versions.getTotalElements());
+    }
+
+    /**
+     * Window variant of getVehicleResponses; keeps each vehicle's scroll position.
+     */
+    @Transactional(readOnly = true)
+    public Window<VehicleResponseDTO> getVehicleResponses(Window<VehicleVersion> versions) {
+        Map<Long, VehicleResponseDTO> byId = loadResponses(versions.getContent());
+        List<VehicleResponseDTO> content = new ArrayList<>();
+        List<ScrollPosition> positions = new ArrayList<>();
+        for (int i = 0; i < versions.size(); i++) {
+            VehicleResponseDTO dto = byId.get(versions.getContent().get(i).vehicleId());
+            if (dto != null) {
+                content.add(dto);
+                positions.add(versions.positionAt(i));
+            }
+        }
+        return Window.from(content, positions::get, versions.hasNext());
+    }
+
+    private Map<Long, VehicleResponseDTO> loadResponses(List<VehicleVersion> versions) {
+        List<Long> ids = versions.stream().map(VehicleVersion::vehicleId).toList();
+        return responseCache.details(ids, missing -> vehicleRepository.findAllById(missing).stream()
+                .collect(Collectors.toMap(Vehicle::getVehicleId, this::convertToResponseDTO)));
+    }
+
+    /**
+     * One page of an ordered ID list: only the page's version columns are loaded, in list order.
+     */
+    private Page<VehicleVersion> pageOfIds(List<Long> ids, Pageable pageable) {
+        return pageOfIds(ids, pageable, ids.size(), false);
+    }
+
+    private Page<VehicleVersion> pageOfIds(List<Long> ids, Pageable pageable, long total, boolean truncated) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+
+        Map<Long, VehicleVersion> byId = vehicleRepository.findVersionsByIds(pageIds).stream()
+                .collect(Collectors.toMap(VehicleVersion::vehicleId, v -> v));
+        List<VehicleVersion> content = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return truncated ? new SearchPage<>(content, pageable, total, true) : new PageImpl<>(content, pageable, total);
+    }
+
+    private static VehicleVersion versionOf(Vehicle vehicle) {
+        return new VehicleVersion(vehicle.getVehicleId(), vehicle.getUpdatedAt(),
+                vehicle.getTotalReviews(), vehicle.getAverageRating());
+    }
+
+    /**
+     * Up to k listed + available vehicles within radiusKm of a point, closest
+     * first, optionally filtered by type / max daily price (public).
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyVehicleDTO> findNearbyVehicles(
+            Double lat, Double lng, double radiusKm, int k, VehicleType type, BigDecimal maxPrice) {
+        if (lat == null || lng == null || lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new RuntimeException("lat must be within [-90, 90] and lng within [-180, 180].");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM) {
+            throw new RuntimeException("radiusKm must be greater than 0 and at most " + MAX_NEARBY_RADIUS_KM + ".");
+        }
+        if (k < 1 || k > MAX_NEARBY_RESULTS) {
+            throw new RuntimeException("k must be between 1 and " + MAX_NEARBY_RESULTS + ".");
+        }
+
+        List<VehicleGeoIndex.Neighbor> neighbors = geoIndex.nearest(lat, lng, radiusKm, k, type, maxPrice);
+        Map<Long, Vehicle> byId = vehicleRepository
+                .findAllById(neighbors.stream().map(VehicleGeoIndex.Neighbor::vehicleId).toList()).stream()
+                .collect(Collectors.toMap(Vehicle::getVehicleId, v -> v));
+        return neighbors.stream()
+                .filter(n -> byId.containsKey(n.vehicleId()))
+                .map(n -> new NearbyVehicleDTO(Math.round(n.distanceKm() * 1000) / 1000.0,
+                        convertToResponseDTO(byId.get(n.vehicleId()))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Clustered map view (public): vehicles in the box aggregated per grid cell.
+     * The grid is chosen so the box spans at most VehicleGeoIndex.CLUSTER_GRID
+     * cells per axis, so the response size is bounded however many vehicles are in view.
+     */
+    public MapClustersDTO getMapClusters(Double minLat, Double maxLat, Double minLng, Double maxLng) {
+        int level = VehicleGeoIndex.clusterLevel(minLat, maxLat, minLng, maxLng);
+        List<MapClusterDTO> clusters = geoIndex.cluster(minLat, maxLat, minLng, maxLng, level).stream()
+                .map(c -> new MapClusterDTO(c.cell(), c.count(), c.latitude(), c.longitude(), c.vehicleId()))
+                .collect(Collectors.toList());
+        long total = clusters.stream().mapToLong(MapClusterDTO::getCount).sum();
+        return new MapClustersDTO(level, total, clusters);
+    }
+
+    /**
+     * Version columns of a vehicle (conditional GETs), without building its DTO.
+     */
+    @Transactional(readOnly = true)
+    public Optional<VehicleVersion> getVehicleVersion(Long vehicleId) {
+        return vehicleRepository.findVersionById(vehicleId);
+    }
+
+    /**
+     * Get a single vehicle by ID (public). Served from VehicleResponseCache when warm.
      */
     @Transactional(readOnly = true)
     public VehicleResponseDTO getVehicleById(Long vehicleId) {
-        Vehicle vehicle = findVehicleOrThrow(vehicleId);
-        return convertToResponseDTO(vehicle);
+        return responseCache.detail(vehicleId, () -> convertToResponseDTO(findVehicleOrThrow(vehicleId)));
+    }
+
+    /**
+     * First date on or after {@code from} on which the vehicle has no active booking (public).
+     */
+    @Transactional(readOnly = true)
+    public LocalDate getNextAvailableDate(Long vehicleId, LocalDate from) {
+        findVehicleOrThrow(vehicleId);
+        return availabilityIndex.nextFreeDate(vehicleId, from != null ? from : LocalDate.now());
+    }
+
+    /**
+     * Booked / free days of a vehicle (public), served from the availability index.
+     * Defaults: from = today, to = one month after from.
+     */
+    @Transactional(readOnly = true)
+    public VehicleCalendarDTO getAvailabilityCalendar(Long vehicleId, LocalDate from, LocalDate to) {
+        if (!vehicleRepository.existsById(vehicleId)) {
+            throw new RuntimeException("Vehicle not found with id: " + vehicleId);
+        }
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusMonths(1).minusDays(1);
+        validateCalendarRange(start, end);
+        return new VehicleCalendarDTO(vehicleId, start, end, availabilityIndex.calendar(vehicleId, start, end));
+    }
+
+    /**
+     * Calendars for up to MAX_CALENDAR_VEHICLES vehicles (e.g. a search-results page).
+     * Unknown vehicle IDs are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<VehicleCalendarDTO> getAvailabilityCalendars(List<Long> vehicleIds, LocalDate from, LocalDate to) {
+        if (vehicleIds == null || vehicleIds.isEmpty()) {
+            throw new RuntimeException("At least one vehicle ID is required.");
+        }
+        if (vehicleIds.size() > MAX_CALENDAR_VEHICLES) {
+            throw new RuntimeException("At most " + MAX_CALENDAR_VEHICLES + " vehicles per request.");
+        }
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusMonths(1).minusDays(1);
+        validateCalendarRange(start, end);
+
+        Set<Long> existing = new HashSet<>(vehicleRepository.findExistingVehicleIds(vehicleIds));
+        List<Long> ids = vehicleIds.stream().filter(existing::contains).distinct().toList();
+        return availabilityIndex.calendars(ids, start, end).entrySet().stream()
+                .map(e -> new VehicleCalendarDTO(e.getKey(), start, end, e.getValue()))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -133,6 +535,17 @@ public class VehicleService {
                 .map(this::convertToResponseDTO);
     }
 
+    /**
+     * Cursor variant of getMyVehicles (newest first, no COUNT query).
+     */
+    @Transactional(readOnly = true)
+    public Window<VehicleResponseDTO> getMyVehicles(String cursor, int size) {
+        VehicleOwner owner = getOwnerForCurrentUser();
+        return vehicleRepository.findByVehicleOwner_VehicleOwnerId(owner.getVehicleOwnerId(),
+                        KeysetCursor.decode(cursor, VEHICLE_ID), NEWEST_FIRST, Limit.of(size))
+                .map(this::convertToResponseDTO);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // UPDATE
     // ─────────────────────────────────────────────────────────────────────────
@@ -148,6 +561,7 @@ public class VehicleService {
         mapRequestToEntity(request, vehicle);
 
         Vehicle saved = vehicleRepository.save(vehicle);
+        onVehicleSaved(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -168,6 +582,7 @@ public class VehicleService {
         }
 
         Vehicle saved = vehicleRepository.save(vehicle);
+        onVehicleSaved(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -211,6 +626,7 @@ public class VehicleService {
         
         // 3. Delete the vehicle itself
         vehicleRepository.delete(vehicle);
+        onVehicleDeleted(vehicleId);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -225,7 +641,7 @@ public class VehicleService {
     public void setAvailability(Long vehicleId, boolean available) {
         Vehicle vehicle = findVehicleOrThrow(vehicleId);
         vehicle.setIsAvailable(available);
-        vehicleRepository.save(vehicle);
+        onVehicleSaved(vehicleRepository.save(vehicle));
     }
 
     Vehicle findVehicleOrThrow(Long vehicleId) {
@@ -237,6 +653,25 @@ public class VehicleService {
     // PRIVATE HELPERS
     // ─────────────────────────────────────────────────────────────────────────
 
+    /**
+     * Keep the in-memory read models (geo / text index, facet / response cache) in step
+     * with a saved vehicle. All of them apply the change after commit.
+     */
+    private void onVehicleSaved(Vehicle saved) {
+        geoIndex.onVehicleChanged(saved);
+        textIndex.onVehicleChanged(saved);
+        facetCache.invalidate();
+        responseCache.onVehicleChanged(saved.getVehicleId());
+    }
+
+    private void onVehicleDeleted(Long vehicleId) {
+        availabilityIndex.evict(vehicleId);
+        geoIndex.remove(vehicleId);
+        textIndex.remove(vehicleId);
+        facetCache.invalidate();
+        responseCache.onVehicleChanged(vehicleId);
+    }
+
     /**
      * Resolve the VehicleOwner for the currently authenticated user.
      * Does NOT enforce verification status.
@@ -277,6 +712,21 @@ public class VehicleService {
         return userDetails.getId();
     }
 
+    /**
+     * Calendar ranges must be ordered and lie inside the index's rolling window.
+     */
+    private void validateCalendarRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("to must be on or after from.");
+        }
+        LocalDate windowStart = availabilityIndex.calendarWindowStart();
+        LocalDate windowEnd = availabilityIndex.calendarWindowEnd();
+        if (from.isBefore(windowStart) || to.isAfter(windowEnd)) {
+            throw new RuntimeException(
+                    "Calendar range must be between " + windowStart + " and " + windowEnd + ".");
+        }
+    }
+
     /**
      * Map fields from request DTO → entity (used in both create and update).
      */
@@ -333,6 +783,7 @@ public class VehicleService {
         
         // 3. Delete the vehicle itself
         vehicleRepository.delete(vehicle);
+        onVehicleDeleted(vehicleId);
     }
 
     /**
@@ -350,6 +801,7 @@ public class VehicleService {
         }
 
         Vehicle saved = vehicleRepository.save(vehicle);
+        onVehicleSaved(saved);
         return convertToResponseDTO(saved);
     }
 
@@ -366,13 +818,9 @@ public class VehicleService {
         dto.setDailyPrice(vehicle.getDailyPrice());
         dto.setDescription(vehicle.getDescription());
         
-        List<String> picUrls = vehicle.getDocuments() != null
-            ? vehicle.getDocuments().stream()
-                .filter(d -> d.getDocumentType() == com.example.springrentMe.models.DocumentType.VEHICLE_PICTURE)
-                .map(d -> documentService.convertToDTO(d).getFileUrl())
-                .collect(Collectors.toList())
-            : new java.util.ArrayList<>();
+        List<String> picUrls = documentService.pictureUrls(vehicle);
         dto.setPictures(picUrls);
+        dto.setPrimaryPicture(picUrls.isEmpty() ? null : picUrls.get(0));
         
         dto.setPickupLocation(vehicle.getPickupLocation());
         dto.setLatitude(vehicle.getLatitude());
@@ -8,6 +8,8 @@ import com.example.springrentMe.repositories.UserRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
 import com.example.springrentMe.repositories.VerificationRequestRepository;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.AccountStateCache;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
 import com.example.springrentMe.services.storage.FileStorageService;
 import com.example.springrentMe.services.storage.FileValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +43,8 @@ public class VerificationService {
     @Autowired private DocumentService               documentService;
     @Autowired private FileStorageService            fileStorageService;
     @Autowired private FileValidationService         fileValidationService;
+    @Autowired private AccountStateCache             accountStateCache;
+    @Autowired private ChatSessionAccessCache        chatSessionAccessCache;
 
     // ─────────────────────────────────────────────────────────────────────────
     // Owner: submit a new KYC request (with initial document upload)
@@ -85,6 +89,7 @@ public class VerificationService {
         // Update owner-level status so the rest of the system can check it cheaply
         owner.setVerificationStatus(VerificationStatus.PENDING);
         vehicleOwnerRepository.save(owner);
+        chatSessionAccessCache.onUserChanged(owner.getUser().getUserId()); // closes the owner gate
 
         // Upload documents and link them to the request
         String folder = "owners/" + owner.getVehicleOwnerId() + "/kyc/" + savedVr.getRequestId();
@@ -220,6 +225,8 @@ public class VerificationService {
             User user = owner.getUser();
             user.setRole(UserRole.VEHICLE_OWNER);
             userRepository.save(user);
+            accountStateCache.onAccountChanged(user.getUserId());
+            chatSessionAccessCache.onUserChanged(user.getUserId());
 
         } else {
             // ── REJECT ───────────────────────────────────────────────────────
@@ -235,6 +242,7 @@ public class VerificationService {
             VehicleOwner owner = vr.getVehicleOwner();
             owner.setVerificationStatus(VerificationStatus.REJECTED);
             vehicleOwnerRepository.save(owner);
+            chatSessionAccessCache.onUserChanged(owner.getUser().getUserId());
         }
 
         return convertToDTO(vrRepository.save(vr));
@@ -259,6 +267,8 @@ public class VerificationService {
                     VehicleOwner owner = new VehicleOwner();
                     owner.setUser(user);
                     owner.setVerificationStatus(VerificationStatus.NOT_SUBMITTED);
+                    accountStateCache.onAccountChanged(userId); // gains the vehicle owner role
+                    chatSessionAccessCache.onUserChanged(userId);
                     return vehicleOwnerRepository.save(owner);
                 });
     }
@@ -0,0 +1,180 @@
+package com.example.springrentMe.services.auth;
+
+import com.example.springrentMe.exceptions.InvalidRefreshTokenException;
+import com.example.springrentMe.exceptions.RefreshTokenAlreadyUsedException;
+import com.example.springrentMe.models.RefreshToken;
+import com.example.springrentMe.repositories.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens.
+ *
+ * Access JWTs are short-lived; the client keeps them fresh by exchanging its
+ * refresh token (HTTP-only cookie) at /api/v1/auth/refresh. A refresh is one
+ * indexed lookup by token hash – no password check, no user scan.
+ *
+ * Tokens are 256 random bits; only their SHA-256 is stored, so a database
+ * leak yields nothing usable. Every exchange marks the presented token used
+ * and issues its successor in the same family (one family per login).
+ * Presenting a used or revoked token again means two parties hold it, so the
+ * family is revoked and both have to log in again. A short grace period lets
+ * a client that fired two refreshes at once fail the second one without
+ * tripping that alarm.
+ *
+ * Not lazy: the @Scheduled purge needs an instantiated bean, and the app
+ * runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long ttlDays;
+    private final long reuseGraceSeconds;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${app.security.refresh-token.ttl-days:14}") long ttlDays,
+            @Value("${app.security.refresh-token.reuse-grace-seconds:10}") long reuseGraceSeconds) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttlDays = ttlDays;
+        this.reuseGraceSeconds = reuseGraceSeconds;
+    }
+
+    /** Result of a successful exchange: whose token it was and its successor. */
+    public record Rotation(Long userId, String token) {
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // ISSUE / ROTATE
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Start a new family for a fresh login.
+     *
+     * @return the raw token, to be handed to the client once
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange a refresh token for its successor.
+     *
+     * Commits even when it throws: revoking the family on reuse must stick.
+     *
+     * @throws RefreshTokenAlreadyUsedException token exchanged within the
+     *                                          grace period
+     * @throws InvalidRefreshTokenException     unknown, expired, revoked or
+     *                                          reused token
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Unknown refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() != null || current.getUsedAt() != null) {
+            if (current.getRevokedAt() == null
+                    && current.getUsedAt().plusSeconds(reuseGraceSeconds).isAfter(now)) {
+                // Concurrent refresh from the same client; the other one won
+                throw new RefreshTokenAlreadyUsedException("Refresh token already used");
+            }
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            if (revoked > 0) {
+                System.err.println("[RefreshTokenService] Reuse detected, revoked family "
+                        + current.getFamilyId() + " of user " + current.getUserId());
+            }
+            throw new InvalidRefreshTokenException("Refresh token reused");
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+
+        current.setUsedAt(now);
+        return new Rotation(current.getUserId(), issue(current.getUserId(), current.getFamilyId()));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // REVOCATION
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Revoke the family the token belongs to (logout). Unknown tokens are
+     * ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /** Revoke every live refresh token of the user (all devices). */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    /** Lifetime of a refresh token, for the cookie's Max-Age. */
+    public int ttlSeconds() {
+        return (int) Math.min(Integer.MAX_VALUE, ttlDays * 24 * 60 * 60);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PURGE
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Scheduled(cron = "${app.security.refresh-token.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        try {
+            int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                System.err.println("[RefreshTokenService] Purged " + deleted + " expired refresh tokens");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[RefreshTokenService] Purge failed: " + e.getMessage());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(null, hash(rawToken), userId, familyId,
+                now, now.plusDays(ttlDays), null, null));
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.springrentMe.services.auth;
+
+import com.example.springrentMe.models.RevokedToken;
+import com.example.springrentMe.models.TokenWatermark;
+import com.example.springrentMe.repositories.RevokedTokenRepository;
+import com.example.springrentMe.repositories.TokenWatermarkRepository;
+import com.example.springrentMe.utils.TransactionUtils;
+import com.example.springrentMe.utils.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation of access tokens before their expiry.
+ *
+ * Two kinds of entries live in the database:
+ *   revoked_tokens   – single tokens by JWT ID (logout)
+ *   token_watermarks – per user, "every token issued before T" (deactivation,
+ *                      password change, log out everywhere)
+ *
+ * Every authenticated request asks isRevoked(). Revoked token IDs are
+ * answered from an in-memory Bloom filter, so the common case (not revoked)
+ * is a few hash probes; only a filter hit costs a primary-key lookup to tell
+ * a real revocation from a false positive. Watermarks are few (one per user
+ * who revoked within the last token lifetime) and are kept in memory with
+ * their timestamps, so a user's requests after a password change compare
+ * against the watermark without going to the database.
+ *
+ * Both are rebuilt from the database at startup and on every refresh
+ * (app.security.revocation.refresh-ms), which also purges entries that
+ * outlived the token lifetime. Revocations made here are added after commit.
+ * Revocations made by other instances are pulled in by a sync every
+ * app.security.revocation.sync-ms (5 s by default, a small fraction of the
+ * 5-minute access-token lifetime): it reads only the rows revoked since the
+ * previous sync. A logout, password change or deactivation on another
+ * instance therefore takes effect here within one sync interval.
+ * Rebuilds, syncs and additions are serialized so an addition racing a
+ * rebuild is never lost.
+ *
+ * Metrics:
+ *   auth.revocation.lookups  result=revoked|false_positive
+ *   auth.revocation.entries  (gauge, revoked tokens and watermarks in memory)
+ *
+ * Not lazy: the startup rebuild and @Scheduled refresh need an instantiated
+ * bean, and the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class TokenRevocationService {
+
+    private static final String TOKEN_KEY = "t:";
+
+    // Re-read this much before the previous sync: a revocation stamped just
+    // before it may have committed just after it
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenWatermarkRepository watermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RefreshTokenService refreshTokenService;
+
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final long tokenLifetimeMs;
+
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+    private volatile Map<Long, LocalDateTime> watermarks = new ConcurrentHashMap<>();
+    private volatile long entries;
+    private volatile LocalDateTime syncedAt = LocalDateTime.now();
+
+    private final Counter revokedLookups;
+    private final Counter falsePositives;
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            TokenWatermarkRepository watermarkRepository,
+            TransactionTemplate transactionTemplate,
+            RefreshTokenService refreshTokenService,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.revocation.expected-entries:100000}") long expectedEntries,
+            @Value("${app.security.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${jwt.expiration:300000}") long tokenLifetimeMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.refreshTokenService = refreshTokenService;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        this.filter = BloomFilter.create(expectedEntries, falsePositiveRate);
+        this.revokedLookups = lookups(meterRegistry, "revoked");
+        this.falsePositives = lookups(meterRegistry, "false_positive");
+        Gauge.builder("auth.revocation.entries", this, service -> service.entries)
+                .description("Revoked tokens and user watermarks held in memory")
+                .register(meterRegistry);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CHECK
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Has the token been revoked, by its own ID or by its user's watermark?
+     *
+     * @param userId the token's user, as resolved by authentication (tokens
+     *               without a user ID claim still have one)
+     */
+    public boolean isRevoked(VerifiedToken token, Long userId) {
+        BloomFilter current = filter;
+        if (token.tokenId() != null && current.mightContain(TOKEN_KEY + token.tokenId())) {
+            if (revokedTokenRepository.existsById(token.tokenId())) {
+                revokedLookups.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+        LocalDateTime revokedBefore = userId != null ? watermarks.get(userId) : null;
+        return revokedBefore != null && issuedBefore(token, revokedBefore);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // REVOCATION
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Revoke a single token (logout). Tokens without an ID can't be revoked
+     * on their own; they expire normally.
+     */
+    @Transactional
+    public void revoke(VerifiedToken token, Long userId) {
+        if (token.tokenId() == null || revokedTokenRepository.existsById(token.tokenId())) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = token.expiresAt() != null
+                ? LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault())
+                : now.plus(tokenLifetimeMs, ChronoUnit.MILLIS);
+        revokedTokenRepository.save(new RevokedToken(token.tokenId(), userId, expiresAt, now));
+        TransactionUtils.afterCommit(() -> add(TOKEN_KEY + token.tokenId()));
+    }
+
+    /**
+     * Revoke every token of the user issued so far. Tokens are stamped in
+     * whole seconds, so the watermark is too: a token issued within the same
+     * second just before the call stays valid, one issued right after (e.g.
+     * a fresh login) is never rejected. The user's refresh tokens go too,
+     * so no session can mint new access tokens afterwards.
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        LocalDateTime revokedBefore = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        watermarkRepository.save(new TokenWatermark(userId, revokedBefore));
+        refreshTokenService.revokeAllForUser(userId);
+        TransactionUtils.afterCommit(() -> addWatermark(userId, revokedBefore));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // REBUILD
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.err.println("[TokenRevocationService] Startup rebuild failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.refresh-ms:300000}",
+            initialDelayString = "${app.security.revocation.refresh-ms:300000}")
+    public void refreshPeriodically() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.err.println("[TokenRevocationService] Refresh failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-ms:5000}",
+            initialDelayString = "${app.security.revocation.sync-ms:5000}")
+    public void syncPeriodically() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            System.err.println("[TokenRevocationService] Sync failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add the revocations committed since the previous sync or rebuild, by
+     * any instance. Two indexed range reads; entries already held are re-added
+     * harmlessly.
+     *
+     * @return number of entries now held in memory
+     */
+    public long sync() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = syncedAt.minusSeconds(SYNC_OVERLAP_SECONDS);
+        List<String> tokenIds = revokedTokenRepository.findRevokedSince(since, now);
+        List<TokenWatermark> recent = watermarkRepository.findRevokedAfter(since);
+        synchronized (filterLock) {
+            for (String tokenId : tokenIds) {
+                String key = TOKEN_KEY + tokenId;
+                if (!filter.mightContain(key)) {
+                    filter.put(key);
+                    entries++;
+                }
+            }
+            recent.forEach(w -> putWatermark(w.getUserId(), w.getRevokedBefore()));
+            if (now.isAfter(syncedAt)) {
+                syncedAt = now;
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Purge entries that can no longer revoke anything, then rebuild the
+     * filter and watermarks from what is left.
+     *
+     * @return number of entries now held in memory
+     */
+    public long refresh() {
+        synchronized (filterLock) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime cutoff = now.minus(tokenLifetimeMs, ChronoUnit.MILLIS);
+            Map<Long, LocalDateTime> reloaded = new ConcurrentHashMap<>();
+            List<String> keys = transactionTemplate.execute(status -> {
+                revokedTokenRepository.deleteExpired(now);
+                watermarkRepository.deleteOlderThan(cutoff);
+                watermarkRepository.findRevokedAfter(cutoff)
+                        .forEach(w -> reloaded.put(w.getUserId(), w.getRevokedBefore()));
+                List<String> all = new ArrayList<>();
+                revokedTokenRepository.findActiveTokenIds(now).forEach(id -> all.add(TOKEN_KEY + id));
+                return all;
+            });
+            // Headroom for revocations until the next refresh
+            BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, 2L * keys.size()), falsePositiveRate);
+            keys.forEach(rebuilt::put);
+            filter = rebuilt;
+            watermarks = reloaded;
+            entries = keys.size() + reloaded.size();
+            syncedAt = now;
+            return entries;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private void add(String key) {
+        synchronized (filterLock) {
+            filter.put(key);
+            entries++;
+        }
+    }
+
+    private void addWatermark(Long userId, LocalDateTime revokedBefore) {
+        synchronized (filterLock) {
+            putWatermark(userId, revokedBefore);
+        }
+    }
+
+    // Keeps the later watermark; callers hold filterLock
+    private void putWatermark(Long userId, LocalDateTime revokedBefore) {
+        LocalDateTime previous = watermarks.get(userId);
+        if (previous == null) {
+            entries++;
+        }
+        if (previous == null || revokedBefore.isAfter(previous)) {
+            watermarks.put(userId, revokedBefore);
+        }
+    }
+
+    private static boolean issuedBefore(VerifiedToken token, LocalDateTime revokedBefore) {
+        if (token.issuedAt() == null) {
+            return true; // no iat: can't prove it's newer than the watermark
+        }
+        Instant watermark = revokedBefore.atZone(ZoneId.systemDefault()).toInstant();
+        return token.issuedAt().isBefore(watermark);
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("auth.revocation.lookups")
+                .description("Revocation filter hits checked against the database")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.springrentMe.services.availability;
+
+import com.example.springrentMe.models.Booking;
+import com.example.springrentMe.models.BookingStatus;
+import com.example.springrentMe.repositories.BookingInterval;
+import com.example.springrentMe.repositories.BookingRepository;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the active (PENDING / APPROVED / ONGOING) booking
+ * intervals of each vehicle.
+ *
+ * A vehicle's intervals are loaded lazily from the database the first time the
+ * vehicle is queried and are then kept up to date by BookingService on every
+ * status transition. Because createBooking never admits an overlapping
+ * booking, the active intervals of a vehicle are disjoint, so they are stored
+ * in a TreeMap keyed by start date and both overlap checks and "next free
+ * date" lookups are O(log n).
+ *
+ * Each vehicle also keeps a day bitmap (one bit per day) over a rolling
+ * calendar window that starts on the 1st of the current month and spans
+ * CALENDAR_MONTHS months. It is updated together with the intervals and
+ * rebuilt from them when the window rolls over into a new month.
+ *
+ * Updates are applied after the surrounding transaction commits, so a rolled
+ * back booking never shows up in the index.
+ *
+ * The index is per instance and only sees this instance's transitions, so a
+ * vehicle's intervals are re-read from the database once they are older than
+ * app.booking.availability-ttl-ms. Bookings made or cancelled through another
+ * instance show up in next-available dates and calendars within that time.
+ * Admission never relies on the index (see BookingService.createBooking).
+ *
+ * Metrics (GET /actuator/metrics/booking.availability.index):
+ *   result=hit  – answered from memory
+ *   result=miss – vehicle was cold and had to be loaded from the database
+ */
+@Component
+public class BookingAvailabilityIndex {
+
+    public static final int CALENDAR_MONTHS = 18;
+
+    private final BookingRepository bookingRepository;
+
+    private final long ttlMs;
+
+    private final Map<Long, VehicleIntervals> intervalsByVehicle = new ConcurrentHashMap<>();
+
+    // Bumped before every update/eviction; lets bulk loads detect that they raced one
+    private final AtomicLong modifications = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public BookingAvailabilityIndex(
+            BookingRepository bookingRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.booking.availability-ttl-ms:60000}") long ttlMs) {
+        this.bookingRepository = bookingRepository;
+        this.ttlMs = ttlMs;
+        this.hits = Counter.builder("booking.availability.index")
+                .description("Lookups answered by the in-memory booking index")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("booking.availability.index")
+                .description("Lookups that had to load a vehicle's bookings from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("booking.availability.index.vehicles", List.of(), intervalsByVehicle);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // QUERIES
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * First day on or after {@code from} that is not covered by an active booking.
+     */
+    public LocalDate nextFreeDate(Long vehicleId, LocalDate from) {
+        return intervalsFor(vehicleId).nextFreeDate(from);
+    }
+
+    /**
+     * Booked days of the vehicle in [from, to] as one character per day,
+     * '1' = booked, '0' = free. The range must lie inside calendarWindowStart()
+     * .. calendarWindowEnd().
+     */
+    public String calendar(Long vehicleId, LocalDate from, LocalDate to) {
+        return intervalsFor(vehicleId).calendar(calendarWindowStart(), from, to);
+    }
+
+    /**
+     * calendar() for several vehicles; all cold vehicles are loaded with a single query.
+     *
+     * @return calendars keyed by vehicle ID, in the order of {@code vehicleIds}
+     */
+    public Map<Long, String> calendars(Collection<Long> vehicleIds, LocalDate from, LocalDate to) {
+        LocalDate windowStart = calendarWindowStart();
+        preload(vehicleIds);
+        Map<Long, String> calendars = new LinkedHashMap<>();
+        for (Long vehicleId : vehicleIds) {
+            calendars.put(vehicleId, intervalsFor(vehicleId).calendar(windowStart, from, to));
+        }
+        return calendars;
+    }
+
+    /** First day covered by the calendar (the 1st of the current month). */
+    public LocalDate calendarWindowStart() {
+        return LocalDate.now().withDayOfMonth(1);
+    }
+
+    /** Last day covered by the calendar. */
+    public LocalDate calendarWindowEnd() {
+        return calendarWindowStart().plusMonths(CALENDAR_MONTHS).minusDays(1);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // UPDATES (called by BookingService on status transitions)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Reflect the current status of a booking in the index: active bookings are
+     * (re-)inserted, all others are removed. Applied after commit.
+     */
+    public void onBookingChanged(Booking booking) {
+        Long vehicleId = booking.getVehicle().getVehicleId();
+        Long bookingId = booking.getBookingId();
+        LocalDate start = booking.getStartDate();
+        LocalDate end = booking.getEndDate();
+        boolean active = isActive(booking.getStatus());
+
+        TransactionUtils.afterCommit(() -> {
+            modifications.incrementAndGet();
+            intervalsByVehicle.computeIfPresent(vehicleId, (id, intervals) -> {
+                if (intervals instanceof DatabaseBackedIntervals) {
+                    // The overlap may have just been resolved; reload on next access.
+                    return null;
+                }
+                if (!active) {
+                    intervals.remove(bookingId);
+                    return intervals;
+                }
+                // An overlapping insert breaks the disjoint invariant (e.g. an admin
+                // re-activating a cancelled booking); drop the vehicle so it is
+                // reloaded and checked against the database next time.
+                return intervals.add(bookingId, start, end) ? intervals : null;
+            });
+        });
+    }
+
+    /**
+     * Drop all cached intervals of a vehicle (e.g. when the vehicle is deleted).
+     */
+    public void evict(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> {
+            modifications.incrementAndGet();
+            intervalsByVehicle.remove(vehicleId);
+        });
+    }
+
+    /**
+     * Drop the cached intervals of several vehicles, e.g. after a bulk status
+     * update that bypassed onBookingChanged. They are reloaded on next access.
+     */
+    public void evictAll(Collection<Long> vehicleIds) {
+        TransactionUtils.afterCommit(() -> {
+            modifications.incrementAndGet();
+            vehicleIds.forEach(intervalsByVehicle::remove);
+        });
+    }
+
+    public static boolean isActive(BookingStatus status) {
+        return status == BookingStatus.PENDING
+                || status == BookingStatus.APPROVED
+                || status == BookingStatus.ONGOING;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private VehicleIntervals intervalsFor(Long vehicleId) {
+        VehicleIntervals cached = intervalsByVehicle.get(vehicleId);
+        if (cached != null && isFresh(cached)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        if (cached != null) {
+            // Expired: may miss bookings made through other instances
+            intervalsByVehicle.remove(vehicleId, cached);
+        }
+        // Loading inside computeIfAbsent blocks concurrent computeIfPresent
+        // updates for this vehicle until the snapshot is installed, so a booking
+        // committed while we read is applied on top of it rather than lost.
+        return intervalsByVehicle.computeIfAbsent(vehicleId, this::load);
+    }
+
+    private VehicleIntervals load(Long vehicleId) {
+        return build(vehicleId, bookingRepository.findActiveIntervalsByVehicleIds(List.of(vehicleId)));
+    }
+
+    /**
+     * Load all cold vehicles among {@code vehicleIds} with one query. The query
+     * runs outside computeIfAbsent, so a snapshot is only installed if no update
+     * or eviction happened since it was read; otherwise the vehicle stays cold
+     * and intervalsFor() loads it the usual way.
+     */
+    private void preload(Collection<Long> vehicleIds) {
+        List<Long> cold = vehicleIds.stream()
+                .filter(id -> {
+                    VehicleIntervals cached = intervalsByVehicle.get(id);
+                    if (cached != null && !isFresh(cached)) {
+                        intervalsByVehicle.remove(id, cached);
+                        return true;
+                    }
+                    return cached == null;
+                })
+                .distinct()
+                .toList();
+        if (cold.isEmpty()) {
+            return;
+        }
+        long seen = modifications.get();
+        Map<Long, List<BookingInterval>> rowsByVehicle = bookingRepository.findActiveIntervalsByVehicleIds(cold)
+                .stream()
+                .collect(Collectors.groupingBy(BookingInterval::vehicleId));
+        for (Long vehicleId : cold) {
+            VehicleIntervals snapshot = build(vehicleId, rowsByVehicle.getOrDefault(vehicleId, List.of()));
+            // Checked inside computeIfAbsent: an update for this vehicle either bumped
+            // the counter already or runs its computeIfPresent after this install.
+            intervalsByVehicle.computeIfAbsent(vehicleId,
+                    id -> modifications.get() == seen ? snapshot : null);
+        }
+    }
+
+    private boolean isFresh(VehicleIntervals intervals) {
+        return System.currentTimeMillis() - intervals.loadedAt < ttlMs;
+    }
+
+    private VehicleIntervals build(Long vehicleId, List<BookingInterval> rows) {
+        VehicleIntervals intervals = new VehicleIntervals();
+        for (BookingInterval row : rows) {
+            if (!intervals.add(row.bookingId(), row.startDate(), row.endDate())) {
+                // Overlapping rows already in the DB: don't cache, always ask the DB.
+                return new DatabaseBackedIntervals(vehicleId);
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Disjoint active intervals of one vehicle, keyed by start date.
+     */
+    private static class VehicleIntervals {
+
+        private final long loadedAt = System.currentTimeMillis();
+        private final TreeMap<LocalDate, Interval> byStart = new TreeMap<>();
+        private final Map<Long, Interval> byBookingId = new HashMap<>();
+        private DayBitmap bitmap; // built on first calendar request
+
+        synchronized boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            // With disjoint intervals only the last one starting on/before endDate can reach startDate.
+            Map.Entry<LocalDate, Interval> candidate = byStart.floorEntry(endDate);
+            return candidate != null && !candidate.getValue().end().isBefore(startDate);
+        }
+
+        synchronized LocalDate nextFreeDate(LocalDate from) {
+            LocalDate day = from;
+            Map.Entry<LocalDate, Interval> covering = byStart.floorEntry(day);
+            while (covering != null && !covering.getValue().end().isBefore(day)) {
+                day = covering.getValue().end().plusDays(1);
+                covering = byStart.floorEntry(day);
+            }
+            return day;
+        }
+
+        /**
+         * @return false if the interval overlaps another booking's interval
+         */
+        synchronized boolean add(Long bookingId, LocalDate start, LocalDate end) {
+            remove(bookingId);
+            if (overlaps(start, end)) {
+                return false;
+            }
+            Interval interval = new Interval(bookingId, start, end);
+            byStart.put(start, interval);
+            byBookingId.put(bookingId, interval);
+            if (bitmap != null) {
+                bitmap.set(start, end);
+            }
+            return true;
+        }
+
+        synchronized void remove(Long bookingId) {
+            Interval removed = byBookingId.remove(bookingId);
+            if (removed != null) {
+                byStart.remove(removed.start());
+                // Intervals are disjoint, so no other booking shares these days
+                if (bitmap != null) {
+                    bitmap.clear(removed.start(), removed.end());
+                }
+            }
+        }
+
+        synchronized String calendar(LocalDate windowStart, LocalDate from, LocalDate to) {
+            if (bitmap == null || !bitmap.origin().equals(windowStart)) {
+                bitmap = newBitmap(windowStart);
+                byStart.values().forEach(i -> bitmap.set(i.start(), i.end()));
+            }
+            return bitmap.render(from, to);
+        }
+    }
+
+    /**
+     * Placeholder for vehicles whose active bookings overlap in the database;
+     * every query reads the vehicle's active intervals once and answers from them.
+     */
+    private class DatabaseBackedIntervals extends VehicleIntervals {
+
+        private final Long vehicleId;
+
+        DatabaseBackedIntervals(Long vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        @Override
+        LocalDate nextFreeDate(LocalDate from) {
+            List<BookingInterval> rows = new ArrayList<>(
+                    bookingRepository.findActiveIntervalsByVehicleIds(List.of(vehicleId)));
+            rows.sort(Comparator.comparing(BookingInterval::startDate));
+            // Sorted by start, so once an interval starts after day none of the rest covers it
+            LocalDate day = from;
+            for (BookingInterval row : rows) {
+                if (row.startDate().isAfter(day)) {
+                    break;
+                }
+                if (!row.endDate().isBefore(day)) {
+                    day = row.endDate().plusDays(1);
+                }
+            }
+            return day;
+        }
+
+        @Override
+        String calendar(LocalDate windowStart, LocalDate from, LocalDate to) {
+            DayBitmap bitmap = newBitmap(windowStart);
+            for (BookingInterval row : bookingRepository.findActiveIntervalsByVehicleIds(List.of(vehicleId))) {
+                bitmap.set(row.startDate(), row.endDate());
+            }
+            return bitmap.render(from, to);
+        }
+    }
+
+    private static DayBitmap newBitmap(LocalDate windowStart) {
+        int days = (int) ChronoUnit.DAYS.between(windowStart, windowStart.plusMonths(CALENDAR_MONTHS));
+        return new DayBitmap(windowStart, days);
+    }
+
+    private record Interval(Long bookingId, LocalDate start, LocalDate end) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.springrentMe.services.availability;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One bit per day over a fixed window [origin, origin + days), bit set = booked.
+ * About 70 bytes per vehicle for an 18-month window.
+ *
+ * Not thread-safe; guarded by the owning VehicleIntervals.
+ */
+final class DayBitmap {
+
+    private final LocalDate origin;
+    private final int days;
+    private final long[] words;
+
+    DayBitmap(LocalDate origin, int days) {
+        this.origin = origin;
+        this.days = days;
+        this.words = new long[(days + 63) >>> 6];
+    }
+
+    LocalDate origin() {
+        return origin;
+    }
+
+    /** Mark [start, end] booked; days outside the window are ignored. */
+    void set(LocalDate start, LocalDate end) {
+        fill(start, end, true);
+    }
+
+    /** Mark [start, end] free; days outside the window are ignored. */
+    void clear(LocalDate start, LocalDate end) {
+        fill(start, end, false);
+    }
+
+    /**
+     * Render [from, to] (must lie inside the window) as one character per day:
+     * '1' = booked, '0' = free.
+     */
+    String render(LocalDate from, LocalDate to) {
+        int first = offset(from);
+        int last = offset(to);
+        if (first < 0 || last >= days || last < first) {
+            throw new IllegalArgumentException("Range " + from + ".." + to + " is outside the calendar window");
+        }
+        char[] out = new char[last - first + 1];
+        for (int i = first; i <= last; i++) {
+            out[i - first] = (words[i >>> 6] & (1L << i)) != 0 ? '1' : '0';
+        }
+        return new String(out);
+    }
+
+    private void fill(LocalDate start, LocalDate end, boolean booked) {
+        int first = Math.max(offset(start), 0);
+        int last = Math.min(offset(end), days - 1);
+        if (first > last) {
+            return;
+        }
+        int firstWord = first >>> 6;
+        int lastWord = last >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            // Java masks shift distances to 0..63, so these are the in-word bit ranges
+            long mask = -1L;
+            if (w == firstWord) {
+                mask &= -1L << first;
+            }
+            if (w == lastWord) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            words[w] = booked ? words[w] | mask : words[w] & ~mask;
+        }
+    }
+
+    private int offset(LocalDate day) {
+        long offset = ChronoUnit.DAYS.between(origin, day);
+        // Clamp far-away dates so they can't wrap around when narrowed to int
+        return (int) Math.max(-1, Math.min(offset, days));
+    }
+}
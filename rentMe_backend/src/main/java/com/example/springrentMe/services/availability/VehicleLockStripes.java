@@ -0,0 +1,67 @@
+package com.example.springrentMe.services.availability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of in-process locks striped by vehicle ID.
+ *
+ * Booking admission for the same vehicle is serialized on one stripe, while
+ * requests for different vehicles (almost always on different stripes) run in
+ * parallel. The stripe is taken BEFORE the booking transaction starts, so
+ * waiting requests don't hold a pooled DB connection. Across application
+ * instances the row lock taken by VehicleRepository.findByIdForUpdate, with
+ * the overlap query BookingService runs under it, is what guarantees
+ * correctness; the stripes just keep contention off the database.
+ */
+@Component
+public class VehicleLockStripes {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public VehicleLockStripes(
+            @Value("${app.booking.lock-stripes:256}") int stripeCount,
+            @Value("${app.booking.lock-timeout-ms:10000}") long timeoutMillis) {
+        // Round up to a power of two so the stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run {@code action} while holding the lock stripe of the given vehicle.
+     *
+     * @throws RuntimeException if the stripe cannot be acquired within the timeout
+     */
+    public <T> T withVehicleLock(Long vehicleId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(vehicleId);
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException(
+                        "This vehicle is receiving many booking requests right now. Please try again.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking request was interrupted.", e);
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Long vehicleId) {
+        int h = Long.hashCode(vehicleId);
+        h ^= (h >>> 16); // spread sequential IDs
+        return stripes[h & (stripes.length - 1)];
+    }
+}
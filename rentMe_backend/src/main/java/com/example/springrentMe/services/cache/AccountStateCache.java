@@ -0,0 +1,60 @@
+package com.example.springrentMe.services.cache;
+
+import com.example.springrentMe.security.AccountState;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of account state (active flag, email, roles) by user ID,
+ * consulted on every authenticated request instead of the users / renters /
+ * vehicle_owners / admins tables.
+ *
+ * The TTL bounds how long a change made outside the services below (e.g.
+ * manual SQL) goes unnoticed. Deactivation, reactivation, password, email and
+ * role changes drop the user's entry explicitly, after commit.
+ */
+@Component
+public class AccountStateCache {
+
+    static final String ACCOUNTS = "auth.account";
+
+    private final BoundedCache<Long, AccountState> states;
+
+    // Bumped on every invalidation; a value loaded across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public AccountStateCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.accounts.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.accounts.ttl-seconds:30}") long ttlSeconds) {
+        this.states = new BoundedCache<>(ACCOUNTS, maxEntries, Duration.ofSeconds(ttlSeconds),
+                state -> 1, meterRegistry, System::nanoTime);
+    }
+
+    public AccountState get(Long userId, Supplier<AccountState> loader) {
+        AccountState cached = states.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        AccountState loaded = loader.get();
+        if (generation.get() == seen) {
+            states.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /** The user's account changed: status, credentials, email or roles. */
+    public void onAccountChanged(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            states.invalidate(userId);
+        });
+    }
+}
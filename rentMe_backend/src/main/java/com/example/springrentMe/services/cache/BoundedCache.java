@@ -0,0 +1,156 @@
+package com.example.springrentMe.services.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small in-process cache with a weight bound, LRU eviction and a fixed TTL.
+ *
+ * Every entry has a weight (e.g. the number of vehicles it holds); once the
+ * total exceeds maxWeight the least recently used entries are evicted. Entries
+ * older than the TTL are dropped on access. All operations are synchronized —
+ * they are O(1) apart from invalidateIf, which scans the entries.
+ *
+ * Metrics, tagged cache=&lt;name&gt;:
+ *   cache.requests   result=hit|miss
+ *   cache.evictions  cause=size|expired|invalidated
+ *   cache.weight / cache.entries (gauges)
+ */
+class BoundedCache<K, V> {
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier nanoClock;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidations;
+
+    BoundedCache(String name, long maxWeight, Duration ttl, ToLongFunction<V> weigher,
+                 MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+        this.hits = requests(meterRegistry, name, "hit");
+        this.misses = requests(meterRegistry, name, "miss");
+        this.sizeEvictions = evictions(meterRegistry, name, "size");
+        this.expiredEvictions = evictions(meterRegistry, name, "expired");
+        this.invalidations = evictions(meterRegistry, name, "invalidated");
+        Gauge.builder("cache.weight", this, BoundedCache::weight)
+                .description("Total weight of the cached entries")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.entries", this, BoundedCache::size)
+                .description("Number of cached entries")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && nanoClock.getAsLong() - entry.createdAt() > ttlNanos) {
+            remove(key);
+            expiredEvictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    synchronized void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        remove(key);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, entryWeight, nanoClock.getAsLong()));
+        weight += entryWeight;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        if (remove(key)) {
+            invalidations.increment();
+        }
+    }
+
+    synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey(), e.getValue().value())) {
+                weight -= e.getValue().weight();
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    synchronized void invalidateAll() {
+        invalidations.increment(entries.size());
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean remove(K key) {
+        Entry<V> old = entries.remove(key);
+        if (old == null) {
+            return false;
+        }
+        weight -= old.weight();
+        return true;
+    }
+
+    private static Counter requests(MeterRegistry registry, String name, String result) {
+        return Counter.builder("cache.requests")
+                .description("Cache lookups")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Counter evictions(MeterRegistry registry, String name, String cause) {
+        return Counter.builder("cache.evictions")
+                .description("Entries removed from the cache")
+                .tag("cache", name)
+                .tag("cause", cause)
+                .register(registry);
+    }
+
+    private record Entry<V>(V value, long weight, long createdAt) {
+    }
+}
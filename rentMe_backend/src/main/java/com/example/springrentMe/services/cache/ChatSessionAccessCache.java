@@ -0,0 +1,68 @@
+package com.example.springrentMe.services.cache;
+
+import com.example.springrentMe.services.chat.ChatSessionAccess;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-session permission descriptors (ChatSessionAccess), so sending a
+ * message checks participation and the owner gate without loading the
+ * session, its users or the owner profile.
+ *
+ * Entries are dropped after commit when the session's vehicle changes, and
+ * for every session of a user whose owner profile, verification status, name
+ * or email changes. The TTL bounds anything else (e.g. manual SQL).
+ */
+@Component
+public class ChatSessionAccessCache {
+
+    static final String SESSIONS = "chat.session.access";
+
+    private final BoundedCache<Long, ChatSessionAccess> descriptors;
+
+    // Bumped on every invalidation; a value loaded across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ChatSessionAccessCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.chat-sessions.max-entries:20000}") long maxEntries,
+            @Value("${app.cache.chat-sessions.ttl-seconds:600}") long ttlSeconds) {
+        this.descriptors = new BoundedCache<>(SESSIONS, maxEntries, Duration.ofSeconds(ttlSeconds),
+                access -> 1, meterRegistry, System::nanoTime);
+    }
+
+    public ChatSessionAccess get(Long sessionId, Supplier<ChatSessionAccess> loader) {
+        ChatSessionAccess cached = descriptors.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        ChatSessionAccess loaded = loader.get();
+        if (generation.get() == seen) {
+            descriptors.put(sessionId, loaded);
+        }
+        return loaded;
+    }
+
+    /** The session itself changed (e.g. its vehicle). */
+    public void onSessionChanged(Long sessionId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            descriptors.invalidate(sessionId);
+        });
+    }
+
+    /** A participant's owner profile, verification status, name or email changed. */
+    public void onUserChanged(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            descriptors.invalidateIf((sessionId, access) -> access.isParticipant(userId));
+        });
+    }
+}
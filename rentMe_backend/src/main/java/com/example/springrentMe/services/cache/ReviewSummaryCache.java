@@ -0,0 +1,61 @@
+package com.example.springrentMe.services.cache;
+
+import com.example.springrentMe.DTOs.VehicleReviewSummaryDTO;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the per-vehicle review summaries (average, count,
+ * star distribution and latest reviews) served to vehicle detail pages.
+ *
+ * Bounded by weight (one unit per summary and per recent review it holds) and
+ * expiring after a TTL, which also bounds staleness of data owned elsewhere
+ * (e.g. a reviewer's name). A review created or deleted, or a recompute of the
+ * vehicle's aggregates, drops that vehicle's summary after commit.
+ */
+@Component
+public class ReviewSummaryCache {
+
+    static final String SUMMARIES = "review.summary";
+
+    private final BoundedCache<Long, VehicleReviewSummaryDTO> summaries;
+
+    // Bumped on every invalidation; a value loaded across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ReviewSummaryCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.reviews.summary-max-weight:30000}") long maxWeight,
+            @Value("${app.cache.reviews.ttl-seconds:300}") long ttlSeconds) {
+        this.summaries = new BoundedCache<>(SUMMARIES, maxWeight, Duration.ofSeconds(ttlSeconds),
+                summary -> 1 + (summary.getRecentReviews() == null ? 0 : summary.getRecentReviews().size()),
+                meterRegistry, System::nanoTime);
+    }
+
+    public VehicleReviewSummaryDTO summary(Long vehicleId, Supplier<VehicleReviewSummaryDTO> loader) {
+        VehicleReviewSummaryDTO cached = summaries.get(vehicleId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        VehicleReviewSummaryDTO loaded = loader.get();
+        if (generation.get() == seen) {
+            summaries.put(vehicleId, loaded);
+        }
+        return loaded;
+    }
+
+    /** A review of the vehicle was created / deleted, or its aggregates recomputed. */
+    public void onReviewsChanged(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            summaries.invalidate(vehicleId);
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.springrentMe.services.cache;
+
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-user total of unread chat messages (navbar badge), so the badge
+ * endpoint and the pushes after each change are answered from memory.
+ *
+ * Every change to a user's counter drops the entry after commit; the TTL
+ * only bounds how long changes made by another instance go unnoticed.
+ */
+@Component
+public class UnreadCountCache {
+
+    static final String UNREAD = "chat.unread";
+
+    private final BoundedCache<Long, Long> counts;
+
+    // Bumped on every invalidation; a value loaded across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UnreadCountCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.unread.max-entries:20000}") long maxEntries,
+            @Value("${app.cache.unread.ttl-seconds:60}") long ttlSeconds) {
+        this.counts = new BoundedCache<>(UNREAD, maxEntries, Duration.ofSeconds(ttlSeconds),
+                count -> 1, meterRegistry, System::nanoTime);
+    }
+
+    public long get(Long userId, Supplier<Long> loader) {
+        Long cached = counts.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        Long loaded = loader.get();
+        if (generation.get() == seen) {
+            counts.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /** The user's unread total changed. */
+    public void onUnreadChanged(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            counts.invalidate(userId);
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.springrentMe.services.cache;
+
+import com.example.springrentMe.DTOs.VehicleResponseDTO;
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
+import com.example.springrentMe.repositories.VehicleVersion;
+import com.example.springrentMe.services.search.SearchKeys;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of the public vehicle responses: detail DTOs by vehicle ID
+ * and search-result pages by normalized filters + sort + page. A page holds
+ * the listed vehicles' versions only, so the listing ETag is known before any
+ * DTO is built; the DTOs of a page come from the detail region.
+ *
+ * Both regions are bounded by weight (one unit per vehicle, plus one per
+ * picture URL for details) and expire after a TTL, which also bounds
+ * staleness of data owned elsewhere (e.g. an owner's name shown on the listing).
+ *
+ * Invalidation, applied after the writing transaction commits:
+ *   vehicle saved / deleted      → its detail + every search page (membership may change)
+ *   pictures uploaded / deleted  → its detail + the pages that contain it
+ *   rating changed               → its detail + the pages that contain it
+ *                                  + pages filtered or sorted by rating
+ * Date-range searches are never cached; they depend on bookings.
+ */
+@Component
+public class VehicleResponseCache {
+
+    static final String DETAILS = "vehicle.detail";
+    static final String SEARCH = "vehicle.search";
+
+    private final BoundedCache<Long, VehicleResponseDTO> details;
+    private final BoundedCache<String, CachedPage> pages;
+
+    // Bumped on every invalidation; a value loaded across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public VehicleResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.vehicles.detail-max-weight:20000}") long detailMaxWeight,
+            @Value("${app.cache.vehicles.search-max-weight:50000}") long searchMaxWeight,
+            @Value("${app.cache.vehicles.ttl-seconds:300}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.details = new BoundedCache<>(DETAILS, detailMaxWeight, ttl,
+                VehicleResponseCache::weigh, meterRegistry, System::nanoTime);
+        this.pages = new BoundedCache<>(SEARCH, searchMaxWeight, ttl,
+                page -> 1 + page.page().getNumberOfElements(),
+                meterRegistry, System::nanoTime);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // READS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    public VehicleResponseDTO detail(Long vehicleId, Supplier<VehicleResponseDTO> loader) {
+        VehicleResponseDTO cached = details.get(vehicleId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        VehicleResponseDTO loaded = loader.get();
+        if (generation.get() == seen) {
+            details.put(vehicleId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Details of several vehicles; the loader is called once with the IDs not cached.
+     * Vehicles the loader doesn't return are absent from the result.
+     */
+    public Map<Long, VehicleResponseDTO> details(Collection<Long> vehicleIds,
+                                                 Function<List<Long>, Map<Long, VehicleResponseDTO>> loader) {
+        Map<Long, VehicleResponseDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long vehicleId : vehicleIds) {
+            VehicleResponseDTO cached = details.get(vehicleId);
+            if (cached != null) {
+                found.put(vehicleId, cached);
+            } else {
+                missing.add(vehicleId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long seen = generation.get();
+        Map<Long, VehicleResponseDTO> loaded = loader.apply(missing);
+        if (generation.get() == seen) {
+            loaded.forEach(details::put);
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    public Page<VehicleVersion> searchPage(VehicleSearchCriteria criteria, String sort, int page, int size,
+                                           Supplier<Page<VehicleVersion>> loader) {
+        if (criteria.getStartDate() != null) {
+            return loader.get();
+        }
+        String key = SearchKeys.filters(criteria) + "|" + sort + "|" + page + "|" + size;
+        CachedPage cached = pages.get(key);
+        if (cached != null) {
+            return cached.page();
+        }
+        long seen = generation.get();
+        Page<VehicleVersion> loaded = loader.get();
+        if (generation.get() == seen) {
+            Set<Long> vehicleIds = loaded.getContent().stream()
+                    .map(VehicleVersion::vehicleId)
+                    .collect(Collectors.toUnmodifiableSet());
+            boolean ratingDependent = criteria.getMinRating() != null || "rating".equals(sort);
+            pages.put(key, new CachedPage(loaded, vehicleIds, ratingDependent));
+        }
+        return loaded;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // INVALIDATION (applied after commit)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** A vehicle was created, edited, listed / unlisted or deleted. */
+    public void onVehicleChanged(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            details.invalidate(vehicleId);
+            pages.invalidateAll();
+        });
+    }
+
+    /** Bulk availability change (e.g. the nightly booking transition job). */
+    public void onVehiclesChanged(Collection<Long> vehicleIds) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            vehicleIds.forEach(details::invalidate);
+            pages.invalidateAll();
+        });
+    }
+
+    /** A vehicle's pictures changed: only responses that show it are stale. */
+    public void onPicturesChanged(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            details.invalidate(vehicleId);
+            pages.invalidateIf((key, page) -> page.vehicleIds().contains(vehicleId));
+        });
+    }
+
+    /** A vehicle's rating aggregates changed. */
+    public void onRatingChanged(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            details.invalidate(vehicleId);
+            pages.invalidateIf((key, page) -> page.ratingDependent() || page.vehicleIds().contains(vehicleId));
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private static long weigh(VehicleResponseDTO dto) {
+        return 1 + (dto.getPictures() == null ? 0 : dto.getPictures().size());
+    }
+
+    record CachedPage(Page<VehicleVersion> page, Set<Long> vehicleIds, boolean ratingDependent) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.springrentMe.services.chat;
+
+import com.example.springrentMe.models.SessionType;
+import com.example.springrentMe.models.VerificationStatus;
+
+/**
+ * Everything sending a message into a session has to check, resolved once
+ * per session and cached (ChatSessionAccessCache): who takes part, who
+ * started it, which participant is the vehicle owner and whether that owner
+ * is approved. Participant names and emails ride along for the response and
+ * the recipient's unread push.
+ *
+ * @param ownerUserId vehicle owner participant (the session vehicle's owner,
+ *                    otherwise whichever participant has an owner profile),
+ *                    or null
+ * @param ownerStatus that owner's verification status, null without owner
+ */
+public record ChatSessionAccess(Long sessionId, SessionType sessionType,
+                                Long participantOneId, String participantOneName, String participantOneEmail,
+                                Long participantTwoId, String participantTwoName, String participantTwoEmail,
+                                Long initiatorUserId, Long ownerUserId, VerificationStatus ownerStatus) {
+
+    public boolean isParticipant(Long userId) {
+        return participantOneId.equals(userId) || participantTwoId.equals(userId);
+    }
+
+    public Long otherParticipantId(Long userId) {
+        return participantOneId.equals(userId) ? participantTwoId : participantOneId;
+    }
+
+    public String nameOf(Long userId) {
+        return participantOneId.equals(userId) ? participantOneName : participantTwoName;
+    }
+
+    public String emailOf(Long userId) {
+        return participantOneId.equals(userId) ? participantOneEmail : participantTwoEmail;
+    }
+}
@@ -0,0 +1,621 @@
+package com.example.springrentMe.services.chat;
+
+import com.example.springrentMe.exceptions.ChatBusyException;
+import com.example.springrentMe.exceptions.ChatSessionException;
+import com.example.springrentMe.models.MessageType;
+import com.example.springrentMe.models.chat.ChatMessageDeadLetter;
+import com.example.springrentMe.repositories.ChatMessageDeadLetterRepository;
+import com.example.springrentMe.repositories.ChatSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Write-behind pipeline for chat messages ({@code app.chat.write-behind.enabled}).
+ *
+ * With the pipeline on, ChatService no longer inserts a message in the
+ * sender's request: the message gets the session's next sequence number
+ * (kept here, per session), is broadcast right away and queued. A single
+ * flusher thread drains the queue every {@code flush-interval-ms} (sooner
+ * once a batch is full) and writes each batch in one transaction: one JDBC
+ * batch of inserts, then one inbox update per session and one unread-counter
+ * adjustment per recipient, however many messages the batch holds.
+ *
+ * Delivery guarantees:
+ * <ul>
+ *   <li>Order: sequence numbers are handed out, queued and broadcast under
+ *       the session's lock, so each session's messages are queued, broadcast
+ *       and stored in sequence order.</li>
+ *   <li>Idempotency: every message carries a client message ID (the sender's,
+ *       else a generated one) and is only inserted if the sender has no
+ *       message with that ID yet, so a batch can be retried, and a client
+ *       resending an unacknowledged message gets the original back.</li>
+ *   <li>Failures: a batch that fails on the database (connection lost) stays
+ *       first in line for the next flush. A batch that fails on its data is
+ *       written again one message at a time; a message that still can't be
+ *       stored (its sender or session was deleted meanwhile) goes to
+ *       chat_message_dead_letters, so it can't hold up the queue.</li>
+ *   <li>Durability window: a message is acknowledged and broadcast before it
+ *       is stored, and reaches the database within about one flush interval.
+ *       Once stored it is broadcast again, now with its message ID: that
+ *       second copy is the sender's confirmation. The queue is bounded; when
+ *       it stays full for {@code offer-timeout-ms} (database down or too
+ *       slow), sends fail with ChatBusyException instead of piling up. What
+ *       is queued when the process stops is flushed on shutdown; a crash
+ *       loses the queue. A message survives that only because the sender's
+ *       client keeps it in its outbox and resends it, under the same client
+ *       message ID, until it sees the stored copy (see the frontend's
+ *       useWebSocket); a client that doesn't can lose acknowledged messages.</li>
+ * </ul>
+ *
+ * Sequence numbers are held in memory, so with the pipeline on, every
+ * session must be written by a single instance. Before handing numbers out,
+ * the queue reserves them in the session row, {@code sequence-block} at a
+ * time: a session whose sequence was dropped (idle for {@code sequence-idle-ms},
+ * or lost in a crash) continues above every number broadcast before, at the
+ * cost of a gap after a crash. Messages are readable through the REST
+ * history only once flushed; delta catch-ups (ChatService.getMessagesAfter,
+ * sync) include the queued ones.
+ *
+ * Not lazy: the flusher has to run without a request touching the bean
+ * first, and the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class ChatWriteBehindQueue {
+
+    /** A broadcast message awaiting its insert. */
+    public record PendingMessage(Long sessionId, long seq, String clientMessageId,
+                                 Long senderId, Long recipientId, String recipientEmail, boolean toParticipantOne,
+                                 MessageType messageType, String textContent, String fileUrl,
+                                 Double latitude, Double longitude,
+                                 LocalDateTime createdAt, String preview) {
+    }
+
+    /** A flushed message with the ID its insert got. */
+    public record StoredMessage(PendingMessage message, long messageId) {
+    }
+
+    private static final int DEAD_LETTER_MEMORY = 10_000;
+
+    private static final String FIND_MESSAGE_IDS = "SELECT seq, message_id FROM chat_messages "
+            + "WHERE session_id = ? AND seq BETWEEN ? AND ?";
+
+    private static final String RESERVE_SEQUENCE = "UPDATE chat_sessions SET reserved_message_seq = ? WHERE session_id = ?";
+
+    // Skips a message the sender already stored under its client message ID
+    private static final String INSERT_MESSAGE = "INSERT INTO chat_messages "
+            + "(session_id, sender_user_id, message_type, text_content, file_url, latitude, longitude, "
+            + "is_read, is_deleted, created_at, seq, client_message_id) "
+            + "SELECT ?, ?, ?, ?, ?, ?, ?, FALSE, FALSE, ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM chat_messages WHERE sender_user_id = ? AND client_message_id = ?)";
+
+    // One per session and batch: preview of the batch's last message, unread counts by the batch's totals
+    private static final String UPDATE_SESSION = "UPDATE chat_sessions SET "
+            + "last_message_seq = CASE WHEN last_message_seq IS NULL OR last_message_seq < ? THEN ? ELSE last_message_seq END, "
+            + "last_message_id = (SELECT m.message_id FROM chat_messages m WHERE m.session_id = ? AND m.seq = ?), "
+            + "last_sender_user_id = ?, last_message_preview = ?, last_message_at = ?, "
+            + "participant_one_unread = participant_one_unread + ?, "
+            + "participant_two_unread = participant_two_unread + ?, "
+            + "updated_at = ? "
+            + "WHERE session_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private ChatMessageDeadLetterRepository deadLetterRepository;
+
+    @Value("${app.chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.chat.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.chat.write-behind.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    @Value("${app.chat.write-behind.sequence-block:100}")
+    private int sequenceBlock;
+
+    @Value("${app.chat.write-behind.sequence-idle-ms:600000}")
+    private long sequenceIdleMs;
+
+    private BlockingQueue<PendingMessage> queue;
+    private ScheduledExecutorService flusher;
+
+    // Last sequence number per session, seeded from the session row on first use; dropped once idle
+    private final Map<Long, SessionSequence> sequences = new ConcurrentHashMap<>();
+    // Queued messages by sender and client message ID, until their batch commits
+    private final Map<String, PendingMessage> pendingByClientId = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Told about every committed batch, on the flusher thread
+    private volatile Consumer<List<StoredMessage>> storedListener = stored -> { };
+    private final Object flushLock = new Object();
+    // Batch whose transaction failed; written again before anything newer
+    private List<PendingMessage> retry = List.of();
+    // Recently dead-lettered messages by sender and client message ID, so resends fail fast
+    private final Map<String, Boolean> deadLettered = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > DEAD_LETTER_MEMORY;
+                }
+            });
+
+    // Guarded by its own monitor
+    private static final class SessionSequence {
+        private long last = -1;
+        // Highest number reserved in the session row
+        private long reserved = -1;
+        // Messages queued and not yet stored or dead-lettered
+        private int queued;
+        private long lastUsedAt;
+        // Dropped from the map; a submit that raced the eviction starts over
+        private boolean evicted;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        // Own thread: the shared @Scheduled thread also runs long jobs that would stretch the durability window
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            flushQuietly();
+            evictIdleSequences(System.currentTimeMillis() - sequenceIdleMs);
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        // Give back the unused reservations, so the next start continues without a gap
+        evictIdleSequences(Long.MAX_VALUE);
+        if (!queue.isEmpty() || !retry.isEmpty()) {
+            System.err.println("[ChatWriteBehindQueue] " + (queue.size() + retry.size())
+                    + " chat messages could not be stored before shutdown");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SUBMIT
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Sequence, queue and publish a message, under the session's lock.
+     *
+     * @param create  builds the message for the sequence number it is given
+     * @param publish broadcasts the queued message
+     * @throws ChatBusyException the queue stayed full; the client should resend
+     */
+    public PendingMessage submit(Long sessionId, LongFunction<PendingMessage> create, Consumer<PendingMessage> publish) {
+        PendingMessage message = null;
+        while (message == null) {
+            message = submit(sequences.computeIfAbsent(sessionId, id -> new SessionSequence()), sessionId, create, publish);
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: stop() flushes what is left
+            }
+        }
+        return message;
+    }
+
+    // Null when the sequence was evicted meanwhile
+    private PendingMessage submit(SessionSequence sequence, Long sessionId,
+                                  LongFunction<PendingMessage> create, Consumer<PendingMessage> publish) {
+        synchronized (sequence) {
+            if (sequence.evicted) {
+                return null;
+            }
+            if (sequence.last < 0) {
+                sequence.last = chatSessionRepository.findLastMessageSeq(sessionId)
+                        .orElseThrow(() -> new ChatSessionException("Chat session not found with id: " + sessionId));
+                sequence.reserved = sequence.last;
+            }
+            sequence.lastUsedAt = System.currentTimeMillis();
+            PendingMessage message = create.apply(sequence.last + 1);
+            String clientKey = clientKey(message.senderId(), message.clientMessageId());
+            PendingMessage duplicate = pendingByClientId.putIfAbsent(clientKey, message);
+            if (duplicate != null) {
+                return duplicate;
+            }
+            try {
+                if (message.seq() > sequence.reserved) {
+                    reserve(sessionId, sequence, message.seq() + sequenceBlock - 1);
+                }
+            } catch (RuntimeException e) {
+                pendingByClientId.remove(clientKey);
+                throw e;
+            }
+            if (!offer(message)) {
+                pendingByClientId.remove(clientKey);
+                throw new ChatBusyException("Chat is busy, please resend the message");
+            }
+            sequence.last = message.seq();
+            sequence.queued++;
+            publish.accept(message);
+            return message;
+        }
+    }
+
+    /** Register the callback that broadcasts the stored copy of flushed messages. */
+    public void onStored(Consumer<List<StoredMessage>> listener) {
+        storedListener = listener;
+    }
+
+    /** Whether the sender's message with this client message ID was dead-lettered recently. */
+    public boolean isDeadLettered(Long senderId, String clientMessageId) {
+        return deadLettered.containsKey(clientKey(senderId, clientMessageId));
+    }
+
+    /**
+     * Queued messages of the given sessions, by session, in sequence order:
+     * what catch-ups add to the stored messages. A message leaves the queue
+     * only after its batch commits, so a snapshot taken before reading the
+     * database misses nothing (and may overlap it).
+     */
+    public Map<Long, List<PendingMessage>> findPending(Collection<Long> sessionIds) {
+        if (!enabled || pendingByClientId.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<PendingMessage>> bySession = new HashMap<>();
+        for (PendingMessage message : pendingByClientId.values()) {
+            if (sessionIds.contains(message.sessionId())) {
+                bySession.computeIfAbsent(message.sessionId(), id -> new ArrayList<>()).add(message);
+            }
+        }
+        bySession.values().forEach(messages -> messages.sort(Comparator.comparingLong(PendingMessage::seq)));
+        return bySession;
+    }
+
+    /**
+     * Sessions with queued messages the user sent or receives: changed for
+     * a sync although their rows aren't updated until the flush.
+     */
+    public Set<Long> findPendingSessionIds(Long userId) {
+        if (!enabled || pendingByClientId.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> sessionIds = new HashSet<>();
+        for (PendingMessage message : pendingByClientId.values()) {
+            if (userId.equals(message.senderId()) || userId.equals(message.recipientId())) {
+                sessionIds.add(message.sessionId());
+            }
+        }
+        return sessionIds;
+    }
+
+    /** A queued (not yet stored) message of the sender with this client message ID. */
+    public Optional<PendingMessage> findPending(Long senderId, String clientMessageId) {
+        return Optional.ofNullable(pendingByClientId.get(clientKey(senderId, clientMessageId)));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // FLUSH
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Write everything queued so far, one transaction per batch. A batch
+     * that fails on its data is written one message at a time, dead-lettering
+     * what still fails; on any other failure the unwritten rest stays first
+     * in line for the next flush.
+     *
+     * @return number of messages taken off the queue (stored or dead-lettered)
+     */
+    public int flush() {
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            int written = 0;
+            while (true) {
+                List<PendingMessage> batch = retry;
+                if (batch.isEmpty()) {
+                    batch = new ArrayList<>(batchSize);
+                    queue.drainTo(batch, batchSize);
+                    if (batch.isEmpty()) {
+                        return written;
+                    }
+                }
+                retry = batch;
+                try {
+                    store(batch);
+                } catch (DataIntegrityViolationException e) {
+                    storeOneByOne(batch);
+                }
+                retry = List.of();
+                written += batch.size();
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("[ChatWriteBehindQueue] Flush failed, retrying next interval: " + e.getMessage());
+        }
+    }
+
+    private void store(List<PendingMessage> batch) {
+        List<StoredMessage> stored = transactionTemplate.execute(status -> write(batch));
+        for (PendingMessage message : batch) {
+            done(message);
+        }
+        try {
+            storedListener.accept(stored);
+        } catch (RuntimeException e) {
+            // Stored all the same; senders that missed the confirmation resend and get the stored message back
+            System.err.println("[ChatWriteBehindQueue] Could not broadcast stored messages: " + e.getMessage());
+        }
+    }
+
+    // Caller holds flushLock; on a failure other than the data's, the unwritten rest becomes the retry
+    private void storeOneByOne(List<PendingMessage> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            retry = batch.subList(i, batch.size());
+            PendingMessage message = batch.get(i);
+            try {
+                store(List.of(message));
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(message, e);
+            }
+        }
+    }
+
+    private void deadLetter(PendingMessage message, RuntimeException cause) {
+        String clientKey = clientKey(message.senderId(), message.clientMessageId());
+        System.err.println("[ChatWriteBehindQueue] Dead-lettering message " + message.seq() + " of session "
+                + message.sessionId() + " from user " + message.senderId() + ": " + cause.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> deadLetterRepository.save(new ChatMessageDeadLetter(
+                    null, message.sessionId(), message.senderId(), message.seq(), message.clientMessageId(),
+                    message.messageType().name(), message.textContent(), message.fileUrl(),
+                    message.latitude(), message.longitude(), message.createdAt(), LocalDateTime.now(),
+                    cause.getMessage())));
+        } catch (RuntimeException e) {
+            System.err.println("[ChatWriteBehindQueue] Could not record dead letter (client message ID "
+                    + message.clientMessageId() + "): " + e.getMessage());
+        }
+        deadLettered.put(clientKey, Boolean.TRUE);
+        done(message);
+    }
+
+    // The message left the pipeline: stored or dead-lettered
+    private void done(PendingMessage message) {
+        pendingByClientId.remove(clientKey(message.senderId(), message.clientMessageId()));
+        // Present: a sequence with queued messages is never evicted
+        SessionSequence sequence = sequences.get(message.sessionId());
+        if (sequence != null) {
+            synchronized (sequence) {
+                sequence.queued--;
+            }
+        }
+    }
+
+    // Caller holds the sequence's lock; auto-commits, so no connection is held while the sender waits on the queue
+    private void reserve(Long sessionId, SessionSequence sequence, long upTo) {
+        jdbcTemplate.update(RESERVE_SEQUENCE, upTo, sessionId);
+        sequence.reserved = upTo;
+    }
+
+    /**
+     * Drop the sequences of sessions with nothing queued and no send since
+     * the cutoff, handing back their unused reservation. A sequence whose
+     * reservation can't be handed back stays until the next pass.
+     */
+    private void evictIdleSequences(long usedBefore) {
+        sequences.forEach((sessionId, sequence) -> {
+            synchronized (sequence) {
+                if (sequence.queued > 0 || sequence.lastUsedAt >= usedBefore) {
+                    return;
+                }
+                if (sequence.reserved > sequence.last) {
+                    try {
+                        reserve(sessionId, sequence, sequence.last);
+                    } catch (RuntimeException e) {
+                        System.err.println("[ChatWriteBehindQueue] Could not release sequence numbers of session "
+                                + sessionId + ": " + e.getMessage());
+                        return;
+                    }
+                }
+                sequence.evicted = true;
+                sequences.remove(sessionId, sequence);
+            }
+        });
+    }
+
+    private boolean offer(PendingMessage message) {
+        try {
+            return queue.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // The batch's newly inserted messages, with their IDs
+    private List<StoredMessage> write(List<PendingMessage> batch) {
+        int[][] inserted = jdbcTemplate.batchUpdate(INSERT_MESSAGE, batch, batch.size(), this::bindInsert);
+
+        // Inserted, or possibly so: drivers may report SUCCESS_NO_INFO instead of the row count
+        Map<Long, List<PendingMessage>> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int rows = inserted[0][i];
+            if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+                PendingMessage message = batch.get(i);
+                candidates.computeIfAbsent(message.sessionId(), id -> new ArrayList<>()).add(message);
+            }
+            // 0: stored before, by a retried batch or a resend
+        }
+
+        // A row at the message's own sequence number is the message; none means its
+        // insert was skipped (a resend, stored under the first send's number)
+        List<StoredMessage> stored = new ArrayList<>();
+        Map<Long, SessionChanges> sessions = new LinkedHashMap<>();
+        Map<Long, RecipientChanges> recipients = new LinkedHashMap<>();
+        candidates.forEach((sessionId, messages) -> {
+            Map<Long, Long> ids = new HashMap<>();
+            jdbcTemplate.query(FIND_MESSAGE_IDS, rs -> {
+                ids.put(rs.getLong(1), rs.getLong(2));
+            }, sessionId, messages.get(0).seq(), messages.get(messages.size() - 1).seq());
+            for (PendingMessage message : messages) {
+                Long messageId = ids.get(message.seq());
+                if (messageId == null) {
+                    continue;
+                }
+                stored.add(new StoredMessage(message, messageId));
+                sessions.computeIfAbsent(sessionId, id -> new SessionChanges()).add(message);
+                recipients.computeIfAbsent(message.recipientId(), id -> new RecipientChanges(message.recipientEmail())).count++;
+            }
+        });
+        if (sessions.isEmpty()) {
+            return List.of();
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SESSION, new ArrayList<>(sessions.values()), sessions.size(),
+                (ps, changes) -> bindSessionUpdate(ps, changes));
+        recipients.forEach((recipientId, changes) ->
+                unreadCountService.adjust(recipientId, changes.email, changes.count));
+        return stored;
+    }
+
+    private void bindInsert(PreparedStatement ps, PendingMessage message) throws SQLException {
+        ps.setLong(1, message.sessionId());
+        ps.setLong(2, message.senderId());
+        ps.setString(3, message.messageType().name());
+        ps.setString(4, message.textContent());
+        ps.setString(5, message.fileUrl());
+        ps.setObject(6, message.latitude(), Types.DOUBLE);
+        ps.setObject(7, message.longitude(), Types.DOUBLE);
+        ps.setTimestamp(8, Timestamp.valueOf(message.createdAt()));
+        ps.setLong(9, message.seq());
+        ps.setString(10, message.clientMessageId());
+        ps.setLong(11, message.senderId());
+        ps.setString(12, message.clientMessageId());
+    }
+
+    private void bindSessionUpdate(PreparedStatement ps, SessionChanges changes) throws SQLException {
+        PendingMessage last = changes.last;
+        ps.setLong(1, last.seq());
+        ps.setLong(2, last.seq());
+        ps.setLong(3, last.sessionId());
+        ps.setLong(4, last.seq());
+        ps.setLong(5, last.senderId());
+        ps.setString(6, last.preview());
+        ps.setTimestamp(7, Timestamp.valueOf(last.createdAt()));
+        ps.setInt(8, changes.toParticipantOne);
+        ps.setInt(9, changes.toParticipantTwo);
+        // Flush time, not send time: a sync since the send must still see the stored rows
+        ps.setTimestamp(10, Timestamp.valueOf(LocalDateTime.now()));
+        ps.setLong(11, last.sessionId());
+    }
+
+    private static String clientKey(Long senderId, String clientMessageId) {
+        return senderId + ":" + clientMessageId;
+    }
+
+    private static final class SessionChanges {
+        private final List<PendingMessage> messages = new ArrayList<>();
+        private PendingMessage last;
+        private int toParticipantOne;
+        private int toParticipantTwo;
+
+        // Batches hold a session's messages in sequence order
+        private void add(PendingMessage message) {
+            messages.add(message);
+            last = message;
+            if (message.toParticipantOne()) {
+                toParticipantOne++;
+            } else {
+                toParticipantTwo++;
+            }
+        }
+    }
+
+    private static final class RecipientChanges {
+        private final String email;
+        private long count;
+
+        private RecipientChanges(String email) {
+            this.email = email;
+        }
+    }
+}
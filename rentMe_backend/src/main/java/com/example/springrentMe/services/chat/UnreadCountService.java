@@ -0,0 +1,215 @@
+package com.example.springrentMe.services.chat;
+
+import com.example.springrentMe.models.User;
+import com.example.springrentMe.models.chat.ChatUnreadCounter;
+import com.example.springrentMe.repositories.ChatMessageRepository;
+import com.example.springrentMe.repositories.ChatUnreadCounterRepository;
+import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.services.cache.UnreadCountCache;
+import com.example.springrentMe.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user total of unread chat messages (navbar badge).
+ *
+ * The total lives in chat_unread_counters and is adjusted in the same
+ * transaction as the change it reflects: +1 for the recipient of a new
+ * message, -n when a user reads a session, -1 when an unread message is
+ * deleted. Reads go through UnreadCountCache, so polling the badge costs no
+ * query; after every change the new total is pushed to the user on
+ * /user/queue/unread, so clients don't need to poll at all.
+ *
+ * A user's counter row is created on first read: inserted empty, then
+ * counted from the messages under its row lock, so a change committing
+ * meanwhile either lands in the row or is in the count. An adjustment that
+ * finds no row recounts after its commit, in case the row appeared while it
+ * ran. The periodic reconciliation recounts every counter the same way and
+ * corrects (and pushes) any other drift.
+ *
+ * Not lazy: the @Scheduled reconciliation needs an instantiated bean, and
+ * the app runs with spring.main.lazy-initialization=true.
+ */
+@Service
+@Lazy(false)
+public class UnreadCountService {
+
+    static final String DESTINATION = "/queue/unread";
+
+    @Autowired
+    private ChatUnreadCounterRepository counterRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.chat.unread-reconcile-chunk-size:200}")
+    private int chunkSize;
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // READ / ADJUST
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Unread messages addressed to the user. A missing counter is created
+     * (in its own transaction) from the messages.
+     */
+    public long getUnreadCount(Long userId) {
+        return unreadCountCache.get(userId, () -> load(userId));
+    }
+
+    /**
+     * Adjust the user's total by delta, within the caller's transaction; the
+     * new total is pushed to the user after commit.
+     */
+    public void adjust(User user, long delta) {
+        adjust(user.getUserId(), user.getEmail(), delta);
+    }
+
+    /** adjust(User, long) for callers that know the user's ID and email without loading it. */
+    public void adjust(Long userId, String email, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (counterRepository.addUnread(userId, delta) == 0) {
+            // No row to adjust: a read creating it now may have counted before this change commits
+            TransactionUtils.afterCommit(() -> recount(userId));
+        }
+        unreadCountCache.onUnreadChanged(userId);
+        TransactionUtils.afterCommit(() -> push(userId, email));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // RECONCILIATION
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${app.chat.unread-reconcile-ms:3600000}",
+            initialDelayString = "${app.chat.unread-reconcile-ms:3600000}")
+    public void reconcilePeriodically() {
+        try {
+            int corrected = reconcile();
+            if (corrected > 0) {
+                System.err.println("[UnreadCountService] Corrected " + corrected + " unread counters");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[UnreadCountService] Reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recount every counter from the messages, one transaction per chunk.
+     *
+     * @return number of counters that had drifted
+     */
+    public int reconcile() {
+        int corrected = 0;
+        long afterUserId = 0;
+        while (true) {
+            List<Long> userIds = counterRepository.findUserIdsAfter(afterUserId, PageRequest.of(0, chunkSize));
+            if (userIds.isEmpty()) {
+                return corrected;
+            }
+            Integer done = transactionTemplate.execute(status -> {
+                int fixed = 0;
+                for (Long userId : userIds) {
+                    if (reconcileUser(userId)) {
+                        fixed++;
+                    }
+                }
+                return fixed;
+            });
+            corrected += done != null ? done : 0;
+            afterUserId = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private long load(Long userId) {
+        return counterRepository.findById(userId)
+                .map(ChatUnreadCounter::getUnreadCount)
+                .orElseGet(() -> initialise(userId));
+    }
+
+    private long initialise(Long userId) {
+        try {
+            requiresNew().executeWithoutResult(status -> counterRepository.insertIfMissing(userId));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another request
+        }
+        return recount(userId);
+    }
+
+    // Own transaction, as this may run after another one's commit (push, adjust).
+    // Counted under the row lock: in-flight adjustments commit first and are included.
+    private long recount(Long userId) {
+        Long count = requiresNew().execute(status -> {
+            ChatUnreadCounter counter = counterRepository.findByIdForUpdate(userId).orElse(null);
+            if (counter == null) {
+                return 0L; // Never read: created from the messages on first read
+            }
+            counter.setUnreadCount(chatMessageRepository.countTotalUnreadMessagesForUser(userId));
+            return counter.getUnreadCount();
+        });
+        return count != null ? count : 0;
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return requiresNew;
+    }
+
+    // Caller holds the transaction; the row lock orders the recount after in-flight adjustments
+    private boolean reconcileUser(Long userId) {
+        ChatUnreadCounter counter = counterRepository.findByIdForUpdate(userId).orElse(null);
+        if (counter == null) {
+            return false;
+        }
+        long actual = chatMessageRepository.countTotalUnreadMessagesForUser(userId);
+        if (counter.getUnreadCount() == actual) {
+            return false;
+        }
+        counter.setUnreadCount(actual);
+        unreadCountCache.onUnreadChanged(userId);
+        userRepository.findById(userId).ifPresent(user -> {
+            String email = user.getEmail();
+            TransactionUtils.afterCommit(() -> push(userId, email));
+        });
+        return true;
+    }
+
+    // User destinations are keyed by the STOMP principal's name, i.e. the email
+    private void push(Long userId, String email) {
+        try {
+            long count = getUnreadCount(userId);
+            messagingTemplate.convertAndSendToUser(email, DESTINATION, Map.of("unreadCount", count));
+        } catch (RuntimeException e) {
+            System.err.println("[UnreadCountService] Push to user " + userId + " failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.springrentMe.services.geo;
+
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleLocation;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.services.search.VehicleIndexSync;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * In-memory spatial index of the listed + available vehicles, used by the map view.
+ *
+ * Each vehicle is stored under a 52-bit geohash-style Z-order code (26 bits of
+ * longitude interleaved with 26 bits of latitude), so every grid cell at every
+ * level is one contiguous key range. A bounding-box query scans the few cells
+ * that cover the box; clustering groups the matching vehicles by their cell at
+ * a level chosen so the box spans at most CLUSTER_GRID cells per axis, which
+ * bounds the response size regardless of how many vehicles are in view.
+ *
+ * Nearest-neighbour queries treat the Z-order cells as an implicit quadtree
+ * and run a best-first search over it: cells and vehicles share one priority
+ * queue ordered by great-circle distance (exact lower bound for cells), so
+ * vehicles come out in distance order and far-away cells are never opened.
+ *
+ * The index is loaded from the database on first use and then kept in sync by
+ * VehicleService / BookingTransitionJob after their transactions commit.
+ * Writes made through other instances are picked up by sync() every
+ * app.vehicle.index-sync-ms and rebuild() every app.vehicle.index-rebuild-ms
+ * (see VehicleIndexSync).
+ */
+@Component
+public class VehicleGeoIndex {
+
+    static final int BITS = 26;                // per axis; ~0.6 m cells at the deepest level
+    static final int QUERY_CELLS = 4;          // cells per axis scanned by a bounding-box query
+    public static final int CLUSTER_GRID = 16; // max cluster cells per axis
+    static final int KNN_LEAF_LEVEL = 16;      // ~600 m cells: scanned rather than subdivided
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final NavigableSet<Point> points = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Point::code).thenComparingLong(Point::vehicleId));
+    private final Map<Long, Point> pointsById = new ConcurrentHashMap<>();
+    private final VehicleIndexSync<VehicleLocation> indexSync;
+
+    public VehicleGeoIndex(VehicleRepository vehicleRepository, MeterRegistry meterRegistry) {
+        this.indexSync = new VehicleIndexSync<>("VehicleGeoIndex", vehicleRepository,
+                vehicleRepository::findMapLocations, vehicleRepository::findMapLocationsByIds,
+                VehicleLocation::vehicleId, this::putPoint, this::removePoint, pointsById::keySet);
+        meterRegistry.gaugeMapSize("vehicle.geo.index.vehicles", List.of(), pointsById);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // QUERIES
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * IDs of the listed + available vehicles inside the box, newest (highest ID) first.
+     */
+    public List<Long> findInBounds(double minLat, double maxLat, double minLng, double maxLng) {
+        List<Long> ids = new ArrayList<>();
+        scan(minLat, maxLat, minLng, maxLng, p -> ids.add(p.vehicleId()));
+        ids.sort(Comparator.reverseOrder());
+        return ids;
+    }
+
+    /**
+     * Grid level (bits per axis) at which the box spans at most CLUSTER_GRID cells per axis.
+     */
+    public static int clusterLevel(double minLat, double maxLat, double minLng, double maxLng) {
+        return levelFor(minLat, maxLat, minLng, maxLng, CLUSTER_GRID);
+    }
+
+    /**
+     * Vehicles inside the box aggregated per grid cell at the given level.
+     */
+    public List<Cluster> cluster(double minLat, double maxLat, double minLng, double maxLng, int level) {
+        int shift = 2 * (BITS - level);
+        Map<Long, long[]> counts = new LinkedHashMap<>();
+        Map<Long, double[]> sums = new LinkedHashMap<>();
+        scan(minLat, maxLat, minLng, maxLng, p -> {
+            long cell = p.code() >>> shift;
+            long[] c = counts.computeIfAbsent(cell, k -> new long[]{0, p.vehicleId()});
+            c[0]++;
+            double[] s = sums.computeIfAbsent(cell, k -> new double[2]);
+            s[0] += p.latitude();
+            s[1] += p.longitude();
+        });
+        List<Cluster> clusters = new ArrayList<>(counts.size());
+        counts.forEach((cell, c) -> {
+            double[] s = sums.get(cell);
+            clusters.add(new Cluster(cell, c[0], s[0] / c[0], s[1] / c[0], c[0] == 1 ? c[1] : null));
+        });
+        return clusters;
+    }
+
+    /**
+     * Up to {@code k} listed + available vehicles within {@code radiusKm} of the
+     * point, closest first. Optional filters (null to skip): type, maxPrice.
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, double radiusKm, int k,
+                                  VehicleType type, BigDecimal maxPrice) {
+        indexSync.ensureLoaded();
+        List<Neighbor> result = new ArrayList<>(k);
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceKm));
+        queue.add(new Candidate(0, 0, 0, 0, null));
+
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate candidate = queue.poll();
+            if (candidate.distanceKm() > radiusKm) {
+                break;
+            }
+            if (candidate.point() != null) {
+                result.add(new Neighbor(candidate.point().vehicleId(), candidate.distanceKm()));
+                continue;
+            }
+            int level = candidate.level();
+            if (level == KNN_LEAF_LEVEL) {
+                for (Point p : cellPoints(level, candidate.x(), candidate.y())) {
+                    if ((type == null || type == p.type())
+                            && (maxPrice == null || (p.dailyPrice() != null && p.dailyPrice().compareTo(maxPrice) <= 0))) {
+                        double d = haversineKm(latitude, longitude, p.latitude(), p.longitude());
+                        if (d <= radiusKm) {
+                            queue.add(new Candidate(d, level, candidate.x(), candidate.y(), p));
+                        }
+                    }
+                }
+                continue;
+            }
+            for (int dx = 0; dx < 2; dx++) {
+                for (int dy = 0; dy < 2; dy++) {
+                    long x = 2 * candidate.x() + dx;
+                    long y = 2 * candidate.y() + dy;
+                    if (!cellPoints(level + 1, x, y).isEmpty()) {
+                        double d = minDistanceKm(latitude, longitude, level + 1, x, y);
+                        if (d <= radiusKm) {
+                            queue.add(new Candidate(d, level + 1, x, y, null));
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // UPDATES (called by VehicleService / BookingTransitionJob, applied after commit)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Reflect a saved vehicle: indexed while listed + available, removed otherwise.
+     */
+    public void onVehicleChanged(Vehicle vehicle) {
+        Long vehicleId = vehicle.getVehicleId();
+        boolean visible = Boolean.TRUE.equals(vehicle.getIsListed()) && Boolean.TRUE.equals(vehicle.getIsAvailable())
+                && vehicle.getLatitude() != null && vehicle.getLongitude() != null;
+        VehicleLocation location = new VehicleLocation(vehicleId, vehicle.getLatitude(), vehicle.getLongitude(),
+                vehicle.getType(), vehicle.getDailyPrice());
+        indexSync.afterCommit(() -> {
+            if (visible) {
+                putPoint(location);
+            } else {
+                removePoint(vehicleId);
+            }
+        });
+    }
+
+    public void remove(Long vehicleId) {
+        indexSync.afterCommit(() -> removePoint(vehicleId));
+    }
+
+    /**
+     * Re-read the given vehicles from the database, e.g. after a bulk UPDATE.
+     */
+    public void refresh(Collection<Long> vehicleIds) {
+        indexSync.refreshAfterCommit(vehicleIds);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SYNC (writes made through other instances)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${app.vehicle.index-sync-ms:10000}",
+            initialDelayString = "${app.vehicle.index-sync-ms:10000}")
+    public void syncPeriodically() {
+        indexSync.trySync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.vehicle.index-rebuild-ms:600000}",
+            initialDelayString = "${app.vehicle.index-rebuild-ms:600000}")
+    public void rebuildPeriodically() {
+        indexSync.tryRebuild();
+    }
+
+    /**
+     * Re-read the vehicles written since the previous sync, by any instance.
+     */
+    public void sync() {
+        indexSync.sync();
+    }
+
+    /**
+     * Reload every vehicle and drop those no longer listed + available,
+     * including ones deleted through other instances.
+     */
+    public void rebuild() {
+        indexSync.rebuild();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private void putPoint(VehicleLocation location) {
+        Point point = new Point(location.vehicleId(), location.latitude(), location.longitude(),
+                encode(location.latitude(), location.longitude()), location.type(), location.dailyPrice());
+        if (point.equals(pointsById.get(location.vehicleId()))) {
+            return; // unchanged (most vehicles on a sync or rebuild)
+        }
+        removePoint(location.vehicleId());
+        points.add(point);
+        pointsById.put(location.vehicleId(), point);
+    }
+
+    private void removePoint(Long vehicleId) {
+        Point old = pointsById.remove(vehicleId);
+        if (old != null) {
+            points.remove(old);
+        }
+    }
+
+    private void scan(double minLat, double maxLat, double minLng, double maxLng, Consumer<Point> action) {
+        if (minLat > maxLat || minLng > maxLng) {
+            return;
+        }
+        indexSync.ensureLoaded();
+        int level = levelFor(minLat, maxLat, minLng, maxLng, QUERY_CELLS);
+        int cellShift = BITS - level;
+        long minX = lngBits(minLng) >>> cellShift, maxX = lngBits(maxLng) >>> cellShift;
+        long minY = latBits(minLat) >>> cellShift, maxY = latBits(maxLat) >>> cellShift;
+
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                for (Point p : cellPoints(level, x, y)) {
+                    if (p.latitude() >= minLat && p.latitude() <= maxLat
+                            && p.longitude() >= minLng && p.longitude() <= maxLng) {
+                        action.accept(p);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Points of one grid cell: a contiguous range of Z-order codes. */
+    private NavigableSet<Point> cellPoints(int level, long x, long y) {
+        int codeShift = 2 * (BITS - level);
+        long prefix = interleave(x, y);
+        return points.subSet(probe(prefix << codeShift), true, probe((prefix + 1) << codeShift), false);
+    }
+
+    private static Point probe(long code) {
+        return new Point(Long.MIN_VALUE, 0, 0, code, null, null);
+    }
+
+    /**
+     * Exact great-circle distance from a point to the nearest point of a cell.
+     * Inside the cell's longitude band the nearest point lies on the same
+     * meridian; outside it, it lies on the nearer meridian edge, at the
+     * latitude closest to the point along that meridian.
+     */
+    private static double minDistanceKm(double latitude, double longitude, int level, long x, long y) {
+        double cellLng = 360.0 / (1L << level);
+        double cellLat = 180.0 / (1L << level);
+        double minLng = x * cellLng - 180.0, maxLng = minLng + cellLng;
+        double minLat = y * cellLat - 90.0, maxLat = minLat + cellLat;
+
+        if (longitude >= minLng && longitude <= maxLng) {
+            return haversineKm(latitude, longitude, clamp(latitude, minLat, maxLat), longitude);
+        }
+        double edgeLng = Math.abs(angleDiff(longitude, minLng)) <= Math.abs(angleDiff(longitude, maxLng)) ? minLng : maxLng;
+        double dLng = Math.toRadians(Math.abs(angleDiff(longitude, edgeLng)));
+        double nearestLat = dLng < Math.PI / 2
+                ? Math.toDegrees(Math.atan(Math.tan(Math.toRadians(latitude)) / Math.cos(dLng)))
+                : (latitude >= 0 ? 90.0 : -90.0);
+        return haversineKm(latitude, longitude, clamp(nearestLat, minLat, maxLat), edgeLng);
+    }
+
+    private static double angleDiff(double from, double to) {
+        double d = (to - from) % 360.0;
+        if (d > 180) d -= 360;
+        if (d < -180) d += 360;
+        return d;
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Deepest level at which the box spans at most {@code cells} cells along both axes.
+     */
+    private static int levelFor(double minLat, double maxLat, double minLng, double maxLng, int cells) {
+        return Math.min(levelFor(maxLat - minLat, 180.0, cells), levelFor(maxLng - minLng, 360.0, cells));
+    }
+
+    private static int levelFor(double span, double fullRange, int cells) {
+        if (span <= 0) {
+            return BITS;
+        }
+        int level = (int) Math.floor(Math.log(fullRange * cells / span) / Math.log(2));
+        return Math.max(0, Math.min(BITS, level));
+    }
+
+    static long encode(double latitude, double longitude) {
+        return interleave(lngBits(longitude), latBits(latitude));
+    }
+
+    private static long latBits(double latitude) {
+        return quantize((latitude + 90.0) / 180.0);
+    }
+
+    private static long lngBits(double longitude) {
+        return quantize((longitude + 180.0) / 360.0);
+    }
+
+    private static long quantize(double fraction) {
+        long max = (1L << BITS) - 1;
+        return Math.max(0, Math.min(max, (long) (fraction * (1L << BITS))));
+    }
+
+    /** Longitude takes the higher bit of each pair, as in a geohash. */
+    private static long interleave(long x, long y) {
+        return (spread(x) << 1) | spread(y);
+    }
+
+    private static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8))  & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4))  & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2))  & 0x3333333333333333L;
+        v = (v | (v << 1))  & 0x5555555555555555L;
+        return v;
+    }
+
+    private record Point(long vehicleId, double latitude, double longitude, long code,
+                         VehicleType type, BigDecimal dailyPrice) {
+    }
+
+    /** Best-first search entry: a cell (point == null) or a vehicle. */
+    private record Candidate(double distanceKm, int level, long x, long y, Point point) {
+    }
+
+    public record Neighbor(long vehicleId, double distanceKm) {
+    }
+
+    /**
+     * Vehicles of one grid cell: count and centroid; vehicleId is set when the cell holds a single vehicle.
+     */
+    public record Cluster(long cell, long count, double latitude, double longitude, Long vehicleId) {
+    }
+}
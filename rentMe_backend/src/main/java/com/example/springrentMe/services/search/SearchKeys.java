@@ -0,0 +1,51 @@
+package com.example.springrentMe.services.search;
+
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
+
+import java.math.BigDecimal;
+
+/**
+ * Canonical cache keys for vehicle search filters, so equivalent requests
+ * ("Toyota" / " toyota ", 50 / 50.00) share one cache entry.
+ */
+public final class SearchKeys {
+
+    private SearchKeys() {
+        // Utility class — no instantiation
+    }
+
+    /**
+     * Every filter of the criteria in canonical form. The sort order is not
+     * part of the key — callers that depend on it append it themselves.
+     */
+    public static String filters(VehicleSearchCriteria criteria) {
+        return String.join("|",
+                text(criteria.getQ()),
+                String.valueOf(criteria.getType()),
+                price(criteria.getMinPrice()),
+                price(criteria.getMaxPrice()),
+                String.valueOf(criteria.getMinCapacity()),
+                String.valueOf(criteria.getMinRating()),
+                criteria.getMake() == null || criteria.getMake().isBlank()
+                        ? "null" : criteria.getMake().trim().toLowerCase(),
+                String.valueOf(criteria.getStartDate()),
+                String.valueOf(criteria.getEndDate()),
+                String.valueOf(criteria.getMinLat()),
+                String.valueOf(criteria.getMaxLat()),
+                String.valueOf(criteria.getMinLng()),
+                String.valueOf(criteria.getMaxLng()));
+    }
+
+    // The query as the text index sees it; a trailing "*" marks a prefix (still-typing) query
+    private static String text(String q) {
+        if (q == null || q.isBlank()) {
+            return "null";
+        }
+        String terms = String.join(" ", VehicleTextIndex.tokenize(q));
+        return Character.isLetterOrDigit(q.charAt(q.length() - 1)) ? terms + "*" : terms;
+    }
+
+    private static String price(BigDecimal price) {
+        return price == null ? "null" : price.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.springrentMe.services.search;
+
+import com.example.springrentMe.DTOs.FacetBucketDTO;
+import com.example.springrentMe.DTOs.PriceBucketDTO;
+import com.example.springrentMe.DTOs.VehicleFacetsDTO;
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleFacetRow;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.repositories.VehicleSpecifications;
+import com.example.springrentMe.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Facet counts (type, capacity, rating, price histogram) for the public vehicle
+ * search, cached per normalized filter set.
+ *
+ * All facets come from one grouped query (VehicleRepository.countFacets) that
+ * applies the full current filter set; the rows are then rolled up in memory.
+ * With a text query (q) the grouped query is restricted to the text index's
+ * candidates and runs once per app.search.text.chunk-size of them, over at
+ * most app.search.text.max-scanned; beyond that the counts cover only the most
+ * relevant candidates and {@code truncated} is set.
+ * Results are kept in an LRU map of at most MAX_ENTRIES filter sets and the
+ * whole cache is dropped after any vehicle write commits (VehicleService,
+ * ReviewService rating updates, BookingTransitionJob). Searches with a date
+ * range are never cached — they depend on bookings, which change constantly.
+ *
+ * Metrics (GET /actuator/metrics/vehicle.search.facets.cache):
+ *   result=hit  – answered from the cache
+ *   result=miss – computed from the database
+ */
+@Component
+public class VehicleFacetCache {
+
+    public static final int MAX_ENTRIES = 500;
+
+    // "At least N" thresholds, matching the minCapacity / minRating filters
+    static final int[] CAPACITY_THRESHOLDS = {2, 4, 5, 7};
+    static final int[] RATING_THRESHOLDS = {4, 3, 2, 1};
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleTextIndex textIndex;
+    private final int textChunkSize;
+    private final int textMaxScanned;
+
+    private final Map<String, VehicleFacetsDTO> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VehicleFacetsDTO> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // Bumped on every invalidation; a result computed across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public VehicleFacetCache(VehicleRepository vehicleRepository, VehicleTextIndex textIndex,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.search.text.chunk-size:1000}") int textChunkSize,
+                             @Value("${app.search.text.max-scanned:20000}") int textMaxScanned) {
+        this.vehicleRepository = vehicleRepository;
+        this.textIndex = textIndex;
+        this.textChunkSize = textChunkSize;
+        this.textMaxScanned = textMaxScanned;
+        this.hits = Counter.builder("vehicle.search.facets.cache")
+                .description("Facet requests answered from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("vehicle.search.facets.cache")
+                .description("Facet requests computed from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("vehicle.search.facets.cache.entries", List.of(), entries);
+    }
+
+    /**
+     * Facets of the listed + available vehicles matching the criteria (sort is ignored).
+     */
+    public VehicleFacetsDTO facets(VehicleSearchCriteria criteria, int priceBucketWidth) {
+        if (criteria.getStartDate() != null) {
+            misses.increment();
+            return compute(criteria, priceBucketWidth);
+        }
+
+        String key = key(criteria, priceBucketWidth);
+        synchronized (entries) {
+            VehicleFacetsDTO cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        long seen = generation.get();
+        VehicleFacetsDTO facets = compute(criteria, priceBucketWidth);
+        synchronized (entries) {
+            if (generation.get() == seen) {
+                entries.put(key, facets);
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * Drop every cached result once the surrounding transaction commits.
+     */
+    public void invalidate() {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            synchronized (entries) {
+                entries.clear();
+            }
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private VehicleFacetsDTO compute(VehicleSearchCriteria criteria, int priceBucketWidth) {
+        Specification<Vehicle> spec = VehicleSpecifications.matching(criteria);
+        List<VehicleFacetRow> rows;
+        boolean truncated = false;
+        if (criteria.getQ() != null && !criteria.getQ().isBlank()) {
+            VehicleTextIndex.Matches matches = textIndex.match(criteria.getQ(), textMaxScanned);
+            List<Long> ranked = matches.ranked();
+            rows = new ArrayList<>();
+            for (int from = 0; from < ranked.size(); from += textChunkSize) {
+                List<Long> chunk = ranked.subList(from, Math.min(from + textChunkSize, ranked.size()));
+                rows.addAll(vehicleRepository.countFacets(
+                        spec.and(VehicleSpecifications.idIn(chunk)), priceBucketWidth));
+            }
+            truncated = matches.truncated();
+        } else {
+            rows = vehicleRepository.countFacets(spec, priceBucketWidth);
+        }
+
+        long total = 0;
+        Map<VehicleType, Long> byType = new EnumMap<>(VehicleType.class);
+        for (VehicleType type : VehicleType.values()) {
+            byType.put(type, 0L);
+        }
+        long[] byCapacity = new long[CAPACITY_THRESHOLDS.length];
+        long[] byRating = new long[RATING_THRESHOLDS.length];
+        Map<Long, Long> byPriceBucket = new TreeMap<>();
+
+        for (VehicleFacetRow row : rows) {
+            total += row.count();
+            byType.merge(row.type(), row.count(), Long::sum);
+            for (int i = 0; i < CAPACITY_THRESHOLDS.length; i++) {
+                if (row.capacity() >= CAPACITY_THRESHOLDS[i]) {
+                    byCapacity[i] += row.count();
+                }
+            }
+            for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                if (row.ratingBand() >= RATING_THRESHOLDS[i]) {
+                    byRating[i] += row.count();
+                }
+            }
+            byPriceBucket.merge(row.priceBucket(), row.count(), Long::sum);
+        }
+
+        List<FacetBucketDTO> types = new ArrayList<>();
+        byType.forEach((type, count) -> types.add(new FacetBucketDTO(type.name(), count)));
+        List<FacetBucketDTO> capacities = new ArrayList<>();
+        for (int i = 0; i < CAPACITY_THRESHOLDS.length; i++) {
+            capacities.add(new FacetBucketDTO(CAPACITY_THRESHOLDS[i] + "+", byCapacity[i]));
+        }
+        List<FacetBucketDTO> ratings = new ArrayList<>();
+        for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+            ratings.add(new FacetBucketDTO(RATING_THRESHOLDS[i] + "+", byRating[i]));
+        }
+        BigDecimal width = BigDecimal.valueOf(priceBucketWidth);
+        List<PriceBucketDTO> prices = new ArrayList<>();
+        byPriceBucket.forEach((bucket, count) -> {
+            BigDecimal from = width.multiply(BigDecimal.valueOf(bucket));
+            prices.add(new PriceBucketDTO(from, from.add(width), count));
+        });
+
+        return new VehicleFacetsDTO(total, types, capacities, ratings, priceBucketWidth, prices, truncated);
+    }
+
+    static String key(VehicleSearchCriteria criteria, int priceBucketWidth) {
+        return SearchKeys.filters(criteria) + "|" + priceBucketWidth;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.springrentMe.services.search;
+
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.utils.TransactionUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loading and cross-instance sync shared by the in-memory vehicle indexes
+ * (VehicleGeoIndex, VehicleTextIndex).
+ *
+ * The index is loaded on first use. Writes made by this instance are applied
+ * after their transaction commits; writes made through other instances are
+ * picked up by sync(), which re-reads the vehicles whose updated_at is past
+ * the previous sync. Deletes leave no row behind, so rebuild() reloads
+ * everything and drops what is gone. All of these run under this object's
+ * lock, so they are serialized with the initial load.
+ *
+ * Each index supplies how its rows are read (all of them, or by ID) and how
+ * one entry is put or removed.
+ *
+ * @param <R> the row an index is built from, e.g. VehicleLocation
+ */
+public final class VehicleIndexSync<R> {
+
+    // Re-read this much before the previous sync: a write stamped just before
+    // it may have committed just after it
+    static final long SYNC_OVERLAP_SECONDS = 30;
+    static final int SYNC_CHUNK_SIZE = 1_000;
+
+    private final String name;
+    private final VehicleRepository vehicleRepository;
+    private final Supplier<List<R>> readAll;
+    private final Function<Collection<Long>, List<R>> readByIds;
+    private final Function<R, Long> idOf;
+    private final Consumer<R> put;
+    private final Consumer<Long> remove;
+    private final Supplier<Collection<Long>> indexedIds;
+
+    private volatile boolean loaded;
+    private LocalDateTime syncedAt;
+
+    /**
+     * @param name       used in log messages, e.g. "VehicleGeoIndex"
+     * @param readAll    every row that belongs in the index
+     * @param readByIds  the rows of the given vehicles that belong in the index
+     * @param indexedIds the vehicle IDs currently in the index
+     */
+    public VehicleIndexSync(String name, VehicleRepository vehicleRepository,
+                            Supplier<List<R>> readAll, Function<Collection<Long>, List<R>> readByIds,
+                            Function<R, Long> idOf, Consumer<R> put, Consumer<Long> remove,
+                            Supplier<Collection<Long>> indexedIds) {
+        this.name = name;
+        this.vehicleRepository = vehicleRepository;
+        this.readAll = readAll;
+        this.readByIds = readByIds;
+        this.idOf = idOf;
+        this.put = put;
+        this.remove = remove;
+        this.indexedIds = indexedIds;
+    }
+
+    public void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                syncedAt = LocalDateTime.now();
+                loadAll();
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Apply a mutation once the surrounding transaction commits. Before the
+     * load nothing needs to be applied: the change is committed, so the load sees it.
+     */
+    public void afterCommit(Runnable mutation) {
+        TransactionUtils.afterCommit(() -> apply(mutation));
+    }
+
+    /**
+     * Re-read the given vehicles once the surrounding transaction commits,
+     * e.g. after a bulk UPDATE.
+     */
+    public void refreshAfterCommit(Collection<Long> vehicleIds) {
+        afterCommit(() -> reload(vehicleIds));
+    }
+
+    /**
+     * Re-read the vehicles written since the previous sync, by any instance.
+     * Nothing to do before the first load.
+     */
+    public synchronized void sync() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        reload(vehicleRepository.findIdsUpdatedSince(syncedAt.minusSeconds(SYNC_OVERLAP_SECONDS)));
+        syncedAt = now;
+    }
+
+    /**
+     * Reload every row and drop the entries that no longer have one,
+     * including vehicles deleted through other instances.
+     */
+    public synchronized void rebuild() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        loadAll();
+        syncedAt = now;
+    }
+
+    /** sync() for the scheduler: failures are logged and retried on the next run. */
+    public void trySync() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            System.err.println("[" + name + "] Sync failed: " + e.getMessage());
+        }
+    }
+
+    /** rebuild() for the scheduler: failures are logged and retried on the next run. */
+    public void tryRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.err.println("[" + name + "] Rebuild failed: " + e.getMessage());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private synchronized void apply(Runnable mutation) {
+        if (loaded) {
+            mutation.run();
+        }
+    }
+
+    private void loadAll() {
+        Set<Long> present = new HashSet<>();
+        for (R row : readAll.get()) {
+            put.accept(row);
+            present.add(idOf.apply(row));
+        }
+        List.copyOf(indexedIds.get()).stream()
+                .filter(id -> !present.contains(id))
+                .forEach(remove);
+    }
+
+    // Entries for the given vehicles: put when they still have a row, removed otherwise
+    private void reload(Collection<Long> vehicleIds) {
+        List<Long> ids = List.copyOf(vehicleIds);
+        for (int from = 0; from < ids.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SYNC_CHUNK_SIZE, ids.size()));
+            Set<Long> stale = new HashSet<>(chunk);
+            for (R row : readByIds.apply(chunk)) {
+                put.accept(row);
+                stale.remove(idOf.apply(row));
+            }
+            stale.forEach(remove);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.springrentMe.services.search;
+
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.repositories.VehicleText;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the make, model, type and description of the
+ * listed vehicles, used by the {@code ?q=} text search.
+ *
+ * Text is lower-cased, stripped of accents and split into terms on anything
+ * that is not a letter or digit, and between letters and digits ("7seater" →
+ * "7", "seater"). Each term maps to the vehicles containing it and a field
+ * weight (make / model weigh more than the description). The term dictionary
+ * is sorted, so the last query term is also matched as a prefix — typing
+ * "toy" already finds "toyota".
+ *
+ * Ranking: every query term contributes idf(term) × field weight (prefix-only
+ * matches count PREFIX_WEIGHT of that), and the sum is scaled by the fraction
+ * of query terms the vehicle matched, so vehicles matching all of
+ * "toyota hybrid 7 seater" come before those matching only "toyota".
+ *
+ * Availability is not indexed — callers filter the candidates with the usual
+ * search predicates. The index is loaded on first use and kept in sync by
+ * VehicleService after its transactions commit. Like VehicleGeoIndex, it
+ * picks up writes made through other instances with sync() (every
+ * app.vehicle.index-sync-ms) and drops deleted ones with rebuild() (every
+ * app.vehicle.index-rebuild-ms), see VehicleIndexSync.
+ *
+ * Metrics: vehicle.search.text (query latency), vehicle.search.text.vehicles.
+ */
+@Component
+public class VehicleTextIndex {
+
+    static final float MAKE_WEIGHT = 3f;
+    static final float MODEL_WEIGHT = 3f;
+    static final float TYPE_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    static final float PREFIX_WEIGHT = 0.8f;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+    static final int MAX_QUERY_TERMS = 10;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "the", "with", "for", "of", "in", "on", "to");
+
+    private final Timer queryTimer;
+
+    // term → (vehicleId → field weight)
+    private final NavigableMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    // vehicleId → its terms, so a vehicle can be removed / re-indexed
+    private final Map<Long, Set<String>> termsById = new ConcurrentHashMap<>();
+    private final VehicleIndexSync<VehicleText> indexSync;
+
+    public VehicleTextIndex(VehicleRepository vehicleRepository, MeterRegistry meterRegistry) {
+        this.indexSync = new VehicleIndexSync<>("VehicleTextIndex", vehicleRepository,
+                vehicleRepository::findListedVehicleTexts, vehicleRepository::findListedVehicleTextsByIds,
+                VehicleText::vehicleId, this::putDocument, this::removeDocument, termsById::keySet);
+        this.queryTimer = Timer.builder("vehicle.search.text")
+                .description("Full-text vehicle search latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("vehicle.search.text.vehicles", List.of(), termsById);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // QUERIES
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * IDs of up to {@code limit} listed vehicles matching the query, most relevant
+     * first (ties: newest first). Vehicles matching none of the terms are excluded.
+     */
+    public List<Long> search(String query, int limit) {
+        return match(query, limit).ranked();
+    }
+
+    /**
+     * search, plus how many vehicles matched in all (may exceed {@code limit}).
+     */
+    public Matches match(String query, int limit) {
+        return queryTimer.record(() -> rank(query, limit));
+    }
+
+    /**
+     * The best {@code ranked} matches of a query, out of {@code total}.
+     */
+    public record Matches(List<Long> ranked, int total) {
+
+        static final Matches NONE = new Matches(List.of(), 0);
+
+        /** More vehicles matched than were ranked. */
+        public boolean truncated() {
+            return total > ranked.size();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // UPDATES (called by VehicleService, applied after commit)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Reflect a saved vehicle: indexed while listed, removed otherwise.
+     */
+    public void onVehicleChanged(Vehicle vehicle) {
+        Long vehicleId = vehicle.getVehicleId();
+        boolean listed = Boolean.TRUE.equals(vehicle.getIsListed());
+        VehicleText text = new VehicleText(vehicleId, vehicle.getMake(), vehicle.getModel(),
+                vehicle.getType(), vehicle.getDescription());
+        indexSync.afterCommit(() -> {
+            if (listed) {
+                putDocument(text);
+            } else {
+                removeDocument(vehicleId);
+            }
+        });
+    }
+
+    public void remove(Long vehicleId) {
+        indexSync.afterCommit(() -> removeDocument(vehicleId));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SYNC (writes made through other instances)
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${app.vehicle.index-sync-ms:10000}",
+            initialDelayString = "${app.vehicle.index-sync-ms:10000}")
+    public void syncPeriodically() {
+        indexSync.trySync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.vehicle.index-rebuild-ms:600000}",
+            initialDelayString = "${app.vehicle.index-rebuild-ms:600000}")
+    public void rebuildPeriodically() {
+        indexSync.tryRebuild();
+    }
+
+    /**
+     * Re-read the vehicles written since the previous sync, by any instance.
+     */
+    public void sync() {
+        indexSync.sync();
+    }
+
+    /**
+     * Reload every listed vehicle and drop the others, including ones deleted
+     * through other instances.
+     */
+    public void rebuild() {
+        indexSync.rebuild();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private Matches rank(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return Matches.NONE;
+        }
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+        indexSync.ensureLoaded();
+
+        // Autocomplete: the last term is a prefix unless the user already typed past it
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        double documentCount = Math.max(1, termsById.size());
+        Map<Long, Score> scores = new HashMap<>();
+
+        for (int i = 0; i < queryTerms.size(); i++) {
+            String queryTerm = queryTerms.get(i);
+            Map<String, Float> expansions = new LinkedHashMap<>();
+            if (postings.containsKey(queryTerm)) {
+                expansions.put(queryTerm, 1f);
+            }
+            if (lastIsPrefix && i == queryTerms.size() - 1) {
+                for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+                    if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    expansions.put(term, PREFIX_WEIGHT);
+                }
+            }
+
+            // Best expansion per vehicle, so one query term is counted once
+            Map<Long, Float> termScores = new HashMap<>();
+            for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+                Map<Long, Float> docs = postings.get(expansion.getKey());
+                if (docs == null) {
+                    continue;
+                }
+                double df = docs.size();
+                float idf = (float) Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                float factor = idf * expansion.getValue();
+                docs.forEach((vehicleId, weight) -> termScores.merge(vehicleId, factor * weight, Math::max));
+            }
+            termScores.forEach((vehicleId, score) -> scores.computeIfAbsent(vehicleId, id -> new Score()).add(score));
+        }
+
+        int termCount = queryTerms.size();
+        Comparator<Map.Entry<Long, Score>> byRelevance = Comparator
+                .comparingDouble((Map.Entry<Long, Score> e) -> e.getValue().total(termCount))
+                .thenComparingLong(Map.Entry::getKey);
+        PriorityQueue<Map.Entry<Long, Score>> top = new PriorityQueue<>(byRelevance);
+        for (Map.Entry<Long, Score> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        return new Matches(ids.reversed(), scores.size());
+    }
+
+    /**
+     * Lower-cased, accent-free terms of the text, stop words removed.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("").toLowerCase();
+        for (String word : NON_ALPHANUMERIC.split(normalized)) {
+            for (String term : LETTER_DIGIT_BOUNDARY.split(word)) {
+                if (!term.isEmpty() && !STOP_WORDS.contains(term)) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void putDocument(VehicleText text) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, text.make(), MAKE_WEIGHT);
+        addField(weights, text.model(), MODEL_WEIGHT);
+        VehicleType type = text.type();
+        addField(weights, type == null ? null : type.name(), TYPE_WEIGHT);
+        addField(weights, text.description(), DESCRIPTION_WEIGHT);
+        if (isIndexed(text.vehicleId(), weights)) {
+            return; // unchanged (most vehicles on a sync or rebuild)
+        }
+        removeDocument(text.vehicleId());
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(text.vehicleId(), weight));
+        termsById.put(text.vehicleId(), Set.copyOf(weights.keySet()));
+    }
+
+    private boolean isIndexed(Long vehicleId, Map<String, Float> weights) {
+        Set<String> terms = termsById.get(vehicleId);
+        return terms != null && terms.equals(weights.keySet())
+                && weights.entrySet().stream().allMatch(e -> e.getValue().equals(postings.get(e.getKey()).get(vehicleId)));
+    }
+
+    // A term found in several fields keeps its highest weight
+    private static void addField(Map<String, Float> weights, String value, float weight) {
+        for (String term : tokenize(value)) {
+            weights.merge(term, weight, Math::max);
+        }
+    }
+
+    private void removeDocument(Long vehicleId) {
+        Set<String> terms = termsById.remove(vehicleId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, docs) -> {
+                docs.remove(vehicleId);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    private static final class Score {
+        private float sum;
+        private int matchedTerms;
+
+        void add(float score) {
+            sum += score;
+            matchedTerms++;
+        }
+
+        double total(int queryTerms) {
+            return sum * matchedTerms / (double) queryTerms;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.springrentMe.utils;
 
 import com.example.springrentMe.models.User;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.net.URLEncoder;
@@ -17,11 +18,13 @@ public class CookieUtils {
     // Cookie names
     private static final String JWT_COOKIE_NAME = "jwt_token";
     private static final String USER_INFO_COOKIE_NAME = "user_info";
+    private static final String REFRESH_COOKIE_NAME = "refresh_token";
 
     // Cookie configuration
     private static final int COOKIE_MAX_AGE = 24 * 60 * 60; // 24 hours in seconds
     private static final boolean IS_SECURE = true;  // Must be true for SameSite=None cross-origin cookies
     private static final String COOKIE_PATH = "/";
+    private static final String REFRESH_COOKIE_PATH = "/api/v1/auth"; // only sent to refresh / logout
 
     /**
      * Sets authentication cookies (JWT token + user info) in the response.
@@ -41,6 +44,43 @@ public class CookieUtils {
         response.addCookie(userInfoCookie);
     }
 
+    /**
+     * Sets the HTTP-only refresh token cookie. It is scoped to the auth
+     * endpoints, so it never travels with ordinary API requests.
+     *
+     * @param response     HTTP response to add the cookie to
+     * @param refreshToken opaque refresh token
+     * @param maxAge       cookie max age in seconds (the token's lifetime)
+     */
+    public static void setRefreshCookie(HttpServletResponse response, String refreshToken, int maxAge) {
+        Cookie cookie = new Cookie(REFRESH_COOKIE_NAME, refreshToken);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(IS_SECURE);
+        cookie.setPath(REFRESH_COOKIE_PATH);
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "None");
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Reads the refresh token cookie from the request.
+     *
+     * @param request HTTP request
+     * @return the refresh token, or null if absent
+     */
+    public static String getRefreshToken(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (REFRESH_COOKIE_NAME.equals(cookie.getName()) && cookie.getValue() != null
+                    && !cookie.getValue().isBlank()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * Creates an HTTP-only cookie for storing the JWT token.
      * This cookie is secure against XSS attacks as JavaScript cannot access it.
@@ -111,6 +151,15 @@ public class CookieUtils {
         userInfoCookie.setMaxAge(0);
         userInfoCookie.setAttribute("SameSite", "None");
         response.addCookie(userInfoCookie);
+
+        // Clear refresh token cookie
+        Cookie refreshCookie = new Cookie(REFRESH_COOKIE_NAME, null);
+        refreshCookie.setHttpOnly(true);
+        refreshCookie.setSecure(IS_SECURE);
+        refreshCookie.setPath(REFRESH_COOKIE_PATH);
+        refreshCookie.setMaxAge(0);
+        refreshCookie.setAttribute("SameSite", "None");
+        response.addCookie(refreshCookie);
     }
 
     /**
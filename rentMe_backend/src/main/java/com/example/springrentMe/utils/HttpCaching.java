@@ -0,0 +1,144 @@
+package com.example.springrentMe.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+/**
+ * Validators and cache headers for conditional GETs on the public read endpoints.
+ *
+ * Single resources get strong ETags derived from entity versions (e.g.
+ * Vehicle.updatedAt + totalReviews), so a controller can answer 304 from a
+ * one-row version lookup before any DTO is built. Collections get weak ETags
+ * over the versions of the rows they contain: equivalent content, not
+ * byte-identical (an owner's rename, say, isn't part of the version).
+ *
+ * Cache-Control lets a shared cache (nginx / CDN) in front of the app serve
+ * repeat reads for a short max-age and revalidate with If-None-Match after.
+ * Spring Security leaves Cache-Control alone once a response has one.
+ */
+public class HttpCaching {
+
+    public static final CacheControl PUBLIC_RESOURCE = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
+    public static final CacheControl PUBLIC_COLLECTION = CacheControl.maxAge(Duration.ofSeconds(30)).cachePublic();
+
+    private HttpCaching() {
+        // Utility class — no instantiation
+    }
+
+    /**
+     * Strong ETag over the given version parts, e.g. {@code "3f9c…"}.
+     */
+    public static String strongETag(Object... parts) {
+        return "\"" + fingerprint(parts) + "\"";
+    }
+
+    /**
+     * Weak ETag over the given version parts, e.g. {@code W/"3f9c…"}.
+     */
+    public static String weakETag(Object... parts) {
+        return "W/" + strongETag(parts);
+    }
+
+    /**
+     * True if the client's copy is current: If-None-Match lists the ETag (weak
+     * comparison, as RFC 9110 prescribes for GET), or — only when no
+     * If-None-Match was sent — the resource is not newer than If-Modified-Since.
+     */
+    public static boolean isNotModified(HttpServletRequest request, String etag, Instant lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String opaque = opaqueTag(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified == null) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false; // unparseable date: ignore the header
+        }
+        // HTTP dates have one-second resolution
+        return ifModifiedSince >= 0 && lastModified.getEpochSecond() <= ifModifiedSince / 1000;
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag, Instant lastModified, CacheControl cacheControl) {
+        return headers(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, lastModified, cacheControl).build();
+    }
+
+    /**
+     * 304 if the client's copy is current, otherwise 200 with the body; both
+     * carry the validators and Cache-Control.
+     */
+    public static <T> ResponseEntity<T> respond(HttpServletRequest request, T body, String etag,
+                                                Instant lastModified, CacheControl cacheControl) {
+        if (isNotModified(request, etag, lastModified)) {
+            return notModified(etag, lastModified, cacheControl);
+        }
+        return headers(ResponseEntity.ok(), etag, lastModified, cacheControl).body(body);
+    }
+
+    /**
+     * Entity timestamps are stored in the server's zone; null stays null.
+     */
+    public static Instant toInstant(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Timestamp as an ETag version part, truncated to what the database keeps.
+     */
+    public static Long versionOf(LocalDateTime time) {
+        return time == null ? null : toInstant(time).toEpochMilli();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private static ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder builder, String etag,
+                                                      Instant lastModified, CacheControl cacheControl) {
+        builder.eTag(etag).cacheControl(cacheControl);
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // First 128 bits of SHA-256 over the parts; stable across instances, unlike hashCode()
+    private static String fingerprint(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (Object part : parts) {
+            raw.append(part).append('|');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
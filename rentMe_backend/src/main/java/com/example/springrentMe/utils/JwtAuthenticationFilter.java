@@ -1,5 +1,8 @@
 package com.example.springrentMe.utils;
 
+import com.example.springrentMe.security.CustomUserDetailsService;
+import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.auth.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -7,8 +10,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -22,12 +23,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
 
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
+
+    private final TokenRevocationService revocationService;
 
     public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
-            UserDetailsService userDetailsService) {
+            CustomUserDetailsService userDetailsService,
+            TokenRevocationService revocationService) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -35,12 +40,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
+            String jwt = resolveToken(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            // One signature check + parse; the principal comes from the claims and cached account state
+            VerifiedToken token = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
+            UserDetailsImpl userDetails = token != null ? userDetailsService.loadUserFromToken(token.user()) : null;
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (userDetails != null && !revocationService.isRevoked(token, userDetails.getId())) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
 
@@ -55,7 +61,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
+    /**
+     * The request's access token: Authorization bearer header (API calls) or
+     * the jwt_token cookie (browser sessions); null if neither is present.
+     */
+    public static String resolveToken(HttpServletRequest request) {
         // First, try to get JWT from Authorization header (for API calls)
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,7 +1,9 @@
 package com.example.springrentMe.utils;
 
+import com.example.springrentMe.security.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,70 +12,159 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
+/**
+ * Issues and verifies the HS256 access tokens.
+ *
+ * Tokens carry the user's identity as signed claims (subject = email, plus
+ * user ID, primary role and role flags), so a request can be authenticated
+ * from one signature check and parse, without loading the user. The key and
+ * parser are derived from jwt.secret once and reused. Every token has a
+ * random ID (jti) so it can be revoked on its own (TokenRevocationService).
+ */
 @Component
 public class JwtTokenProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_RENTER = "renter";
+    static final String CLAIM_VEHICLE_OWNER = "owner";
+    static final String CLAIM_ADMIN = "admin";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    @Value("${jwt.expiration:300000}") // 5 minutes in milliseconds; renewed via refresh tokens
     private long jwtExpiration;
 
+    // Derived from jwtSecret on first use
+    private volatile SecretKey key;
+    private volatile JwtParser parser;
+
     // Generate JWT token from Authentication
     public String generateToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return generateTokenFromUsername(userDetails.getUsername());
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserDetailsImpl userDetails) {
+            return generateToken(userDetails);
+        }
+        return generateTokenFromUsername(((UserDetails) principal).getUsername());
+    }
+
+    // Generate JWT token with the user's identity and roles as claims
+    public String generateToken(UserDetailsImpl userDetails) {
+        return builder(userDetails.getEmail())
+                .claim(CLAIM_USER_ID, userDetails.getId())
+                .claim(CLAIM_ROLE, userDetails.getRole())
+                .claim(CLAIM_RENTER, Boolean.TRUE.equals(userDetails.getHasRenterRole()))
+                .claim(CLAIM_VEHICLE_OWNER, Boolean.TRUE.equals(userDetails.getHasVehicleOwnerRole()))
+                .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userDetails.getHasAdminRole()))
+                .compact();
     }
 
-    // Generate JWT token from username (email)
+    // Generate JWT token from username (email) only — authenticating it costs a user lookup
     public String generateTokenFromUsername(String username) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        return builder(username).compact();
+    }
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Verify the token and build the principal from its claims (single parse).
+     * Returns null for an invalid or expired token. Tokens without a user ID
+     * claim (subject only) yield a principal with only the email set.
+     */
+    public UserDetailsImpl getUserDetailsFromToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.user() : null;
+    }
 
-        return Jwts.builder()
-                .subject(username)
-                .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+    /**
+     * getUserDetailsFromToken plus the token's ID and lifetime (revocation).
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        return new VerifiedToken(userDetails(claims), claims.getId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
     }
 
     // Get username from JWT token
     public String getUsernameFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+        return parser().parseSignedClaims(token).getPayload().getSubject();
     }
 
     // Validate JWT token
     public boolean validateToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        return parseClaims(token) != null;
+    }
 
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+    // ─────────────────────────────────────────────────────────────────────────
+    // PRIVATE HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
 
-            return true;
+    private static UserDetailsImpl userDetails(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return new UserDetailsImpl(null, claims.getSubject(), null, null, true, false, false, false, null);
+        }
+        return new UserDetailsImpl(
+                userId.longValue(),
+                claims.getSubject(),
+                null,
+                claims.get(CLAIM_ROLE, String.class),
+                true,
+                Boolean.TRUE.equals(claims.get(CLAIM_RENTER, Boolean.class)),
+                Boolean.TRUE.equals(claims.get(CLAIM_VEHICLE_OWNER, Boolean.class)),
+                Boolean.TRUE.equals(claims.get(CLAIM_ADMIN, Boolean.class)),
+                null);
+    }
+
+    private JwtBuilder builder(String subject) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // jti: lets a single token be revoked
+                .subject(subject)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(key());
+    }
+
+    private Claims parseClaims(String token) {
+        try {
+            return parser().parseSignedClaims(token).getPayload();
         } catch (MalformedJwtException ex) {
             System.err.println("Invalid JWT token: " + ex.getMessage());
         } catch (ExpiredJwtException ex) {
             System.err.println("Expired JWT token: " + ex.getMessage());
         } catch (UnsupportedJwtException ex) {
             System.err.println("Unsupported JWT token: " + ex.getMessage());
+        } catch (SignatureException ex) {
+            System.err.println("Invalid JWT signature: " + ex.getMessage());
         } catch (IllegalArgumentException ex) {
             System.err.println("JWT claims string is empty: " + ex.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private SecretKey key() {
+        SecretKey k = key;
+        if (k == null) {
+            k = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            key = k;
+        }
+        return k;
+    }
+
+    private JwtParser parser() {
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parser().verifyWith(key()).build();
+            parser = p;
+        }
+        return p;
     }
 }
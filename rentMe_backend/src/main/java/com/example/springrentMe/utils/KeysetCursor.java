@@ -0,0 +1,79 @@
+package com.example.springrentMe.utils;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque cursors for keyset ("seek") pagination over {@code (createdAt, id)}.
+ *
+ * A cursor is the Base64URL encoding of the last row's createdAt and ID. The
+ * next page is fetched with a {@code WHERE (createdAt, id) > / < (…)} predicate
+ * instead of OFFSET, and without a COUNT query, so deep pages cost the same as
+ * the first one.
+ */
+public class KeysetCursor {
+
+    public static final String CREATED_AT = "createdAt";
+
+    private KeysetCursor() {
+        // Utility class — no instantiation
+    }
+
+    /**
+     * Sort order for a cursor listing: createdAt, with the ID as tie-breaker.
+     */
+    public static Sort sort(Sort.Direction direction, String idProperty) {
+        return Sort.by(direction, CREATED_AT, idProperty);
+    }
+
+    /**
+     * Scroll position for a cursor received from a client; null or blank = first page.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetScrollPosition decode(String cursor, String idProperty) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(CREATED_AT, LocalDateTime.parse(raw.substring(0, separator)));
+            keys.put(idProperty, Long.valueOf(raw.substring(separator + 1)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    /**
+     * Cursor pointing after the last element of the window, or null if there is no next page.
+     */
+    public static String nextCursor(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        Object createdAt = null;
+        Object id = null;
+        for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+            if (CREATED_AT.equals(key.getKey())) {
+                createdAt = key.getValue();
+            } else {
+                id = key.getValue();
+            }
+        }
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
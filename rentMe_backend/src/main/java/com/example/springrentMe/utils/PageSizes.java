@@ -0,0 +1,24 @@
+package com.example.springrentMe.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds on client-requested page sizes, for offset and cursor pages alike.
+ * A size goes straight into the query's LIMIT, so without a bound a single
+ * request could read (and map to DTOs) a whole table.
+ */
+@Component
+public class PageSizes {
+
+    private final int maxPageSize;
+
+    public PageSizes(@Value("${app.pagination.max-page-size:100}") int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** The requested size, clamped to 1..app.pagination.max-page-size. */
+    public int clamp(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+}
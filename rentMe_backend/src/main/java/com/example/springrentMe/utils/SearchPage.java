@@ -0,0 +1,35 @@
+package com.example.springrentMe.utils;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page whose total may be an estimate.
+ *
+ * Text searches check their ranked candidates against the filters only until
+ * the page is filled (VehicleService), so they can't always count every match.
+ * {@code truncated} is then set and {@code totalElements} is extrapolated from
+ * the candidates checked; PageResponse exposes it as {@code meta.truncated}.
+ */
+public class SearchPage<T> extends PageImpl<T> {
+
+    private final boolean truncated;
+
+    public SearchPage(List<T> content, Pageable pageable, long total, boolean truncated) {
+        super(content, pageable, total);
+        this.truncated = truncated;
+    }
+
+    /** Not every match was counted: the total is an estimate. */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public <U> SearchPage<U> map(Function<? super T, ? extends U> converter) {
+        return new SearchPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), truncated);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.springrentMe.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for keeping in-memory state (caches, indexes, counters) in step
+ * with the database transaction that changed it.
+ */
+public class TransactionUtils {
+
+    private TransactionUtils() {
+        // Utility class — no instantiation
+    }
+
+    /**
+     * Run the action once the current transaction commits, or right away when
+     * there is none. A rolled-back change never reaches memory, and readers
+     * can't repopulate from a row that isn't committed yet.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
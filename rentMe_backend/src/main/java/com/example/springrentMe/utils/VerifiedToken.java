@@ -0,0 +1,13 @@
+package com.example.springrentMe.utils;
+
+import com.example.springrentMe.security.UserDetailsImpl;
+
+import java.time.Instant;
+
+/**
+ * A token whose signature and expiry have been checked: the principal built
+ * from its claims plus the claims revocation needs. tokenId is null for
+ * tokens issued without a jti.
+ */
+public record VerifiedToken(UserDetailsImpl user, String tokenId, Instant issuedAt, Instant expiresAt) {
+}
@@ -96,6 +96,6 @@ class ChatControllerTest {
     void testGetMySessions_Anonymous() throws Exception {
         mockMvc.perform(get("/api/v1/chat/sessions")
                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isForbidden());
+                .andExpect(status().isUnauthorized());
     }
 }
@@ -0,0 +1,221 @@
+package com.example.springrentMe.controllers;
+
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Public Caching Headers Tests")
+class PublicCachingHeadersTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private VehicleResponseCache responseCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setFullName("Caching Tester");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setContactNumber("+1234567890");
+        user.setRole(UserRole.VEHICLE_OWNER);
+        user.setAuthProvider(AuthProvider.LOCAL);
+        VehicleOwner owner = new VehicleOwner();
+        owner.setUser(userRepository.save(user));
+        owner.setVerificationStatus(VerificationStatus.APPROVED);
+        owner = vehicleOwnerRepository.save(owner);
+
+        vehicle = new Vehicle();
+        vehicle.setVehicleOwner(owner);
+        vehicle.setMake("Etagmake" + UUID.randomUUID().toString().replaceAll("[^a-f]", ""));
+        vehicle.setModel("Corolla");
+        vehicle.setType(VehicleType.SEDAN);
+        vehicle.setCapacity(5);
+        vehicle.setDailyPrice(new BigDecimal("50.00"));
+        vehicle.setPickupLocation("Colombo");
+        vehicle.setLatitude(6.92);
+        vehicle.setLongitude(79.86);
+        vehicle = vehicleRepository.save(vehicle);
+    }
+
+    @Test
+    @DisplayName("Vehicle detail should revalidate with a strong ETag until the vehicle changes")
+    void testVehicleDetail_ConditionalGet() throws Exception {
+        String url = "/api/v1/public/vehicles/" + vehicle.getVehicleId();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        vehicle.setDailyPrice(new BigDecimal("55.00"));
+        vehicleRepository.save(vehicle);
+        responseCache.onVehicleChanged(vehicle.getVehicleId());
+
+        String changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dailyPrice").value(55.0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    @DisplayName("Search listing and review endpoints should answer 304 to a matching If-None-Match")
+    void testCollections_WeakETags() throws Exception {
+        String search = "/api/v1/public/vehicles?make=" + vehicle.getMake();
+        String etag = mockMvc.perform(get(search))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].vehicleId").value(vehicle.getVehicleId()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("W/"));
+        mockMvc.perform(get(search).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified());
+
+        String reviews = "/api/v1/public/reviews/vehicle/" + vehicle.getVehicleId();
+        String reviewsTag = mockMvc.perform(get(reviews))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(reviews).header(HttpHeaders.IF_NONE_MATCH, reviewsTag))
+                .andExpect(status().isNotModified());
+
+        String summary = reviews + "/summary";
+        String summaryTag = mockMvc.perform(get(summary))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalReviews").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(summary).header(HttpHeaders.IF_NONE_MATCH, summaryTag))
+                .andExpect(status().isNotModified());
+
+        // Same count and average (a review swapped for one with the same rating), newer version:
+        // the recent reviews may differ, so the summary is sent again
+        Vehicle touched = vehicleRepository.findById(vehicle.getVehicleId()).orElseThrow();
+        touched.setModel("Corolla Cross");
+        vehicleRepository.save(touched);
+        String changedTag = mockMvc.perform(get(summary).header(HttpHeaders.IF_NONE_MATCH, summaryTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalReviews").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(summaryTag, changedTag);
+    }
+
+    @Test
+    @DisplayName("Listings should answer a matching revalidation without building the vehicles' DTOs")
+    void testListings_NotModifiedSkipsDtos() throws Exception {
+        String search = "/api/v1/public/vehicles?make=" + vehicle.getMake();
+        String map = "/api/v1/public/vehicles/map?minLat=6.9&maxLat=6.95&minLng=79.8&maxLng=79.9";
+        String searchTag = mockMvc.perform(get(search))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cursorTag = mockMvc.perform(get(search + "&cursor="))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String mapTag = mockMvc.perform(get(map))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Drops the cached detail and pages: building a DTO would show up as a lookup
+        responseCache.onVehicleChanged(vehicle.getVehicleId());
+        double lookups = detailLookups();
+
+        mockMvc.perform(get(search).header(HttpHeaders.IF_NONE_MATCH, searchTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(search + "&cursor=").header(HttpHeaders.IF_NONE_MATCH, cursorTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(map).header(HttpHeaders.IF_NONE_MATCH, mapTag))
+                .andExpect(status().isNotModified());
+        assertEquals(lookups, detailLookups());
+
+        mockMvc.perform(get(search))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, searchTag))
+                .andExpect(jsonPath("$.data[0].vehicleId").value(vehicle.getVehicleId()));
+        assertTrue(detailLookups() > lookups);
+    }
+
+    @Test
+    @DisplayName("Search listing should take yyyy-MM-dd dates and reject an incomplete range")
+    void testListings_DateRange() throws Exception {
+        String search = "/api/v1/public/vehicles?make=" + vehicle.getMake();
+        String from = LocalDate.now().plusDays(3).toString();
+        String to = LocalDate.now().plusDays(5).toString();
+        mockMvc.perform(get(search + "&startDate=" + from + "&endDate=" + to))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].vehicleId").value(vehicle.getVehicleId()));
+        mockMvc.perform(get(search + "&startDate=" + from))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(search + "&startDate=" + to + "&endDate=" + from))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Listing endpoints should clamp the requested page size")
+    void testListings_ClampPageSize() throws Exception {
+        String search = "/api/v1/public/vehicles?make=" + vehicle.getMake();
+        mockMvc.perform(get(search + "&size=1000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.size").value(100));
+        mockMvc.perform(get(search + "&size=0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.size").value(1));
+        mockMvc.perform(get(search + "&cursor=&size=" + Integer.MAX_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].vehicleId").value(vehicle.getVehicleId()));
+        mockMvc.perform(get("/api/v1/public/reviews/vehicle/" + vehicle.getVehicleId() + "?cursor=&size=" + Integer.MAX_VALUE))
+                .andExpect(status().isOk());
+    }
+
+    private double detailLookups() {
+        return meterRegistry.find("cache.requests").tag("cache", "vehicle.detail").counters().stream()
+                .mapToDouble(c -> c.count()).sum();
+    }
+}
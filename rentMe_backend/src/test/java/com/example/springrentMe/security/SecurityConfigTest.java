@@ -34,7 +34,7 @@ class SecurityConfigTest {
     void testProtectedEndpoints_NoAuth() throws Exception {
         // User endpoints should require authentication
         mockMvc.perform(get("/api/v1/users/1"))
-                .andExpect(status().isForbidden()); // Spring Security returns 403 for anonymous users
+                .andExpect(status().isUnauthorized()); // 401 for anonymous users, so clients refresh or log in
     }
 
     @Test
@@ -61,7 +61,7 @@ class SecurityConfigTest {
     void testRoleBasedAccess() throws Exception {
         // Admin endpoints should require ADMIN role
         mockMvc.perform(get("/api/v1/admin/users"))
-                .andExpect(status().isForbidden()); // Spring Security returns 403 for anonymous users
+                .andExpect(status().isUnauthorized()); // 401 for anonymous users, so clients refresh or log in
     }
 
     @Test
@@ -0,0 +1,366 @@
+package com.example.springrentMe.security;
+
+import com.example.springrentMe.DTOs.ChangePasswordRequest;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.RenterRepository;
+import com.example.springrentMe.repositories.RevokedTokenRepository;
+import com.example.springrentMe.repositories.TokenWatermarkRepository;
+import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.services.UserService;
+import com.example.springrentMe.services.auth.RefreshTokenService;
+import com.example.springrentMe.services.auth.TokenRevocationService;
+import com.example.springrentMe.services.cache.AccountStateCache;
+import com.example.springrentMe.utils.JwtTokenProvider;
+import com.example.springrentMe.utils.VerifiedToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "app.cache.accounts.ttl-seconds=3600", // changes must come from explicit invalidation
+        "app.security.refresh-token.reuse-grace-seconds=1", // a second use after 1s counts as reuse
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Token Authentication Tests")
+class TokenAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private AccountStateCache accountStateCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JwtHandshakeInterceptor handshakeInterceptor;
+
+    @Autowired
+    private WebSocketAuthChannelInterceptor channelInterceptor;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RenterRepository renterRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TokenWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    @DisplayName("Should authenticate from claims and follow role and status changes of the account")
+    void testClaimsToken_FollowsAccountState() throws Exception {
+        User user = renter();
+        String token = tokenProvider.generateToken((UserDetailsImpl) userDetailsService.loadUserById(user.getUserId()));
+        String bearer = "Bearer " + token;
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles", containsInAnyOrder("RENTER")));
+
+        // Role granted after the token was issued: visible once the account state is dropped
+        VehicleOwner owner = new VehicleOwner();
+        owner.setUser(user);
+        owner.setVerificationStatus(VerificationStatus.NOT_SUBMITTED);
+        vehicleOwnerRepository.save(owner);
+        accountStateCache.onAccountChanged(user.getUserId());
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles", containsInAnyOrder("RENTER", "VEHICLE_OWNER")));
+
+        // Deactivation takes effect immediately, not when the token expires
+        userService.deleteUser(user.getUserId());
+        SecurityContextHolder.clearContext(); // MockMvc shares the test thread's context across requests
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", bearer))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Should answer 401, not 403, to an expired or missing token so clients refresh")
+    void testExpiredToken_Unauthorized() throws Exception {
+        User user = renter();
+        JwtTokenProvider expiring = new JwtTokenProvider();
+        ReflectionTestUtils.setField(expiring, "jwtSecret", jwtSecret);
+        ReflectionTestUtils.setField(expiring, "jwtExpiration", -60000L);
+        String expired = "Bearer " + expiring.generateToken(
+                (UserDetailsImpl) userDetailsService.loadUserById(user.getUserId()));
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", expired))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/bookings/my"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Should reject a logged-out token and, after log out everywhere, every older token")
+    void testRevocation_SurvivesRebuild() throws Exception {
+        User user = renter();
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserById(user.getUserId());
+        String first = "Bearer " + tokenProvider.generateToken(userDetails);
+        String second = "Bearer " + tokenProvider.generateToken(userDetails);
+
+        mockMvc.perform(post("/api/v1/auth/logout").header("Authorization", first))
+                .andExpect(status().isOk());
+        SecurityContextHolder.clearContext();
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", first))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", second))
+                .andExpect(status().isOk());
+        SecurityContextHolder.clearContext();
+
+        // Watermark: tokens issued before it are revoked, later ones are not
+        Thread.sleep(1000); // iat has one-second resolution
+        revocationService.revokeAllForUser(user.getUserId());
+        Thread.sleep(1000);
+        String fresh = "Bearer " + tokenProvider.generateToken(userDetails);
+
+        // Rebuilt from the database, as on startup
+        revocationService.refresh();
+
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", first))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", second))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", fresh))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should pick up revocations made by another instance on its next sync")
+    void testRevocation_ReachesOtherInstances() throws Exception {
+        // A second instance sharing the database
+        TokenRevocationService other = new TokenRevocationService(revokedTokenRepository, watermarkRepository,
+                transactionTemplate, refreshTokenService, new SimpleMeterRegistry(), 1000, 0.01, 300000);
+        other.refresh();
+
+        User loggedOut = renter();
+        User deactivated = renter();
+        VerifiedToken logoutToken = tokenProvider.verify(tokenProvider.generateToken(
+                (UserDetailsImpl) userDetailsService.loadUserById(loggedOut.getUserId())));
+        VerifiedToken oldToken = tokenProvider.verify(tokenProvider.generateToken(
+                (UserDetailsImpl) userDetailsService.loadUserById(deactivated.getUserId())));
+        Thread.sleep(1000); // iat has one-second resolution
+
+        revocationService.revoke(logoutToken, loggedOut.getUserId());
+        revocationService.revokeAllForUser(deactivated.getUserId());
+        assertTrue(revocationService.isRevoked(logoutToken, loggedOut.getUserId()));
+        assertTrue(revocationService.isRevoked(oldToken, deactivated.getUserId()));
+        // Not seen elsewhere until the sync (app.security.revocation.sync-ms)
+        assertFalse(other.isRevoked(logoutToken, loggedOut.getUserId()));
+        assertFalse(other.isRevoked(oldToken, deactivated.getUserId()));
+
+        other.sync();
+        assertTrue(other.isRevoked(logoutToken, loggedOut.getUserId()));
+        assertTrue(other.isRevoked(oldToken, deactivated.getUserId()));
+
+        // And the other way round
+        VerifiedToken elsewhere = tokenProvider.verify(tokenProvider.generateToken(
+                (UserDetailsImpl) userDetailsService.loadUserById(loggedOut.getUserId())));
+        other.revoke(elsewhere, loggedOut.getUserId());
+        revocationService.sync();
+        assertTrue(revocationService.isRevoked(elsewhere, loggedOut.getUserId()));
+    }
+
+    @Test
+    @DisplayName("Should sign out other sessions on password change but keep the current one")
+    void testChangePassword_KeepsCurrentSession() throws Exception {
+        User user = renter();
+        user.setPassword(passwordEncoder.encode("Old-pass1!"));
+        userRepository.save(user);
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserById(user.getUserId());
+        String otherDevice = "Bearer " + tokenProvider.generateToken(userDetails);
+        String current = "Bearer " + tokenProvider.generateToken(userDetails);
+        Thread.sleep(1000); // iat has one-second resolution
+
+        MvcResult result = mockMvc.perform(post("/api/v1/users/" + user.getUserId() + "/change-password")
+                        .header("Authorization", current)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ChangePasswordRequest("Old-pass1!", "NewPass1@"))))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists("jwt_token"))
+                .andExpect(cookie().exists("refresh_token"))
+                .andReturn();
+        SecurityContextHolder.clearContext();
+        String reissued = "Bearer " + result.getResponse().getCookie("jwt_token").getValue();
+
+        // Watermarked users are answered from memory, not counted as filter false positives
+        double falsePositives = meterRegistry.counter("auth.revocation.lookups", "result", "false_positive").count();
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", otherDevice))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", reissued))
+                .andExpect(status().isOk());
+        assertEquals(falsePositives, meterRegistry.counter("auth.revocation.lookups", "result", "false_positive").count());
+        SecurityContextHolder.clearContext();
+
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .cookie(new Cookie("refresh_token", result.getResponse().getCookie("refresh_token").getValue())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should rotate refresh tokens, tolerate a concurrent exchange and revoke the family on replay")
+    void testRefresh_RotatesAndDetectsReuse() throws Exception {
+        User user = renter();
+        String original = refreshTokenService.issue(user.getUserId());
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", original)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(user.getUserId()))
+                .andExpect(cookie().exists("jwt_token"))
+                .andExpect(cookie().httpOnly("refresh_token", true))
+                .andReturn();
+        String rotated = result.getResponse().getCookie("refresh_token").getValue();
+        assertNotNull(rotated);
+        assertNotEquals(original, rotated);
+
+        // The new access token authenticates
+        String bearer = "Bearer " + result.getResponse().getCookie("jwt_token").getValue();
+        mockMvc.perform(get("/api/v1/users/me/roles").header("Authorization", bearer))
+                .andExpect(status().isOk());
+        SecurityContextHolder.clearContext();
+
+        // Right away it looks like a concurrent refresh: rejected, but the session's cookies are left alone
+        mockMvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", original)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(cookie().doesNotExist("refresh_token"))
+                .andExpect(cookie().doesNotExist("jwt_token"));
+
+        // Later, replaying the exchanged token is reuse and takes the live successor down with it
+        Thread.sleep(1100);
+        mockMvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", original)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(cookie().maxAge("refresh_token", 0));
+        mockMvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", rotated)))
+                .andExpect(status().isUnauthorized());
+
+        // Unknown token, no cookie
+        mockMvc.perform(post("/api/v1/auth/refresh").cookie(new Cookie("refresh_token", "bogus")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/v1/auth/refresh"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Should authenticate STOMP CONNECT from the HTTP-only cookie sent with the handshake")
+    void testStompConnect_UsesHandshakeCookie() throws Exception {
+        User user = renter();
+        String token = tokenProvider.generateToken((UserDetailsImpl) userDetailsService.loadUserById(user.getUserId()));
+
+        MockHttpServletRequest handshake = new MockHttpServletRequest("GET", "/ws");
+        handshake.setCookies(new Cookie("jwt_token", token));
+        Map<String, Object> attributes = new HashMap<>();
+        handshakeInterceptor.beforeHandshake(new ServletServerHttpRequest(handshake), null, null, attributes);
+
+        try {
+            // No Authorization or Cookie header in the frame itself
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionAttributes(attributes);
+            connect.setLeaveMutable(true);
+            Message<byte[]> message = MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders());
+            channelInterceptor.preSend(message, null);
+            assertEquals(user.getEmail(), connect.getUser().getName());
+
+            StompHeaderAccessor anonymous = StompHeaderAccessor.create(StompCommand.CONNECT);
+            anonymous.setSessionAttributes(new HashMap<>());
+            anonymous.setLeaveMutable(true);
+            assertThrows(MessageDeliveryException.class, () -> channelInterceptor.preSend(
+                    MessageBuilder.createMessage(new byte[0], anonymous.getMessageHeaders()), null));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private User renter() {
+        User user = new User();
+        user.setFullName("Token Tester");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setContactNumber("+1234567890");
+        user.setRole(UserRole.RENTER);
+        user.setAuthProvider(AuthProvider.LOCAL);
+        user.setIsActive(true);
+        user = userRepository.save(user);
+        Renter renter = new Renter();
+        renter.setUser(user);
+        renterRepository.save(renter);
+        return user;
+    }
+}
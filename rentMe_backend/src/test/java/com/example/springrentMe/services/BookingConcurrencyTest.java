@@ -0,0 +1,147 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.BookingRequestDTO;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.services.availability.BookingAvailabilityIndex;
+import com.example.springrentMe.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires hundreds of concurrent, overlapping booking requests at real
+ * BookingService / H2 and checks that exactly one wins per vehicle.
+ */
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Booking Concurrency Tests")
+class BookingConcurrencyTest {
+
+    private static final int REQUESTS_PER_VEHICLE = 150;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RenterRepository renterRepository;
+
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private VehicleOwner owner;
+    private List<User> renters;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.owner();
+        renters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            renters.add(fixtures.renter().getUser());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should admit exactly one of many concurrent overlapping bookings per vehicle")
+    void testConcurrentOverlappingBookings_ExactlyOneWins() throws Exception {
+        Vehicle first = fixtures.vehicle(owner);
+        Vehicle second = fixtures.vehicle(owner);
+        LocalDate start = LocalDate.now().plusDays(10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger firstWins = new AtomicInteger();
+        AtomicInteger secondWins = new AtomicInteger();
+        AtomicInteger overlapRejections = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS_PER_VEHICLE * 2; i++) {
+            Vehicle target = i % 2 == 0 ? first : second;
+            AtomicInteger wins = i % 2 == 0 ? firstWins : secondWins;
+            User renter = renters.get(i % renters.size());
+            // Every request overlaps the others on day start+5
+            LocalDate from = start.plusDays(i % 5);
+            LocalDate to = from.plusDays(5);
+
+            futures.add(pool.submit(() -> {
+                TestFixtures.login(renter);
+                try {
+                    go.await();
+                    bookingService.createBooking(new BookingRequestDTO(target.getVehicleId(), from, to, null));
+                    wins.incrementAndGet();
+                } catch (RuntimeException e) {
+                    if (e.getMessage() != null && e.getMessage().contains("overlap")) {
+                        overlapRejections.incrementAndGet();
+                    }
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        go.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, firstWins.get());
+        assertEquals(1, secondWins.get());
+        assertEquals(REQUESTS_PER_VEHICLE * 2 - 2, overlapRejections.get());
+        assertEquals(1, bookingRepository.findByVehicle_VehicleIdOrderByCreatedAtDesc(first.getVehicleId()).size());
+        assertEquals(1, bookingRepository.findByVehicle_VehicleIdOrderByCreatedAtDesc(second.getVehicleId()).size());
+    }
+
+    @Test
+    @DisplayName("Should reject a booking overlapping one another instance admitted")
+    void testOverlapAdmittedElsewhere_Rejected() {
+        Vehicle vehicle = fixtures.vehicle(owner);
+        LocalDate start = LocalDate.now().plusDays(10);
+        // This instance's index is warm and doesn't know about the next booking
+        assertEquals(start, availabilityIndex.nextFreeDate(vehicle.getVehicleId(), start));
+
+        Booking elsewhere = new Booking();
+        elsewhere.setVehicle(vehicle);
+        elsewhere.setRenter(renterRepository.findByUser_UserId(renters.get(0).getUserId()).orElseThrow());
+        elsewhere.setStartDate(start);
+        elsewhere.setEndDate(start.plusDays(3));
+        elsewhere.setStatus(BookingStatus.PENDING);
+        elsewhere.setTotalAmount(new BigDecimal("200.00"));
+        bookingRepository.save(elsewhere);
+
+        TestFixtures.login(renters.get(1));
+        RuntimeException rejected = assertThrows(RuntimeException.class, () -> bookingService.createBooking(
+                new BookingRequestDTO(vehicle.getVehicleId(), start.plusDays(2), start.plusDays(5), null)));
+        assertTrue(rejected.getMessage().contains("overlap"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.BookingResponseDTO;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.support.TestFixtures;
+import com.example.springrentMe.utils.KeysetCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Booking Cursor Pagination Tests")
+class BookingCursorPaginationTest {
+
+    private static final int BOOKINGS = 7;
+    private static final int PAGE_SIZE = 3;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private Renter renter;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Vehicle vehicle = fixtures.vehicle(fixtures.owner());
+        renter = fixtures.renter();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setVehicle(vehicle);
+            booking.setRenter(renter);
+            booking.setStartDate(LocalDate.now().plusDays(i * 2L));
+            booking.setEndDate(LocalDate.now().plusDays(i * 2L + 1));
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setTotalAmount(new BigDecimal("90.00"));
+            bookingIds.add(bookingRepository.save(booking).getBookingId());
+        }
+
+        TestFixtures.login(renter.getUser());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should walk a renter's bookings newest first without gaps or duplicates")
+    void testRenterListing_WalksAllPages() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            Window<BookingResponseDTO> window = bookingService.getMyBookingsAsRenter(cursor, PAGE_SIZE);
+            window.forEach(dto -> seen.add(dto.getBookingId()));
+            cursor = KeysetCursor.nextCursor(window);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages); // 3 + 3 + 1
+        assertEquals(bookingIds.reversed(), seen);
+    }
+
+    @Test
+    @DisplayName("Should page through the admin listing in (createdAt, id) order")
+    void testAdminListing_IsOrdered() {
+        Window<BookingResponseDTO> first = bookingService.getAllBookings("", PAGE_SIZE);
+        Window<BookingResponseDTO> second = bookingService.getAllBookings(KeysetCursor.nextCursor(first), PAGE_SIZE);
+
+        assertEquals(PAGE_SIZE, first.size());
+        assertFalse(second.isEmpty());
+        BookingResponseDTO lastOfFirst = first.getContent().get(PAGE_SIZE - 1);
+        BookingResponseDTO firstOfSecond = second.getContent().get(0);
+        int byCreatedAt = firstOfSecond.getCreatedAt().compareTo(lastOfFirst.getCreatedAt());
+        assertTrue(byCreatedAt < 0
+                || (byCreatedAt == 0 && firstOfSecond.getBookingId() < lastOfFirst.getBookingId()));
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getAllBookings("not-a-cursor", PAGE_SIZE));
+    }
+}
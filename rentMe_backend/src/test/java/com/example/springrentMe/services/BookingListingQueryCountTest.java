@@ -0,0 +1,152 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.BookingResponseDTO;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.support.TestFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regression guard against N+1 loading in booking listings: a full page must
+ * be converted to DTOs within a fixed SQL statement budget, however many
+ * vehicles, owners, renters and pictures it spans.
+ */
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Booking Listing Query Count Tests")
+class BookingListingQueryCountTest {
+
+    // page query + count query + condition images batch (vehicle pictures are denormalized)
+    private static final long STATEMENT_BUDGET = 3;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private Statistics statistics;
+    private VehicleOwner owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        owner = fixtures.owner();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vehicle vehicle = fixtures.vehicle(owner);
+            document(vehicle, null, DocumentType.VEHICLE_PICTURE);
+            document(vehicle, null, DocumentType.VEHICLE_PICTURE);
+            document(vehicle, null, DocumentType.VEHICLE_REGISTRATION);
+            documentService.refreshPictureUrls(vehicle.getVehicleId());
+            vehicles.add(vehicle);
+        }
+        List<Renter> renters = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            renters.add(fixtures.renter());
+        }
+        for (int i = 0; i < PAGE_SIZE + 5; i++) {
+            Booking booking = new Booking();
+            booking.setVehicle(vehicles.get(i % vehicles.size()));
+            booking.setRenter(renters.get(i % renters.size()));
+            booking.setStartDate(LocalDate.now().plusDays(i * 3L));
+            booking.setEndDate(LocalDate.now().plusDays(i * 3L + 1));
+            booking.setStatus(i % 2 == 0 ? BookingStatus.PENDING : BookingStatus.APPROVED);
+            booking.setTotalAmount(new BigDecimal("120.00"));
+            booking = bookingRepository.save(booking);
+            document(null, booking, DocumentType.BOOKING_CONDITION_IMAGE);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Admin booking page should load within the statement budget")
+    void testGetAllBookings_StatementBudget() {
+        statistics.clear();
+
+        Page<BookingResponseDTO> page = bookingService.getAllBookings(
+                PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt").descending()));
+
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertFullyPopulated(page);
+        assertTrue(statistics.getPrepareStatementCount() <= STATEMENT_BUDGET,
+                "Expected at most " + STATEMENT_BUDGET + " statements, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Owner booking page should load within the statement budget")
+    void testGetMyBookingsAsOwner_StatementBudget() {
+        TestFixtures.login(owner.getUser());
+        statistics.clear();
+
+        Page<BookingResponseDTO> page = bookingService.getMyBookingsAsOwner(PageRequest.of(0, PAGE_SIZE));
+
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertFullyPopulated(page);
+        // + 1 statement to resolve the owner profile of the current user
+        assertTrue(statistics.getPrepareStatementCount() <= STATEMENT_BUDGET + 1,
+                "Expected at most " + (STATEMENT_BUDGET + 1) + " statements, got "
+                        + statistics.getPrepareStatementCount());
+    }
+
+    private void assertFullyPopulated(Page<BookingResponseDTO> page) {
+        for (BookingResponseDTO dto : page.getContent()) {
+            assertNotNull(dto.getOwnerEmail());
+            assertNotNull(dto.getRenterEmail());
+            assertEquals(1, dto.getConditionImages().size());
+            assertEquals(2, dto.getVehiclePictures().size());
+        }
+    }
+
+    private void document(Vehicle vehicle, Booking booking, DocumentType type) {
+        Document doc = new Document();
+        doc.setVehicle(vehicle);
+        doc.setBooking(booking);
+        doc.setDocumentType(type);
+        doc.setDocumentName(type.name());
+        doc.setFileUrl("https://cdn.example.com/" + UUID.randomUUID() + ".jpg");
+        documentRepository.save(doc);
+    }
+}
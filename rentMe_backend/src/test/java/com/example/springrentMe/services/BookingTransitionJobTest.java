@@ -0,0 +1,149 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("BookingTransitionJob Tests")
+class BookingTransitionJobTest {
+
+    // A run date of its own so it never collides with the start-up catch-up run
+    private static final LocalDate RUN_DATE = LocalDate.now().plusYears(1);
+
+    @Autowired
+    private BookingTransitionJob job;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingTransitionRunRepository runRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private Renter renter;
+    private VehicleOwner owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.owner();
+        renter = fixtures.renter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should start due APPROVED bookings in chunks and record progress")
+    void testApprovedToOngoing() {
+        Vehicle vehicle = vehicle(false);
+        Long due1 = booking(vehicle, RUN_DATE.minusDays(1), RUN_DATE.plusDays(2), BookingStatus.APPROVED);
+        Long due2 = booking(vehicle, RUN_DATE, RUN_DATE.plusDays(2), BookingStatus.APPROVED);
+        Long due3 = booking(vehicle, RUN_DATE.minusDays(3), RUN_DATE, BookingStatus.APPROVED);
+        Long future = booking(vehicle, RUN_DATE.plusDays(1), RUN_DATE.plusDays(2), BookingStatus.APPROVED);
+
+        BookingTransitionRun run = job.runJob(BookingTransitionJob.START_JOB, RUN_DATE);
+
+        assertEquals(BookingStatus.ONGOING, status(due1));
+        assertEquals(BookingStatus.ONGOING, status(due2));
+        assertEquals(BookingStatus.ONGOING, status(due3));
+        assertEquals(BookingStatus.APPROVED, status(future));
+
+        assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+        assertEquals(3L, run.getProcessedCount());
+        assertEquals(2, run.getChunkCount()); // chunk size 2
+        assertNotNull(run.getDurationMs());
+    }
+
+    @Test
+    @DisplayName("Should complete finished ONGOING bookings, free vehicles and be safe to re-run")
+    void testOngoingToCompleted_Rerunnable() {
+        Vehicle vehicle = vehicle(false);
+        Long done = booking(vehicle, RUN_DATE.minusDays(5), RUN_DATE.minusDays(1), BookingStatus.ONGOING);
+        Long running = booking(vehicle(true), RUN_DATE.minusDays(1), RUN_DATE, BookingStatus.ONGOING);
+
+        job.runJob(BookingTransitionJob.COMPLETE_JOB, RUN_DATE);
+        BookingTransitionRun rerun = job.runJob(BookingTransitionJob.COMPLETE_JOB, RUN_DATE);
+
+        assertEquals(BookingStatus.COMPLETED, status(done));
+        assertEquals(BookingStatus.ONGOING, status(running));
+        assertTrue(vehicleRepository.findById(vehicle.getVehicleId()).orElseThrow().getIsAvailable());
+
+        // Progress is cumulative across runs of the same (job, date)
+        assertEquals(JobRunStatus.COMPLETED, rerun.getStatus());
+        assertEquals(1L, rerun.getProcessedCount());
+    }
+
+    @Test
+    @DisplayName("Should skip a run another instance holds and take over one it abandoned")
+    void testRunClaimedElsewhere_SkippedUntilStale() {
+        LocalDate runDate = RUN_DATE.plusMonths(1);
+        Long due = booking(vehicle(false), runDate, runDate.plusDays(2), BookingStatus.APPROVED);
+
+        BookingTransitionRun elsewhere = new BookingTransitionRun();
+        elsewhere.setJobName(BookingTransitionJob.START_JOB);
+        elsewhere.setRunDate(runDate);
+        elsewhere.setStatus(JobRunStatus.RUNNING);
+        elsewhere.setStartedAt(LocalDateTime.now());
+        elsewhere.setLastProgressAt(LocalDateTime.now());
+        elsewhere = runRepository.save(elsewhere);
+
+        assertNull(job.runJob(BookingTransitionJob.START_JOB, runDate));
+        assertEquals(BookingStatus.APPROVED, status(due));
+
+        // No progress for longer than the stale threshold: the other instance is gone
+        elsewhere.setLastProgressAt(LocalDateTime.now().minusHours(1));
+        runRepository.save(elsewhere);
+
+        BookingTransitionRun run = job.runJob(BookingTransitionJob.START_JOB, runDate);
+        assertEquals(elsewhere.getRunId(), run.getRunId());
+        assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+        assertEquals(BookingStatus.ONGOING, status(due));
+    }
+
+    private BookingStatus status(Long bookingId) {
+        return bookingRepository.findById(bookingId).orElseThrow().getStatus();
+    }
+
+    private Long booking(Vehicle vehicle, LocalDate start, LocalDate end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setVehicle(vehicle);
+        booking.setRenter(renter);
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setStatus(status);
+        booking.setTotalAmount(new BigDecimal("100.00"));
+        return bookingRepository.save(booking).getBookingId();
+    }
+
+    private Vehicle vehicle(boolean available) {
+        Vehicle vehicle = fixtures.vehicle(owner);
+        vehicle.setIsAvailable(available);
+        return vehicleRepository.save(vehicle);
+    }
+}
@@ -0,0 +1,489 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.ChatMessageResponseDTO;
+import com.example.springrentMe.DTOs.ChatSessionDeltaDTO;
+import com.example.springrentMe.DTOs.ChatSessionResponseDTO;
+import com.example.springrentMe.DTOs.ChatSyncRequestDTO;
+import com.example.springrentMe.DTOs.ChatSyncResponseDTO;
+import com.example.springrentMe.DTOs.CreateSessionRequestDTO;
+import com.example.springrentMe.DTOs.SendMessageRequestDTO;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.models.chat.ChatMessage;
+import com.example.springrentMe.models.chat.ChatSession;
+import com.example.springrentMe.models.chat.ChatUnreadCounter;
+import com.example.springrentMe.repositories.ChatMessageRepository;
+import com.example.springrentMe.repositories.ChatSessionRepository;
+import com.example.springrentMe.repositories.ChatUnreadCounterRepository;
+import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.exceptions.ChatSessionException;
+import com.example.springrentMe.services.cache.ChatSessionAccessCache;
+import com.example.springrentMe.services.chat.UnreadCountService;
+import com.example.springrentMe.support.TestFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The chat inbox renders from the session rows alone, the unread badge from
+ * a per-user counter, sends check permissions against a cached session
+ * descriptor and reconnecting clients sync by sequence number; these tests
+ * check all four against sends, reads and deletes.
+ */
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Chat Inbox Tests")
+class ChatInboxTest {
+
+    // page query + count query
+    private static final long STATEMENT_BUDGET = 2;
+
+    // sequence allocation + read-back + message insert + session update
+    // + recipient counter update + counter read for the push
+    private static final long SEND_STATEMENT_BUDGET = 6;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatInboxBackfillJob backfillJob;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private ChatUnreadCounterRepository counterRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ChatSessionAccessCache chatSessionAccessCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @MockitoSpyBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should keep preview and unread counts in step with sends, reads and deletes")
+    void testInbox_FollowsMessages() {
+        User owner = fixtures.owner().getUser();
+        List<User> renters = new ArrayList<>();
+        List<Long> sessionIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User renter = fixtures.renter().getUser();
+            renters.add(renter);
+            TestFixtures.login(renter);
+            Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+            sessionIds.add(sessionId);
+            send(sessionId, "Is the car free on Friday?");
+            send(sessionId, "Hello again " + i);
+        }
+
+        TestFixtures.login(owner);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<ChatSessionResponseDTO> inbox = inbox();
+        assertTrue(statistics.getPrepareStatementCount() <= STATEMENT_BUDGET,
+                "Expected at most " + STATEMENT_BUDGET + " statements, got " + statistics.getPrepareStatementCount());
+        assertEquals(3, inbox.size());
+        assertEquals(sessionIds.get(2), inbox.get(0).getSessionId()); // most recent first
+        for (ChatSessionResponseDTO dto : inbox) {
+            assertEquals(2, dto.getUnreadCount());
+            assertTrue(dto.getLastMessagePreview().startsWith("Hello again"));
+            assertNotNull(dto.getOtherUserFullName());
+        }
+
+        // Owner replies in the first session and reads it
+        Long first = sessionIds.get(0);
+        send(first, "Yes, it is");
+        assertEquals(2, unread(first));
+        chatService.markAsRead(first);
+        assertEquals(0, unread(first));
+
+        TestFixtures.login(renters.get(0));
+        assertEquals(1, unread(first));
+        assertEquals("Yes, it is", session(first).getLastMessagePreview());
+
+        // Deleting an unread message takes it out of the count and the preview
+        Long second = sessionIds.get(1);
+        TestFixtures.login(renters.get(1));
+        ChatMessageResponseDTO last = send(second, "Never mind");
+        chatService.deleteMessage(last.getMessageId());
+        TestFixtures.login(owner);
+        assertEquals(2, unread(second));
+        assertEquals("Hello again 1", session(second).getLastMessagePreview());
+    }
+
+    @Test
+    @DisplayName("Should rebuild inbox columns of sessions that predate them")
+    void testBackfill_RebuildsMissingInbox() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(sessionId, "One");
+        send(sessionId, "Two");
+
+        ChatSession session = chatSessionRepository.findById(sessionId).orElseThrow();
+        session.setParticipantOneUnread(null);
+        session.setParticipantTwoUnread(null);
+        session.setLastMessagePreview(null);
+        session.setLastMessageId(null);
+        chatSessionRepository.save(session);
+
+        TestFixtures.login(owner);
+        assertEquals(2, unread(sessionId)); // counted directly until backfilled
+
+        assertTrue(backfillJob.backfill() >= 1);
+
+        ChatSession rebuilt = chatSessionRepository.findById(sessionId).orElseThrow();
+        assertNotNull(rebuilt.getParticipantOneUnread());
+        assertEquals(2, rebuilt.getParticipantOneUnread() + rebuilt.getParticipantTwoUnread());
+        assertEquals("Two", rebuilt.getLastMessagePreview());
+        assertEquals(2, unread(sessionId));
+    }
+
+    @Test
+    @DisplayName("Should number messages that predate sequencing, after which new ones continue")
+    void testBackfill_SequencesLegacyMessages() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(sessionId, "One");
+        send(sessionId, "Two");
+
+        ChatSession session = chatSessionRepository.findById(sessionId).orElseThrow();
+        session.setLastMessageSeq(null);
+        chatSessionRepository.save(session);
+        List<ChatMessage> legacy = messages(sessionId);
+        legacy.forEach(message -> message.setSeq(null));
+        chatMessageRepository.saveAll(legacy);
+
+        assertEquals(3L, send(sessionId, "Three").getSeq()); // continues after the legacy messages
+        assertTrue(backfillJob.sequence() >= 1);
+
+        assertEquals(List.of(1L, 2L, 3L), messages(sessionId).stream().map(ChatMessage::getSeq).toList());
+        assertEquals(3L, chatSessionRepository.findById(sessionId).orElseThrow().getLastMessageSeq());
+    }
+
+    @Test
+    @DisplayName("Should return only new messages, deletions and read positions since the client's cursor")
+    void testSync_ReturnsDeltas() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(sessionId, "One");
+        ChatMessageResponseDTO two = send(sessionId, "Two");
+        send(sessionId, "Three");
+
+        // Fresh client: the whole session
+        TestFixtures.login(owner);
+        ChatSessionDeltaDTO full = sync(List.of(), null).getSessions().get(0);
+        assertEquals(sessionId, full.getSessionId());
+        assertEquals(3L, full.getLastSeq());
+        assertEquals(List.of("One", "Two", "Three"), full.getMessages().stream().map(ChatMessageResponseDTO::getTextContent).toList());
+        assertEquals(3, full.getUnreadCount());
+
+        ChatSessionDeltaDTO page = chatService.getMessagesAfter(sessionId, 1, 1, null);
+        assertEquals(List.of(2L), page.getMessages().stream().map(ChatMessageResponseDTO::getSeq).toList());
+        assertTrue(page.isHasMore());
+
+        // Renter syncs, then the owner reads, the renter withdraws one and sends another
+        TestFixtures.login(renter);
+        ChatSyncResponseDTO before = sync(List.of(new ChatSyncRequestDTO.SessionCursor(sessionId, 3L, null, null)), null);
+        assertTrue(before.getSessions().isEmpty());
+        TestFixtures.login(owner);
+        chatService.markAsRead(sessionId);
+        TestFixtures.login(renter);
+        chatService.deleteMessage(two.getMessageId());
+        send(sessionId, "Four");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ChatSyncResponseDTO after = sync(List.of(new ChatSyncRequestDTO.SessionCursor(sessionId, 3L, null, null)),
+                before.getSyncedAt());
+        // changed session rows + deletions + their new messages; no COUNT
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "Expected at most 3 statements, got " + statistics.getPrepareStatementCount());
+        ChatSessionDeltaDTO delta = after.getSessions().get(0);
+        assertEquals(List.of("Four"), delta.getMessages().stream().map(ChatMessageResponseDTO::getTextContent).toList());
+        assertEquals(List.of(two.getSeq()), delta.getDeletedSeqs());
+        assertEquals(3L, delta.getOtherReadSeq());
+
+        // A single session's catch-up reports deletions too
+        ChatSessionDeltaDTO catchUp = chatService.getMessagesAfter(sessionId, 3, 50, before.getSyncedAt());
+        assertEquals(List.of(two.getSeq()), catchUp.getDeletedSeqs());
+        assertEquals(4L, catchUp.getLastSeq());
+        assertNotNull(catchUp.getSyncedAt());
+
+        // Up to date: no messages; a deletion within the overlap window is repeated (applied idempotently)
+        ChatSyncResponseDTO again = sync(List.of(new ChatSyncRequestDTO.SessionCursor(sessionId, 4L, null, 3L)),
+                after.getSyncedAt());
+        assertTrue(again.getSessions().stream().allMatch(s -> s.getMessages().isEmpty()));
+        assertTrue(again.getSessions().stream().allMatch(s -> s.getDeletedSeqs().equals(List.of(two.getSeq()))));
+    }
+
+    @Test
+    @DisplayName("Should read only the sessions changed since the last sync, a page at a time, in three statements")
+    void testSync_ReadsChangedSessionsOnly() {
+        User owner = fixtures.owner().getUser();
+        List<Long> sessionIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User renter = fixtures.renter().getUser();
+            TestFixtures.login(renter);
+            Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+            sessionIds.add(sessionId);
+            send(sessionId, "Hello " + i);
+            send(sessionId, "Still there " + i + "?");
+        }
+
+        // First sync, two sessions per page: every session, new messages of all of them in one query
+        TestFixtures.login(owner);
+        ReflectionTestUtils.setField(chatService, "syncMaxSessions", 2);
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            ChatSyncResponseDTO first = sync(List.of(), null);
+            assertTrue(statistics.getPrepareStatementCount() <= 3,
+                    "Expected at most 3 statements, got " + statistics.getPrepareStatementCount());
+            assertEquals(sessionIds.subList(0, 2), first.getSessions().stream().map(ChatSessionDeltaDTO::getSessionId).toList());
+            assertEquals(sessionIds.get(1), first.getAfterSessionId());
+            assertEquals(List.of("Hello 0", "Still there 0?"),
+                    first.getSessions().get(0).getMessages().stream().map(ChatMessageResponseDTO::getTextContent).toList());
+
+            ChatSyncResponseDTO rest = chatService.sync(new ChatSyncRequestDTO(new ArrayList<>(), null, first.getAfterSessionId()));
+            assertEquals(List.of(sessionIds.get(2)), rest.getSessions().stream().map(ChatSessionDeltaDTO::getSessionId).toList());
+            assertNull(rest.getAfterSessionId());
+
+            // Only the middle session changes; with the overlap moved out of the way, it is the only one read
+            ReflectionTestUtils.setField(chatService, "syncDeletionOverlapSeconds", 0L);
+            List<ChatSyncRequestDTO.SessionCursor> cursors = new ArrayList<>();
+            for (Long sessionId : sessionIds) {
+                cursors.add(new ChatSyncRequestDTO.SessionCursor(sessionId, 2L, null, null));
+            }
+            send(sessionIds.get(1), "Never mind");
+
+            statistics.clear();
+            ChatSyncResponseDTO delta = sync(cursors, first.getSyncedAt());
+            assertTrue(statistics.getPrepareStatementCount() <= 3,
+                    "Expected at most 3 statements, got " + statistics.getPrepareStatementCount());
+            assertEquals(1, delta.getSessions().size());
+            assertEquals(sessionIds.get(1), delta.getSessions().get(0).getSessionId());
+            assertEquals(List.of("Never mind"),
+                    delta.getSessions().get(0).getMessages().stream().map(ChatMessageResponseDTO::getTextContent).toList());
+            assertNull(delta.getAfterSessionId());
+        } finally {
+            ReflectionTestUtils.setField(chatService, "syncMaxSessions", 50);
+            ReflectionTestUtils.setField(chatService, "syncDeletionOverlapSeconds", 30L);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the per-user unread total in step, push changes and repair drift")
+    void testUnreadTotal_CountsPushesAndReconciles() {
+        User owner = fixtures.owner().getUser();
+        User first = fixtures.renter().getUser();
+        User second = fixtures.renter().getUser();
+
+        TestFixtures.login(owner);
+        assertEquals(0, chatService.getTotalUnreadCount()); // creates the counter
+
+        TestFixtures.login(first);
+        Long firstSession = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(firstSession, "Hi");
+        send(firstSession, "Are you there?");
+        TestFixtures.login(second);
+        Long secondSession = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        ChatMessageResponseDTO withdrawn = send(secondSession, "Wrong person");
+        verify(messagingTemplate).convertAndSendToUser(eq(owner.getEmail()), eq("/queue/unread"),
+                eq(Map.of("unreadCount", 3L)));
+        chatService.deleteMessage(withdrawn.getMessageId());
+
+        TestFixtures.login(owner);
+        assertEquals(2, chatService.getTotalUnreadCount());
+        clearInvocations(messagingTemplate);
+        chatService.markAsRead(firstSession);
+        assertEquals(0, chatService.getTotalUnreadCount());
+        verify(messagingTemplate).convertAndSendToUser(eq(owner.getEmail()), eq("/queue/unread"),
+                eq(Map.of("unreadCount", 0L)));
+
+        // Drift (e.g. a change that raced the counter's creation) is repaired and pushed
+        TestFixtures.login(first);
+        send(firstSession, "Thanks!");
+        counterRepository.findById(owner.getUserId()).ifPresent(counter -> {
+            counter.setUnreadCount(7L);
+            counterRepository.save(counter);
+        });
+        assertTrue(unreadCountService.reconcile() >= 1);
+        TestFixtures.login(owner);
+        assertEquals(1, chatService.getTotalUnreadCount());
+    }
+
+    @Test
+    @DisplayName("Should not lose a change that commits while the counter is being created")
+    void testUnreadTotal_CountsChangeRacingCreation() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(sessionId, "Hi");
+
+        // The owner's first read creates the counter while a send is in flight: the send finds no row
+        // to adjust, the read counts before the send commits
+        transactionTemplate.executeWithoutResult(status -> {
+            send(sessionId, "Are you there?");
+            TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            requiresNew.executeWithoutResult(inner -> counterRepository.save(new ChatUnreadCounter(owner.getUserId(), 1L)));
+        });
+
+        assertEquals(2L, counterRepository.findById(owner.getUserId()).orElseThrow().getUnreadCount());
+        TestFixtures.login(owner);
+        assertEquals(2, chatService.getTotalUnreadCount());
+    }
+
+    @Test
+    @DisplayName("Should send from the cached session descriptor and honour owner status changes")
+    void testSendMessage_UsesCachedDescriptor() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        send(sessionId, "First"); // resolves the descriptor
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ChatMessageResponseDTO sent = send(sessionId, "Second");
+        assertEquals("Test User", sent.getSenderFullName());
+        assertEquals(2L, sent.getSeq());
+        assertTrue(statistics.getPrepareStatementCount() <= SEND_STATEMENT_BUDGET,
+                "Expected at most " + SEND_STATEMENT_BUDGET + " statements, got " + statistics.getPrepareStatementCount());
+
+        // Owner loses approval: the change drops the descriptor, the gate closes
+        VehicleOwner profile = vehicleOwnerRepository.findByUser_UserId(owner.getUserId()).orElseThrow();
+        profile.setVerificationStatus(VerificationStatus.REJECTED);
+        vehicleOwnerRepository.save(profile);
+        chatSessionAccessCache.onUserChanged(owner.getUserId());
+
+        assertThrows(ChatSessionException.class, () -> send(sessionId, "Third"));
+    }
+
+    @Test
+    @DisplayName("Should store concurrent resends of one client message ID once")
+    void testSendMessage_ConcurrentResendsStoreOnce() throws Exception {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+
+        int senders = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(senders);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ChatMessageResponseDTO>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < senders; i++) {
+                results.add(executor.submit(() -> {
+                    TestFixtures.login(renter);
+                    start.await();
+                    try {
+                        return chatService.sendMessage(sessionId,
+                                new SendMessageRequestDTO(MessageType.TEXT, "Once", null, null, null, "same-key"));
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+            List<Long> ids = new ArrayList<>();
+            for (Future<ChatMessageResponseDTO> result : results) {
+                ids.add(result.get(30, TimeUnit.SECONDS).getMessageId());
+            }
+            assertEquals(1, ids.stream().distinct().count());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, messages(sessionId).size());
+    }
+
+    private List<ChatSessionResponseDTO> inbox() {
+        Page<ChatSessionResponseDTO> page = chatService.getMySessions(
+                PageRequest.of(0, 20, Sort.by("lastMessageAt").descending()));
+        return page.getContent();
+    }
+
+    private long unread(Long sessionId) {
+        return session(sessionId).getUnreadCount();
+    }
+
+    private ChatSessionResponseDTO session(Long sessionId) {
+        return chatService.getSessionById(sessionId);
+    }
+
+    private ChatSyncResponseDTO sync(List<ChatSyncRequestDTO.SessionCursor> cursors, LocalDateTime deletedSince) {
+        return chatService.sync(new ChatSyncRequestDTO(new ArrayList<>(cursors), deletedSince, null));
+    }
+
+    private List<ChatMessage> messages(Long sessionId) {
+        return chatMessageRepository.findBySession_SessionIdAndIsDeletedFalse(sessionId, PageRequest.of(0, 50, Sort.by("messageId")))
+                .getContent();
+    }
+
+    private ChatMessageResponseDTO send(Long sessionId, String text) {
+        return chatService.sendMessage(sessionId, new SendMessageRequestDTO(MessageType.TEXT, text, null, null, null, null));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.ChatMessageResponseDTO;
+import com.example.springrentMe.DTOs.ChatSessionDeltaDTO;
+import com.example.springrentMe.DTOs.CreateSessionRequestDTO;
+import com.example.springrentMe.DTOs.SendMessageRequestDTO;
+import com.example.springrentMe.DTOs.WebSocketMessageDTO;
+import com.example.springrentMe.exceptions.MessageValidationException;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.models.chat.ChatMessage;
+import com.example.springrentMe.models.chat.ChatSession;
+import com.example.springrentMe.repositories.ChatMessageDeadLetterRepository;
+import com.example.springrentMe.repositories.ChatMessageRepository;
+import com.example.springrentMe.repositories.ChatSessionRepository;
+import com.example.springrentMe.services.chat.ChatWriteBehindQueue;
+import com.example.springrentMe.services.chat.UnreadCountService;
+import com.example.springrentMe.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * With the write-behind pipeline on, sends are sequenced and broadcast
+ * immediately and reach the database on flush, once each.
+ */
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "app.chat.write-behind.enabled=true",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Chat Write-Behind Tests")
+class ChatWriteBehindTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatWriteBehindQueue chatWriteBehindQueue;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private UnreadCountService unreadCountService;
+
+    @Autowired
+    private ChatMessageDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @MockitoSpyBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should broadcast in sequence and store each message once per batch flush")
+    void testWriteBehind_SequencesBroadcastsAndFlushes() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        assertEquals(0, unreadCountService.getUnreadCount(owner.getUserId()));
+
+        ChatMessageResponseDTO first = send(sessionId, "One", "client-1");
+        send(sessionId, "Two", null);
+        send(sessionId, "Three", "client-3");
+        assertEquals(1L, first.getSeq());
+        assertNull(first.getMessageId());
+        // Reserved in the session row before being handed out, so a restart can't hand them out again
+        assertTrue(chatSessionRepository.findById(sessionId).orElseThrow().getReservedMessageSeq() >= 3L);
+
+        // Broadcast right away, in sequence order; nothing stored yet
+        ArgumentCaptor<Object> broadcasts = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/session." + sessionId), broadcasts.capture());
+        assertEquals(List.of(1L, 2L, 3L), broadcasts.getAllValues().stream()
+                .map(payload -> ((WebSocketMessageDTO) payload).getMessage().getSeq()).toList());
+        assertEquals(0, stored(sessionId).size());
+
+        // A resend before the flush gets the queued original
+        assertEquals(1L, send(sessionId, "One", "client-1").getSeq());
+
+        // Catch-ups include what is still queued
+        ChatSessionDeltaDTO queued = chatService.getMessagesAfter(sessionId, 1, 50, null);
+        assertEquals(3L, queued.getLastSeq());
+        assertEquals(List.of(2L, 3L), queued.getMessages().stream().map(ChatMessageResponseDTO::getSeq).toList());
+
+        assertEquals(3, chatWriteBehindQueue.flush());
+        List<ChatMessage> messages = stored(sessionId);
+        assertEquals(List.of(1L, 2L, 3L), messages.stream().map(ChatMessage::getSeq).toList());
+        assertEquals(List.of("One", "Two", "Three"), messages.stream().map(ChatMessage::getTextContent).toList());
+
+        // Broadcast again once stored, with the message IDs: the senders' confirmation
+        ArgumentCaptor<Object> confirmations = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/session." + sessionId), confirmations.capture());
+        assertEquals(messages.stream().map(ChatMessage::getMessageId).toList(), confirmations.getAllValues().stream()
+                .map(payload -> ((WebSocketMessageDTO) payload).getMessage().getMessageId())
+                .filter(Objects::nonNull).toList());
+
+        // One inbox update for the batch, counted per message
+        ChatSession session = chatSessionRepository.findById(sessionId).orElseThrow();
+        assertEquals(3L, session.getLastMessageSeq());
+        assertEquals(messages.get(2).getMessageId(), session.getLastMessageId());
+        assertEquals("Three", session.getLastMessagePreview());
+        assertEquals(3, owner.getUserId() < renter.getUserId()
+                ? session.getParticipantOneUnread() : session.getParticipantTwoUnread());
+        assertEquals(3, unreadCountService.getUnreadCount(owner.getUserId()));
+
+        // A resend after the flush gets the stored original; sequencing continues
+        ChatMessageResponseDTO resent = send(sessionId, "Three", "client-3");
+        assertEquals(messages.get(2).getMessageId(), resent.getMessageId());
+        assertEquals(4L, send(sessionId, "Four", null).getSeq());
+        ChatSessionDeltaDTO mixed = chatService.getMessagesAfter(sessionId, 2, 50, null);
+        assertEquals(List.of(3L, 4L), mixed.getMessages().stream().map(ChatMessageResponseDTO::getSeq).toList());
+        assertNotNull(mixed.getMessages().get(0).getMessageId());
+        assertNull(mixed.getMessages().get(1).getMessageId());
+        assertEquals(1, chatWriteBehindQueue.flush());
+        assertEquals(4, stored(sessionId).size());
+        assertEquals(4, unreadCountService.getUnreadCount(owner.getUserId()));
+    }
+
+    @Test
+    @DisplayName("Should dead-letter messages that can't be stored without holding up the rest")
+    void testWriteBehind_DeadLettersUnstorableMessages() {
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long doomed = chatService.createOrGetSession(
+                new CreateSessionRequestDTO(fixtures.owner().getUser().getUserId(), null)).getSessionId();
+        Long kept = chatService.createOrGetSession(
+                new CreateSessionRequestDTO(fixtures.owner().getUser().getUserId(), null)).getSessionId();
+        long deadLettersBefore = deadLetterRepository.count();
+
+        send(doomed, "Lost", "doomed-1");
+        send(kept, "Kept", "kept-1");
+        send(doomed, "Also lost", "doomed-2");
+        // The session goes away while its messages are queued
+        jdbcTemplate.update("DELETE FROM chat_sessions WHERE session_id = ?", doomed);
+
+        assertEquals(3, chatWriteBehindQueue.flush());
+        assertEquals(List.of("Kept"), stored(kept).stream().map(ChatMessage::getTextContent).toList());
+        assertEquals(deadLettersBefore + 2, deadLetterRepository.count());
+        assertThrows(MessageValidationException.class, () -> send(kept, "Lost", "doomed-1"));
+        assertEquals(0, chatWriteBehindQueue.flush());
+    }
+
+    @Test
+    @DisplayName("Should count a message once when the driver doesn't report row counts")
+    void testWriteBehind_ResolvesUnreportedRowCounts() {
+        User owner = fixtures.owner().getUser();
+        User renter = fixtures.renter().getUser();
+        TestFixtures.login(renter);
+        Long sessionId = chatService.createOrGetSession(new CreateSessionRequestDTO(owner.getUserId(), null)).getSessionId();
+        assertEquals(0, unreadCountService.getUnreadCount(owner.getUserId()));
+
+        send(sessionId, "One", "client-1");
+        send(sessionId, "Two", "client-2");
+        // A resend's original, already stored under another number: the queued copy's insert is skipped
+        jdbcTemplate.update("INSERT INTO chat_messages (session_id, sender_user_id, message_type, text_content, "
+                        + "is_read, is_deleted, created_at, seq, client_message_id) "
+                        + "VALUES (?, ?, 'TEXT', 'One', FALSE, FALSE, CURRENT_TIMESTAMP, 99, 'client-1')",
+                sessionId, renter.getUserId());
+
+        // Every statement of the batch reports SUCCESS_NO_INFO (-2) instead of its row count
+        JdbcTemplate noInfo = spy(jdbcTemplate);
+        doAnswer(invocation -> {
+            int[][] counts = (int[][]) invocation.callRealMethod();
+            for (int[] chunk : counts) {
+                Arrays.fill(chunk, Statement.SUCCESS_NO_INFO);
+            }
+            return counts;
+        }).when(noInfo).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        ReflectionTestUtils.setField(chatWriteBehindQueue, "jdbcTemplate", noInfo);
+        try {
+            clearInvocations(messagingTemplate);
+            assertEquals(2, chatWriteBehindQueue.flush());
+        } finally {
+            ReflectionTestUtils.setField(chatWriteBehindQueue, "jdbcTemplate", jdbcTemplate);
+        }
+
+        // Only "Two" was new: counted and confirmed once
+        assertEquals(List.of(2L, 99L), stored(sessionId).stream().map(ChatMessage::getSeq).toList());
+        assertEquals(1, unreadCountService.getUnreadCount(owner.getUserId()));
+        ArgumentCaptor<Object> confirmations = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/session." + sessionId), confirmations.capture());
+        assertEquals(List.of(2L), confirmations.getAllValues().stream()
+                .map(payload -> ((WebSocketMessageDTO) payload).getMessage().getSeq()).toList());
+    }
+
+    private List<ChatMessage> stored(Long sessionId) {
+        return chatMessageRepository.findBySession_SessionIdAndIsDeletedFalse(sessionId, PageRequest.of(0, 50))
+                .getContent().stream()
+                .sorted((a, b) -> Long.compare(a.getSeq(), b.getSeq()))
+                .toList();
+    }
+
+    private ChatMessageResponseDTO send(Long sessionId, String text, String clientMessageId) {
+        return chatService.sendMessage(sessionId,
+                new SendMessageRequestDTO(MessageType.TEXT, text, null, null, null, clientMessageId));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("RatingReconciliationJob Tests")
+class RatingReconciliationJobTest {
+
+    @Autowired
+    private RatingReconciliationJob job;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private VehicleOwner owner;
+    private Vehicle vehicle;
+    private Renter renter;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.owner();
+        renter = fixtures.renter();
+        vehicle = fixtures.vehicle(owner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should repair drifted vehicle and owner aggregates from the reviews")
+    void testReconcile() {
+        // Written behind the running sums' back
+        review(4);
+        review(5);
+
+        assertTrue(job.reconcileVehicles() >= 1);
+        assertTrue(job.reconcileOwners() >= 1);
+
+        Vehicle repaired = vehicleRepository.findById(vehicle.getVehicleId()).orElseThrow();
+        assertEquals(9L, repaired.getRatingSum());
+        assertEquals(2L, repaired.getTotalReviews());
+        assertEquals(4.5, repaired.getAverageRating(), 1e-9);
+        assertEquals(1L, repaired.getRatingCount4());
+        assertEquals(1L, repaired.getRatingCount5());
+        VehicleOwner repairedOwner = vehicleOwnerRepository.findById(owner.getVehicleOwnerId()).orElseThrow();
+        assertEquals(9L, repairedOwner.getRatingSum());
+        assertEquals(2L, repairedOwner.getTotalReviews());
+
+        // Nothing left to repair for this vehicle
+        assertFalse(vehicleRepository.findRatingDrift(vehicle.getVehicleId() - 1,
+                PageRequest.of(0, 1)).contains(vehicle.getVehicleId()));
+    }
+
+    @Test
+    @DisplayName("Should apply rating deltas atomically and skip rows that are not initialised")
+    void testAddRating() {
+        Long vehicleId = vehicle.getVehicleId();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, vehicleRepository.addRating(vehicleId, 5, 1, LocalDateTime.now()));
+            assertEquals(1, vehicleRepository.addRating(vehicleId, 2, 1, LocalDateTime.now()));
+        });
+        Vehicle updated = vehicleRepository.findById(vehicleId).orElseThrow();
+        assertEquals(7L, updated.getRatingSum());
+        assertEquals(2L, updated.getTotalReviews());
+        assertEquals(3.5, updated.getAverageRating(), 1e-9);
+        assertEquals(1L, updated.getRatingCount5());
+        assertEquals(1L, updated.getRatingCount2());
+        assertEquals(0L, updated.getRatingCount3());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            vehicleRepository.addRating(vehicleId, 5, -1, LocalDateTime.now());
+            vehicleRepository.addRating(vehicleId, 2, -1, LocalDateTime.now());
+        });
+        assertEquals(0.0, vehicleRepository.findById(vehicleId).orElseThrow().getAverageRating());
+
+        updated = vehicleRepository.findById(vehicleId).orElseThrow();
+        updated.setRatingSum(null);
+        vehicleRepository.save(updated);
+        Integer rows = transactionTemplate.execute(status ->
+                vehicleRepository.addRating(vehicleId, 3, 1, LocalDateTime.now()));
+        assertEquals(0, rows);
+    }
+
+    private void review(int rating) {
+        Booking booking = new Booking();
+        booking.setVehicle(vehicle);
+        booking.setRenter(renter);
+        booking.setStartDate(LocalDate.now().minusDays(10));
+        booking.setEndDate(LocalDate.now().minusDays(8));
+        booking.setStatus(BookingStatus.COMPLETED);
+        booking.setTotalAmount(new BigDecimal("60.00"));
+
+        Review review = new Review();
+        review.setBooking(bookingRepository.save(booking));
+        review.setVehicle(vehicle);
+        review.setVehicleOwner(owner);
+        review.setReviewer(renter.getUser());
+        review.setRating(rating);
+        reviewRepository.save(review);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.springrentMe.services;
 
 import com.example.springrentMe.DTOs.CreateReviewRequestDTO;
 import com.example.springrentMe.DTOs.ReviewResponseDTO;
+import com.example.springrentMe.DTOs.VehicleReviewSummaryDTO;
 import com.example.springrentMe.exceptions.BookingNotCompletedException;
 import com.example.springrentMe.exceptions.DuplicateReviewException;
 import com.example.springrentMe.exceptions.ReviewValidationException;
@@ -10,8 +11,12 @@ import com.example.springrentMe.models.*;
 import com.example.springrentMe.repositories.BookingRepository;
 import com.example.springrentMe.repositories.ReviewRepository;
 import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.repositories.VehicleRatingStats;
 import com.example.springrentMe.repositories.VehicleRepository;
 import com.example.springrentMe.security.UserDetailsImpl;
+import com.example.springrentMe.services.cache.ReviewSummaryCache;
+import com.example.springrentMe.services.cache.VehicleResponseCache;
+import com.example.springrentMe.services.search.VehicleFacetCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -25,10 +30,13 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +55,15 @@ class ReviewServiceTest {
     @Mock
     private VehicleOwnerRepository vehicleOwnerRepository;
 
+    @Mock
+    private VehicleFacetCache facetCache;
+
+    @Mock
+    private VehicleResponseCache responseCache;
+
+    @Mock
+    private ReviewSummaryCache summaryCache;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -138,14 +155,9 @@ class ReviewServiceTest {
         when(reviewRepository.existsByBooking_BookingId(booking.getBookingId())).thenReturn(false);
         when(reviewRepository.save(any(Review.class))).thenReturn(savedReview);
 
-        // Mock aggregates recomputation
-        when(vehicleRepository.findById(vehicle.getVehicleId())).thenReturn(Optional.of(vehicle));
-        when(reviewRepository.getAverageRatingByVehicle(vehicle.getVehicleId())).thenReturn(5.0);
-        when(reviewRepository.countByVehicle(vehicle.getVehicleId())).thenReturn(1L);
-
-        when(vehicleOwnerRepository.findById(owner.getVehicleOwnerId())).thenReturn(Optional.of(owner));
-        when(reviewRepository.getAverageRatingByOwner(owner.getVehicleOwnerId())).thenReturn(5.0);
-        when(reviewRepository.countByOwner(owner.getVehicleOwnerId())).thenReturn(1L);
+        // Mock incremental aggregate updates
+        when(vehicleRepository.addRating(eq(vehicle.getVehicleId()), eq(5L), eq(1L), any())).thenReturn(1);
+        when(vehicleOwnerRepository.addRating(owner.getVehicleOwnerId(), 5L, 1L)).thenReturn(1);
 
         // Act
         ReviewResponseDTO response = reviewService.createReview(request);
@@ -157,14 +169,44 @@ class ReviewServiceTest {
         assertEquals(5, response.getRating());
         assertEquals("Great vehicle!", response.getComment());
 
-        // Verify entities got updated with aggregates
-        assertEquals(5.0, vehicle.getAverageRating());
-        assertEquals(1L, vehicle.getTotalReviews());
-        assertEquals(5.0, owner.getAverageRating());
-        assertEquals(1L, owner.getTotalReviews());
+        // Verify aggregates were incremented, not recomputed over all reviews
+        verify(reviewRepository, never()).getAverageRatingByVehicle(any());
+        verify(reviewRepository, never()).countByOwner(any());
+        verify(vehicleRepository, never()).recomputeRating(any(), any());
+        verify(vehicleOwnerRepository, never()).recomputeRating(any());
+        verify(responseCache, times(1)).onRatingChanged(vehicle.getVehicleId());
+        verify(summaryCache, times(1)).onReviewsChanged(vehicle.getVehicleId());
+    }
 
-        verify(vehicleRepository, times(1)).save(vehicle);
-        verify(vehicleOwnerRepository, times(1)).save(owner);
+    @Test
+    @DisplayName("Should recompute aggregates whose running sums are not initialised yet")
+    void testCreateReview_UninitialisedAggregates() {
+        // Arrange
+        mockUser(renterUser.getUserId(), "RENTER");
+        CreateReviewRequestDTO request = new CreateReviewRequestDTO(booking.getBookingId(), 4, "Good");
+
+        Review savedReview = new Review();
+        savedReview.setReviewId(101L);
+        savedReview.setBooking(booking);
+        savedReview.setVehicle(vehicle);
+        savedReview.setVehicleOwner(owner);
+        savedReview.setReviewer(renterUser);
+        savedReview.setRating(4);
+
+        when(bookingRepository.findById(booking.getBookingId())).thenReturn(Optional.of(booking));
+        when(reviewRepository.existsByBooking_BookingId(booking.getBookingId())).thenReturn(false);
+        when(reviewRepository.save(any(Review.class))).thenReturn(savedReview);
+        when(vehicleRepository.addRating(eq(vehicle.getVehicleId()), eq(4L), eq(1L), any())).thenReturn(0);
+        when(vehicleRepository.findByIdForUpdate(vehicle.getVehicleId())).thenReturn(Optional.of(vehicle));
+        when(vehicleOwnerRepository.addRating(owner.getVehicleOwnerId(), 4L, 1L)).thenReturn(0);
+        when(vehicleOwnerRepository.findByIdForUpdate(owner.getVehicleOwnerId())).thenReturn(Optional.of(owner));
+
+        // Act
+        reviewService.createReview(request);
+
+        // Assert
+        verify(vehicleRepository, times(1)).recomputeRating(eq(vehicle.getVehicleId()), any());
+        verify(vehicleOwnerRepository, times(1)).recomputeRating(owner.getVehicleOwnerId());
     }
 
     @Test
@@ -247,24 +289,19 @@ class ReviewServiceTest {
         review.setReviewer(renterUser);
         review.setVehicle(vehicle);
         review.setVehicleOwner(owner);
+        review.setRating(4);
 
         when(reviewRepository.findById(100L)).thenReturn(Optional.of(review));
-        // Mock aggregates recomputation
-        when(vehicleRepository.findById(vehicle.getVehicleId())).thenReturn(Optional.of(vehicle));
-        when(reviewRepository.getAverageRatingByVehicle(vehicle.getVehicleId())).thenReturn(0.0);
-        when(reviewRepository.countByVehicle(vehicle.getVehicleId())).thenReturn(0L);
-
-        when(vehicleOwnerRepository.findById(owner.getVehicleOwnerId())).thenReturn(Optional.of(owner));
-        when(reviewRepository.getAverageRatingByOwner(owner.getVehicleOwnerId())).thenReturn(0.0);
-        when(reviewRepository.countByOwner(owner.getVehicleOwnerId())).thenReturn(0L);
+        // Mock incremental aggregate updates (rating and count taken back out)
+        when(vehicleRepository.addRating(eq(vehicle.getVehicleId()), eq(4L), eq(-1L), any())).thenReturn(1);
+        when(vehicleOwnerRepository.addRating(owner.getVehicleOwnerId(), -4L, -1L)).thenReturn(1);
 
         // Act
         assertDoesNotThrow(() -> reviewService.deleteReview(100L));
 
         // Assert
         verify(reviewRepository, times(1)).delete(review);
-        verify(vehicleRepository, times(1)).save(vehicle);
-        verify(vehicleOwnerRepository, times(1)).save(owner);
+        verify(vehicleRepository, never()).recomputeRating(any(), any());
     }
 
     @Test
@@ -277,11 +314,12 @@ class ReviewServiceTest {
         review.setReviewer(renterUser);
         review.setVehicle(vehicle);
         review.setVehicleOwner(owner);
+        review.setRating(3);
 
         when(reviewRepository.findById(100L)).thenReturn(Optional.of(review));
-        // Mock aggregates recomputation
-        when(vehicleRepository.findById(vehicle.getVehicleId())).thenReturn(Optional.of(vehicle));
-        when(vehicleOwnerRepository.findById(owner.getVehicleOwnerId())).thenReturn(Optional.of(owner));
+        // Mock incremental aggregate updates
+        when(vehicleRepository.addRating(eq(vehicle.getVehicleId()), eq(3L), eq(-1L), any())).thenReturn(1);
+        when(vehicleOwnerRepository.addRating(owner.getVehicleOwnerId(), -3L, -1L)).thenReturn(1);
 
         // Act
         assertDoesNotThrow(() -> reviewService.deleteReview(100L));
@@ -308,4 +346,41 @@ class ReviewServiceTest {
 
         verify(reviewRepository, never()).delete(any(Review.class));
     }
+
+    @Test
+    @DisplayName("Should build the review summary from the maintained counters and the latest reviews")
+    void testGetVehicleReviewSummary() {
+        // Arrange: cache miss, so the loader runs
+        when(summaryCache.summary(eq(vehicle.getVehicleId()), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<VehicleReviewSummaryDTO>>getArgument(1).get());
+        when(vehicleRepository.findRatingStatsById(vehicle.getVehicleId())).thenReturn(Optional.of(
+                new VehicleRatingStats(vehicle.getVehicleId(), 4.5, 4L, 0L, 0L, 0L, 2L, 2L)));
+
+        Review latest = new Review();
+        latest.setReviewId(102L);
+        latest.setBooking(booking);
+        latest.setVehicle(vehicle);
+        latest.setVehicleOwner(owner);
+        latest.setReviewer(renterUser);
+        latest.setRating(5);
+        when(reviewRepository.findByVehicle_VehicleIdOrderByCreatedAtDescReviewIdDesc(eq(vehicle.getVehicleId()), any()))
+                .thenReturn(List.of(latest));
+
+        // Act
+        VehicleReviewSummaryDTO summary = reviewService.getVehicleReviewSummary(vehicle.getVehicleId());
+
+        // Assert
+        assertEquals(4.5, summary.getAverageRating());
+        assertEquals(4L, summary.getTotalReviews());
+        assertEquals(List.of(5, 4, 3, 2, 1), List.copyOf(summary.getRatingDistribution().keySet()));
+        assertEquals(2L, summary.getRatingDistribution().get(4));
+        assertEquals(0L, summary.getRatingDistribution().get(1));
+        assertEquals(1, summary.getRecentReviews().size());
+        assertEquals("Renter User", summary.getRecentReviews().get(0).getReviewerName());
+
+        // No aggregate queries over the reviews table
+        verify(reviewRepository, never()).getAverageRatingByVehicle(any());
+        verify(reviewRepository, never()).countByVehicle(any());
+        verify(reviewRepository, never()).countByVehicleGroupByRating(any());
+    }
 }
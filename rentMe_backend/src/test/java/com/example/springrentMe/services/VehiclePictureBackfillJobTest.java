@@ -0,0 +1,91 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.VehicleResponseDTO;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.support.TestFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("VehiclePictureBackfillJob Tests")
+class VehiclePictureBackfillJobTest {
+
+    @Autowired
+    private VehiclePictureBackfillJob job;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should populate picture URLs in upload order, skipping other documents")
+    void testBackfill() {
+        VehicleOwner owner = fixtures.owner();
+        Vehicle legacy = vehicle(owner, null);
+        Vehicle other = vehicle(owner, null);
+        Vehicle current = vehicle(owner, List.of("https://cdn.example.com/kept.jpg"));
+
+        document(legacy, DocumentType.VEHICLE_PICTURE, "local", "vehicles/1/docs/front view.jpg");
+        document(legacy, DocumentType.VEHICLE_REGISTRATION, "local", "vehicles/1/docs/registration.pdf");
+        document(legacy, DocumentType.VEHICLE_PICTURE, "s3", "https://cdn.example.com/back.jpg");
+
+        assertEquals(2, job.backfill()); // chunk size 1: several chunks
+
+        List<String> urls = vehicleRepository.findById(legacy.getVehicleId()).orElseThrow().getPictureUrls();
+        assertEquals(2, urls.size());
+        assertTrue(urls.get(0).endsWith("/api/v1/files/vehicles/1/docs/front%20view.jpg"), urls.get(0));
+        assertEquals("https://cdn.example.com/back.jpg", urls.get(1));
+        assertEquals(List.of(), vehicleRepository.findById(other.getVehicleId()).orElseThrow().getPictureUrls());
+        assertEquals(List.of("https://cdn.example.com/kept.jpg"),
+                vehicleRepository.findById(current.getVehicleId()).orElseThrow().getPictureUrls());
+
+        VehicleResponseDTO dto = vehicleService.getVehicleById(legacy.getVehicleId());
+        assertEquals(urls, dto.getPictures());
+        assertEquals(urls.get(0), dto.getPrimaryPicture());
+
+        assertEquals(0, job.backfill());
+    }
+
+    private void document(Vehicle vehicle, DocumentType type, String provider, String fileUrl) {
+        Document doc = new Document();
+        doc.setVehicle(vehicle);
+        doc.setDocumentType(type);
+        doc.setDocumentName(type.name());
+        doc.setStorageProvider(provider);
+        doc.setFileUrl(fileUrl);
+        documentRepository.save(doc);
+    }
+
+    private Vehicle vehicle(VehicleOwner owner, List<String> pictureUrls) {
+        Vehicle vehicle = fixtures.vehicle(owner);
+        vehicle.setPictureUrls(pictureUrls);
+        return vehicleRepository.save(vehicle);
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.springrentMe.services;
+
+import com.example.springrentMe.DTOs.FacetBucketDTO;
+import com.example.springrentMe.DTOs.PriceBucketDTO;
+import com.example.springrentMe.DTOs.VehicleFacetsDTO;
+import com.example.springrentMe.DTOs.VehicleResponseDTO;
+import com.example.springrentMe.DTOs.VehicleSearchCriteria;
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.*;
+import com.example.springrentMe.services.search.VehicleTextIndex;
+import com.example.springrentMe.support.TestFixtures;
+import com.example.springrentMe.utils.KeysetCursor;
+import com.example.springrentMe.utils.SearchPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.storage.provider=local",
+        "GOOGLE_CLIENT_ID=test-client-id",
+        "GOOGLE_CLIENT_SECRET=test-client-secret"
+})
+@TestPropertySource(locations = "classpath:application-test.properties")
+@DisplayName("Vehicle Search Tests")
+class VehicleSearchTest {
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleTextIndex textIndex;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    // Unique per test so rows left behind by other tests never match
+    private String make;
+    private Vehicle cheapSedan;
+    private Vehicle bigSuv;
+    private Vehicle pricySuv;
+    private Renter renter;
+
+    @BeforeEach
+    void setUp() {
+        // Letters only, so the text index keeps it as one term
+        make = "Make" + UUID.randomUUID().toString().replace("-", "").substring(0, 10)
+                .chars().mapToObj(c -> String.valueOf((char) (Character.isDigit(c) ? 'g' + c - '0' : c)))
+                .collect(Collectors.joining());
+
+        VehicleOwner owner = fixtures.owner();
+        cheapSedan = vehicle(owner, VehicleType.SEDAN, 4, "30.00", 4.8, 6.93, 79.85);
+        bigSuv = vehicle(owner, VehicleType.SUV, 7, "60.00", 3.9, 7.29, 80.63);
+        pricySuv = vehicle(owner, VehicleType.SUV, 5, "120.00", 4.5, 6.93, 79.86);
+        bigSuv.setDescription("Diesel 7-seater, roof rack");
+        bigSuv = vehicleRepository.save(bigSuv);
+        // Saved through the repository, so the text index has to be told directly
+        List.of(cheapSedan, bigSuv, pricySuv).forEach(textIndex::onVehicleChanged);
+
+        renter = fixtures.renter();
+
+        book(bigSuv, 10, 12, BookingStatus.APPROVED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Should combine arbitrary filters")
+    void testFiltersCompose() {
+        VehicleSearchCriteria suvs = criteria();
+        suvs.setType(VehicleType.SUV);
+        suvs.setMinCapacity(6);
+        assertEquals(List.of(bigSuv.getVehicleId()), ids(vehicleService.searchVehicles(suvs, 0, 10)));
+
+        VehicleSearchCriteria rated = criteria();
+        rated.setMinRating(4.0);
+        rated.setMinPrice(new BigDecimal("50"));
+        assertEquals(List.of(pricySuv.getVehicleId()), ids(vehicleService.searchVehicles(rated, 0, 10)));
+
+        // Date range + bounding box: bigSuv is booked and outside the box anyway
+        VehicleSearchCriteria free = criteria();
+        free.setStartDate(LocalDate.now().plusDays(11));
+        free.setEndDate(LocalDate.now().plusDays(11));
+        assertFalse(ids(vehicleService.searchVehicles(free, 0, 10)).contains(bigSuv.getVehicleId()));
+        free.setMinLat(6.9);
+        free.setMaxLat(7.0);
+        free.setMinLng(79.8);
+        free.setMaxLng(79.9);
+        assertEquals(2, vehicleService.searchVehicles(free, 0, 10).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should exclude only vehicles with an active booking overlapping the requested dates")
+    void testDateRangeAvailability() {
+        // bigSuv: APPROVED on days 10-12 (setUp). Inactive bookings never block
+        book(cheapSedan, 10, 12, BookingStatus.CANCELLED);
+        book(cheapSedan, 10, 12, BookingStatus.COMPLETED);
+        book(pricySuv, 20, 21, BookingStatus.PENDING);
+
+        List<Long> all = List.of(cheapSedan.getVehicleId(), bigSuv.getVehicleId(), pricySuv.getVehicleId());
+        List<Long> withoutBigSuv = List.of(cheapSedan.getVehicleId(), pricySuv.getVehicleId());
+        // Booking days are inclusive at both ends
+        assertEquals(all, freeBetween(8, 9));
+        assertEquals(withoutBigSuv, freeBetween(8, 10));
+        assertEquals(withoutBigSuv, freeBetween(12, 14));
+        assertEquals(all, freeBetween(13, 14));
+        assertEquals(List.of(cheapSedan.getVehicleId()), freeBetween(11, 20));
+        assertEquals(List.of(cheapSedan.getVehicleId(), bigSuv.getVehicleId()), freeBetween(21, 21));
+
+        VehicleSearchCriteria halfOpen = criteria();
+        halfOpen.setStartDate(LocalDate.now().plusDays(8));
+        assertThrows(RuntimeException.class, () -> vehicleService.searchVehicles(halfOpen, 0, 10));
+        VehicleSearchCriteria reversed = criteria();
+        reversed.setStartDate(LocalDate.now().plusDays(9));
+        reversed.setEndDate(LocalDate.now().plusDays(8));
+        assertThrows(RuntimeException.class, () -> vehicleService.searchVehicles(reversed, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should sort by price and rating")
+    void testSortOptions() {
+        VehicleSearchCriteria byPrice = criteria();
+        byPrice.setSort("price_desc");
+        assertEquals(List.of(pricySuv.getVehicleId(), bigSuv.getVehicleId(), cheapSedan.getVehicleId()),
+                ids(vehicleService.searchVehicles(byPrice, 0, 10)));
+
+        VehicleSearchCriteria byRating = criteria();
+        byRating.setSort("rating");
+        assertEquals(List.of(cheapSedan.getVehicleId(), pricySuv.getVehicleId(), bigSuv.getVehicleId()),
+                ids(vehicleService.searchVehicles(byRating, 0, 10)));
+
+        VehicleSearchCriteria unknown = criteria();
+        unknown.setSort("distance");
+        assertThrows(RuntimeException.class, () -> vehicleService.searchVehicles(unknown, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should page a filtered search by cursor, including date-range mode")
+    void testCursorMode() {
+        VehicleSearchCriteria free = criteria();
+        free.setStartDate(LocalDate.now().plusDays(9));
+        free.setEndDate(LocalDate.now().plusDays(10));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            Window<VehicleResponseDTO> window = vehicleService.searchVehicles(free, cursor, 1);
+            window.forEach(dto -> seen.add(dto.getVehicleId()));
+            cursor = KeysetCursor.nextCursor(window);
+        } while (cursor != null);
+        assertEquals(List.of(pricySuv.getVehicleId(), cheapSedan.getVehicleId()), seen);
+
+        free.setSort("price_asc");
+        assertThrows(RuntimeException.class, () -> vehicleService.searchVehicles(free, "", 1));
+    }
+
+    @Test
+    @DisplayName("Should rank text matches by relevance and combine them with filters")
+    void testTextSearch() {
+        VehicleSearchCriteria text = new VehicleSearchCriteria();
+        text.setQ(make.toLowerCase() + " 7 seater");
+        List<Long> ranked = ids(vehicleService.searchVehicles(text, 0, 10));
+        assertEquals(bigSuv.getVehicleId(), ranked.get(0));
+        assertTrue(ranked.containsAll(List.of(cheapSedan.getVehicleId(), pricySuv.getVehicleId())));
+
+        text.setMake(make);
+        text.setType(VehicleType.SUV);
+        text.setSort("price_asc");
+        assertEquals(List.of(bigSuv.getVehicleId(), pricySuv.getVehicleId()),
+                ids(vehicleService.searchVehicles(text, 0, 10)));
+
+        // Autocomplete: the make typed halfway
+        VehicleSearchCriteria partial = new VehicleSearchCriteria();
+        partial.setQ(make.substring(0, 8));
+        partial.setMaxPrice(new BigDecimal("40"));
+        assertEquals(List.of(cheapSedan.getVehicleId()), ids(vehicleService.searchVehicles(partial, 0, 10)));
+
+        VehicleSearchCriteria noText = criteria();
+        noText.setSort("relevance");
+        assertThrows(RuntimeException.class, () -> vehicleService.searchVehicles(noText, 0, 10));
+    }
+
+    @Test
+    @DisplayName("Should filter text matches chunk by chunk and flag an estimated total")
+    void testTextSearchBeyondFirstChunk() {
+        // One candidate per query: the sedan, least relevant by tie-break, is in the third chunk
+        ReflectionTestUtils.setField(vehicleService, "textChunkSize", 1);
+        try {
+            VehicleSearchCriteria sedans = new VehicleSearchCriteria();
+            sedans.setQ(make);
+            sedans.setType(VehicleType.SEDAN);
+            Page<VehicleResponseDTO> all = vehicleService.searchVehicles(sedans, 0, 1);
+            assertEquals(List.of(cheapSedan.getVehicleId()), ids(all));
+            assertEquals(1, all.getTotalElements());
+            assertFalse(truncated(all));
+
+            // Filled from the first chunk: the rest is extrapolated
+            VehicleSearchCriteria suvs = new VehicleSearchCriteria();
+            suvs.setQ(make);
+            suvs.setType(VehicleType.SUV);
+            Page<VehicleResponseDTO> first = vehicleService.searchVehicles(suvs, 0, 1);
+            assertEquals(List.of(pricySuv.getVehicleId()), ids(first));
+            assertEquals(3, first.getTotalElements());
+            assertTrue(truncated(first));
+            assertEquals(List.of(bigSuv.getVehicleId()), ids(vehicleService.searchVehicles(suvs, 1, 1)));
+
+            // Scan limit reached before any sedan was checked: empty, but flagged
+            ReflectionTestUtils.setField(vehicleService, "textMaxScanned", 2);
+            Page<VehicleResponseDTO> capped = vehicleService.searchVehicles(sedans, 0, 2);
+            assertEquals(List.of(), ids(capped));
+            assertTrue(truncated(capped));
+        } finally {
+            ReflectionTestUtils.setField(vehicleService, "textChunkSize", 1000);
+            ReflectionTestUtils.setField(vehicleService, "textMaxScanned", 20000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should compute every facet in one pass and cache it until a vehicle write")
+    void testFacets() {
+        VehicleFacetsDTO facets = vehicleService.getSearchFacets(criteria(), 25);
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(2, count(facets.getTypes(), "SUV"));
+        assertEquals(1, count(facets.getTypes(), "SEDAN"));
+        assertEquals(0, count(facets.getTypes(), "VAN"));
+        assertEquals(3, count(facets.getCapacities(), "2+"));
+        assertEquals(2, count(facets.getCapacities(), "5+"));
+        assertEquals(1, count(facets.getCapacities(), "7+"));
+        assertEquals(2, count(facets.getRatings(), "4+"));
+        assertEquals(3, count(facets.getRatings(), "3+"));
+        assertEquals(List.of(
+                        new PriceBucketDTO(new BigDecimal("25"), new BigDecimal("50"), 1),
+                        new PriceBucketDTO(new BigDecimal("50"), new BigDecimal("75"), 1),
+                        new PriceBucketDTO(new BigDecimal("100"), new BigDecimal("125"), 1)),
+                facets.getPrices());
+        assertFalse(facets.isTruncated());
+
+        // The text query narrows the counts like it narrows the listing
+        VehicleSearchCriteria diesel = criteria();
+        diesel.setQ("diesel");
+        VehicleFacetsDTO dieselFacets = vehicleService.getSearchFacets(diesel, 25);
+        assertEquals(1, dieselFacets.getTotal());
+        assertEquals(1, count(dieselFacets.getTypes(), "SUV"));
+        assertEquals(0, count(dieselFacets.getTypes(), "SEDAN"));
+        assertEquals(List.of(new PriceBucketDTO(new BigDecimal("50"), new BigDecimal("75"), 1)),
+                dieselFacets.getPrices());
+
+        // Same filters, different spelling: served from the cache
+        VehicleSearchCriteria sameFilters = criteria();
+        sameFilters.setMake("  " + make.toLowerCase() + " ");
+        sameFilters.setSort("rating");
+        assertSame(facets, vehicleService.getSearchFacets(sameFilters, 25));
+
+        // Any vehicle write invalidates the cache
+        vehicleService.setAvailability(bigSuv.getVehicleId(), false);
+        VehicleFacetsDTO after = vehicleService.getSearchFacets(criteria(), 25);
+        assertNotSame(facets, after);
+        assertEquals(2, after.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated detail and search reads from the cache until a write")
+    void testResponseCache() {
+        VehicleResponseDTO detail = vehicleService.getVehicleById(pricySuv.getVehicleId());
+        assertSame(detail, vehicleService.getVehicleById(pricySuv.getVehicleId()));
+
+        VehicleSearchCriteria byPrice = criteria();
+        byPrice.setSort("price_asc");
+        Page<VehicleVersion> page = vehicleService.searchVehicleVersions(byPrice, 0, 10);
+        VehicleSearchCriteria samePrice = criteria();
+        samePrice.setMake(" " + make.toLowerCase());
+        samePrice.setSort("PRICE_ASC");
+        assertSame(page, vehicleService.searchVehicleVersions(samePrice, 0, 10));
+        // The page's DTOs are the cached details
+        assertSame(detail, vehicleService.searchVehicles(samePrice, 0, 10).getContent().stream()
+                .filter(v -> v.getVehicleId().equals(pricySuv.getVehicleId())).findFirst().orElseThrow());
+
+        vehicleService.setAvailability(pricySuv.getVehicleId(), false);
+        assertNotSame(detail, vehicleService.getVehicleById(pricySuv.getVehicleId()));
+        assertFalse(vehicleService.getVehicleById(pricySuv.getVehicleId()).getIsAvailable());
+        assertEquals(List.of(cheapSedan.getVehicleId(), bigSuv.getVehicleId()),
+                ids(vehicleService.searchVehicles(byPrice, 0, 10)));
+    }
+
+    private static long count(List<FacetBucketDTO> buckets, String value) {
+        return buckets.stream().filter(b -> b.getValue().equals(value)).findFirst().orElseThrow().getCount();
+    }
+
+    private VehicleSearchCriteria criteria() {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria();
+        criteria.setMake(make.toUpperCase());
+        return criteria;
+    }
+
+    // IDs of this test's vehicles free on [today + fromDay, today + toDay], cheapest first
+    private List<Long> freeBetween(int fromDay, int toDay) {
+        VehicleSearchCriteria free = criteria();
+        free.setStartDate(LocalDate.now().plusDays(fromDay));
+        free.setEndDate(LocalDate.now().plusDays(toDay));
+        free.setSort("price_asc");
+        return ids(vehicleService.searchVehicles(free, 0, 10));
+    }
+
+    private void book(Vehicle vehicle, int fromDay, int toDay, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setVehicle(vehicle);
+        booking.setRenter(renter);
+        booking.setStartDate(LocalDate.now().plusDays(fromDay));
+        booking.setEndDate(LocalDate.now().plusDays(toDay));
+        booking.setStatus(status);
+        booking.setTotalAmount(new BigDecimal("100.00"));
+        bookingRepository.save(booking);
+    }
+
+    private static boolean truncated(Page<?> page) {
+        return page instanceof SearchPage<?> search && search.isTruncated();
+    }
+
+    private static List<Long> ids(Page<VehicleResponseDTO> page) {
+        return page.map(VehicleResponseDTO::getVehicleId).getContent();
+    }
+
+    private Vehicle vehicle(VehicleOwner owner, VehicleType type, int capacity, String price,
+                            double rating, double lat, double lng) {
+        Vehicle vehicle = fixtures.vehicle(owner);
+        vehicle.setMake(make);
+        vehicle.setModel("Model");
+        vehicle.setType(type);
+        vehicle.setCapacity(capacity);
+        vehicle.setDailyPrice(new BigDecimal(price));
+        vehicle.setAverageRating(rating);
+        vehicle.setLatitude(lat);
+        vehicle.setLongitude(lng);
+        return vehicleRepository.save(vehicle);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springrentMe.services.auth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should never miss an added key")
+    void testNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "t:" + UUID.randomUUID();
+            filter.put(keys[i]);
+        }
+
+        for (String key : keys) {
+            assertTrue(filter.mightContain(key), key);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the false-positive rate near the target at the expected size")
+    void testFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        assertEquals(7, filter.hashCount());
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("u:" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("u:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives); // ~1% of 100k expected
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.springrentMe.services.availability;
+
+import com.example.springrentMe.models.Booking;
+import com.example.springrentMe.models.BookingStatus;
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.repositories.BookingInterval;
+import com.example.springrentMe.repositories.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingAvailabilityIndex Tests")
+class BookingAvailabilityIndexTest {
+
+    private static final Long VEHICLE_ID = 30L;
+    private static final LocalDate D = LocalDate.of(2026, 1, 1);
+    private static final long TTL_MS = 60_000;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingAvailabilityIndex index;
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new BookingAvailabilityIndex(bookingRepository, meterRegistry, TTL_MS);
+        vehicle = new Vehicle();
+        vehicle.setVehicleId(VEHICLE_ID);
+    }
+
+    private Booking booking(Long id, LocalDate start, LocalDate end, BookingStatus status) {
+        Booking b = new Booking();
+        b.setBookingId(id);
+        b.setVehicle(vehicle);
+        b.setStartDate(start);
+        b.setEndDate(end);
+        b.setStatus(status);
+        return b;
+    }
+
+    private BookingInterval interval(Long id, LocalDate start, LocalDate end) {
+        return new BookingInterval(id, VEHICLE_ID, start, end);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("booking.availability.index").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should load lazily once and answer lookups from memory")
+    void testNextFreeDate_LoadsOnceThenHits() {
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID))).thenReturn(List.of(
+                interval(1L, D.plusDays(5), D.plusDays(9)),
+                interval(2L, D.plusDays(20), D.plusDays(20))));
+
+        assertEquals(D.plusDays(10), index.nextFreeDate(VEHICLE_ID, D.plusDays(9)));
+        assertEquals(D.plusDays(10), index.nextFreeDate(VEHICLE_ID, D.plusDays(5)));
+        assertEquals(D.plusDays(21), index.nextFreeDate(VEHICLE_ID, D.plusDays(20)));
+        assertEquals(D.plusDays(10), index.nextFreeDate(VEHICLE_ID, D.plusDays(10)));
+        assertEquals(D, index.nextFreeDate(VEHICLE_ID, D));
+
+        verify(bookingRepository, times(1)).findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID));
+        verify(bookingRepository, never()).existsOverlappingBooking(anyLong(), any(), any());
+        assertEquals(1.0, count("miss"));
+        assertEquals(4.0, count("hit"));
+    }
+
+    @Test
+    @DisplayName("Should skip over adjacent bookings when finding the next free date")
+    void testNextFreeDate() {
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID))).thenReturn(List.of(
+                interval(1L, D, D.plusDays(2)),
+                interval(2L, D.plusDays(3), D.plusDays(4))));
+
+        assertEquals(D.plusDays(5), index.nextFreeDate(VEHICLE_ID, D.plusDays(1)));
+        assertEquals(D.minusDays(1), index.nextFreeDate(VEHICLE_ID, D.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Should track status transitions of cached vehicles")
+    void testOnBookingChanged() {
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID))).thenReturn(List.of());
+        assertEquals(D, index.nextFreeDate(VEHICLE_ID, D));
+
+        Booking created = booking(1L, D, D.plusDays(3), BookingStatus.PENDING);
+        index.onBookingChanged(created);
+        assertEquals(D.plusDays(4), index.nextFreeDate(VEHICLE_ID, D.plusDays(1)));
+
+        created.setStatus(BookingStatus.CANCELLED);
+        index.onBookingChanged(created);
+        assertEquals(D.plusDays(1), index.nextFreeDate(VEHICLE_ID, D.plusDays(1)));
+
+        verify(bookingRepository, times(1)).findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database when active bookings overlap")
+    void testOverlappingRows_FallBackToDatabase() {
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID))).thenReturn(List.of(
+                interval(1L, D, D.plusDays(5)),
+                interval(2L, D.plusDays(3), D.plusDays(8)),
+                interval(3L, D.plusDays(9), D.plusDays(400))));
+
+        assertEquals(D.plusDays(401), index.nextFreeDate(VEHICLE_ID, D.plusDays(1)));
+        assertEquals(D.plusDays(401), index.nextFreeDate(VEHICLE_ID, D.plusDays(401)));
+
+        // One read of the rows per lookup, however long the bookings run
+        verify(bookingRepository, times(3)).findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID));
+        verify(bookingRepository, never()).existsOverlappingBooking(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should re-read a vehicle once its intervals expire, picking up bookings made elsewhere")
+    void testExpiredIntervals_Reloaded() throws InterruptedException {
+        BookingAvailabilityIndex shortLived = new BookingAvailabilityIndex(bookingRepository, meterRegistry, 200);
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(interval(1L, D, D.plusDays(2)))); // admitted by another instance
+
+        assertEquals(D, shortLived.nextFreeDate(VEHICLE_ID, D));
+        assertEquals(D, shortLived.nextFreeDate(VEHICLE_ID, D));
+        Thread.sleep(250);
+        assertEquals(D.plusDays(3), shortLived.nextFreeDate(VEHICLE_ID, D));
+
+        verify(bookingRepository, times(2)).findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID));
+    }
+
+    @Test
+    @DisplayName("Should render the calendar bitmap and keep it in step with status changes")
+    void testCalendar_IncrementalUpdates() {
+        LocalDate w = index.calendarWindowStart();
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID))).thenReturn(List.of(
+                interval(1L, w.minusDays(2), w.plusDays(1)),   // starts before the window
+                interval(2L, w.plusDays(62), w.plusDays(66)))); // spans a 64-day word boundary
+
+        assertEquals("1100000", index.calendar(VEHICLE_ID, w, w.plusDays(6)));
+        assertEquals("0111110", index.calendar(VEHICLE_ID, w.plusDays(61), w.plusDays(67)));
+
+        Booking created = booking(3L, w.plusDays(3), w.plusDays(4), BookingStatus.PENDING);
+        index.onBookingChanged(created);
+        assertEquals("1101100", index.calendar(VEHICLE_ID, w, w.plusDays(6)));
+
+        created.setStatus(BookingStatus.CANCELLED);
+        index.onBookingChanged(created);
+        assertEquals("1100000", index.calendar(VEHICLE_ID, w, w.plusDays(6)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> index.calendar(VEHICLE_ID, w, w.plusMonths(BookingAvailabilityIndex.CALENDAR_MONTHS)));
+        verify(bookingRepository, times(1)).findActiveIntervalsByVehicleIds(List.of(VEHICLE_ID));
+    }
+
+    @Test
+    @DisplayName("Should load all cold vehicles of a bulk calendar request in one query")
+    void testCalendars_BulkLoad() {
+        LocalDate w = index.calendarWindowStart();
+        when(bookingRepository.findActiveIntervalsByVehicleIds(List.of(1L, 2L))).thenReturn(List.of(
+                new BookingInterval(10L, 2L, w.plusDays(1), w.plusDays(1))));
+
+        Map<Long, String> calendars = index.calendars(List.of(1L, 2L), w, w.plusDays(2));
+
+        assertEquals(List.of(1L, 2L), List.copyOf(calendars.keySet()));
+        assertEquals("000", calendars.get(1L));
+        assertEquals("010", calendars.get(2L));
+
+        // Both are warm now
+        index.calendars(List.of(1L, 2L), w, w.plusDays(2));
+        verify(bookingRepository, times(1)).findActiveIntervalsByVehicleIds(any());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springrentMe.services.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BoundedCache Tests")
+class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BoundedCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        // Weight = string length, at most 10 characters in total
+        cache = new BoundedCache<>("test", 10, Duration.ofSeconds(60), String::length, registry, now::get);
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries once over the weight bound")
+    void testWeightBoundedLru() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a")); // a is now more recent than b
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals(8, cache.weight());
+
+        cache.put("huge", "x".repeat(11)); // heavier than the whole cache: not stored
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.size());
+        assertEquals(1.0, evictions("size"));
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL and count hits and misses")
+    void testTtl() {
+        cache.put("a", "aaaa");
+        now.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("aaaa", cache.get("a"));
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weight());
+
+        assertEquals(1.0, registry.get("cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("cache.requests").tag("result", "miss").counter().count());
+        assertEquals(1.0, evictions("expired"));
+    }
+
+    @Test
+    @DisplayName("Should invalidate single keys, by predicate and all at once")
+    void testInvalidation() {
+        cache.put("a", "a");
+        cache.put("b", "bb");
+        cache.put("c", "ccc");
+
+        cache.invalidate("a");
+        cache.invalidateIf((key, value) -> value.length() == 2);
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.weight());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(3.0, evictions("invalidated"));
+    }
+
+    private double evictions(String cause) {
+        return registry.get("cache.evictions").tag("cause", cause).counter().count();
+    }
+}
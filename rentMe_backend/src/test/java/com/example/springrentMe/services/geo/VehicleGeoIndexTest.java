@@ -0,0 +1,170 @@
+package com.example.springrentMe.services.geo;
+
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleLocation;
+import com.example.springrentMe.repositories.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VehicleGeoIndex Tests")
+class VehicleGeoIndexTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    private VehicleGeoIndex index;
+    private final List<VehicleLocation> locations = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new VehicleGeoIndex(vehicleRepository, new SimpleMeterRegistry());
+        // Sri Lanka-ish spread plus a few far-away outliers
+        Random random = new Random(42);
+        for (long id = 1; id <= 2000; id++) {
+            VehicleType type = id % 3 == 0 ? VehicleType.SUV : VehicleType.SEDAN;
+            BigDecimal price = BigDecimal.valueOf(20 + id % 100);
+            locations.add(new VehicleLocation(id, 5.9 + random.nextDouble() * 4, 79.6 + random.nextDouble() * 2.3,
+                    type, price));
+        }
+        locations.add(new VehicleLocation(5001L, 51.5, -0.12, VehicleType.SEDAN, new BigDecimal("80")));
+        locations.add(new VehicleLocation(5002L, -33.87, 151.21, VehicleType.SEDAN, new BigDecimal("80")));
+        when(vehicleRepository.findMapLocations()).thenReturn(locations);
+    }
+
+    private List<Long> bruteForce(double minLat, double maxLat, double minLng, double maxLng) {
+        return locations.stream()
+                .filter(l -> l.latitude() >= minLat && l.latitude() <= maxLat
+                        && l.longitude() >= minLng && l.longitude() <= maxLng)
+                .map(VehicleLocation::vehicleId)
+                .sorted(Comparator.reverseOrder())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Should match a brute-force bounding box filter at every scale")
+    void testFindInBounds_MatchesBruteForce() {
+        double[][] boxes = {
+                {6.90, 6.95, 79.84, 79.88},   // a few streets
+                {6.0, 7.5, 79.8, 81.0},       // a province
+                {-90, 90, -180, 180},         // the whole world
+                {7.123, 7.123, 80.0, 80.0},   // a degenerate point
+                {8.0, 7.0, 80.0, 81.0},       // inverted box
+        };
+        for (double[] b : boxes) {
+            assertEquals(bruteForce(b[0], b[1], b[2], b[3]), index.findInBounds(b[0], b[1], b[2], b[3]));
+        }
+        verify(vehicleRepository, times(1)).findMapLocations();
+    }
+
+    @Test
+    @DisplayName("Should return the k nearest vehicles in distance order, like a brute-force sort")
+    void testNearest_MatchesBruteForce() {
+        double lat = 6.93, lng = 79.85;
+        List<VehicleGeoIndex.Neighbor> nearest = index.nearest(lat, lng, 25, 15, VehicleType.SUV, new BigDecimal("60"));
+
+        List<Long> expected = locations.stream()
+                .filter(l -> l.type() == VehicleType.SUV && l.dailyPrice().compareTo(new BigDecimal("60")) <= 0)
+                .filter(l -> VehicleGeoIndex.haversineKm(lat, lng, l.latitude(), l.longitude()) <= 25)
+                .sorted(Comparator.comparingDouble(
+                        (VehicleLocation l) -> VehicleGeoIndex.haversineKm(lat, lng, l.latitude(), l.longitude())))
+                .limit(15)
+                .map(VehicleLocation::vehicleId)
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, nearest.stream().map(VehicleGeoIndex.Neighbor::vehicleId).toList());
+        for (int i = 1; i < nearest.size(); i++) {
+            assertTrue(nearest.get(i).distanceKm() >= nearest.get(i - 1).distanceKm());
+        }
+
+        // Radius cut-off: London is ~8,700 km from Colombo
+        assertTrue(index.nearest(51.5, -0.12, 1, 5, null, null).stream()
+                .allMatch(n -> n.vehicleId() == 5001L));
+        assertEquals(List.of(), index.nearest(0, -30, 100, 5, null, null));
+    }
+
+    @Test
+    @DisplayName("Should return a bounded number of clusters that add up to the vehicles in view")
+    void testCluster_BoundedAndComplete() {
+        int level = VehicleGeoIndex.clusterLevel(-90, 90, -180, 180);
+        List<VehicleGeoIndex.Cluster> world = index.cluster(-90, 90, -180, 180, level);
+
+        assertTrue(world.size() <= (VehicleGeoIndex.CLUSTER_GRID + 1) * (VehicleGeoIndex.CLUSTER_GRID + 1));
+        assertEquals(locations.size(), world.stream().mapToLong(VehicleGeoIndex.Cluster::count).sum());
+        VehicleGeoIndex.Cluster london = world.stream().filter(c -> c.vehicleId() != null
+                && c.vehicleId() == 5001L).findFirst().orElseThrow();
+        assertEquals(1, london.count());
+        assertEquals(51.5, london.latitude(), 1e-9);
+
+        int islandLevel = VehicleGeoIndex.clusterLevel(5.9, 9.9, 79.6, 81.9);
+        assertTrue(islandLevel > level);
+        List<VehicleGeoIndex.Cluster> island = index.cluster(5.9, 9.9, 79.6, 81.9, islandLevel);
+        assertTrue(island.size() <= (VehicleGeoIndex.CLUSTER_GRID + 1) * (VehicleGeoIndex.CLUSTER_GRID + 1));
+        assertEquals(2000, island.stream().mapToLong(VehicleGeoIndex.Cluster::count).sum());
+    }
+
+    @Test
+    @DisplayName("Should follow vehicle moves, unlisting and deletes")
+    void testUpdates() {
+        assertEquals(List.of(5001L), index.findInBounds(51, 52, -1, 0));
+
+        Vehicle moved = new Vehicle();
+        moved.setVehicleId(5001L);
+        moved.setLatitude(48.85);
+        moved.setLongitude(2.35);
+        moved.setType(VehicleType.SEDAN);
+        moved.setDailyPrice(new BigDecimal("80"));
+        moved.setIsListed(true);
+        moved.setIsAvailable(true);
+        index.onVehicleChanged(moved);
+        assertEquals(List.of(), index.findInBounds(51, 52, -1, 0));
+        assertEquals(List.of(5001L), index.findInBounds(48, 49, 2, 3));
+
+        moved.setIsListed(false);
+        index.onVehicleChanged(moved);
+        assertEquals(List.of(), index.findInBounds(48, 49, 2, 3));
+
+        index.remove(5002L);
+        assertEquals(List.of(), index.findInBounds(-34, -33, 151, 152));
+    }
+
+    @Test
+    @DisplayName("Should pick up moves and deletes made through other instances")
+    void testSyncAndRebuild() {
+        assertEquals(List.of(5001L), index.findInBounds(51, 52, -1, 0));
+
+        // 5001 moved and 5002 unlisted elsewhere: both have a newer updated_at
+        when(vehicleRepository.findIdsUpdatedSince(any())).thenReturn(List.of(5001L, 5002L));
+        when(vehicleRepository.findMapLocationsByIds(List.of(5001L, 5002L))).thenReturn(List.of(
+                new VehicleLocation(5001L, 48.85, 2.35, VehicleType.SEDAN, new BigDecimal("80"))));
+        index.sync();
+        assertEquals(List.of(), index.findInBounds(51, 52, -1, 0));
+        assertEquals(List.of(5001L), index.findInBounds(48, 49, 2, 3));
+        assertEquals(List.of(), index.findInBounds(-34, -33, 151, 152));
+
+        // Vehicle 1 deleted elsewhere: no row left, so only the rebuild drops it
+        Long deleted = locations.remove(0).vehicleId();
+        index.sync();
+        assertTrue(index.findInBounds(-90, 90, -180, 180).contains(deleted));
+        index.rebuild();
+        List<Long> all = index.findInBounds(-90, 90, -180, 180);
+        assertFalse(all.contains(deleted));
+        assertEquals(locations.size(), all.size());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.springrentMe.services.search;
+
+import com.example.springrentMe.models.Vehicle;
+import com.example.springrentMe.models.VehicleType;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.repositories.VehicleText;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VehicleTextIndex Tests")
+class VehicleTextIndexTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    private VehicleTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VehicleTextIndex(vehicleRepository, new SimpleMeterRegistry());
+        when(vehicleRepository.findListedVehicleTexts()).thenReturn(List.of(
+                new VehicleText(1L, "Toyota", "Prius", VehicleType.HATCHBACK, "Hybrid, very economical"),
+                new VehicleText(2L, "Toyota", "Noah", VehicleType.VAN, "Hybrid 7-seater for families"),
+                new VehicleText(3L, "Toyota", "Land Cruiser", VehicleType.SUV, "Diesel 7 seater, 4x4"),
+                new VehicleText(4L, "Honda", "Vezel", VehicleType.SUV, "Hybrid crossover"),
+                new VehicleText(5L, "Škoda", "Octavia", VehicleType.SEDAN, null)));
+    }
+
+    @Test
+    @DisplayName("Should split on punctuation and letter/digit boundaries, dropping accents and stop words")
+    void testTokenize() {
+        assertEquals(List.of("hybrid", "7", "seater", "families"),
+                VehicleTextIndex.tokenize("Hybrid 7-seater for the families"));
+        assertEquals(List.of("4", "x", "4", "skoda"), VehicleTextIndex.tokenize("4x4 Škoda"));
+        assertEquals(List.of(), VehicleTextIndex.tokenize("  --  "));
+        // Queries are normalized the same way as the indexed text
+        assertEquals(List.of(5L), index.search("SKODA Octavia", 10));
+    }
+
+    @Test
+    @DisplayName("Should rank vehicles matching every term first")
+    void testRanking() {
+        List<Long> results = index.search("toyota hybrid 7 seater", 10);
+
+        assertEquals(2L, results.get(0)); // all four terms
+        assertTrue(results.indexOf(3L) < results.indexOf(1L)); // toyota + 7 seater beats toyota + hybrid
+        assertTrue(results.containsAll(List.of(1L, 2L, 3L, 4L)));
+        assertFalse(results.contains(5L));
+        assertEquals(List.of(2L), index.search("toyota hybrid 7 seater", 1));
+        assertEquals(List.of(), index.search("tesla ", 10));
+
+        // The total counts every match, not just the ranked ones
+        VehicleTextIndex.Matches top = index.match("toyota hybrid 7 seater", 2);
+        assertEquals(2, top.ranked().size());
+        assertEquals(4, top.total());
+        assertTrue(top.truncated());
+        assertFalse(index.match("toyota", 10).truncated());
+        verify(vehicleRepository, times(1)).findListedVehicleTexts();
+    }
+
+    @Test
+    @DisplayName("Should match the last term as a prefix while typing")
+    void testPrefix() {
+        assertEquals(List.of(4L), index.search("hond", 10));
+        assertEquals(List.of(5L), index.search("skod", 10));
+        assertEquals(List.of(3L), index.search("land cru", 10));
+        // A finished word (trailing space) is not expanded
+        assertEquals(List.of(), index.search("hond ", 10));
+    }
+
+    @Test
+    @DisplayName("Should follow edits, unlisting and deletes")
+    void testUpdates() {
+        assertEquals(List.of(4L), index.search("vezel", 10));
+
+        Vehicle edited = new Vehicle();
+        edited.setVehicleId(4L);
+        edited.setMake("Honda");
+        edited.setModel("Fit");
+        edited.setType(VehicleType.HATCHBACK);
+        edited.setIsListed(true);
+        index.onVehicleChanged(edited);
+        assertEquals(List.of(), index.search("vezel", 10));
+        assertEquals(List.of(4L), index.search("fit", 10));
+
+        edited.setIsListed(false);
+        index.onVehicleChanged(edited);
+        assertEquals(List.of(), index.search("honda", 10));
+
+        index.remove(5L);
+        assertEquals(List.of(), index.search("octavia", 10));
+    }
+
+    @Test
+    @DisplayName("Should pick up edits and deletes made through other instances")
+    void testSyncAndRebuild() {
+        assertEquals(List.of(4L), index.search("vezel", 10));
+
+        // 4 renamed and 5 unlisted elsewhere: both have a newer updated_at
+        when(vehicleRepository.findIdsUpdatedSince(any())).thenReturn(List.of(4L, 5L));
+        when(vehicleRepository.findListedVehicleTextsByIds(List.of(4L, 5L))).thenReturn(List.of(
+                new VehicleText(4L, "Honda", "Fit", VehicleType.HATCHBACK, null)));
+        index.sync();
+        assertEquals(List.of(), index.search("vezel", 10));
+        assertEquals(List.of(4L), index.search("fit", 10));
+        assertEquals(List.of(), index.search("octavia", 10));
+
+        // All but the Noah deleted elsewhere: no rows left, so only the rebuild drops them
+        when(vehicleRepository.findListedVehicleTexts()).thenReturn(List.of(
+                new VehicleText(2L, "Toyota", "Noah", VehicleType.VAN, "Hybrid 7-seater for families")));
+        index.rebuild();
+        assertEquals(List.of(2L), index.search("toyota", 10));
+        assertEquals(List.of(), index.search("fit", 10));
+    }
+}
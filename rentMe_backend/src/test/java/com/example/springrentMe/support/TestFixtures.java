@@ -0,0 +1,159 @@
+package com.example.springrentMe.support;
+
+import com.example.springrentMe.models.*;
+import com.example.springrentMe.repositories.RenterRepository;
+import com.example.springrentMe.repositories.UserRepository;
+import com.example.springrentMe.repositories.VehicleOwnerRepository;
+import com.example.springrentMe.repositories.VehicleRepository;
+import com.example.springrentMe.security.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Users, profiles and vehicles for the integration tests.
+ *
+ * Picked up by component scanning, so it is part of every test context
+ * without changing any context's cache key. Everything hanging off the users
+ * it created (bookings, reviews, chat sessions, tokens, ...) is deleted by
+ * {@link #cleanUp()}, which tests call after each test: classes share one
+ * context and one database, and must not see each other's rows.
+ */
+@Component
+public class TestFixtures {
+
+    // Children before parents; :users are the fixture users' IDs
+    private static final List<String> CLEAN_UP = List.of(
+            "DELETE FROM chat_messages WHERE session_id IN (SELECT session_id FROM chat_sessions"
+                    + " WHERE participant_one_user_id IN (:users) OR participant_two_user_id IN (:users))",
+            "DELETE FROM chat_sessions WHERE participant_one_user_id IN (:users) OR participant_two_user_id IN (:users)",
+            "DELETE FROM chat_message_dead_letters WHERE sender_user_id IN (:users)",
+            "DELETE FROM chat_unread_counters WHERE user_id IN (:users)",
+            "DELETE FROM reviews WHERE reviewer_id IN (:users) OR vehicle_owner_id IN (" + owners() + ")",
+            "DELETE FROM documents WHERE vehicle_id IN (" + vehicles() + ") OR booking_id IN (" + bookings() + ")"
+                    + " OR verification_request_id IN (SELECT request_id FROM verification_requests"
+                    + " WHERE vehicle_owner_id IN (" + owners() + "))",
+            "DELETE FROM bookings WHERE booking_id IN (" + bookings() + ")",
+            "DELETE FROM verification_requests WHERE vehicle_owner_id IN (" + owners() + ")",
+            "DELETE FROM vehicles WHERE vehicle_owner_id IN (" + owners() + ")",
+            "DELETE FROM vehicle_owners WHERE user_id IN (:users)",
+            "DELETE FROM renters WHERE user_id IN (:users)",
+            "DELETE FROM refresh_tokens WHERE user_id IN (:users)",
+            "DELETE FROM revoked_tokens WHERE user_id IN (:users)",
+            "DELETE FROM token_watermarks WHERE user_id IN (:users)",
+            "DELETE FROM users WHERE user_id IN (:users)");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleOwnerRepository vehicleOwnerRepository;
+
+    @Autowired
+    private RenterRepository renterRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // BUILDERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** An active local user with a unique email. */
+    public synchronized User user(UserRole role) {
+        User user = new User();
+        user.setFullName("Test User");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setContactNumber("+1234567890");
+        user.setRole(role);
+        user.setAuthProvider(AuthProvider.LOCAL);
+        user.setIsActive(true);
+        user = userRepository.save(user);
+        userIds.add(user.getUserId());
+        return user;
+    }
+
+    /** An approved vehicle owner profile with its user. */
+    public VehicleOwner owner() {
+        VehicleOwner owner = new VehicleOwner();
+        owner.setUser(user(UserRole.VEHICLE_OWNER));
+        owner.setVerificationStatus(VerificationStatus.APPROVED);
+        return vehicleOwnerRepository.save(owner);
+    }
+
+    /** A renter profile with its user. */
+    public Renter renter() {
+        Renter renter = new Renter();
+        renter.setUser(user(UserRole.RENTER));
+        return renterRepository.save(renter);
+    }
+
+    /** A listed, available sedan in Colombo. */
+    public Vehicle vehicle(VehicleOwner owner) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleOwner(owner);
+        vehicle.setMake("Toyota");
+        vehicle.setModel("Corolla");
+        vehicle.setType(VehicleType.SEDAN);
+        vehicle.setCapacity(5);
+        vehicle.setDailyPrice(new BigDecimal("50.00"));
+        vehicle.setPickupLocation("Colombo");
+        vehicle.setLatitude(6.9);
+        vehicle.setLongitude(79.8);
+        return vehicleRepository.save(vehicle);
+    }
+
+    /** The principal the JWT filter would build for the user. */
+    public static UserDetailsImpl principal(User user) {
+        return new UserDetailsImpl(user.getUserId(), user.getEmail(), null, user.getRole().name(), true,
+                user.getRole() == UserRole.RENTER, user.getRole() == UserRole.VEHICLE_OWNER, false, null);
+    }
+
+    /** Authenticates the current thread as the user. */
+    public static void login(User user) {
+        UserDetailsImpl principal = principal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CLEAN-UP
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Deletes the users built since the last clean-up and every row that references them. */
+    public synchronized void cleanUp() {
+        SecurityContextHolder.clearContext();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<String, List<Long>> params = Map.of("users", List.copyOf(userIds));
+        CLEAN_UP.forEach(sql -> jdbcTemplate.update(sql, params));
+        userIds.clear();
+    }
+
+    private static String owners() {
+        return "SELECT vehicle_owner_id FROM vehicle_owners WHERE user_id IN (:users)";
+    }
+
+    private static String vehicles() {
+        return "SELECT vehicle_id FROM vehicles WHERE vehicle_owner_id IN (" + owners() + ")";
+    }
+
+    private static String bookings() {
+        return "SELECT booking_id FROM bookings WHERE vehicle_id IN (" + vehicles() + ")"
+                + " OR renter_id IN (SELECT renter_id FROM renters WHERE user_id IN (:users))";
+    }
+}
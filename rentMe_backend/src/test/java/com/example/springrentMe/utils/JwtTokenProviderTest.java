@@ -164,4 +164,43 @@ class JwtTokenProviderTest {
         assertEquals(username1, username2);
         assertEquals("test@example.com", username1);
     }
+
+    @Test
+    @DisplayName("Should carry user ID and roles as claims and read them back in one parse")
+    void testGetUserDetailsFromToken_Claims() {
+        // Arrange
+        UserDetailsImpl userDetails = UserDetailsImpl.build(testUser);
+        userDetails.setHasRenterRole(true);
+        userDetails.setHasAdminRole(true);
+        String token = jwtTokenProvider.generateToken(userDetails);
+
+        // Act
+        UserDetailsImpl fromToken = jwtTokenProvider.getUserDetailsFromToken(token);
+
+        // Assert
+        assertEquals(1L, fromToken.getId());
+        assertEquals("test@example.com", fromToken.getEmail());
+        assertEquals("RENTER", fromToken.getRole());
+        assertTrue(fromToken.getHasRenterRole());
+        assertFalse(fromToken.getHasVehicleOwnerRole());
+        assertTrue(fromToken.getHasAdminRole());
+    }
+
+    @Test
+    @DisplayName("Should read subject-only tokens without a user ID and reject tampered tokens")
+    void testGetUserDetailsFromToken_LegacyAndInvalid() {
+        // Arrange
+        String legacy = jwtTokenProvider.generateTokenFromUsername("test@example.com");
+        String token = jwtTokenProvider.generateToken(UserDetailsImpl.build(testUser));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act
+        UserDetailsImpl fromLegacy = jwtTokenProvider.getUserDetailsFromToken(legacy);
+
+        // Assert
+        assertNull(fromLegacy.getId());
+        assertEquals("test@example.com", fromLegacy.getEmail());
+        assertNull(jwtTokenProvider.getUserDetailsFromToken(tampered));
+        assertNull(jwtTokenProvider.getUserDetailsFromToken("invalid.jwt.token"));
+    }
 }
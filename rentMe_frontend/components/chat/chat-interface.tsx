@@ -2,8 +2,8 @@
 
 import { useEffect, useRef, useState, useCallback } from "react";
 import { useAuth } from "@/contexts/AuthContext";
-import { getSessionById, getMessages, markAsRead, deleteMessage } from "@/services/chat.service";
-import { ChatMessageResponseDTO, ChatSessionResponseDTO } from "@/types/chat";
+import { getSessionById, getMessages, getMessagesAfter, markAsRead, deleteMessage } from "@/services/chat.service";
+import { ChatMessageResponseDTO, ChatSessionResponseDTO, messageKey } from "@/types/chat";
 import { useWebSocket } from "@/hooks/useWebSocket";
 import { ChatMessageBubble } from "./chat-message-bubble";
 import { ChatMessageInput } from "./chat-message-input";
@@ -15,6 +15,22 @@ import { ArrowLeft, Car, Info, Wifi, WifiOff, Loader2, UserCircle } from "lucide
 import Link from "next/link";
 import { UserProfileViewModal } from "@/components/modals/UserProfileViewModal";
 
+// Add new messages; a stored copy (with its messageId) replaces the pending one
+const mergeMessages = (prev: ChatMessageResponseDTO[], incoming: ChatMessageResponseDTO[]) => {
+  const next = [...prev];
+  const indexByKey = new Map(next.map((m, i) => [messageKey(m), i]));
+  incoming.forEach((m) => {
+    const i = indexByKey.get(messageKey(m));
+    if (i === undefined) {
+      indexByKey.set(messageKey(m), next.length);
+      next.push(m);
+    } else if (next[i].messageId === null && m.messageId !== null) {
+      next[i] = m;
+    }
+  });
+  return next;
+};
+
 interface ChatInterfaceProps {
   sessionId: number;
   onClose?: () => void;
@@ -38,6 +54,13 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
   const scrollRef = useRef<HTMLDivElement>(null);
   const messagesEndRef = useRef<HTMLDivElement>(null);
 
+  // Catch-up state: every seq up to the cursor is here (or deleted / never stored),
+  // -1 until the initial load; syncedAt of the last catch-up bounds the deletions to ask for
+  const seqCursorRef = useRef(-1);
+  const syncedAtRef = useRef<string | null>(null);
+  const catchingUpRef = useRef(false);
+  const catchUpAgainRef = useRef(false);
+
   // WebSocket Hook
   const { isConnected, lastMessage, sendMessage } = useWebSocket(sessionId);
 
@@ -61,13 +84,17 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
       const data = await getMessages(sessionId, pageToLoad, 30);
       
       const newMessages = data.data || [];
+      if (!append) {
+        seqCursorRef.current = newMessages.reduce((max, m) => Math.max(max, m.seq ?? 0), 0);
+        syncedAtRef.current = null;
+      }
       
       setMessages((prev) => {
         if (append) {
           // Prepends older history at the top
           // Filter duplicates just in case
-          const existingIds = new Set(prev.map((m) => m.messageId));
-          const filtered = newMessages.filter((m) => !existingIds.has(m.messageId));
+          const existingKeys = new Set(prev.map(messageKey));
+          const filtered = newMessages.filter((m) => !existingKeys.has(messageKey(m)));
           return [...filtered, ...prev];
         } else {
           return newMessages;
@@ -92,24 +119,70 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
     }
   }, [sessionId, readOnly]);
 
-  // Trigger initial loads
+  // Fetch everything after the cursor, including messages the server hasn't stored yet,
+  // and apply deletions since the last catch-up. Runs one at a time; a request while
+  // running makes it go again.
+  const catchUp = useCallback(async () => {
+    if (seqCursorRef.current < 0) return; // the initial load catches up when done
+    if (catchingUpRef.current) {
+      catchUpAgainRef.current = true;
+      return;
+    }
+    catchingUpRef.current = true;
+    try {
+      do {
+        catchUpAgainRef.current = false;
+        let hasMoreAfter = true;
+        while (hasMoreAfter) {
+          const delta = await getMessagesAfter(sessionId, seqCursorRef.current, syncedAtRef.current);
+          const fetched = delta.messages;
+          const deleted = new Set(delta.deletedSeqs);
+          setMessages((prev) =>
+            mergeMessages(prev, fetched).map((m) =>
+              m.seq !== null && deleted.has(m.seq) ? { ...m, isDeleted: true } : m
+            )
+          );
+          syncedAtRef.current = delta.syncedAt;
+          hasMoreAfter = delta.hasMore && fetched.length > 0;
+          const lastFetched = fetched.length > 0 ? fetched[fetched.length - 1].seq ?? 0 : 0;
+          // Past the last page, lastSeq also skips gaps (deleted or never-stored messages)
+          seqCursorRef.current = Math.max(
+            seqCursorRef.current,
+            lastFetched,
+            hasMoreAfter ? 0 : delta.lastSeq ?? 0
+          );
+        }
+      } while (catchUpAgainRef.current);
+    } catch (err) {
+      console.error("Failed to catch up on messages:", err);
+    } finally {
+      catchingUpRef.current = false;
+    }
+  }, [sessionId]);
+
+  // Trigger initial loads; the catch-up adds what the history doesn't have yet
   useEffect(() => {
     fetchSessionDetails();
     setPage(0);
-    fetchMessages(0, false);
+    seqCursorRef.current = -1;
+    fetchMessages(0, false).then(catchUp);
     handleMarkAsRead();
-  }, [sessionId, fetchSessionDetails, fetchMessages, handleMarkAsRead]);
+  }, [sessionId, fetchSessionDetails, fetchMessages, handleMarkAsRead, catchUp]);
 
   // Handle incoming real-time socket messages
   useEffect(() => {
     if (lastMessage && lastMessage.sessionId === sessionId) {
-      setMessages((prev) => {
-        // Prevent duplicate appending
-        if (prev.some((m) => m.messageId === lastMessage.messageId)) {
-          return prev;
+      setMessages((prev) => mergeMessages(prev, [lastMessage]));
+
+      // Advance the cursor only over contiguous seqs; a gap means we missed something
+      const seq = lastMessage.seq;
+      if (seq !== null && seqCursorRef.current >= 0 && seq > seqCursorRef.current) {
+        if (seq === seqCursorRef.current + 1) {
+          seqCursorRef.current = seq;
+        } else {
+          catchUp();
         }
-        return [...prev, lastMessage];
-      });
+      }
       
       // Auto mark read if we are viewing the chat
       if (lastMessage.senderUserId !== currentUserId) {
@@ -121,7 +194,7 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
         messagesEndRef.current?.scrollIntoView({ behavior: "smooth" });
       }, 50);
     }
-  }, [lastMessage, sessionId, currentUserId, handleMarkAsRead]);
+  }, [lastMessage, sessionId, currentUserId, handleMarkAsRead, catchUp]);
 
   // Auto-scroll to bottom on first load
   useEffect(() => {
@@ -130,6 +203,23 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
     }
   }, [loadingSession, loadingMessages, page]);
 
+  // Catch up after a reconnect: fetch only what came after the cursor
+  const wasConnectedRef = useRef(false);
+
+  useEffect(() => {
+    wasConnectedRef.current = false;
+  }, [sessionId]);
+
+  useEffect(() => {
+    if (!isConnected) return;
+    if (!wasConnectedRef.current) {
+      // First connect: the initial load catches up
+      wasConnectedRef.current = true;
+      return;
+    }
+    catchUp();
+  }, [isConnected, sessionId, catchUp]);
+
   const loadEarlierMessages = () => {
     if (loadingMessages || !hasMore) return;
     const nextPage = page + 1;
@@ -307,7 +397,7 @@ export function ChatInterface({ sessionId, onClose, readOnly = false }: ChatInte
           {/* Messages */}
           {messages.map((message) => (
             <ChatMessageBubble
-              key={message.messageId}
+              key={messageKey(message)}
               message={message}
               currentUserId={currentUserId}
               onDelete={handleDeleteMessage}
@@ -44,7 +44,8 @@ export function ChatMessageBubble({
   };
 
   const handleDelete = async () => {
-    if (deleting) return;
+    // Not stored yet (server-side batching): nothing to delete by ID
+    if (deleting || message.messageId === null) return;
     setDeleting(true);
     try {
       await onDelete(message.messageId);
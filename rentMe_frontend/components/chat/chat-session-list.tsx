@@ -1,9 +1,9 @@
 "use client";
 
-import { useEffect, useState, useCallback } from "react";
+import { useEffect, useRef, useState, useCallback } from "react";
 import { useAuth } from "@/contexts/AuthContext";
-import { getMySessions, getAllSessionsSystemWide, markAsRead } from "@/services/chat.service";
-import { ChatSessionResponseDTO } from "@/types/chat";
+import { getMySessions, getAllSessionsSystemWide, markAsRead, syncChats } from "@/services/chat.service";
+import { ChatMessageResponseDTO, ChatSessionDeltaDTO, ChatSessionResponseDTO } from "@/types/chat";
 import { Avatar, AvatarFallback } from "@/components/ui/avatar";
 import { Badge } from "@/components/ui/badge";
 import { Skeleton } from "@/components/ui/skeleton";
@@ -12,6 +12,16 @@ import { formatDistanceToNow, parseISO } from "date-fns";
 import { MessageSquare, Car, AlertCircle } from "lucide-react";
 import { cn } from "@/lib/utils";
 
+// How often the list picks up new messages and read changes (POST /chat/sync)
+const SYNC_INTERVAL_MS = 30000;
+
+// Same as the server's inbox preview
+function previewOf(message: ChatMessageResponseDTO): string {
+  if (message.messageType === "IMAGE") return "[Image]";
+  if (message.messageType === "LOCATION") return "[Location]";
+  return (message.textContent ?? "").slice(0, 60);
+}
+
 interface ChatSessionListProps {
   selectedSessionId: number | null;
   onSelectSession: (sessionId: number) => void;
@@ -28,6 +38,16 @@ export function ChatSessionList({
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
+  // Sync state: the list as last rendered, the previous sync's syncedAt, read positions by session
+  const sessionsRef = useRef<ChatSessionResponseDTO[]>([]);
+  const syncedAtRef = useRef<string | null>(null);
+  const readSeqsRef = useRef(new Map<number, Pick<ChatSessionDeltaDTO, "readSeq" | "otherReadSeq">>());
+  const syncingRef = useRef(false);
+
+  useEffect(() => {
+    sessionsRef.current = sessions;
+  }, [sessions]);
+
   const fetchSessions = useCallback(async () => {
     try {
       setLoading(true);
@@ -35,7 +55,9 @@ export function ChatSessionList({
       const data = isAdmin
         ? await getAllSessionsSystemWide(0, 50)
         : await getMySessions(0, 50);
-      setSessions(data.data || []);
+      sessionsRef.current = data.data || [];
+      syncedAtRef.current = null;
+      setSessions(sessionsRef.current);
     } catch (err: any) {
       setError(err.message || "Failed to load chat sessions");
     } finally {
@@ -43,10 +65,86 @@ export function ChatSessionList({
     }
   }, [isAdmin]);
 
+  // Only the sessions changed since the previous sync come back. A change the
+  // list can't apply from the delta (new messages in a session it doesn't
+  // show, a deletion, more messages than one response holds) reloads it; the
+  // first sync after a load also returns the sessions past the loaded page.
+  const syncSessions = useCallback(async () => {
+    if (syncingRef.current) return;
+    syncingRef.current = true;
+    try {
+      const cursors = sessionsRef.current.map((s) => ({
+        sessionId: s.sessionId,
+        afterSeq: s.lastSeq ?? 0,
+        ...readSeqsRef.current.get(s.sessionId),
+      }));
+      const deltas: ChatSessionDeltaDTO[] = [];
+      let syncedAt: string | null = null;
+      let afterSessionId: number | null = null;
+      do {
+        const response = await syncChats({
+          sessions: cursors,
+          deletedSince: syncedAtRef.current,
+          afterSessionId,
+        });
+        syncedAt = syncedAt ?? response.syncedAt;
+        deltas.push(...response.sessions);
+        afterSessionId = response.afterSessionId;
+      } while (afterSessionId !== null);
+
+      deltas.forEach((d) =>
+        readSeqsRef.current.set(d.sessionId, { readSeq: d.readSeq, otherReadSeq: d.otherReadSeq })
+      );
+      const known = new Set(sessionsRef.current.map((s) => s.sessionId));
+      const firstSync = syncedAtRef.current === null;
+      const stale = deltas.some((d) =>
+        known.has(d.sessionId)
+          ? d.deletedSeqs.length > 0 || d.hasMore
+          : !firstSync && d.messages.length > 0
+      );
+      if (stale) {
+        await fetchSessions();
+        return;
+      }
+      syncedAtRef.current = syncedAt;
+      const byId = new Map(deltas.map((d) => [d.sessionId, d]));
+      setSessions((prev) =>
+        prev
+          .map((s) => {
+            const delta = byId.get(s.sessionId);
+            if (!delta) return s;
+            const last = delta.messages[delta.messages.length - 1];
+            return {
+              ...s,
+              lastSeq: delta.lastSeq ?? s.lastSeq,
+              unreadCount: delta.unreadCount,
+              ...(last ? { lastMessagePreview: previewOf(last), lastMessageAt: last.createdAt } : {}),
+            };
+          })
+          .sort((a, b) => (b.lastMessageAt ?? "").localeCompare(a.lastMessageAt ?? ""))
+      );
+    } catch (err) {
+      console.error("Failed to sync chat sessions:", err);
+    } finally {
+      syncingRef.current = false;
+    }
+  }, [fetchSessions]);
+
   useEffect(() => {
     fetchSessions();
   }, [fetchSessions]);
 
+  // Admins see every session system-wide; the sync covers the caller's own
+  useEffect(() => {
+    if (isAdmin) return;
+    const timer = setInterval(syncSessions, SYNC_INTERVAL_MS);
+    window.addEventListener("focus", syncSessions);
+    return () => {
+      clearInterval(timer);
+      window.removeEventListener("focus", syncSessions);
+    };
+  }, [isAdmin, syncSessions]);
+
   const handleSessionClick = async (session: ChatSessionResponseDTO) => {
     // If not admin, mark as read first
     if (!isAdmin && session.unreadCount > 0) {
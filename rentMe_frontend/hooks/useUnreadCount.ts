@@ -2,13 +2,16 @@ import { useEffect, useRef, useState, useCallback } from "react";
 import { Client } from "@stomp/stompjs";
 import SockJS from "sockjs-client";
 import { getTotalUnreadCount } from "@/services/chat.service";
-import { WebSocketMessageDTO } from "@/types/chat";
+import { refreshAccessToken } from "@/lib/api/axios";
 
 const WS_URL = process.env.NEXT_PUBLIC_WS_URL || "http://localhost:8080/ws";
+// Polling interval while the push channel is down
+const POLL_INTERVAL_MS = 30000;
 
 export function useUnreadCount() {
   const [unreadCount, setUnreadCount] = useState<number>(0);
   const stompClientRef = useRef<Client | null>(null);
+  const pushConnectedRef = useRef(false);
 
   // Fetch unread count from API
   const fetchUnreadCount = useCallback(async () => {
@@ -22,13 +25,18 @@ export function useUnreadCount() {
     }
   }, []);
 
+  // Poll only while the server can't push (not connected yet, reconnecting, or refused)
   useEffect(() => {
     fetchUnreadCount();
-    const timer = setInterval(fetchUnreadCount, 30000);
+    const timer = setInterval(() => {
+      if (!pushConnectedRef.current) {
+        fetchUnreadCount();
+      }
+    }, POLL_INTERVAL_MS);
     return () => clearInterval(timer);
   }, [fetchUnreadCount]);
 
-  // Subscribe to real-time message events to increment count
+  // The server pushes the new total on every change
   useEffect(() => {
     if (typeof window === "undefined") return;
 
@@ -39,9 +47,21 @@ export function useUnreadCount() {
       connectHeaders["Cookie"] = `jwt_token=${token}`;
     }
 
+    // The server rejects a CONNECT whose access token expired; refresh the cookie before reconnecting
+    let connectRejected = false;
+
     const client = new Client({
       webSocketFactory: () => new SockJS(WS_URL, null, { withCredentials: true } as any),
       connectHeaders,
+      beforeConnect: async () => {
+        if (!connectRejected) return;
+        connectRejected = false;
+        try {
+          await refreshAccessToken();
+        } catch (error) {
+          console.error("Failed to refresh the access token before reconnecting:", error);
+        }
+      },
       debug: (msg) => {
         if (process.env.NODE_ENV === "development") {
           console.log("[STOMP Unread Debug]", msg);
@@ -51,14 +71,29 @@ export function useUnreadCount() {
     });
 
     client.onConnect = () => {
-      client.subscribe("/user/queue/messages", (message) => {
+      pushConnectedRef.current = true;
+      client.subscribe("/user/queue/unread", (message) => {
         try {
-          // A new message has arrived for the current user in some session
-          setUnreadCount((prev) => prev + 1);
+          const payload = JSON.parse(message.body);
+          if (typeof payload.unreadCount === "number") {
+            setUnreadCount(payload.unreadCount);
+          }
         } catch (e) {
-          console.error("Failed to parse real-time unread message:", e);
+          console.error("Failed to parse real-time unread count:", e);
         }
       });
+      // Catch up on changes missed while disconnected
+      fetchUnreadCount();
+    };
+
+    client.onWebSocketClose = () => {
+      pushConnectedRef.current = false;
+    };
+
+    client.onStompError = () => {
+      if (!client.connected) {
+        connectRejected = true;
+      }
     };
 
     client.activate();
@@ -69,7 +104,7 @@ export function useUnreadCount() {
         client.deactivate();
       }
     };
-  }, []);
+  }, [fetchUnreadCount]);
 
   const resetUnread = useCallback(() => {
     setUnreadCount(0);
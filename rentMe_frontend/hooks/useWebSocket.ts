@@ -3,14 +3,104 @@ import { Client } from "@stomp/stompjs";
 import SockJS from "sockjs-client";
 import { ChatMessageResponseDTO, SendMessageRequestDTO, WebSocketMessageDTO } from "@/types/chat";
 import { sendMessageRest } from "@/services/chat.service";
+import { refreshAccessToken } from "@/lib/api/axios";
 
 const WS_URL = process.env.NEXT_PUBLIC_WS_URL || "http://localhost:8080/ws";
 
+// Sent messages not yet confirmed as stored, across reloads
+const OUTBOX_KEY = "chat_outbox";
+// Resend (same clientMessageId, so the server stores it once) when unconfirmed this long
+const RESEND_AFTER_MS = 10000;
+// Give up on a message after this long
+const OUTBOX_MAX_AGE_MS = 24 * 60 * 60 * 1000;
+
+interface OutboxEntry {
+  sessionId: number;
+  request: SendMessageRequestDTO & { clientMessageId: string };
+  queuedAt: number;
+  lastAttemptAt: number;
+}
+
+interface SendErrorDTO {
+  clientMessageId: string | null;
+  message: string;
+  retryable: boolean;
+}
+
+const readOutbox = (): OutboxEntry[] => {
+  try {
+    return JSON.parse(localStorage.getItem(OUTBOX_KEY) || "[]");
+  } catch {
+    return [];
+  }
+};
+
+const writeOutbox = (entries: OutboxEntry[]) => {
+  localStorage.setItem(OUTBOX_KEY, JSON.stringify(entries));
+};
+
+const saveToOutbox = (entry: OutboxEntry) => {
+  writeOutbox([
+    ...readOutbox().filter((e) => e.request.clientMessageId !== entry.request.clientMessageId),
+    entry,
+  ]);
+};
+
+const removeFromOutbox = (clientMessageId: string) => {
+  writeOutbox(readOutbox().filter((e) => e.request.clientMessageId !== clientMessageId));
+};
+
+// 4xx other than timeout / rate limit / signed out: resending won't help
+// (a 401 that survived the token refresh keeps the message for after the next login)
+const isPermanentFailure = (status?: number) =>
+  status !== undefined && status >= 400 && status < 500 && status !== 401 && status !== 408 && status !== 429;
+
+/**
+ * STOMP connection for one chat session. Sends are at-least-once: each message
+ * stays in a localStorage outbox until the client sees it stored (a copy with a
+ * messageId, broadcast or returned by REST) and is resent over REST until then.
+ * The server may acknowledge and broadcast a message before storing it (its
+ * write-behind mode), so the outbox, not the first broadcast, is what makes a
+ * send survive a server crash.
+ */
 export function useWebSocket(sessionId: number | null) {
   const [isConnected, setIsConnected] = useState(false);
   const [lastMessage, setLastMessage] = useState<ChatMessageResponseDTO | null>(null);
   const stompClientRef = useRef<Client | null>(null);
 
+  const sendOverRest = useCallback(async (entry: OutboxEntry) => {
+    saveToOutbox({ ...entry, lastAttemptAt: Date.now() });
+    try {
+      const response = await sendMessageRest(entry.sessionId, entry.request);
+      if (response.messageId !== null) {
+        removeFromOutbox(entry.request.clientMessageId);
+      }
+      if (entry.sessionId === sessionId) {
+        setLastMessage(response);
+      }
+    } catch (error: any) {
+      if (isPermanentFailure(error?.status)) {
+        removeFromOutbox(entry.request.clientMessageId);
+        throw error;
+      }
+      // Stays in the outbox for the next resend
+      console.error("Failed to send message, will retry:", error);
+    }
+  }, [sessionId]);
+
+  const resendDue = useCallback((unconfirmedFor: number) => {
+    if (!sessionId) return;
+    const now = Date.now();
+    const entries = readOutbox();
+    const live = entries.filter((e) => now - e.queuedAt < OUTBOX_MAX_AGE_MS);
+    if (live.length !== entries.length) {
+      writeOutbox(live);
+    }
+    live
+      .filter((e) => e.sessionId === sessionId && now - e.lastAttemptAt >= unconfirmedFor)
+      .forEach((e) => sendOverRest(e).catch((error) => console.error("Message dropped:", error)));
+  }, [sessionId, sendOverRest]);
+
   useEffect(() => {
     // Only set up Stomp Client if we are on the client-side
     if (typeof window === "undefined") return;
@@ -22,9 +112,21 @@ export function useWebSocket(sessionId: number | null) {
       connectHeaders["Cookie"] = `jwt_token=${token}`;
     }
 
+    // The server rejects a CONNECT whose access token expired; refresh the cookie before reconnecting
+    let connectRejected = false;
+
     const client = new Client({
       webSocketFactory: () => new SockJS(WS_URL, null, { withCredentials: true } as any),
       connectHeaders,
+      beforeConnect: async () => {
+        if (!connectRejected) return;
+        connectRejected = false;
+        try {
+          await refreshAccessToken();
+        } catch (error) {
+          console.error("Failed to refresh the access token before reconnecting:", error);
+        }
+      },
       debug: (msg) => {
         if (process.env.NODE_ENV === "development") {
           console.log("[STOMP Debug]", msg);
@@ -41,11 +143,28 @@ export function useWebSocket(sessionId: number | null) {
         client.subscribe(`/topic/session.${sessionId}`, (message) => {
           try {
             const wsMsg: WebSocketMessageDTO = JSON.parse(message.body);
+            // The stored copy confirms our send
+            if (wsMsg.message.messageId !== null && wsMsg.message.clientMessageId) {
+              removeFromOutbox(wsMsg.message.clientMessageId);
+            }
             setLastMessage(wsMsg.message);
           } catch (e) {
             console.error("Error parsing WebSocket message:", e);
           }
         });
+        client.subscribe("/user/queue/errors", (message) => {
+          try {
+            const error: SendErrorDTO = JSON.parse(message.body);
+            if (!error.retryable && error.clientMessageId) {
+              removeFromOutbox(error.clientMessageId);
+            }
+            console.error("Failed to send message:", error.message);
+          } catch (e) {
+            console.error("Error parsing WebSocket error:", e);
+          }
+        });
+        // Anything published before a disconnect may not have arrived
+        resendDue(0);
       }
     };
 
@@ -55,6 +174,9 @@ export function useWebSocket(sessionId: number | null) {
 
     client.onStompError = (frame) => {
       console.error("STOMP error frame:", frame);
+      if (!client.connected) {
+        connectRejected = true;
+      }
     };
 
     client.activate();
@@ -65,28 +187,38 @@ export function useWebSocket(sessionId: number | null) {
         client.deactivate();
       }
     };
-  }, [sessionId]);
+  }, [sessionId, resendDue]);
+
+  // Resend what stays unconfirmed, connected or not
+  useEffect(() => {
+    if (typeof window === "undefined" || !sessionId) return;
+    resendDue(RESEND_AFTER_MS);
+    const timer = setInterval(() => resendDue(RESEND_AFTER_MS), RESEND_AFTER_MS / 2);
+    return () => clearInterval(timer);
+  }, [sessionId, resendDue]);
 
-  const sendMessage = useCallback(async (req: SendMessageRequestDTO) => {
+  const sendMessage = useCallback(async (message: SendMessageRequestDTO) => {
+    if (!sessionId) {
+      console.warn("No active session ID to send message");
+      return;
+    }
+    // One key for every attempt, over either path, so the server stores the message once
+    const request = { ...message, clientMessageId: message.clientMessageId ?? crypto.randomUUID() };
+    const now = Date.now();
+    const entry: OutboxEntry = { sessionId, request, queuedAt: now, lastAttemptAt: now };
     const client = stompClientRef.current;
-    if (client && client.connected && sessionId) {
+    if (client && client.connected) {
+      saveToOutbox(entry);
       client.publish({
         destination: `/app/chat.send.${sessionId}`,
-        body: JSON.stringify(req),
+        headers: { "client-message-id": request.clientMessageId },
+        body: JSON.stringify(request),
       });
-    } else if (sessionId) {
-      // Fallback to REST API
-      try {
-        const response = await sendMessageRest(sessionId, req);
-        setLastMessage(response);
-      } catch (error) {
-        console.error("Failed to send message via REST fallback:", error);
-        throw error;
-      }
     } else {
-      console.warn("No active session ID to send message");
+      // Fallback to REST API
+      await sendOverRest(entry);
     }
-  }, [sessionId]);
+  }, [sessionId, sendOverRest]);
 
   return {
     isConnected,
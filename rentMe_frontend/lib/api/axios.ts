@@ -26,6 +26,35 @@ const apiClient: AxiosInstance = axios.create({
   withCredentials: true, // Send cookies with requests (for JWT in HTTP-only cookies)
 });
 
+/**
+ * In-flight refresh, shared so that concurrent 401s trigger a single
+ * POST /auth/refresh (the refresh token rotates; a second exchange of the
+ * same token would be rejected).
+ */
+let refreshPromise: Promise<void> | null = null;
+
+export const refreshAccessToken = (): Promise<void> => {
+  if (!refreshPromise) {
+    refreshPromise = axios
+      .post(`${API_BASE_URL}/auth/refresh`, null, { withCredentials: true })
+      .then(() => undefined)
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
+// Another tab or window exchanged the same refresh token first; its new cookies are on the way
+const isRefreshRace = (error: unknown): boolean =>
+  axios.isAxiosError(error) &&
+  error.response?.status === 401 &&
+  error.response.data === "Refresh already in progress";
+
+const REFRESH_RACE_WAIT_MS = 1000;
+
+type RetriableRequestConfig = InternalAxiosRequestConfig & { _retry?: boolean };
+
 /**
  * Request interceptor
  * - Add authorization headers if needed
@@ -55,7 +84,7 @@ apiClient.interceptors.request.use(
  * Response interceptor
  * - Handle successful responses
  * - Handle errors globally (401, 403, 500, etc.)
- * - Refresh token logic can be added here
+ * - On 401, refresh the access token once and retry the request
  */
 apiClient.interceptors.response.use(
   (response: AxiosResponse) => {
@@ -69,7 +98,27 @@ apiClient.interceptors.response.use(
     return response;
   },
   async (error: AxiosError) => {
-    const originalRequest = error.config;
+    const originalRequest = error.config as RetriableRequestConfig | undefined;
+
+    // Access tokens are short-lived: exchange the refresh cookie and retry once
+    if (
+      error.response?.status === 401 &&
+      originalRequest &&
+      !originalRequest._retry &&
+      !originalRequest.url?.includes("/auth/")
+    ) {
+      originalRequest._retry = true;
+      try {
+        await refreshAccessToken();
+        return apiClient(originalRequest);
+      } catch (refreshError) {
+        if (isRefreshRace(refreshError)) {
+          await new Promise((resolve) => setTimeout(resolve, REFRESH_RACE_WAIT_MS));
+          return apiClient(originalRequest);
+        }
+        // Refresh failed - fall through to the normal 401 handling
+      }
+    }
 
     // Handle specific error status codes
     if (error.response) {
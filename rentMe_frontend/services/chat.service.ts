@@ -10,6 +10,9 @@ import {
   CreateSessionRequestDTO,
   SendMessageRequestDTO,
   PageResponse,
+  ChatSessionDeltaDTO,
+  ChatSyncRequestDTO,
+  ChatSyncResponseDTO,
 } from "@/types/chat";
 
 /**
@@ -75,6 +78,39 @@ export const getMessages = async (
   }
 };
 
+/**
+ * GET /chat/sessions/:sessionId/messages?afterSeq= — messages the client doesn't have yet,
+ * and (with deletedSince, the previous delta's syncedAt) messages deleted since
+ */
+export const getMessagesAfter = async (
+  sessionId: number | string,
+  afterSeq: number,
+  deletedSince: string | null = null,
+  size = 50
+): Promise<ChatSessionDeltaDTO> => {
+  try {
+    const response = await apiClient.get<ChatSessionDeltaDTO>(
+      `/chat/sessions/${sessionId}/messages`,
+      { params: { afterSeq, size, ...(deletedSince ? { deletedSince } : {}) } }
+    );
+    return response.data;
+  } catch (error) {
+    throw new Error(getErrorMessage(error));
+  }
+};
+
+/**
+ * POST /chat/sync — changes across the user's sessions since the last sync, a page of sessions at a time
+ */
+export const syncChats = async (data: ChatSyncRequestDTO): Promise<ChatSyncResponseDTO> => {
+  try {
+    const response = await apiClient.post<ChatSyncResponseDTO>("/chat/sync", data);
+    return response.data;
+  } catch (error) {
+    throw new Error(getErrorMessage(error));
+  }
+};
+
 /**
  * POST /chat/sessions/:sessionId/messages — REST fallback to send a message
  */
@@ -88,8 +124,11 @@ export const sendMessageRest = async (
       data
     );
     return response.data;
-  } catch (error) {
-    throw new Error(getErrorMessage(error));
+  } catch (error: any) {
+    // Keep the status: the outbox resends on 5xx / network errors, drops on 4xx
+    throw Object.assign(new Error(getErrorMessage(error)), {
+      status: error?.response?.status as number | undefined,
+    });
   }
 };
 
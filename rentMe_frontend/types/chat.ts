@@ -12,13 +12,19 @@ export interface ChatSessionResponseDTO {
   otherUserEmail: string;
   lastMessagePreview: string | null;
   lastMessageAt: string | null;
+  // Last sequence number in the session (afterSeq for a sync)
+  lastSeq: number | null;
   unreadCount: number;
   createdAt: string;
 }
 
 export interface ChatMessageResponseDTO {
-  messageId: number;
+  // null while the server is still batching the message to the database
+  messageId: number | null;
   sessionId: number;
+  // Position in the session (increasing, gaps possible)
+  seq: number | null;
+  clientMessageId: string | null;
   senderUserId: number;
   senderFullName: string;
   messageType: MessageType;
@@ -42,6 +48,8 @@ export interface SendMessageRequestDTO {
   fileUrl?: string;
   latitude?: number;
   longitude?: number;
+  // Idempotency key: resending with the same key doesn't create a second message
+  clientMessageId?: string;
 }
 
 export interface CreateSessionRequestDTO {
@@ -53,3 +61,46 @@ export interface CreateSessionRequestDTO {
 // Paginated API response wrapper — re-exported from shared type
 export type { PageResponse, PageMeta } from "./pagination";
 
+/** Changes in one session after the client's last seq (GET ...?afterSeq=, POST /chat/sync). */
+export interface ChatSessionDeltaDTO {
+  sessionId: number;
+  lastSeq: number | null;
+  // Includes messages the server hasn't stored yet (messageId null)
+  messages: ChatMessageResponseDTO[];
+  hasMore: boolean;
+  // Messages deleted since the request's deletedSince
+  deletedSeqs: number[];
+  readSeq: number | null;
+  otherReadSeq: number | null;
+  unreadCount: number;
+  // Pass as deletedSince on the next request
+  syncedAt: string;
+}
+
+export interface ChatSyncSessionCursor {
+  sessionId: number;
+  afterSeq: number;
+  readSeq?: number | null;
+  otherReadSeq?: number | null;
+}
+
+export interface ChatSyncRequestDTO {
+  sessions: ChatSyncSessionCursor[];
+  // syncedAt of the previous sync (of its first page)
+  deletedSince?: string | null;
+  // afterSessionId of the previous page, while the server has more
+  afterSessionId?: number | null;
+}
+
+/** Only the sessions that changed since deletedSince. */
+export interface ChatSyncResponseDTO {
+  syncedAt: string;
+  sessions: ChatSessionDeltaDTO[];
+  // Set when more sessions remain: ask again with it
+  afterSessionId: number | null;
+}
+
+/** Stable identity of a message, whether or not it has been stored yet. */
+export function messageKey(message: ChatMessageResponseDTO): string {
+  return message.clientMessageId ?? `id:${message.messageId}`;
+}
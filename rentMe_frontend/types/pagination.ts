@@ -10,9 +10,12 @@
  *     "totalElements": 523,
  *     "totalPages": 27,
  *     "first": true,
- *     "last": false
+ *     "last": false,
+ *     "truncated": false
  *   }
  * }
+ *
+ * truncated: not every match was counted, totalElements is an estimate (text search).
  */
 export interface PageMeta {
   page: number;
@@ -21,6 +24,7 @@ export interface PageMeta {
   totalPages: number;
   first: boolean;
   last: boolean;
+  truncated: boolean;
 }
 
 export interface PageResponse<T> {